@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+
+/**
+ * Measures the overhead of dispatching a trivial function through the FunctionService, on a member
+ * and on a partitioned region with and without a routing filter.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class FunctionExecutionBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class CacheState {
+    private Cache cache;
+    private Region<Integer, Integer> region;
+    private Set<Integer> filter;
+    private Function<Object> memberFunction;
+    private Function<Object> regionFunction;
+
+    @Setup
+    public void setup() {
+      cache = new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+      region = cache.<Integer, Integer>createRegionFactory(RegionShortcut.PARTITION)
+          .create("region");
+      for (int i = 0; i < 1000; i++) {
+        region.put(i, i);
+      }
+      filter = Collections.singleton(1);
+
+      memberFunction = new MemberFunction();
+      regionFunction = new RegionFunction();
+      FunctionService.registerFunction(memberFunction);
+      FunctionService.registerFunction(regionFunction);
+    }
+
+    @TearDown
+    public void tearDown() {
+      cache.close();
+    }
+  }
+
+  @Benchmark
+  public Object onMember(CacheState state) {
+    return FunctionService.onMember(state.cache.getDistributedSystem().getDistributedMember())
+        .execute(state.memberFunction).getResult();
+  }
+
+  @Benchmark
+  public Object onRegion(CacheState state) {
+    return FunctionService.onRegion(state.region).execute(state.regionFunction).getResult();
+  }
+
+  @Benchmark
+  public Object onRegionWithFilter(CacheState state) {
+    return FunctionService.onRegion(state.region).withFilter(state.filter)
+        .execute(state.regionFunction).getResult();
+  }
+
+  public static class MemberFunction implements Function<Object> {
+    @Override
+    public void execute(FunctionContext<Object> context) {
+      context.getResultSender().lastResult(Boolean.TRUE);
+    }
+
+    @Override
+    public String getId() {
+      return "MemberFunction";
+    }
+  }
+
+  public static class RegionFunction implements Function<Object> {
+    @Override
+    public void execute(FunctionContext<Object> context) {
+      RegionFunctionContext regionContext = (RegionFunctionContext) context;
+      context.getResultSender().lastResult(regionContext.getDataSet().size());
+    }
+
+    @Override
+    public String getId() {
+      return "RegionFunction";
+    }
+  }
+}
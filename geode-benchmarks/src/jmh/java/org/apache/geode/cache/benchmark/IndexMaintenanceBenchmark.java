@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.benchmark.RangeQueryWithIndexBenchmark.Value;
+import org.apache.geode.cache.query.QueryService;
+
+/**
+ * Measures the cost an index adds to every update of an indexed region.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class IndexMaintenanceBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class CacheState {
+    @Param({"NONE", "RANGE", "HASH"})
+    public String indexType;
+
+    @Param({"REPLICATE", "PARTITION"})
+    public String regionType;
+
+    @Param({"10000"})
+    public int keyCount;
+
+    private Cache cache;
+    private Region<Integer, Value> region;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+      cache = new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+      region = cache.<Integer, Value>createRegionFactory(RegionShortcut.valueOf(regionType))
+          .create("region");
+
+      QueryService queryService = cache.getQueryService();
+      switch (indexType) {
+        case "NONE":
+          break;
+        case "RANGE":
+          queryService.createIndex("idIndex", "id", "/region");
+          break;
+        case "HASH":
+          queryService.createHashIndex("idIndex", "id", "/region");
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown index type " + indexType);
+      }
+
+      for (int i = 0; i < keyCount; i++) {
+        region.put(i, new Value(i));
+      }
+    }
+
+    @TearDown
+    public void tearDown() {
+      cache.close();
+    }
+  }
+
+  /**
+   * Replaces an entry with a value whose indexed field changed, which forces the index to remove
+   * the old mapping and add a new one.
+   */
+  @Benchmark
+  public Object update(CacheState state) {
+    int key = state.next++ % state.keyCount;
+    return state.region.put(key, new Value(key + state.next));
+  }
+}
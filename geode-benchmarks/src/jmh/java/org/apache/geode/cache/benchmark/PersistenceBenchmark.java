@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+
+/**
+ * Measures the oplog append path of a persistent region and the time it takes to recover a disk
+ * store when the cache is restarted.
+ */
+@Fork(3)
+public class PersistenceBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class AppendState {
+    @Param({"false", "true"})
+    public boolean diskSynchronous;
+
+    @Param({"100", "10000"})
+    public int valueSize;
+
+    private Cache cache;
+    private Region<Integer, byte[]> region;
+    private File diskDir;
+    private byte[] value;
+
+    @Setup
+    public void setup() throws IOException {
+      diskDir = Files.createTempDirectory("PersistenceBenchmark").toFile();
+      cache = createCache();
+      region = createRegion(cache, diskDir, diskSynchronous);
+      value = new byte[valueSize];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+      cache.close();
+      FileUtils.deleteDirectory(diskDir);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class RecoveryState {
+    @Param({"100000"})
+    public int entryCount;
+
+    @Param({"100"})
+    public int valueSize;
+
+    private File diskDir;
+    private Cache cache;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+      diskDir = Files.createTempDirectory("PersistenceBenchmark").toFile();
+      Cache cache = createCache();
+      Region<Integer, byte[]> region = createRegion(cache, diskDir, false);
+      byte[] value = new byte[valueSize];
+      for (int i = 0; i < entryCount; i++) {
+        region.put(i, value);
+      }
+      cache.close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeCache() {
+      if (cache != null) {
+        cache.close();
+        cache = null;
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      FileUtils.deleteDirectory(diskDir);
+    }
+  }
+
+  static Cache createCache() {
+    return new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+  }
+
+  static Region<Integer, byte[]> createRegion(Cache cache, File diskDir,
+      boolean diskSynchronous) {
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir}).create("store");
+    return cache.<Integer, byte[]>createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+        .setDiskStoreName("store").setDiskSynchronous(diskSynchronous).create("region");
+  }
+
+  @Benchmark
+  @Warmup(iterations = 10)
+  @Measurement(iterations = 10)
+  public Object append(AppendState state) {
+    return state.region.put(1, state.value);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public int recover(RecoveryState state) {
+    state.cache = createCache();
+    return createRegion(state.cache, state.diskDir, false).size();
+  }
+}
@@ -14,49 +14,179 @@
  */
 package org.apache.geode.cache.benchmark;
 
-import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
 
-import java.util.stream.IntStream;
-
-import org.apache.geode.cache.Cache;
-import org.apache.geode.cache.CacheFactory;
-import org.apache.geode.cache.Region;
-import org.apache.geode.cache.RegionShortcut;
-import org.apache.geode.cache.query.FunctionDomainException;
-import org.apache.geode.cache.query.NameResolutionException;
-import org.apache.geode.cache.query.Query;
-import org.apache.geode.cache.query.QueryInvocationTargetException;
-import org.apache.geode.cache.query.SelectResults;
-import org.apache.geode.cache.query.TypeMismatchException;
-import org.apache.geode.cache.query.internal.index.AbstractIndex;
+import org.apache.commons.io.FileUtils;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
-@Fork(10)
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionFactory;
+import org.apache.geode.cache.RegionShortcut;
+
+/**
+ * Measures get, put, putAll and destroy against the common region types. The key and value sizes
+ * are parameters; the number of concurrent threads is controlled with the JMH {@code -t} option
+ * (or {@code -PjmhThreads} when run through gradle).
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
 public class RegionOperationBenchmark {
 
+  public static final int PUT_ALL_SIZE = 100;
+
   @State(Scope.Benchmark)
   public static class CacheState {
-    private Region region;
+    @Param({"REPLICATE", "PARTITION", "PARTITION_PERSISTENT", "OFF_HEAP", "OVERFLOW"})
+    public String regionType;
+
+    @Param({"10000"})
+    public int keyCount;
+
+    @Param({"16"})
+    public int keySize;
+
+    @Param({"100", "1000", "10000"})
+    public int valueSize;
+
+    private Cache cache;
+    private Region<String, byte[]> region;
+    private File diskDir;
+    private String[] keys;
+    private byte[] value;
+
+    @Setup
+    public void setup() throws IOException {
+      diskDir = Files.createTempDirectory("RegionOperationBenchmark").toFile();
+      CacheFactory cacheFactory = new CacheFactory().set("mcast-port", "0").set("locators", "");
+      if ("OFF_HEAP".equals(regionType)) {
+        cacheFactory.set("off-heap-memory-size", "1g");
+      }
+      cache = cacheFactory.create();
+      cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir}).create("store");
+
+      region = createRegionFactory().create("region");
+
+      keys = new String[keyCount];
+      for (int i = 0; i < keyCount; i++) {
+        keys[i] = key(i, keySize);
+      }
+      value = new byte[valueSize];
+      for (String key : keys) {
+        region.put(key, value);
+      }
+    }
+
+    private RegionFactory<String, byte[]> createRegionFactory() {
+      switch (regionType) {
+        case "REPLICATE":
+          return cache.createRegionFactory(RegionShortcut.REPLICATE);
+        case "PARTITION":
+          return cache.createRegionFactory(RegionShortcut.PARTITION);
+        case "PARTITION_PERSISTENT":
+          return cache.<String, byte[]>createRegionFactory(RegionShortcut.PARTITION_PERSISTENT)
+              .setDiskStoreName("store");
+        case "OFF_HEAP":
+          return cache.<String, byte[]>createRegionFactory(RegionShortcut.PARTITION)
+              .setOffHeap(true);
+        case "OVERFLOW":
+          // Keep only a tenth of the entries in memory so that reads fault values in from disk
+          return cache.<String, byte[]>createRegionFactory(RegionShortcut.PARTITION)
+              .setDiskStoreName("store").setEvictionAttributes(EvictionAttributes
+                  .createLRUEntryAttributes(Math.max(1, keyCount / 10),
+                      EvictionAction.OVERFLOW_TO_DISK));
+        default:
+          throw new IllegalArgumentException("Unknown region type " + regionType);
+      }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+      cache.close();
+      FileUtils.deleteDirectory(diskDir);
+    }
+  }
+
+  /**
+   * Per thread cursor over the key space, so that concurrent threads do not all hit the same entry
+   */
+  @State(Scope.Thread)
+  public static class KeyCursor {
+    private int next;
+    private String[] keys;
+    private Map<String, byte[]> batch;
 
     @Setup
-    public void setup() {
-      Cache cache = new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+    public void setup(CacheState state) {
+      keys = state.keys;
+      next = (int) (Thread.currentThread().getId() % keys.length);
+      batch = new HashMap<>(PUT_ALL_SIZE * 2);
+    }
+
+    String nextKey() {
+      if (++next >= keys.length) {
+        next = 0;
+      }
+      return keys[next];
+    }
 
-      region = cache.createRegionFactory(RegionShortcut.REPLICATE).create("region");
+    Map<String, byte[]> nextBatch(byte[] value) {
+      batch.clear();
+      for (int i = 0; i < PUT_ALL_SIZE; i++) {
+        batch.put(nextKey(), value);
+      }
+      return batch;
     }
   }
 
+  static String key(int i, int keySize) {
+    StringBuilder key = new StringBuilder(keySize);
+    key.append(i);
+    while (key.length() < keySize) {
+      key.append('-');
+    }
+    return key.toString();
+  }
+
+  @Benchmark
+  public Object get(CacheState state, KeyCursor cursor) {
+    return state.region.get(cursor.nextKey());
+  }
+
+  @Benchmark
+  public Object put(CacheState state, KeyCursor cursor) {
+    return state.region.put(cursor.nextKey(), state.value);
+  }
+
+  @Benchmark
+  public void putAll(CacheState state, KeyCursor cursor) {
+    state.region.putAll(cursor.nextBatch(state.value));
+  }
+
+  /**
+   * Destroys an existing entry and creates it again, so that the region keeps its size for the
+   * whole measurement.
+   */
   @Benchmark
-  @Warmup(iterations = 20)
-  @Measurement(iterations = 20)
-  public Object put(CacheState state) throws NameResolutionException, TypeMismatchException,
-      QueryInvocationTargetException, FunctionDomainException {
-    return state.region.put("key", "value");
+  public Object destroyAndCreate(CacheState state, KeyCursor cursor) {
+    String key = cursor.nextKey();
+    state.region.remove(key);
+    return state.region.put(key, state.value);
   }
 }
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.DataSerializable;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.internal.util.BlobHelper;
+import org.apache.geode.pdx.PdxReader;
+import org.apache.geode.pdx.PdxSerializable;
+import org.apache.geode.pdx.PdxWriter;
+
+/**
+ * Measures encoding and decoding of a DataSerializable and a PDX value with the same fields, which
+ * is the work done for every value that crosses the wire or goes to disk.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class SerializationBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class SerializationState {
+    @Param({"10", "1000"})
+    public int stringLength;
+
+    private Cache cache;
+    private DataSerializableValue dataSerializableValue;
+    private PdxValue pdxValue;
+    private byte[] dataSerializableBytes;
+    private byte[] pdxBytes;
+
+    @Setup
+    public void setup() throws IOException {
+      // PDX needs a cache for its type registry
+      cache = new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+
+      StringBuilder name = new StringBuilder(stringLength);
+      for (int i = 0; i < stringLength; i++) {
+        name.append((char) ('a' + i % 26));
+      }
+      dataSerializableValue = new DataSerializableValue(1, 2L, name.toString());
+      pdxValue = new PdxValue(1, 2L, name.toString());
+      dataSerializableBytes = BlobHelper.serializeToBlob(dataSerializableValue);
+      pdxBytes = BlobHelper.serializeToBlob(pdxValue);
+    }
+
+    @TearDown
+    public void tearDown() {
+      cache.close();
+    }
+  }
+
+  @Benchmark
+  public byte[] dataSerializableEncode(SerializationState state) throws IOException {
+    return BlobHelper.serializeToBlob(state.dataSerializableValue);
+  }
+
+  @Benchmark
+  public Object dataSerializableDecode(SerializationState state)
+      throws IOException, ClassNotFoundException {
+    return BlobHelper.deserializeBlob(state.dataSerializableBytes);
+  }
+
+  @Benchmark
+  public byte[] pdxEncode(SerializationState state) throws IOException {
+    return BlobHelper.serializeToBlob(state.pdxValue);
+  }
+
+  @Benchmark
+  public Object pdxDecode(SerializationState state) throws IOException, ClassNotFoundException {
+    return BlobHelper.deserializeBlob(state.pdxBytes);
+  }
+
+  public static class DataSerializableValue implements DataSerializable {
+    private int id;
+    private long timestamp;
+    private String name;
+
+    public DataSerializableValue() {}
+
+    public DataSerializableValue(int id, long timestamp, String name) {
+      this.id = id;
+      this.timestamp = timestamp;
+      this.name = name;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      out.writeInt(id);
+      out.writeLong(timestamp);
+      out.writeUTF(name);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+      id = in.readInt();
+      timestamp = in.readLong();
+      name = in.readUTF();
+    }
+  }
+
+  public static class PdxValue implements PdxSerializable {
+    private int id;
+    private long timestamp;
+    private String name;
+
+    public PdxValue() {}
+
+    public PdxValue(int id, long timestamp, String name) {
+      this.id = id;
+      this.timestamp = timestamp;
+      this.name = name;
+    }
+
+    @Override
+    public void toData(PdxWriter writer) {
+      writer.writeInt("id", id).writeLong("timestamp", timestamp).writeString("name", name);
+    }
+
+    @Override
+    public void fromData(PdxReader reader) {
+      id = reader.readInt("id");
+      timestamp = reader.readLong("timestamp");
+      name = reader.readString("name");
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark.clientserver;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.ClientCache;
+import org.apache.geode.cache.client.ClientCacheFactory;
+import org.apache.geode.cache.client.ClientRegionShortcut;
+
+/**
+ * Client process forked by {@link ClientServerBenchmark}. Drives a workload from a number of
+ * threads for a fixed duration and reports the merged latency histogram to the coordinator.
+ * Usage: BenchmarkClient &lt;locatorPort&gt; &lt;workload&gt; &lt;threads&gt; &lt;keyCount&gt;
+ * &lt;valueSize&gt; &lt;warmupSeconds&gt; &lt;durationSeconds&gt;
+ */
+public class BenchmarkClient {
+
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+  public static void main(String[] args) throws Exception {
+    int locatorPort = Integer.parseInt(args[0]);
+    Workload workload = Workload.valueOf(args[1]);
+    int threadCount = Integer.parseInt(args[2]);
+    int keyCount = Integer.parseInt(args[3]);
+    int valueSize = Integer.parseInt(args[4]);
+    long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(args[5]));
+    long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(args[6]));
+
+    ClientCache cache = new ClientCacheFactory().addPoolLocator("localhost", locatorPort)
+        .setPoolMaxConnections(-1).set("log-file", "client.log").create();
+    Region<Integer, byte[]> region = cache.<Integer, byte[]>createClientRegionFactory(
+        ClientRegionShortcut.PROXY).create(ClientServerBenchmark.REGION_NAME);
+    byte[] value = new byte[valueSize];
+
+    if (workload == Workload.GET) {
+      for (int key = 0; key < keyCount; key++) {
+        region.put(key, value);
+      }
+    }
+    ClientServerBenchmark.signalReady();
+
+    List<Worker> workers = new ArrayList<>(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      Worker worker = new Worker(region, workload, keyCount, value, warmupNanos, durationNanos);
+      workers.add(worker);
+      worker.start();
+    }
+
+    Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+    long operations = 0;
+    for (Worker worker : workers) {
+      worker.join();
+      histogram.add(worker.histogram);
+      operations += worker.histogram.getTotalCount();
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+    int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+    ClientServerBenchmark.signalResult(operations,
+        Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+
+    cache.close();
+  }
+
+  private static class Worker extends Thread {
+    private final Region<Integer, byte[]> region;
+    private final Workload workload;
+    private final int keyCount;
+    private final byte[] value;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+
+    Worker(Region<Integer, byte[]> region, Workload workload, int keyCount, byte[] value,
+        long warmupNanos, long durationNanos) {
+      super("BenchmarkWorker");
+      this.region = region;
+      this.workload = workload;
+      this.keyCount = keyCount;
+      this.value = value;
+      this.warmupNanos = warmupNanos;
+      this.durationNanos = durationNanos;
+    }
+
+    @Override
+    public void run() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      long start = System.nanoTime();
+      long measureFrom = start + warmupNanos;
+      long end = measureFrom + durationNanos;
+      long now = start;
+      while (now < end) {
+        workload.execute(region, random.nextInt(keyCount), value);
+        long finished = System.nanoTime();
+        if (finished >= measureFrom) {
+          histogram.recordValue(Math.min(finished - now, HIGHEST_TRACKABLE_NANOS));
+        }
+        now = finished;
+      }
+    }
+  }
+}
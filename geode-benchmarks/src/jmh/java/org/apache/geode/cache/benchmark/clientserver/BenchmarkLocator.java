@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark.clientserver;
+
+import java.io.File;
+import java.util.Properties;
+
+import org.apache.geode.distributed.Locator;
+
+/**
+ * Locator process forked by {@link ClientServerBenchmark}. Usage: BenchmarkLocator &lt;port&gt;
+ */
+public class BenchmarkLocator {
+
+  public static void main(String[] args) throws Exception {
+    int port = Integer.parseInt(args[0]);
+
+    Properties properties = new Properties();
+    properties.setProperty("mcast-port", "0");
+    properties.setProperty("enable-cluster-configuration", "false");
+    properties.setProperty("jmx-manager", "false");
+    Locator locator = Locator.startLocatorAndDS(port, new File("locator.log"), properties);
+
+    ClientServerBenchmark.signalReady();
+    ClientServerBenchmark.awaitShutdown();
+    locator.stop();
+  }
+}
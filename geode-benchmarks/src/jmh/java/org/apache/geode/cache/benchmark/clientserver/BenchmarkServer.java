@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark.clientserver;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+import org.apache.geode.cache.server.CacheServer;
+
+/**
+ * Cache server process forked by {@link ClientServerBenchmark}. Usage: BenchmarkServer
+ * &lt;locatorPort&gt; &lt;regionShortcut&gt;
+ */
+public class BenchmarkServer {
+
+  public static void main(String[] args) throws Exception {
+    int locatorPort = Integer.parseInt(args[0]);
+    RegionShortcut shortcut = RegionShortcut.valueOf(args[1]);
+
+    Cache cache = new CacheFactory().set("mcast-port", "0")
+        .set("locators", "localhost[" + locatorPort + "]").set("log-file", "server.log").create();
+    cache.createRegionFactory(shortcut).create(ClientServerBenchmark.REGION_NAME);
+    FunctionService.registerFunction(new SizeFunction());
+
+    CacheServer server = cache.addCacheServer();
+    server.setPort(0);
+    server.start();
+
+    ClientServerBenchmark.signalReady();
+    ClientServerBenchmark.awaitShutdown();
+    cache.close();
+  }
+
+  /**
+   * Returns the local size of the region, so the function workload measures dispatch rather than
+   * the work done by the function itself.
+   */
+  public static class SizeFunction implements Function<Object> {
+    public static final String ID = "ClientServerBenchmarkSizeFunction";
+
+    @Override
+    public void execute(FunctionContext<Object> context) {
+      RegionFunctionContext regionContext = (RegionFunctionContext) context;
+      context.getResultSender().lastResult(regionContext.getDataSet().size());
+    }
+
+    @Override
+    public String getId() {
+      return ID;
+    }
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark.clientserver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Forks a locator, a number of cache servers and a number of client JVMs on localhost, runs a
+ * {@link Workload} from the clients against the servers and reports the aggregate throughput and
+ * latency percentiles.
+ * <p>
+ * Options (all optional): --servers N, --clients N, --threads N (per client), --workload
+ * GET|PUT|PUT_ALL|FUNCTION, --region REGION_SHORTCUT, --keys N, --valueSize BYTES, --warmup
+ * SECONDS, --duration SECONDS, --dir DIRECTORY, --jvmArgs "ARGS".
+ * <p>
+ * Children talk to the coordinator through their standard output: a child prints
+ * {@link #READY} once it is initialized and a client prints {@link #RESULT} followed by its
+ * operation count and its encoded histogram when it is done. Children exit when their standard
+ * input is closed.
+ */
+public class ClientServerBenchmark {
+
+  static final String REGION_NAME = "region";
+  static final String READY = "BENCHMARK_READY";
+  static final String RESULT = "BENCHMARK_RESULT";
+
+  private int servers = 2;
+  private int clients = 2;
+  private int threads = 8;
+  private String workload = Workload.PUT.name();
+  private String regionShortcut = "PARTITION";
+  private int keys = 10000;
+  private int valueSize = 1000;
+  private int warmupSeconds = 30;
+  private int durationSeconds = 60;
+  private File dir;
+  private List<String> jvmArgs = new ArrayList<>();
+
+  private final List<Child> children = new ArrayList<>();
+
+  public static void main(String[] args) throws Exception {
+    ClientServerBenchmark benchmark = new ClientServerBenchmark();
+    benchmark.parseArguments(args);
+    try {
+      benchmark.run();
+    } finally {
+      benchmark.stopChildren();
+    }
+    System.exit(0);
+  }
+
+  private void parseArguments(String[] args) throws IOException {
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 >= args.length) {
+        throw new IllegalArgumentException("Missing value for " + args[i]);
+      }
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--servers":
+          servers = Integer.parseInt(value);
+          break;
+        case "--clients":
+          clients = Integer.parseInt(value);
+          break;
+        case "--threads":
+          threads = Integer.parseInt(value);
+          break;
+        case "--workload":
+          workload = Workload.valueOf(value).name();
+          break;
+        case "--region":
+          regionShortcut = value;
+          break;
+        case "--keys":
+          keys = Integer.parseInt(value);
+          break;
+        case "--valueSize":
+          valueSize = Integer.parseInt(value);
+          break;
+        case "--warmup":
+          warmupSeconds = Integer.parseInt(value);
+          break;
+        case "--duration":
+          durationSeconds = Integer.parseInt(value);
+          break;
+        case "--dir":
+          dir = new File(value);
+          break;
+        case "--jvmArgs":
+          for (String jvmArg : value.trim().split("\\s+")) {
+            jvmArgs.add(jvmArg);
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+    if (dir == null) {
+      dir = Files.createTempDirectory("ClientServerBenchmark").toFile();
+    }
+  }
+
+  private void run() throws Exception {
+    int locatorPort = getFreePort();
+    System.out.println("Starting locator on port " + locatorPort + " in " + dir);
+    fork("locator", BenchmarkLocator.class, String.valueOf(locatorPort)).awaitReady();
+
+    List<Child> serverChildren = new ArrayList<>();
+    for (int i = 0; i < servers; i++) {
+      serverChildren.add(fork("server" + i, BenchmarkServer.class, String.valueOf(locatorPort),
+          regionShortcut));
+    }
+    for (Child server : serverChildren) {
+      server.awaitReady();
+    }
+
+    System.out.println("Running " + workload + " from " + clients + " clients with " + threads
+        + " threads each against " + servers + " servers");
+    List<Child> clientChildren = new ArrayList<>();
+    for (int i = 0; i < clients; i++) {
+      clientChildren.add(fork("client" + i, BenchmarkClient.class, String.valueOf(locatorPort),
+          workload, String.valueOf(threads), String.valueOf(keys), String.valueOf(valueSize),
+          String.valueOf(warmupSeconds), String.valueOf(durationSeconds)));
+    }
+
+    Histogram histogram = null;
+    long operations = 0;
+    for (Child client : clientChildren) {
+      client.awaitResult();
+      Histogram clientHistogram = Histogram.decodeFromCompressedByteBuffer(
+          ByteBuffer.wrap(Base64.getDecoder().decode(client.encodedHistogram)), 0);
+      if (histogram == null) {
+        histogram = clientHistogram;
+      } else {
+        histogram.add(clientHistogram);
+      }
+      operations += client.operations.get();
+    }
+
+    report(operations, histogram);
+  }
+
+  private void report(long operations, Histogram histogram) {
+    System.out.printf("Throughput: %.1f ops/sec%n", (double) operations / durationSeconds);
+    // there is no histogram with 0 clients
+    if (histogram == null || histogram.getTotalCount() == 0) {
+      System.out.println("Latency (us): no operations recorded");
+      return;
+    }
+    System.out.printf("Latency (us): mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+        histogram.getMean() / 1000, histogram.getValueAtPercentile(50) / 1000.0,
+        histogram.getValueAtPercentile(90) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+        histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+  }
+
+  private Child fork(String name, Class<?> main, String... args) throws IOException {
+    File workingDir = new File(dir, name);
+    if (!workingDir.mkdirs() && !workingDir.isDirectory()) {
+      throw new IOException("Unable to create " + workingDir);
+    }
+
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    command.addAll(jvmArgs);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(main.getName());
+    for (String arg : args) {
+      command.add(arg);
+    }
+
+    Process process = new ProcessBuilder(command).directory(workingDir).redirectErrorStream(true)
+        .start();
+    Child child = new Child(name, process);
+    children.add(child);
+    child.start();
+    return child;
+  }
+
+  private void stopChildren() throws InterruptedException {
+    for (Child child : children) {
+      child.stopProcess();
+    }
+  }
+
+  private static int getFreePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  /** Called by a child process once it is ready to take part in the benchmark */
+  static void signalReady() {
+    System.out.println(READY);
+  }
+
+  /** Called by a client process to hand its results to the coordinator */
+  static void signalResult(long operations, String encodedHistogram) {
+    System.out.println(RESULT + " " + operations + " " + encodedHistogram);
+  }
+
+  /** Blocks a child process until the coordinator closes its standard input */
+  static void awaitShutdown() throws IOException {
+    while (System.in.read() != -1) {
+      // ignore anything the coordinator writes
+    }
+  }
+
+  /**
+   * Tracks a forked process, echoing its output and watching for the protocol lines.
+   */
+  private static class Child extends Thread {
+    private final Process process;
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private final CountDownLatch result = new CountDownLatch(1);
+    private final AtomicLong operations = new AtomicLong();
+    private volatile String encodedHistogram;
+
+    Child(String name, Process process) {
+      super(name + "-output");
+      setDaemon(true);
+      this.process = process;
+    }
+
+    @Override
+    public void run() {
+      String prefix = "[" + getName().substring(0, getName().indexOf('-')) + "] ";
+      try (BufferedReader reader =
+          new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.equals(READY)) {
+            ready.countDown();
+          } else if (line.startsWith(RESULT)) {
+            String[] parts = line.split(" ");
+            operations.set(Long.parseLong(parts[1]));
+            encodedHistogram = parts[2];
+            result.countDown();
+          } else {
+            System.out.println(prefix + line);
+          }
+        }
+      } catch (IOException e) {
+        System.out.println(prefix + "lost output: " + e);
+      }
+    }
+
+    void awaitReady() throws InterruptedException {
+      await(ready, "start");
+    }
+
+    void awaitResult() throws InterruptedException {
+      await(result, "report results");
+    }
+
+    private void await(CountDownLatch latch, String what) throws InterruptedException {
+      while (!latch.await(1, TimeUnit.SECONDS)) {
+        if (!process.isAlive()) {
+          throw new IllegalStateException(
+              getName() + " exited with " + process.exitValue() + " before it could " + what);
+        }
+      }
+    }
+
+    void stopProcess() throws InterruptedException {
+      try {
+        process.getOutputStream().close();
+      } catch (IOException ignore) {
+        // the process has already exited
+      }
+      if (!process.waitFor(30, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    }
+  }
+}
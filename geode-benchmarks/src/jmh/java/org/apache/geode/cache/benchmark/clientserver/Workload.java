@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark.clientserver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.FunctionService;
+
+/**
+ * The operations a benchmark client can drive against the servers. Each operation goes through
+ * the client pool, so it exercises the whole OpExecutorImpl/AcceptorImpl/ServerConnection path.
+ */
+public enum Workload {
+  GET {
+    @Override
+    void execute(Region<Integer, byte[]> region, int key, byte[] value) {
+      region.get(key);
+    }
+  },
+  PUT {
+    @Override
+    void execute(Region<Integer, byte[]> region, int key, byte[] value) {
+      region.put(key, value);
+    }
+  },
+  PUT_ALL {
+    @Override
+    void execute(Region<Integer, byte[]> region, int key, byte[] value) {
+      Map<Integer, byte[]> batch = new HashMap<>(PUT_ALL_SIZE * 2);
+      for (int i = 0; i < PUT_ALL_SIZE; i++) {
+        batch.put(key + i, value);
+      }
+      region.putAll(batch);
+    }
+  },
+  FUNCTION {
+    @Override
+    void execute(Region<Integer, byte[]> region, int key, byte[] value) {
+      FunctionService.onRegion(region).execute(BenchmarkServer.SizeFunction.ID).getResult();
+    }
+  };
+
+  static final int PUT_ALL_SIZE = 100;
+
+  abstract void execute(Region<Integer, byte[]> region, int key, byte[] value);
+}
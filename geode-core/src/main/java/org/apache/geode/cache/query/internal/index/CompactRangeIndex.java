@@ -112,6 +112,14 @@ public class CompactRangeIndex extends AbstractIndex {
     return indexStore;
   }
 
+  @Override
+  public void destroy() {
+    super.destroy();
+    if (indexStore instanceof MemoryIndexStore) {
+      ((MemoryIndexStore) indexStore).releaseOffHeapKeys();
+    }
+  }
+
   /**
    * Get the index type
    * 
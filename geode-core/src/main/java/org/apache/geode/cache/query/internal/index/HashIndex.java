@@ -108,6 +108,12 @@ public class HashIndex extends AbstractIndex {
    */
   private ConcurrentMap<Object, Object> entryToValuesMap = null;
 
+  /**
+   * Moves the keys held by the reverse map off-heap when the region is off-heap, null if the keys
+   * stay on heap. The HashIndexSet itself only holds region entries.
+   */
+  private final OffHeapIndexKeys offHeapKeys;
+
   private boolean indexOnRegionKeys = false;
 
   private boolean indexOnValues = false;
@@ -137,7 +143,9 @@ public class HashIndex extends AbstractIndex {
     if (IndexManager.isObjectModificationInplace()) {
       entryToValuesMap = new ConcurrentHashMap(ra.getInitialCapacity(), ra.getLoadFactor(),
           ra.getConcurrencyLevel());
+      offHeapKeys = OffHeapIndexKeys.forRegion(region);
     } else {
+      offHeapKeys = null;
       if (entryToOldKeysMap == null) {
         entryToOldKeysMap = new ThreadLocal<Object2ObjectOpenHashMap>();
       }
@@ -198,7 +206,7 @@ public class HashIndex extends AbstractIndex {
           Object oldKey = null;
           if (IndexManager.isObjectModificationInplace()
               && this.entryToValuesMap.containsKey(entry)) {
-            oldKey = this.entryToValuesMap.get(entry);
+            oldKey = OffHeapIndexKeys.toHeapKey(this.entryToValuesMap.get(entry));
           } else if (!IndexManager.isObjectModificationInplace()
               && this.entryToOldKeysMap != null) {
             Map oldKeyMap = this.entryToOldKeysMap.get();
@@ -227,7 +235,8 @@ public class HashIndex extends AbstractIndex {
       if (indexSlot >= 0) {
         // Update the reverse map
         if (IndexManager.isObjectModificationInplace()) {
-          this.entryToValuesMap.put(entry, newKey);
+          this.entryToValuesMap.put(entry,
+              this.offHeapKeys == null ? newKey : this.offHeapKeys.toStoredKey(newKey));
         }
         if (newKey != null && oldKey != null) {
           removeFromEntriesSet(oldKey, entry, false, indexSlot);
@@ -244,7 +253,7 @@ public class HashIndex extends AbstractIndex {
   private Object getOldKey(RegionEntry entry) throws TypeMismatchException {
     Object oldKey = null;
     if (IndexManager.isObjectModificationInplace() && this.entryToValuesMap.containsKey(entry)) {
-      oldKey = this.entryToValuesMap.get(entry);
+      oldKey = OffHeapIndexKeys.toHeapKey(this.entryToValuesMap.get(entry));
     } else if (!IndexManager.isObjectModificationInplace() && this.entryToOldKeysMap != null) {
       Map oldKeyMap = this.entryToOldKeysMap.get();
       if (oldKeyMap != null) {
@@ -318,6 +327,14 @@ public class HashIndex extends AbstractIndex {
     }
   }
 
+  @Override
+  public void destroy() {
+    super.destroy();
+    if (offHeapKeys != null) {
+      offHeapKeys.releaseAll();
+    }
+  }
+
   // // IndexProtocol interface implementation
   public boolean clear() throws QueryException {
     throw new UnsupportedOperationException("Not yet implemented");
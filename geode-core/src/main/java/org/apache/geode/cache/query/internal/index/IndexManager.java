@@ -136,6 +136,35 @@ public class IndexManager {
   public static final boolean RANGEINDEX_ONLY = Boolean.valueOf(
       System.getProperty(DistributionConfig.GEMFIRE_PREFIX + "index.RANGEINDEX_ONLY", "false"));
 
+  /**
+   * System property to keep the keys of indexes on off-heap regions in off-heap memory, so that the
+   * heap does not grow with the number of indexed values.
+   */
+  public static final boolean OFF_HEAP_INDEX_KEYS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.OFF_HEAP_KEYS");
+
+  /**
+   * System property to set the length a String index key must have before it is kept off-heap
+   */
+  public static final int OFF_HEAP_INDEX_KEY_MIN_LENGTH =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "index.OFF_HEAP_KEY_MIN_LENGTH", 32);
+
+  /**
+   * System property to set the percentage of off-heap memory that index keys may use. Keys are
+   * also kept on heap when storing them would leave less than this percentage free, so that index
+   * keys never run the member out of off-heap memory.
+   */
+  public static final int OFF_HEAP_INDEX_KEYS_MAX_PERCENT =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "index.OFF_HEAP_KEYS_MAX_PERCENT", 10);
+
+  /**
+   * System property to set how many local buckets of a partitioned region have their indexes
+   * populated concurrently when indexes are created. A value of 1 populates them one at a time.
+   */
+  public static final int INDEX_POPULATE_PARALLELISM =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "index.POPULATE_PARALLELISM",
+          Runtime.getRuntime().availableProcessors());
+
   /** For test purpose only */
   public static boolean TEST_RANGEINDEX_ONLY = false;
   public static final String INDEX_ELEMARRAY_THRESHOLD_PROP = "index_elemarray_threshold";
@@ -15,6 +15,7 @@
 package org.apache.geode.cache.query.internal.index;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -55,8 +56,12 @@ public class MemoryIndexStore implements IndexStore {
    * Map for valueOf(indexedExpression)=>RegionEntries. SortedMap<Object, (RegionEntry |
    * List<RegionEntry>)>. Package access for unit tests.
    */
-  final ConcurrentNavigableMap valueToEntriesMap =
-      new ConcurrentSkipListMap(TypeUtils.getExtendedNumericComparator());
+  final ConcurrentNavigableMap valueToEntriesMap;
+
+  /**
+   * Moves the index keys off-heap when the region is off-heap, null if the keys stay on heap
+   */
+  private final OffHeapIndexKeys offHeapKeys;
 
   // number of keys
   private final AtomicInteger numIndexKeys = new AtomicInteger(0);
@@ -99,6 +104,29 @@ public class MemoryIndexStore implements IndexStore {
     }
     this.internalIndexStats = internalIndexStats;
     this.cache = cache;
+    this.offHeapKeys = OffHeapIndexKeys.forRegion(region);
+    Comparator comparator = TypeUtils.getExtendedNumericComparator();
+    if (this.offHeapKeys != null) {
+      comparator = OffHeapIndexKeys.heapKeyComparator(comparator);
+    }
+    this.valueToEntriesMap = new ConcurrentSkipListMap(comparator);
+  }
+
+  /**
+   * Adds a key to the forward map, moving it off-heap first if the index keeps its keys off-heap
+   *
+   * @return the previous mapping of the key, or null if there was none
+   */
+  private Object putIfAbsent(Object indexKey, RegionEntry re) {
+    if (this.offHeapKeys == null) {
+      return this.valueToEntriesMap.putIfAbsent(indexKey, re);
+    }
+    // only allocate off-heap memory for keys that are not in the index yet
+    Object regionEntries = this.valueToEntriesMap.get(indexKey);
+    if (regionEntries != null) {
+      return regionEntries;
+    }
+    return this.valueToEntriesMap.putIfAbsent(this.offHeapKeys.toStoredKey(indexKey), re);
   }
 
   @Override
@@ -114,7 +142,7 @@ public class MemoryIndexStore implements IndexStore {
       if (IndexManager.isObjectModificationInplace()) {
         // If reverse map get the old index key from reverse map.
         if (this.entryToValuesMap.containsKey(re)) {
-          oldKey = this.entryToValuesMap.get(re);
+          oldKey = OffHeapIndexKeys.toHeapKey(this.entryToValuesMap.get(re));
         }
       } else {
         // Check if the old value and new value same.
@@ -145,7 +173,7 @@ public class MemoryIndexStore implements IndexStore {
 
       do {
         retry = false;
-        Object regionEntries = this.valueToEntriesMap.putIfAbsent(indexKey, re);
+        Object regionEntries = putIfAbsent(indexKey, re);
         if (regionEntries == TRANSITIONING_TOKEN) {
           retry = true;
           continue;
@@ -238,7 +266,8 @@ public class MemoryIndexStore implements IndexStore {
           }
 
           if (IndexManager.isObjectModificationInplace()) {
-            this.entryToValuesMap.put(re, indexKey);
+            this.entryToValuesMap.put(re,
+                this.offHeapKeys == null ? indexKey : this.offHeapKeys.toStoredKey(indexKey));
           }
         }
       } while (retry);
@@ -257,7 +286,7 @@ public class MemoryIndexStore implements IndexStore {
   private Object getOldKey(Object newKey, RegionEntry entry) throws TypeMismatchException {
     for (Object mapEntry : valueToEntriesMap.entrySet()) {
       Object regionEntries = ((Entry) mapEntry).getValue();
-      Object indexKey = ((Entry) mapEntry).getKey();
+      Object indexKey = OffHeapIndexKeys.toHeapKey(((Entry) mapEntry).getKey());
       // if more than one index key maps to the same RegionEntry that
       // means there has been an in-place modification
       if (TypeUtils.compare(indexKey, newKey, CompiledComparison.TOK_NE).equals(Boolean.TRUE)) {
@@ -388,7 +417,7 @@ public class MemoryIndexStore implements IndexStore {
   private Object convertToIndexKey(Object key, RegionEntry entry) throws TypeMismatchException {
     Object newKey;
     if (IndexManager.isObjectModificationInplace() && this.entryToValuesMap.containsKey(entry)) {
-      newKey = this.entryToValuesMap.get(entry);
+      newKey = OffHeapIndexKeys.toHeapKey(this.entryToValuesMap.get(entry));
     } else {
       newKey = TypeUtils.indexKeyFor(key);
     }
@@ -539,6 +568,15 @@ public class MemoryIndexStore implements IndexStore {
     return ((LocalRegion) this.region).new NonTXEntry(entry);
   }
 
+  /**
+   * Releases the off-heap memory of the keys, for when the index is removed
+   */
+  void releaseOffHeapKeys() {
+    if (this.offHeapKeys != null) {
+      this.offHeapKeys.releaseAll();
+    }
+  }
+
   @Override
   public boolean clear() {
     this.valueToEntriesMap.clear();
@@ -581,7 +619,7 @@ public class MemoryIndexStore implements IndexStore {
       }
       if (mapIterator.hasNext()) {
         Map.Entry currentEntry = mapIterator.next();
-        currKey = currentEntry.getKey();
+        currKey = OffHeapIndexKeys.toHeapKey(currentEntry.getKey());
         if (currKey == IndexManager.NULL || currKey == QueryService.UNDEFINED) {
           return hasNext();
         }
@@ -645,7 +683,7 @@ public class MemoryIndexStore implements IndexStore {
         // set the next entry in the map as current
         Map.Entry currentMapEntry = mapIterator.next();
         // set the index key
-        currKey = currentMapEntry.getKey();
+        currKey = OffHeapIndexKeys.toHeapKey(currentMapEntry.getKey());
         // if the index key in currentIndexEntry is present in the
         // keysToRemove collection or is Undefined or Null
         // skip the current map entry and advance to the
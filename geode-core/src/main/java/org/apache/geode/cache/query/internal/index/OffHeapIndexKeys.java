@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelException;
+import org.apache.geode.OutOfOffHeapMemoryException;
+import org.apache.geode.cache.Region;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+import org.apache.geode.internal.offheap.MemoryAllocator;
+import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
+import org.apache.geode.internal.offheap.StoredObject;
+import org.apache.geode.internal.util.BlobHelper;
+
+/**
+ * Keeps the keys of an index on an off-heap region in off-heap memory. A key is serialized into a
+ * {@link StoredObject} from the region's {@link MemoryAllocator} and the index holds a small
+ * {@link OffHeapIndexKey} in its place, which is deserialized whenever the key is read. Each
+ * {@link OffHeapIndexKey} also keeps the first {@link #PREFIX_LENGTH} characters of the key on
+ * heap, so most comparisons are decided without deserializing it. Only String keys of at least
+ * {@link IndexManager#OFF_HEAP_INDEX_KEY_MIN_LENGTH} characters are moved, all other keys stay on
+ * heap as they are, as are all keys once index keys use
+ * {@link IndexManager#OFF_HEAP_INDEX_KEYS_MAX_PERCENT} of off-heap memory.
+ * <p>
+ * Removing a key from an index does not release its memory right away since a concurrent query
+ * may still be comparing against it. The memory is released once the {@link OffHeapIndexKey} is no
+ * longer reachable, which is detected with a {@link WeakReference} and handled by a daemon thread
+ * shared by all indexes. When the index itself is removed all of the memory is released at once,
+ * and the keys that are still reachable are copied to the heap first.
+ */
+class OffHeapIndexKeys {
+
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of leading characters of a key kept on heap for comparisons
+   */
+  static final int PREFIX_LENGTH = 16;
+
+  /**
+   * The serialized size of the keys of all indexes held in off-heap memory
+   */
+  private static final AtomicLong storedBytes = new AtomicLong();
+
+  private final MemoryAllocator allocator;
+
+  /**
+   * The references must stay reachable until they are enqueued
+   */
+  private final Set<KeyReference> references = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Set once the index is removed, after which keys are no longer stored off-heap
+   */
+  private volatile boolean released;
+
+  OffHeapIndexKeys(MemoryAllocator allocator) {
+    this.allocator = allocator;
+    Releaser.start();
+  }
+
+  /**
+   * @return An instance for the given region, or null if the region is on heap or off-heap index
+   *         keys are turned off with {@link IndexManager#OFF_HEAP_INDEX_KEYS}
+   */
+  static OffHeapIndexKeys forRegion(Region region) {
+    if (!IndexManager.OFF_HEAP_INDEX_KEYS || !region.getAttributes().getOffHeap()) {
+      return null;
+    }
+    MemoryAllocator allocator = ((InternalCache) region.getCache()).getOffHeapStore();
+    return allocator == null ? null : new OffHeapIndexKeys(allocator);
+  }
+
+  /**
+   * Returns the form of an index key to hold in an index.
+   *
+   * @param key the key as evaluated from a region entry
+   * @return an {@link OffHeapIndexKey} if the key is worth storing off-heap, otherwise the key
+   */
+  Object toStoredKey(Object key) {
+    if (this.released || !(key instanceof String)
+        || ((String) key).length() < IndexManager.OFF_HEAP_INDEX_KEY_MIN_LENGTH) {
+      return key;
+    }
+    byte[] blob;
+    try {
+      blob = BlobHelper.serializeToBlob(key);
+    } catch (IOException e) {
+      return key;
+    }
+    if (!reserve(blob.length)) {
+      return key;
+    }
+    StoredObject stored;
+    try {
+      stored = this.allocator.allocateAndInitialize(blob, true, false);
+    } catch (OutOfOffHeapMemoryException e) {
+      storedBytes.addAndGet(-blob.length);
+      return key;
+    }
+    String string = (String) key;
+    OffHeapIndexKey storedKey = new OffHeapIndexKey(stored, string.hashCode(),
+        string.substring(0, Math.min(string.length(), PREFIX_LENGTH)));
+    this.references.add(new KeyReference(this, storedKey, stored, blob.length));
+    return storedKey;
+  }
+
+  /**
+   * Accounts for a key of the given size if index keys stay within their share of off-heap memory
+   * and storing the key leaves that share free. The allocator reports running out of memory to its
+   * listener, which disconnects the member, so the key must not be allocated when that could
+   * happen.
+   *
+   * @return true if the key may be stored off-heap
+   */
+  private boolean reserve(int size) {
+    long limit =
+        this.allocator.getTotalMemory() * IndexManager.OFF_HEAP_INDEX_KEYS_MAX_PERCENT / 100;
+    if (this.allocator.getFreeMemory() - size < limit) {
+      return false;
+    }
+    if (storedBytes.addAndGet(size) > limit) {
+      storedBytes.addAndGet(-size);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Releases the memory of a key that is no longer reachable. Nothing is released if the allocator
+   * the key came from has been closed since, as its memory no longer exists.
+   */
+  private void releaseUnreachable(KeyReference keyRef) {
+    boolean allocatorOpen;
+    try {
+      allocatorOpen = MemoryAllocatorImpl.getAllocator() == this.allocator;
+    } catch (CancelException e) {
+      allocatorOpen = false;
+    }
+    if (this.references.remove(keyRef)) {
+      if (allocatorOpen) {
+        keyRef.stored.release();
+      }
+      storedBytes.addAndGet(-keyRef.size);
+    }
+  }
+
+  /**
+   * Releases the memory of all keys, for when the index is removed. A query that is still using
+   * the index can still read the keys since they are copied to the heap first.
+   */
+  void releaseAll() {
+    this.released = true;
+    for (KeyReference keyRef : this.references) {
+      if (this.references.remove(keyRef)) {
+        OffHeapIndexKey key = keyRef.get();
+        if (key != null) {
+          key.moveToHeap();
+        }
+        keyRef.stored.release();
+        storedBytes.addAndGet(-keyRef.size);
+      }
+    }
+  }
+
+  /**
+   * @return the key held by an index in its heap form
+   */
+  static Object toHeapKey(Object key) {
+    if (key instanceof OffHeapIndexKey) {
+      return ((OffHeapIndexKey) key).getKey();
+    }
+    return key;
+  }
+
+  /**
+   * @return the leading characters of a String key that are known without deserializing it, or
+   *         null if the key is not a String
+   */
+  private static String comparablePrefix(Object key) {
+    if (key instanceof OffHeapIndexKey) {
+      return ((OffHeapIndexKey) key).prefix;
+    }
+    if (key instanceof String) {
+      return (String) key;
+    }
+    return null;
+  }
+
+  /**
+   * @return the sign of the comparison of two String keys if their known leading characters
+   *         differ, otherwise 0
+   */
+  private static int comparePrefixes(String prefix1, String prefix2) {
+    int length = Math.min(prefix1.length(), prefix2.length());
+    for (int i = 0; i < length; i++) {
+      char c1 = prefix1.charAt(i);
+      char c2 = prefix2.charAt(i);
+      if (c1 != c2) {
+        return c1 < c2 ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return a comparator that compares the heap form of off-heap keys. Strings are compared by
+   *         their leading characters first, as {@link String#compareTo} would, and are only
+   *         deserialized if those are equal.
+   */
+  static Comparator heapKeyComparator(final Comparator comparator) {
+    return new Comparator() {
+      @Override
+      public int compare(Object o1, Object o2) {
+        String prefix1 = comparablePrefix(o1);
+        String prefix2 = comparablePrefix(o2);
+        if (prefix1 != null && prefix2 != null) {
+          int result = comparePrefixes(prefix1, prefix2);
+          if (result != 0) {
+            return result;
+          }
+        }
+        return comparator.compare(toHeapKey(o1), toHeapKey(o2));
+      }
+    };
+  }
+
+  /**
+   * An index key stored in off-heap memory. The memory belongs to this instance and is only
+   * released after the instance is unreachable or, once the key has been moved to the heap, when
+   * the index is removed.
+   */
+  static class OffHeapIndexKey {
+
+    private final StoredObject stored;
+
+    private final int hashCode;
+
+    /**
+     * The leading characters of the key
+     */
+    private final String prefix;
+
+    /**
+     * The key, set before the memory is released while this instance is still reachable
+     */
+    private volatile Object heapKey;
+
+    OffHeapIndexKey(StoredObject stored, int hashCode, String prefix) {
+      this.stored = stored;
+      this.hashCode = hashCode;
+      this.prefix = prefix;
+    }
+
+    Object getKey() {
+      Object key = this.heapKey;
+      if (key != null) {
+        return key;
+      }
+      if (this.stored.retain()) {
+        try {
+          // if the key was moved to the heap the memory may already belong to something else
+          key = this.heapKey;
+          return key != null ? key : this.stored.getValueAsDeserializedHeapObject();
+        } finally {
+          this.stored.release();
+        }
+      }
+      return this.heapKey;
+    }
+
+    /**
+     * Copies the key to the heap so that the memory can be released. Must be called while the
+     * memory is still retained for this instance.
+     */
+    void moveToHeap() {
+      this.heapKey = this.stored.getValueAsDeserializedHeapObject();
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      String otherPrefix = comparablePrefix(other);
+      if (otherPrefix != null && comparePrefixes(this.prefix, otherPrefix) != 0) {
+        return false;
+      }
+      return other != null && getKey().equals(toHeapKey(other));
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(getKey());
+    }
+  }
+
+  private static class KeyReference extends WeakReference<OffHeapIndexKey> {
+
+    private final OffHeapIndexKeys owner;
+
+    private final StoredObject stored;
+
+    private final int size;
+
+    KeyReference(OffHeapIndexKeys owner, OffHeapIndexKey key, StoredObject stored, int size) {
+      super(key, Releaser.unreachableKeys);
+      this.owner = owner;
+      this.stored = stored;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Releases the memory of the keys of all indexes once they are no longer reachable, so that
+   * memory is returned even when nothing is written to the indexes anymore
+   */
+  private static class Releaser {
+
+    private static final ReferenceQueue<OffHeapIndexKey> unreachableKeys = new ReferenceQueue<>();
+
+    static {
+      Thread thread = new Thread(
+          LoggingThreadGroup.createThreadGroup("OffHeapIndexKeyReleaser Thread Group", logger),
+          Releaser::run, "OffHeapIndexKeyReleaser");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    /**
+     * Starts the thread, if it has not been started yet
+     */
+    static void start() {
+      // loading the class starts the thread
+    }
+
+    private static void run() {
+      while (true) {
+        Reference<? extends OffHeapIndexKey> ref;
+        try {
+          ref = unreachableKeys.remove();
+        } catch (InterruptedException e) {
+          return;
+        }
+        KeyReference keyRef = (KeyReference) ref;
+        try {
+          keyRef.owner.releaseUnreachable(keyRef);
+        } catch (RuntimeException e) {
+          logger.warn("Could not release the off-heap memory of an index key", e);
+        }
+      }
+    }
+  }
+}
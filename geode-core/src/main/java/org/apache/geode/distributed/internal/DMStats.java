@@ -141,6 +141,12 @@ public interface DMStats {
 
   public void incBatchFlushTime(long start);
 
+  /**
+   * Increments the number of socket writes that sent the messages of several threads, and the
+   * number of messages they sent, by one write of the given number of messages.
+   */
+  public void incCoalescedWrites(int messages);
+
   /**
    * Increments the total number of nanoseconds spent scheduling messages to be processed.
    */
@@ -538,6 +544,21 @@ public interface DMStats {
    */
   public void incSenderBufferSize(int inc, boolean direct);
 
+  /**
+   * Increments the number of direct buffers reused from the buffer pool.
+   */
+  public void incBufferPoolHits();
+
+  /**
+   * Increments the number of direct buffers allocated because the buffer pool had none to reuse.
+   */
+  public void incBufferPoolMisses();
+
+  /**
+   * Sets the number of bytes of direct buffers in the buffer pool and of those taken from it.
+   */
+  public void setBufferPoolBytes(long pooledBytes, long outstandingBytes);
+
   /**
    * @since GemFire 5.0.2.4
    */
@@ -85,6 +85,7 @@ import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 /**
  * The <code>DistributionManager</code> uses a {@link MembershipManager} to distribute
@@ -166,6 +167,15 @@ public class DistributionManager implements DM {
       Integer.getInteger("DistributionManager.INCOMING_QUEUE_THROTTLE",
           (int) (INCOMING_QUEUE_LIMIT * 0.75)).intValue();
 
+  /**
+   * If true, and the JVM supports virtual threads, the normal, high priority, waiting and
+   * partitioned region pools run each message in its own virtual thread. The number of messages
+   * each pool runs at a time is still limited by its MAX_* setting.
+   */
+  public static final boolean VIRTUAL_THREADS =
+      Boolean.getBoolean("DistributionManager.VIRTUAL_THREADS")
+          && VirtualThreadExecutor.isSupported();
+
   /** Throttling based on the Queue byte size */
   public static final double THROTTLE_PERCENT = (double) (Integer
       .getInteger("DistributionManager.SERIAL_QUEUE_THROTTLE_PERCENT", 75).intValue()) / 100;
@@ -188,6 +198,16 @@ public class DistributionManager implements DM {
       Integer.getInteger("DistributionManager.SERIAL_QUEUE_SIZE_THROTTLE",
           (int) (SERIAL_QUEUE_SIZE_LIMIT * THROTTLE_PERCENT)).intValue();
 
+  /**
+   * If true, a serial queue lets in as much as its consumer is seen to process in
+   * SERIAL_QUEUE_TARGET_DRAIN_TIME, within the limits above, and holds back the reader adding to it
+   * only until that much has drained, instead of sleeping in proportion to how full it is.
+   */
+  public static final boolean ADAPTIVE_SERIAL_QUEUE_THROTTLE =
+      Boolean.getBoolean("DistributionManager.ADAPTIVE_SERIAL_QUEUE_THROTTLE");
+  public static final int SERIAL_QUEUE_TARGET_DRAIN_TIME =
+      Integer.getInteger("DistributionManager.SERIAL_QUEUE_TARGET_DRAIN_TIME", 500).intValue();
+
   /** Max number of serial Queue executors, in case of multi-serial-queue executor */
   public static final int MAX_SERIAL_QUEUE_THREAD =
       Integer.getInteger("DistributionManager.MAX_SERIAL_QUEUE_THREAD", 20).intValue();
@@ -417,13 +437,13 @@ public class DistributionManager implements DM {
   protected LoggingThreadGroup threadGroup;
 
   /** Message processing thread pool */
-  private ThreadPoolExecutor threadPool;
+  private ExecutorService threadPool;
 
   /**
    * High Priority processing thread pool, used for initializing messages such as UpdateAttributes
    * and CreateRegion messages
    */
-  private ThreadPoolExecutor highPriorityPool;
+  private ExecutorService highPriorityPool;
 
   /**
    * Waiting Pool, used for messages that may have to wait on something. Use this separate pool with
@@ -431,7 +451,7 @@ public class DistributionManager implements DM {
    * Used for threads that will most likely have to wait for a region to be finished initializing
    * before it can proceed
    */
-  private ThreadPoolExecutor waitingPool;
+  private ExecutorService waitingPool;
 
   private ThreadPoolExecutor prMetaDataCleanupThreadPool;
 
@@ -442,7 +462,7 @@ public class DistributionManager implements DM {
    * @see #SERIAL_EXECUTOR
    */
   private ThreadPoolExecutor partitionedRegionThread;
-  private ThreadPoolExecutor partitionedRegionPool;
+  private ExecutorService partitionedRegionPool;
   private ThreadPoolExecutor functionExecutionThread;
   private ThreadPoolExecutor functionExecutionPool;
 
@@ -661,6 +681,36 @@ public class DistributionManager implements DM {
     }
   }
 
+  /**
+   * Creates a pool that runs each message in its own virtual thread. See {@link #VIRTUAL_THREADS}.
+   *
+   * @param threadCount the stat counting the pool's threads, which here are its running messages
+   */
+  private ExecutorService createVirtualThreadPool(String name, int maxThreads, int queueLimit,
+      IntConsumer threadCount, PoolStatHelper poolHelper, QueueStatHelper queueHelper) {
+    return new VirtualThreadExecutor(name, maxThreads, queueLimit, command -> {
+      threadCount.accept(1);
+      try {
+        ConnectionTable.threadWantsSharedResources();
+        Connection.makeReaderThread();
+        runUntilShutdown(command);
+      } finally {
+        ConnectionTable.releaseThreadsSockets();
+        threadCount.accept(-1);
+      }
+    }, poolHelper, queueHelper);
+  }
+
+  /**
+   * Returns the number of threads running tasks in one of this manager's pools.
+   */
+  static int getActiveCount(ExecutorService pool) {
+    if (pool instanceof VirtualThreadExecutor) {
+      return ((VirtualThreadExecutor) pool).getActiveCount();
+    }
+    return ((ThreadPoolExecutor) pool).getActiveCount();
+  }
+
   void runUntilShutdown(Runnable r) {
     try {
       r.run();
@@ -934,9 +984,15 @@ public class DistributionManager implements DM {
             return thread;
           }
         };
-        ThreadPoolExecutor pool = new PooledExecutorWithDMStats(poolQueue, MAX_THREADS,
-            this.stats.getNormalPoolHelper(), tf);
-        this.threadPool = pool;
+        if (VIRTUAL_THREADS) {
+          this.threadPool = createVirtualThreadPool(
+              LocalizedStrings.DistributionManager_POOLED_MESSAGE_PROCESSOR.toLocalizedString(),
+              MAX_THREADS, INCOMING_QUEUE_LIMIT, this.stats::incNumProcessingThreads,
+              this.stats.getNormalPoolHelper(), this.stats.getOverflowQueueHelper());
+        } else {
+          this.threadPool = new PooledExecutorWithDMStats(poolQueue, MAX_THREADS,
+              this.stats.getNormalPoolHelper(), tf);
+        }
       }
 
 
@@ -973,8 +1029,16 @@ public class DistributionManager implements DM {
             return thread;
           }
         };
-        this.highPriorityPool = new PooledExecutorWithDMStats(poolQueue, MAX_THREADS,
-            this.stats.getHighPriorityPoolHelper(), tf);
+        if (VIRTUAL_THREADS) {
+          this.highPriorityPool = createVirtualThreadPool(
+              LocalizedStrings.DistributionManager_POOLED_HIGH_PRIORITY_MESSAGE_PROCESSOR
+                  .toLocalizedString(),
+              MAX_THREADS, INCOMING_QUEUE_LIMIT, this.stats::incHighPriorityThreads,
+              this.stats.getHighPriorityPoolHelper(), this.stats.getHighPriorityQueueHelper());
+        } else {
+          this.highPriorityPool = new PooledExecutorWithDMStats(poolQueue, MAX_THREADS,
+              this.stats.getHighPriorityPoolHelper(), tf);
+        }
       }
 
 
@@ -1011,8 +1075,17 @@ public class DistributionManager implements DM {
         } else {
           poolQueue = new OverflowQueueWithDMStats(this.stats.getWaitingQueueHelper());
         }
-        this.waitingPool = new PooledExecutorWithDMStats(poolQueue, MAX_WAITING_THREADS,
-            this.stats.getWaitingPoolHelper(), tf);
+        if (VIRTUAL_THREADS) {
+          this.waitingPool = createVirtualThreadPool(
+              LocalizedStrings.DistributionManager_POOLED_WAITING_MESSAGE_PROCESSOR
+                  .toLocalizedString(),
+              MAX_WAITING_THREADS, 0, this.stats::incWaitingThreads,
+              this.stats.getWaitingPoolHelper(), MAX_WAITING_THREADS == Integer.MAX_VALUE ? null
+                  : this.stats.getWaitingQueueHelper());
+        } else {
+          this.waitingPool = new PooledExecutorWithDMStats(poolQueue, MAX_WAITING_THREADS,
+              this.stats.getWaitingPoolHelper(), tf);
+        }
       }
 
       {
@@ -1078,7 +1151,13 @@ public class DistributionManager implements DM {
             return thread;
           }
         };
-        if (MAX_PR_THREADS > 1) {
+        if (MAX_PR_THREADS > 1 && VIRTUAL_THREADS) {
+          this.partitionedRegionPool = createVirtualThreadPool(
+              "PartitionedRegion Message Processor", MAX_PR_THREADS, INCOMING_QUEUE_LIMIT,
+              this.stats::incPartitionedRegionThreads,
+              this.stats.getPartitionedRegionPoolHelper(),
+              this.stats.getPartitionedRegionQueueHelper());
+        } else if (MAX_PR_THREADS > 1) {
           this.partitionedRegionPool = new PooledExecutorWithDMStats(poolQueue, MAX_PR_THREADS,
               this.stats.getPartitionedRegionPoolHelper(), tf);
         } else {
@@ -2119,11 +2198,11 @@ public class DistributionManager implements DM {
    * @param tpe
    * @return true if executor is still active
    */
-  private boolean executorAlive(ThreadPoolExecutor tpe, String name) {
+  private boolean executorAlive(ExecutorService tpe, String name) {
     if (tpe == null) {
       return false;
     } else {
-      int ac = tpe.getActiveCount();
+      int ac = getActiveCount(tpe);
       // boolean result = tpe.getActiveCount() > 0;
       if (ac > 0) {
         if (logger.isDebugEnabled()) {
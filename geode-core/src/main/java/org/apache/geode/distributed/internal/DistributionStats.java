@@ -147,6 +147,9 @@ public class DistributionStats implements DMStats {
   private final static int batchWaitTimeId;
   private final static int batchFlushTimeId;
 
+  private final static int coalescedWritesId;
+  private final static int coalescedWriteMessagesId;
+
   private final static int threadOwnedReceiversId;
   private final static int threadOwnedReceiversId2;
 
@@ -187,6 +190,10 @@ public class DistributionStats implements DMStats {
   private static final int receiverDirectBufferSizeId;
   private static final int receiverHeapBufferSizeId;
   private static final int senderDirectBufferSizeId;
+  private static final int bufferPoolHitsId;
+  private static final int bufferPoolMissesId;
+  private static final int bufferPoolBytesId;
+  private static final int bufferPoolOutstandingBytesId;
   private static final int senderHeapBufferSizeId;
 
   private static final int messagesBeingReceivedId;
@@ -596,6 +603,12 @@ public class DistributionStats implements DMStats {
         f.createLongCounter("batchFlushTime",
             "Total amount of time, in nanoseconds, spent flushing batched messages to the network",
             "nanoseconds"),
+        f.createIntCounter("coalescedWrites",
+            "Total number of socket writes that sent the messages of more than one thread on a shared connection.",
+            "writes"),
+        f.createLongCounter("coalescedWriteMessages",
+            "Total number of messages sent by coalesced socket writes. Divide by coalescedWrites for the average number of messages per coalesced write.",
+            "messages"),
 
         f.createIntGauge("asyncSocketWritesInProgress",
             "Current number of non-blocking socket write calls in progress.", "writes"),
@@ -648,6 +661,18 @@ public class DistributionStats implements DMStats {
         f.createLongGauge("receiverHeapBufferSize", receiverHeapBufferSizeDesc, "bytes"),
         f.createLongGauge("senderDirectBufferSize", senderDirectBufferSizeDesc, "bytes"),
         f.createLongGauge("senderHeapBufferSize", senderHeapBufferSizeDesc, "bytes"),
+        f.createLongCounter("bufferPoolHits",
+            "Total number of direct message buffers that were reused from the buffer pool.",
+            "buffers"),
+        f.createLongCounter("bufferPoolMisses",
+            "Total number of direct message buffers that had to be allocated because the buffer pool had none of the needed size.",
+            "buffers"),
+        f.createLongGauge("bufferPoolBytes",
+            "The number of bytes of direct message buffers in the buffer pool waiting to be reused.",
+            "bytes"),
+        f.createLongGauge("bufferPoolOutstandingBytes",
+            "The number of bytes of direct message buffers taken from the buffer pool and not yet returned.",
+            "bytes"),
         f.createIntGauge("socketLocksInProgress",
             "Current number of threads waiting to lock a socket", "threads", false),
         f.createIntCounter("socketLocks", "Total number of times a socket has been locked.",
@@ -842,6 +867,9 @@ public class DistributionStats implements DMStats {
     batchWaitTimeId = type.nameToId("batchWaitTime");
     batchFlushTimeId = type.nameToId("batchFlushTime");
 
+    coalescedWritesId = type.nameToId("coalescedWrites");
+    coalescedWriteMessagesId = type.nameToId("coalescedWriteMessages");
+
     asyncSocketWritesInProgressId = type.nameToId("asyncSocketWritesInProgress");
     asyncSocketWritesId = type.nameToId("asyncSocketWrites");
     asyncSocketWriteRetriesId = type.nameToId("asyncSocketWriteRetries");
@@ -875,6 +903,10 @@ public class DistributionStats implements DMStats {
     receiverHeapBufferSizeId = type.nameToId("receiverHeapBufferSize");
     senderDirectBufferSizeId = type.nameToId("senderDirectBufferSize");
     senderHeapBufferSizeId = type.nameToId("senderHeapBufferSize");
+    bufferPoolHitsId = type.nameToId("bufferPoolHits");
+    bufferPoolMissesId = type.nameToId("bufferPoolMisses");
+    bufferPoolBytesId = type.nameToId("bufferPoolBytes");
+    bufferPoolOutstandingBytesId = type.nameToId("bufferPoolOutstandingBytes");
 
     socketLocksInProgressId = type.nameToId("socketLocksInProgress");
     socketLocksId = type.nameToId("socketLocks");
@@ -2068,6 +2100,19 @@ public class DistributionStats implements DMStats {
     }
   }
 
+  public void incCoalescedWrites(int messages) {
+    stats.incInt(coalescedWritesId, 1);
+    stats.incLong(coalescedWriteMessagesId, messages);
+  }
+
+  public int getCoalescedWrites() {
+    return stats.getInt(coalescedWritesId);
+  }
+
+  public long getCoalescedWriteMessages() {
+    return stats.getLong(coalescedWriteMessagesId);
+  }
+
   public void incUcastRetransmits() {
     stats.incInt(ucastRetransmitsId, 1);
   }
@@ -2114,6 +2159,27 @@ public class DistributionStats implements DMStats {
     }
   }
 
+  public void incBufferPoolHits() {
+    stats.incLong(bufferPoolHitsId, 1);
+  }
+
+  public void incBufferPoolMisses() {
+    stats.incLong(bufferPoolMissesId, 1);
+  }
+
+  public void setBufferPoolBytes(long pooledBytes, long outstandingBytes) {
+    stats.setLong(bufferPoolBytesId, pooledBytes);
+    stats.setLong(bufferPoolOutstandingBytesId, outstandingBytes);
+  }
+
+  public long getBufferPoolHits() {
+    return stats.getLong(bufferPoolHitsId);
+  }
+
+  public long getBufferPoolMisses() {
+    return stats.getLong(bufferPoolMissesId);
+  }
+
   public void incMessagesBeingReceived(boolean newMsg, int bytes) {
     if (newMsg) {
       stats.incInt(messagesBeingReceivedId, 1);
@@ -583,6 +583,9 @@ public class LonerDistributionManager implements DM {
     @Override
     public void incBatchFlushTime(long start) {}
 
+    @Override
+    public void incCoalescedWrites(int messages) {}
+
     @Override
     public void incUcastWriteBytes(int bytesWritten) {}
 
@@ -784,6 +787,15 @@ public class LonerDistributionManager implements DM {
     @Override
     public void incSenderBufferSize(int inc, boolean direct) {}
 
+    @Override
+    public void incBufferPoolHits() {}
+
+    @Override
+    public void incBufferPoolMisses() {}
+
+    @Override
+    public void setBufferPoolBytes(long pooledBytes, long outstandingBytes) {}
+
     @Override
     public long startSocketLock() {
       return 0;
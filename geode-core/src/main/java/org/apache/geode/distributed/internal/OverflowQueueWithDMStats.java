@@ -46,7 +46,7 @@ public class OverflowQueueWithDMStats extends LinkedBlockingQueue {
       this.stats.add();
       return true;
     } else {
-      postRemove(e);
+      postAddFailed(e);
       return false;
     }
   }
@@ -58,7 +58,7 @@ public class OverflowQueueWithDMStats extends LinkedBlockingQueue {
       this.stats.add();
       return true;
     } else {
-      postRemove(e);
+      postAddFailed(e);
       return false;
     }
   }
@@ -75,7 +75,7 @@ public class OverflowQueueWithDMStats extends LinkedBlockingQueue {
       this.stats.add();
     } finally {
       if (!didOp) {
-        postRemove(e);
+        postAddFailed(e);
       }
     }
   }
@@ -96,7 +96,7 @@ public class OverflowQueueWithDMStats extends LinkedBlockingQueue {
       }
     } finally {
       if (!didOp) {
-        postRemove(e);
+        postAddFailed(e);
       }
     }
   }
@@ -168,6 +168,14 @@ public class OverflowQueueWithDMStats extends LinkedBlockingQueue {
     // do nothing in this class. sub-classes can override
   }
 
+  /**
+   * Called if the specified object was not added to this queue after {@link #preAdd} or
+   * {@link #preAddInterruptibly} was called for it. By default it is treated as removed.
+   */
+  protected void postAddFailed(Object o) {
+    postRemove(o);
+  }
+
   /**
    * Called after the specified object is removed from this queue.
    */
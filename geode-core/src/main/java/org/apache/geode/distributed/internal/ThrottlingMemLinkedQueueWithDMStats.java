@@ -17,6 +17,7 @@ package org.apache.geode.distributed.internal;
 
 import org.apache.geode.distributed.internal.DistributionStats;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An instance of ThrottlingMemLinkedQueue allows the instantiator to specify a maximum queue
@@ -26,6 +27,14 @@ import java.util.*;
  * size is less than M. If the size of the queue is between B and M, the add will block with a sleep
  * time that is at least 1 millisecond, and is proportional to the size of the queue.
  *
+ * With {@link DistributionManager#ADAPTIVE_SERIAL_QUEUE_THROTTLE} the queue instead hands out
+ * credits. It measures how fast its consumer drains it while it has a backlog and allows as much to
+ * be queued as the consumer can drain in {@link DistributionManager#SERIAL_QUEUE_TARGET_DRAIN_TIME}
+ * milliseconds, but never more than M nor less than a quarter of B. An add that would go past that
+ * waits until enough has been removed, and is woken as soon as it has. So a fast consumer is not
+ * held to B, and the reader of a slow one is slowed to the consumer's pace rather than by sleeps.
+ * An add to an empty queue never waits.
+ *
  * ThrottlingMemLinkedQueue objects can currently hold only Sizeable objects. Inserting other types
  * of objects will cause class cast exceptions to be thrown on put/take.
  *
@@ -51,14 +60,57 @@ public class ThrottlingMemLinkedQueueWithDMStats extends OverflowQueueWithDMStat
   /** The current memory footprint of the queue */
   private volatile int memSize;
 
+  /** How often the drain rate is sampled */
+  private static final long RATE_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /** The longest an add waits for credit before checking again */
+  private static final long MAX_CREDIT_WAIT_MILLIS = 100;
+
+  /** True if adds are admitted by credits rather than throttled with sleeps */
+  private final boolean adaptive;
+
+  /** The time the credits should take to drain */
+  private final long targetDrainNanos;
+
+  /** Guards the fields below, and memSize when adaptive */
+  private final Object creditLock = new Object();
+
+  /** Bytes removed per nanosecond while the queue has a backlog, or 0 if not yet known */
+  private double byteRate;
+
+  /** Elements removed per nanosecond while the queue has a backlog, or 0 if not yet known */
+  private double removeRate;
+
+  private long sampleBytes;
+
+  private long sampleRemoves;
+
+  private long sampleNanos;
+
+  /** The time of the last remove if the queue still had elements after it, otherwise 0 */
+  private long lastRemoveTime;
+
+  /** The number of adds waiting for credit */
+  private int waiters;
+
   /** Creates a new instance of ThrottlingMessageQueue */
   public ThrottlingMemLinkedQueueWithDMStats(int maxMemSize, int startThrottleMemSize, int maxSize,
       int startThrottleSize, ThrottledMemQueueStatHelper stats) {
+    this(maxMemSize, startThrottleMemSize, maxSize, startThrottleSize, stats,
+        DistributionManager.ADAPTIVE_SERIAL_QUEUE_THROTTLE,
+        TimeUnit.MILLISECONDS.toNanos(DistributionManager.SERIAL_QUEUE_TARGET_DRAIN_TIME));
+  }
+
+  ThrottlingMemLinkedQueueWithDMStats(int maxMemSize, int startThrottleMemSize, int maxSize,
+      int startThrottleSize, ThrottledMemQueueStatHelper stats, boolean adaptive,
+      long targetDrainNanos) {
     super(maxSize, stats);
     this.maxMemSize = maxMemSize;
     this.startThrottleMemSize = startThrottleMemSize;
     this.maxSize = maxSize;
     this.startThrottleSize = startThrottleSize;
+    this.adaptive = adaptive;
+    this.targetDrainNanos = targetDrainNanos;
   }
 
   /** Check if the sender needs to be throttled. Returns the time the sender should sleep */
@@ -108,6 +160,10 @@ public class ThrottlingMemLinkedQueueWithDMStats extends OverflowQueueWithDMStat
   protected void preAddInterruptibly(Object o) throws InterruptedException {
     if (Thread.interrupted())
       throw new InterruptedException();
+    if (this.adaptive) {
+      awaitCredit(o);
+      return;
+    }
     // only block threads reading from tcp stream sockets. blocking udp
     // will cause retransmission storms
     if (!DistributionMessage.isPreciousThread()) {
@@ -140,8 +196,136 @@ public class ThrottlingMemLinkedQueueWithDMStats extends OverflowQueueWithDMStat
     }
   }
 
+  /**
+   * Waits until the queue has credit for the given element and then counts its size. Like the
+   * throttling sleep, an interrupt ends the wait but still lets the element be added.
+   */
+  private void awaitCredit(Object o) {
+    int mem = o instanceof Sizeable ? ((Sizeable) o).getSize() : 0;
+    ThrottledMemQueueStatHelper stats = (ThrottledMemQueueStatHelper) this.stats;
+    boolean interrupted = false;
+    synchronized (this.creditLock) {
+      // only block threads reading from tcp stream sockets. blocking udp
+      // will cause retransmission storms
+      if (!DistributionMessage.isPreciousThread() && !hasCredit(mem)) {
+        long startTime = DistributionStats.getStatTime();
+        this.waiters++;
+        try {
+          do {
+            this.creditLock.wait(MAX_CREDIT_WAIT_MILLIS);
+          } while (!hasCredit(mem));
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        } finally {
+          this.waiters--;
+        }
+        if (DistributionStats.enableClockStats) {
+          stats.throttleTime(DistributionStats.getStatTime() - startTime);
+        }
+        stats.incThrottleCount();
+      }
+      if (mem > 0) {
+        stats.addMem(mem);
+        this.memSize += mem;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Returns true if an element of the given size can be added now; holds creditLock */
+  private boolean hasCredit(int mem) {
+    int size = size();
+    if (size == 0) {
+      // an element larger than the credit must still get in eventually
+      return true;
+    }
+    return this.memSize + mem <= getCredit(this.byteRate, this.startThrottleMemSize,
+        this.maxMemSize) && size < getCredit(this.removeRate, this.startThrottleSize, this.maxSize);
+  }
+
+  /**
+   * Returns what the consumer can drain in the target time at the given rate, bounded by the limit
+   * and a quarter of the throttle point, or the throttle point if the rate is not known yet.
+   */
+  private long getCredit(double rate, int startThrottle, int limit) {
+    if (rate == 0) {
+      return startThrottle;
+    }
+    long credit = (long) (rate * this.targetDrainNanos);
+    return Math.max(startThrottle / 4, Math.min(credit, limit));
+  }
+
+  /**
+   * Counts the removal of the given element towards the drain rate and wakes the adds waiting for
+   * credit. Only the time between removes made while the queue had a backlog is counted, since
+   * otherwise the consumer was waiting for elements rather than processing them.
+   */
+  private void creditRemoved(Object o) {
+    int mem = o instanceof Sizeable ? ((Sizeable) o).getSize() : 0;
+    synchronized (this.creditLock) {
+      if (mem > 0) {
+        this.memSize -= mem;
+        ((ThrottledMemQueueStatHelper) this.stats).removeMem(mem);
+      }
+      long now = System.nanoTime();
+      if (this.lastRemoveTime != 0) {
+        this.sampleBytes += mem;
+        this.sampleRemoves++;
+        this.sampleNanos += now - this.lastRemoveTime;
+        if (this.sampleNanos >= RATE_SAMPLE_NANOS) {
+          this.byteRate = average(this.byteRate, (double) this.sampleBytes / this.sampleNanos);
+          this.removeRate =
+              average(this.removeRate, (double) this.sampleRemoves / this.sampleNanos);
+          this.sampleBytes = 0;
+          this.sampleRemoves = 0;
+          this.sampleNanos = 0;
+        }
+      }
+      this.lastRemoveTime = size() > 0 ? now : 0;
+      if (this.waiters > 0) {
+        this.creditLock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Takes back the size counted for an element whose add failed. That says nothing about how fast
+   * the consumer drains the queue, so unlike a remove it is not sampled.
+   */
+  private void creditFailedAdd(Object o) {
+    int mem = o instanceof Sizeable ? ((Sizeable) o).getSize() : 0;
+    synchronized (this.creditLock) {
+      if (mem > 0) {
+        this.memSize -= mem;
+        ((ThrottledMemQueueStatHelper) this.stats).removeMem(mem);
+      }
+      if (this.waiters > 0) {
+        this.creditLock.notifyAll();
+      }
+    }
+  }
+
+  private static double average(double rate, double sample) {
+    return rate == 0 ? sample : rate * 0.75 + sample * 0.25;
+  }
+
+  @Override
+  protected void postAddFailed(Object o) {
+    if (o != null && this.adaptive) {
+      creditFailedAdd(o);
+      return;
+    }
+    super.postAddFailed(o);
+  }
+
   @Override
   protected void postRemove(Object o) {
+    if (o != null && this.adaptive) {
+      creditRemoved(o);
+      return;
+    }
     if (o != null && (o instanceof Sizeable)) {
       int mem = ((Sizeable) o).getSize();
       this.memSize -= mem;
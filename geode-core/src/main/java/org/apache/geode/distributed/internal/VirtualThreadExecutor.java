@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.geode.internal.i18n.LocalizedStrings;
+
+/**
+ * An executor that runs each task in a new virtual thread. A task blocked on a lock or a reply
+ * then holds no platform thread, so blocked tasks do not keep the others from running. Like the
+ * pool it replaces, it runs at most a given number of tasks at a time; the tasks beyond that wait
+ * for a permit in their own virtual thread, which counts as being queued. When a queue limit is
+ * given, {@link #execute} blocks while that many tasks are waiting, like a full bounded queue.
+ * <p>
+ * Virtual threads need Java 21 or later, so they are created by reflection. Use
+ * {@link #isSupported} before creating one.
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+  private static final Method OF_VIRTUAL;
+  private static final Method NAME;
+  private static final Method FACTORY;
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method factory = null;
+    try {
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      name = builder.getMethod("name", String.class, long.class);
+      factory = builder.getMethod("factory");
+    } catch (ReflectiveOperationException | LinkageError ignore) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    FACTORY = factory;
+  }
+
+  private final ThreadFactory threadFactory;
+
+  /** Tasks wrap themselves in this to set up and clean up their thread */
+  private final Consumer<Runnable> runner;
+
+  private final Semaphore runPermits;
+
+  /** Limits the number of waiting tasks, or null if there is no limit */
+  private final Semaphore queuePermits;
+
+  private final PoolStatHelper poolStats;
+
+  private final QueueStatHelper queueStats;
+
+  private final AtomicInteger activeCount = new AtomicInteger();
+
+  /** The threads that have not finished yet */
+  private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+  /** The number of threads started or about to be started that have not finished yet */
+  private final AtomicInteger threadCount = new AtomicInteger();
+
+  private volatile boolean shutdown;
+
+  /**
+   * Returns true if this JVM supports virtual threads.
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * @param name the prefix of the name of each thread, followed by a number
+   * @param maxThreads the most tasks that can run at a time
+   * @param queueLimit the most tasks that can wait to run, or 0 for no limit
+   * @param runner runs each task in its thread, setting up and cleaning up around it
+   * @param poolStats told when a task starts and ends, may be null
+   * @param queueStats told when a task starts and stops waiting, may be null
+   */
+  public VirtualThreadExecutor(String name, int maxThreads, int queueLimit,
+      Consumer<Runnable> runner, PoolStatHelper poolStats, QueueStatHelper queueStats) {
+    this(createVirtualThreadFactory(name), maxThreads, queueLimit, runner, poolStats, queueStats);
+  }
+
+  /**
+   * Creates an executor that runs each task in a thread of the given factory instead of a virtual
+   * thread
+   */
+  VirtualThreadExecutor(ThreadFactory threadFactory, int maxThreads, int queueLimit,
+      Consumer<Runnable> runner, PoolStatHelper poolStats, QueueStatHelper queueStats) {
+    this.threadFactory = threadFactory;
+    this.runner = runner;
+    // fair, so that tasks start in the order they were executed like in a pool's queue
+    this.runPermits = new Semaphore(maxThreads, true);
+    this.queuePermits = queueLimit > 0 ? new Semaphore(queueLimit) : null;
+    this.poolStats = poolStats;
+    this.queueStats = queueStats;
+  }
+
+  private static ThreadFactory createVirtualThreadFactory(String name) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Virtual threads need Java 21 or later");
+    }
+    try {
+      Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name, 0L);
+      return (ThreadFactory) FACTORY.invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      throw new UnsupportedOperationException("Unable to create virtual threads", e);
+    }
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    if (this.shutdown) {
+      throw new RejectedExecutionException(
+          LocalizedStrings.PooledExecutorWithDMStats_EXECUTOR_HAS_BEEN_SHUTDOWN
+              .toLocalizedString());
+    }
+    if (this.queuePermits != null) {
+      try {
+        this.queuePermits.acquire();
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        RejectedExecutionException e = new RejectedExecutionException(
+            LocalizedStrings.PooledExecutorWithDMStats_INTERRUPTED.toLocalizedString());
+        e.initCause(ie);
+        throw e;
+      }
+    }
+    if (this.queueStats != null) {
+      this.queueStats.add();
+    }
+    this.threadCount.incrementAndGet();
+    boolean started = false;
+    try {
+      this.threadFactory.newThread(() -> run(task)).start();
+      started = true;
+    } finally {
+      if (!started) {
+        dequeued();
+        threadFinished();
+      }
+    }
+  }
+
+  private void run(Runnable task) {
+    Thread thread = Thread.currentThread();
+    this.threads.add(thread);
+    try {
+      try {
+        if (this.shutdown && thread.isInterrupted()) {
+          // shutdownNow drops the waiting tasks
+          return;
+        }
+        this.runPermits.acquire();
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        dequeued();
+      }
+      try {
+        this.activeCount.incrementAndGet();
+        if (this.poolStats != null) {
+          this.poolStats.startJob();
+        }
+        this.runner.accept(task);
+      } finally {
+        if (this.poolStats != null) {
+          this.poolStats.endJob();
+        }
+        this.activeCount.decrementAndGet();
+        this.runPermits.release();
+      }
+    } finally {
+      this.threads.remove(thread);
+      threadFinished();
+    }
+  }
+
+  private void dequeued() {
+    if (this.queueStats != null) {
+      this.queueStats.remove();
+    }
+    if (this.queuePermits != null) {
+      this.queuePermits.release();
+    }
+  }
+
+  private void threadFinished() {
+    if (this.threadCount.decrementAndGet() == 0 && this.shutdown) {
+      synchronized (this.threadCount) {
+        this.threadCount.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of tasks that are running, not counting those waiting to run.
+   */
+  public int getActiveCount() {
+    return this.activeCount.get();
+  }
+
+  @Override
+  public void shutdown() {
+    this.shutdown = true;
+    synchronized (this.threadCount) {
+      this.threadCount.notifyAll();
+    }
+  }
+
+  /**
+   * Interrupts all of the threads. The tasks still waiting to run are dropped rather than returned
+   * since they have already been handed to their thread.
+   */
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown();
+    for (Thread thread : this.threads) {
+      thread.interrupt();
+    }
+    return new ArrayList<>();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return this.shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return this.shutdown && this.threadCount.get() == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long end = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (this.threadCount) {
+      while (!isTerminated()) {
+        long remaining = end - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this.threadCount, remaining);
+      }
+    }
+    return true;
+  }
+}
@@ -80,7 +80,9 @@ import org.apache.geode.internal.offheap.annotations.Released;
 import org.apache.geode.internal.offheap.annotations.Retained;
 import org.apache.geode.internal.offheap.annotations.Unretained;
 import org.apache.geode.internal.sequencelog.EntryLogger;
+import org.apache.geode.internal.util.concurrent.ConcurrentMapWithReusableEntries;
 import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap;
+import org.apache.geode.internal.util.concurrent.PrimitiveKeyConcurrentHashMap;
 
 /**
  * Abstract implementation of {@link RegionMap}that has all the common behavior.
@@ -90,8 +92,17 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap;
 public abstract class AbstractRegionMap implements RegionMap {
   private static final Logger logger = LogService.getLogger();
 
+  /**
+   * Regions whose key constraint is Integer or Long store their entries in a
+   * {@link PrimitiveKeyConcurrentHashMap} instead of a {@link CustomEntryConcurrentHashMap} if this
+   * is "true", or if it is a comma separated list of region paths that contains theirs. The buckets
+   * of a partitioned region follow the path of the partitioned region.
+   */
+  static final String PRIMITIVE_KEY_MAPS =
+      System.getProperty(DistributionConfig.GEMFIRE_PREFIX + "PRIMITIVE_KEY_MAPS", "");
+
   /** The underlying map for this region. */
-  protected CustomEntryConcurrentHashMap<Object, Object> map;
+  protected ConcurrentMapWithReusableEntries<Object, Object> map;
 
   /**
    * This test hook is used to force the conditions during entry destroy. This hook is used by
@@ -110,12 +121,43 @@ public abstract class AbstractRegionMap implements RegionMap {
     // do nothing
   }
 
+  private static boolean usesPrimitiveKeyMap(LocalRegion region,
+      InternalRegionArguments internalRegionArgs) {
+    if (PRIMITIVE_KEY_MAPS.isEmpty()) {
+      return false;
+    }
+    if (PRIMITIVE_KEY_MAPS.equalsIgnoreCase("true")) {
+      return true;
+    }
+    String path = region.getFullPath();
+    if (internalRegionArgs != null && internalRegionArgs.getPartitionedRegion() != null) {
+      path = internalRegionArgs.getPartitionedRegion().getFullPath();
+    }
+    for (String regionPath : PRIMITIVE_KEY_MAPS.split(",")) {
+      if (regionPath.trim().equals(path)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   protected void initialize(Object owner, Attributes attr,
       InternalRegionArguments internalRegionArgs, boolean isLRU) {
     _setAttributes(attr);
     setOwner(owner);
-    _setMap(createConcurrentMap(attr.initialCapacity, attr.loadFactor, attr.concurrencyLevel, false,
-        new AbstractRegionEntry.HashRegionEntryCreator()));
+    PrimitiveKeyConcurrentHashMap.KeyType primitiveKeyType = null;
+    if (owner instanceof LocalRegion
+        && usesPrimitiveKeyMap((LocalRegion) owner, internalRegionArgs)) {
+      primitiveKeyType = PrimitiveKeyConcurrentHashMap.KeyType
+          .forKeyConstraint(((LocalRegion) owner).getKeyConstraint());
+    }
+    if (primitiveKeyType != null) {
+      _setMap(new PrimitiveKeyConcurrentHashMap<>(primitiveKeyType, attr.initialCapacity,
+          attr.loadFactor, attr.concurrencyLevel));
+    } else {
+      _setMap(createConcurrentMap(attr.initialCapacity, attr.loadFactor, attr.concurrencyLevel,
+          false, new AbstractRegionEntry.HashRegionEntryCreator()));
+    }
 
     boolean isDisk;
     boolean withVersioning;
@@ -190,11 +232,11 @@ public abstract class AbstractRegionMap implements RegionMap {
     this.owner = r;
   }
 
-  protected CustomEntryConcurrentHashMap<Object, Object> _getMap() {
+  protected ConcurrentMapWithReusableEntries<Object, Object> _getMap() {
     return this.map;
   }
 
-  protected void _setMap(CustomEntryConcurrentHashMap<Object, Object> m) {
+  protected void _setMap(ConcurrentMapWithReusableEntries<Object, Object> m) {
     this.map = m;
   }
 
@@ -554,7 +596,8 @@ public abstract class AbstractRegionMap implements RegionMap {
     // so that they will be in the correct order.
     OrderedTombstoneMap<RegionEntry> tombstones = new OrderedTombstoneMap<RegionEntry>();
     if (rm != null) {
-      CustomEntryConcurrentHashMap<Object, Object> other = ((AbstractRegionMap) rm)._getMap();
+      ConcurrentMapWithReusableEntries<Object, Object> other =
+          ((AbstractRegionMap) rm)._getMap();
       Iterator<Map.Entry<Object, Object>> it = other.entrySetWithReusableEntries().iterator();
       while (it.hasNext()) {
         Map.Entry<Object, Object> me = it.next();
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Checksum;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Puts disk store files into a backup and records them in the backup's {@link BackupManifest}.
+ * Files are hard linked when possible. Otherwise they are copied, computing their checksum on the
+ * way, at no more than a maximum number of bytes per second shared by all the threads copying for
+ * the backup.
+ */
+class BackupFileCopier {
+  private static final Logger logger = LogService.getLogger();
+
+  private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+  private final BackupManifest manifest;
+
+  /** Nanoseconds it takes to copy one byte at the maximum rate, or 0 if it is unlimited. */
+  private final double nanosPerByte;
+
+  /** The time at which the bytes copied so far are paid for at the maximum rate. */
+  private long nextCopyTime;
+
+  BackupFileCopier(BackupManifest manifest, long maxBytesPerSecond) {
+    this.manifest = manifest;
+    this.nanosPerByte =
+        maxBytesPerSecond > 0 ? (double) TimeUnit.SECONDS.toNanos(1) / maxBytesPerSecond : 0;
+  }
+
+  BackupManifest getManifest() {
+    return this.manifest;
+  }
+
+  /**
+   * Puts the given file into the given directory of the backup, if it exists.
+   */
+  void backupFile(File targetDir, File file) throws IOException {
+    if (file == null || !file.exists()) {
+      return;
+    }
+    Path target = targetDir.toPath().resolve(file.getName());
+    try {
+      Files.createLink(target, file.toPath());
+      this.manifest.add(target.toFile(), Files.size(target), BackupManifest.NO_CHECKSUM);
+      return;
+    } catch (IOException | UnsupportedOperationException e) {
+      logger.warn("Unable to create hard link for + {}. Reverting to file copy", targetDir);
+    }
+    copy(file.toPath(), target);
+  }
+
+  /**
+   * Records a file that was already copied into the backup.
+   */
+  void copied(File file) throws IOException {
+    Path path = file.toPath();
+    this.manifest.add(file, Files.size(path), BackupManifest.checksum(path));
+  }
+
+  private void copy(Path source, Path target) throws IOException {
+    Checksum checksum = Crc32C.create();
+    byte[] buffer = new byte[COPY_BUFFER_SIZE];
+    long length = 0;
+    try (InputStream in = Files.newInputStream(source);
+        OutputStream out = Files.newOutputStream(target)) {
+      int count;
+      while ((count = in.read(buffer)) > 0) {
+        pace(count);
+        out.write(buffer, 0, count);
+        checksum.update(buffer, 0, count);
+        length += count;
+      }
+    }
+    target.toFile().setLastModified(source.toFile().lastModified());
+    this.manifest.add(target.toFile(), length, checksum.getValue());
+  }
+
+  /**
+   * Sleeps until the given number of bytes may be copied without going over the maximum rate.
+   */
+  private void pace(int bytes) throws IOException {
+    if (this.nanosPerByte <= 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    long start;
+    synchronized (this) {
+      start = Math.max(this.nextCopyTime, now);
+      this.nextCopyTime = start + (long) (bytes * this.nanosPerByte);
+    }
+    if (start > now) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(start - now);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while copying backup files", e);
+      }
+    }
+  }
+}
@@ -17,16 +17,25 @@ package org.apache.geode.internal.cache;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URL;
-import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.Logger;
@@ -46,6 +55,7 @@ import org.apache.geode.internal.cache.persistence.BackupInspector;
 import org.apache.geode.internal.cache.persistence.RestoreScript;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
 
 /**
  * This class manages the state an logic to backup a single cache.
@@ -61,12 +71,21 @@ public class BackupManager implements MembershipListener {
   private static final String USER_FILES = "user";
   private static final String CONFIG_DIRECTORY = "config";
 
+  /**
+   * The most megabytes per second copied into a backup by this member, shared by all the disk
+   * directories being copied in parallel. Files that can be hard linked are not counted. 0, the
+   * default, does not limit the rate.
+   */
+  static final long MAX_MB_PER_SECOND =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "backup.maxMBPerSecond", 0);
+
   private final Map<DiskStoreImpl, DiskStoreBackup> backupByDiskStore = new HashMap<>();
   private final RestoreScript restoreScript = new RestoreScript();
   private final InternalDistributedMember sender;
   private final InternalCache cache;
   private final CountDownLatch allowDestroys = new CountDownLatch(1);
   private volatile boolean isCancelled = false;
+  private BackupFileCopier fileCopier;
 
   public BackupManager(InternalDistributedMember sender, InternalCache gemFireCache) {
     this.sender = sender;
@@ -104,6 +123,8 @@ public class BackupManager implements MembershipListener {
       }
       HashSet<PersistentID> persistentIds = new HashSet<>();
       File backupDir = getBackupDir(targetDir);
+      fileCopier =
+          new BackupFileCopier(new BackupManifest(backupDir), MAX_MB_PER_SECOND * 1024 * 1024);
 
       // Make sure our baseline is okay for this member
       baselineDir = checkBaseline(baselineDir);
@@ -134,15 +155,19 @@ public class BackupManager implements MembershipListener {
 
       allowDestroys.countDown();
 
-      for (Map.Entry<DiskStoreImpl, DiskStoreBackup> entry : backupByDiskStore.entrySet()) {
-        DiskStoreImpl diskStore = entry.getKey();
-        completeBackup(diskStore, entry.getValue());
+      completeBackups(backupByDiskStore);
+      for (DiskStoreImpl diskStore : backupByDiskStore.keySet()) {
         diskStore.getStats().endBackup();
         persistentIds.add(diskStore.getPersistentID());
       }
 
       if (!backupByDiskStore.isEmpty()) {
         backupAdditionalFiles(backupDir);
+        BackupManifest manifest = fileCopier.getManifest();
+        manifest.write();
+        for (Map.Entry<File, Long> entry : manifest.getLengths().entrySet()) {
+          restoreScript.addLengthTest(entry.getKey(), entry.getValue());
+        }
         restoreScript.generate(backupDir);
         File incompleteFile = new File(backupDir, INCOMPLETE_BACKUP_FILE);
         if (!incompleteFile.delete()) {
@@ -247,36 +272,108 @@ public class BackupManager implements MembershipListener {
 
   /**
    * Copy the oplogs to the backup directory. This is the final step of the backup process. The
-   * oplogs we copy are defined in the startDiskStoreBackup method.
+   * oplogs we copy are defined in the startDiskStoreBackup method. The oplogs in each disk
+   * directory are copied by a thread of their own so that backing up several disks is not limited
+   * by the speed of one.
    */
-  private void completeBackup(DiskStoreImpl diskStore, DiskStoreBackup backup) throws IOException {
-    if (backup == null) {
-      return;
-    }
+  private void completeBackups(Map<DiskStoreImpl, DiskStoreBackup> backups) throws IOException {
+    ExecutorService executor = null;
     try {
-      // Wait for oplogs to be unpreblown before backing them up.
-      diskStore.waitForDelayedWrites();
+      Map<File, List<Callable<Void>>> copiesByDirectory = new LinkedHashMap<>();
+      for (Map.Entry<DiskStoreImpl, DiskStoreBackup> entry : backups.entrySet()) {
+        DiskStoreBackup backup = entry.getValue();
+        if (backup == null) {
+          continue;
+        }
+        // Wait for oplogs to be unpreblown before backing them up.
+        entry.getKey().waitForDelayedWrites();
+
+        for (Oplog oplog : backup.getPendingBackup()) {
+          DirectoryHolder directory = oplog.getDirectoryHolder();
+          List<Callable<Void>> copies = copiesByDirectory.get(directory.getDir());
+          if (copies == null) {
+            copies = new ArrayList<>();
+            copiesByDirectory.put(directory.getDir(), copies);
+          }
+          copies.add(() -> {
+            // Copy the oplog to the destination directory
+            File backupDir = getBackupDir(backup.getTargetDir(), directory.getArrayIndex());
+            // TODO prpersist - We could probably optimize this to *move* the files
+            // that we know are supposed to be deleted.
+            backupOplog(backupDir, oplog);
+
+            // Allow the oplog to be deleted, and process any pending delete
+            backup.backupFinished(oplog);
+            return null;
+          });
+        }
+      }
+      if (copiesByDirectory.isEmpty()) {
+        return;
+      }
 
-      // Backup all of the oplogs
-      for (Oplog oplog : backup.getPendingBackup()) {
-        if (isCancelled()) {
-          break;
+      executor = createCopyExecutor(copiesByDirectory.size());
+      List<Future<Void>> futures = new ArrayList<>();
+      for (List<Callable<Void>> copies : copiesByDirectory.values()) {
+        futures.add(executor.submit(() -> {
+          for (Callable<Void> copy : copies) {
+            if (isCancelled()) {
+              break;
+            }
+            copy.call();
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while copying oplogs");
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException) cause;
+          }
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IOException(cause);
         }
-        // Copy theoplog to the destination directory
-        int index = oplog.getDirectoryHolder().getArrayIndex();
-        File backupDir = getBackupDir(backup.getTargetDir(), index);
-        // TODO prpersist - We could probably optimize this to *move* the files
-        // that we know are supposed to be deleted.
-        backupOplog(backupDir, oplog);
-
-        // Allow the oplog to be deleted, and process any pending delete
-        backup.backupFinished(oplog);
       }
     } finally {
-      backup.cleanup();
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      for (DiskStoreBackup backup : backups.values()) {
+        if (backup != null) {
+          backup.cleanup();
+        }
+      }
     }
   }
 
+  private ExecutorService createCopyExecutor(int threads) {
+    final ThreadGroup threadGroup =
+        LoggingThreadGroup.createThreadGroup("Backup Copy Threads", logger);
+    ThreadFactory threadFactory = new ThreadFactory() {
+      private final AtomicInteger threadCount = new AtomicInteger(1);
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread =
+            new Thread(threadGroup, runnable, "BackupCopy-" + this.threadCount.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+    return Executors.newFixedThreadPool(threads, threadFactory);
+  }
+
   /**
    * Returns the dir name used to back up this DiskStore's directories under. The name is a
    * concatenation of the disk store name and id.
@@ -351,6 +448,7 @@ public class BackupManager implements MembershipListener {
           // copy the init file
           File firstDir = getBackupDir(targetDir, diskStore.getInforFileDirIndex());
           diskStore.getDiskInitFile().copyTo(firstDir);
+          fileCopier.copied(new File(firstDir, diskStore.getDiskInitFile().getIFFile().getName()));
           diskStore.getPersistentOplogSet().forceRoll(null);
 
           if (logger.isDebugEnabled()) {
@@ -572,24 +670,14 @@ public class BackupManager implements MembershipListener {
 
   private void backupOplog(File targetDir, Oplog oplog) throws IOException {
     File crfFile = oplog.getCrfFile();
-    backupFile(targetDir, crfFile);
+    fileCopier.backupFile(targetDir, crfFile);
 
     File drfFile = oplog.getDrfFile();
-    backupFile(targetDir, drfFile);
+    fileCopier.backupFile(targetDir, drfFile);
 
     oplog.finishKrf();
     File krfFile = oplog.getKrfFile();
-    backupFile(targetDir, krfFile);
-  }
-
-  private void backupFile(File targetDir, File file) throws IOException {
-    if (file != null && file.exists())
-      try {
-        Files.createLink(targetDir.toPath().resolve(file.getName()), file.toPath());
-      } catch (IOException | UnsupportedOperationException e) {
-        logger.warn("Unable to create hard link for + {}. Reverting to file copy", targetDir);
-        FileUtils.copyFileToDirectory(file, targetDir);
-      }
+    fileCopier.backupFile(targetDir, krfFile);
   }
 
   private String cleanSpecialCharacters(String string) {
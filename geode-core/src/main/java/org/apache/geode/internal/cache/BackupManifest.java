@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Checksum;
+
+/**
+ * The list of disk store files in a member's backup directory with their length and, for the files
+ * that were copied, their CRC32C checksum. Files that were hard linked to the originals have no
+ * checksum since computing it would mean reading them. The manifest is written to
+ * {@link #FILE_NAME} in the backup directory and can be checked with {@link #verify}.
+ * <p>
+ * Each line of the file is the length, the checksum in hex or {@code -} and the path of the file
+ * relative to the backup directory, separated by spaces.
+ */
+public class BackupManifest {
+
+  public static final String FILE_NAME = "BACKUP_MANIFEST";
+
+  static final long NO_CHECKSUM = -1;
+
+  private static final String NO_CHECKSUM_TEXT = "-";
+
+  private final Path backupDir;
+
+  /** The length and checksum of each file, by path relative to the backup directory */
+  private final Map<String, long[]> entries = new TreeMap<>();
+
+  public BackupManifest(File backupDir) {
+    this.backupDir = backupDir.toPath().toAbsolutePath();
+  }
+
+  /**
+   * Records a file of the backup.
+   *
+   * @param checksum the CRC32C of the file or {@link #NO_CHECKSUM}
+   */
+  public synchronized void add(File file, long length, long checksum) {
+    this.entries.put(relativePath(file), new long[] {length, checksum});
+  }
+
+  /**
+   * Returns the length of each recorded file, by file.
+   */
+  public synchronized Map<File, Long> getLengths() {
+    Map<File, Long> result = new TreeMap<>();
+    for (Map.Entry<String, long[]> entry : this.entries.entrySet()) {
+      result.put(this.backupDir.resolve(entry.getKey()).toFile(), entry.getValue()[0]);
+    }
+    return result;
+  }
+
+  public synchronized void write() throws IOException {
+    try (BufferedWriter writer =
+        Files.newBufferedWriter(this.backupDir.resolve(FILE_NAME))) {
+      for (Map.Entry<String, long[]> entry : this.entries.entrySet()) {
+        long checksum = entry.getValue()[1];
+        writer.write(entry.getValue()[0] + " "
+            + (checksum == NO_CHECKSUM ? NO_CHECKSUM_TEXT : Long.toHexString(checksum)) + " "
+            + entry.getKey());
+        writer.newLine();
+      }
+    }
+  }
+
+  /**
+   * Checks the files of the given backup directory against its manifest.
+   *
+   * @return a description of each file that is missing or differs, empty if all match
+   * @throws IOException if the manifest cannot be read
+   */
+  public static List<String> verify(File backupDir) throws IOException {
+    Path dir = backupDir.toPath();
+    List<String> problems = new ArrayList<>();
+    for (String line : Files.readAllLines(dir.resolve(FILE_NAME))) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      String[] fields = line.split(" ", 3);
+      if (fields.length != 3) {
+        throw new IOException("Malformed line in " + FILE_NAME + ": " + line);
+      }
+      long length = Long.parseLong(fields[0]);
+      Path file = dir.resolve(fields[2]);
+      if (!Files.exists(file)) {
+        problems.add(fields[2] + " is missing");
+      } else if (Files.size(file) != length) {
+        problems.add(fields[2] + " has length " + Files.size(file) + " instead of " + length);
+      } else if (!fields[1].equals(NO_CHECKSUM_TEXT)
+          && checksum(file) != Long.parseLong(fields[1], 16)) {
+        problems.add(fields[2] + " does not match its checksum");
+      }
+    }
+    return Collections.unmodifiableList(problems);
+  }
+
+  static long checksum(Path file) throws IOException {
+    Checksum checksum = Crc32C.create();
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = Files.newInputStream(file)) {
+      int count;
+      while ((count = in.read(buffer)) > 0) {
+        checksum.update(buffer, 0, count);
+      }
+    }
+    return checksum.getValue();
+  }
+
+  private String relativePath(File file) {
+    // always use / so that the manifest can be checked on another platform
+    return this.backupDir.relativize(file.toPath().toAbsolutePath()).toString()
+        .replace(File.separatorChar, '/');
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Paces the oplog compactor so that copying live entries forward does not compete with foreground
+ * writes for the disk in bursts. The compactor reports every entry it copies with
+ * {@link #copied}, which sleeps as needed to keep the copy rate under a maximum number of bytes per
+ * second and, while synchronous foreground writes are slower than a target latency, backs off
+ * further.
+ * <p>
+ * The compactor holds the compactor locks while it copies, so the throttle sleeps in short slices
+ * and stops as soon as it is told another thread wants one of those locks. The time it did not
+ * sleep is not forgiven: it is paid by later copies or by {@link #pay} between oplogs, once the
+ * locks have been released.
+ * <p>
+ * Both limits are off by default, in which case this never sleeps.
+ */
+class CompactionThrottle {
+
+  /**
+   * The longest the compactor backs off for one entry because foreground writes are slow.
+   */
+  private static final long MAX_LATENCY_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private static final long LATENCY_BACKOFF_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /** The longest single sleep, so that a thread waiting for the compactor is noticed quickly */
+  private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final DiskStoreStats stats;
+
+  /** Nanoseconds it takes to copy one byte at the maximum rate, or 0 if the rate is unlimited. */
+  private final double nanosPerByte;
+
+  private final long targetWriteLatencyNanos;
+
+  /**
+   * The time at which the bytes copied so far are paid for at the maximum rate. Only used by the
+   * compactor thread.
+   */
+  private long nextCopyTime;
+
+  /**
+   * Exponentially weighted moving average of recent synchronous foreground write times.
+   */
+  private volatile long averageWriteNanos;
+
+  CompactionThrottle(long maxBytesPerSecond, long targetWriteLatencyNanos, DiskStoreStats stats) {
+    this.stats = stats;
+    this.nanosPerByte =
+        maxBytesPerSecond > 0 ? (double) TimeUnit.SECONDS.toNanos(1) / maxBytesPerSecond : 0;
+    this.targetWriteLatencyNanos = targetWriteLatencyNanos;
+  }
+
+  /**
+   * Returns true if foreground write times need to be reported with {@link #recordWrite}.
+   */
+  boolean isTrackingWrites() {
+    return this.targetWriteLatencyNanos > 0;
+  }
+
+  /**
+   * Records how long a synchronous foreground write took.
+   */
+  void recordWrite(long nanos) {
+    // racy but only an estimate; weight the newest write by 1/8
+    long average = this.averageWriteNanos;
+    this.averageWriteNanos = average + ((nanos - average) >> 3);
+  }
+
+  /**
+   * Called by the compactor after it copied an entry forward, outside of any entry lock.
+   *
+   * @param preempted returns true when another thread is waiting for a lock the compactor holds,
+   *        in which case this returns without sleeping any further
+   */
+  void copied(int bytes, BooleanSupplier preempted) throws InterruptedException {
+    if (bytes <= 0) {
+      return;
+    }
+    if (this.targetWriteLatencyNanos > 0) {
+      long backoff = 0;
+      while (backoff < MAX_LATENCY_BACKOFF_NANOS
+          && this.averageWriteNanos > this.targetWriteLatencyNanos
+          && !preempted.getAsBoolean()) {
+        sleep(LATENCY_BACKOFF_STEP_NANOS);
+        backoff += LATENCY_BACKOFF_STEP_NANOS;
+        // let the average decay while there are no new writes so an idle disk is not mistaken
+        // for a slow one
+        long average = this.averageWriteNanos;
+        this.averageWriteNanos = average - (average >> 3);
+      }
+    }
+    if (this.nanosPerByte > 0) {
+      long now = System.nanoTime();
+      this.nextCopyTime = Math.max(this.nextCopyTime, now) + (long) (bytes * this.nanosPerByte);
+      pay(preempted);
+    }
+  }
+
+  /**
+   * Sleeps until the bytes copied so far are paid for at the maximum rate, or until preempted.
+   */
+  void pay(BooleanSupplier preempted) throws InterruptedException {
+    if (this.nanosPerByte == 0) {
+      return;
+    }
+    long sleepNanos;
+    while ((sleepNanos = this.nextCopyTime - System.nanoTime()) > 0
+        && !preempted.getAsBoolean()) {
+      sleep(Math.min(sleepNanos, MAX_SLEEP_NANOS));
+    }
+  }
+
+  private void sleep(long nanos) throws InterruptedException {
+    long start = System.nanoTime();
+    TimeUnit.NANOSECONDS.sleep(nanos);
+    this.stats.incCompactionThrottleTime(System.nanoTime() - start);
+  }
+}
@@ -15,6 +15,8 @@
 package org.apache.geode.internal.cache;
 
 import java.io.*;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
 
 /**
  * A data input stream that counts the bytes it plans on reading.
@@ -27,10 +29,26 @@ public class CountingDataInputStream implements DataInput {
   private final long fileLength;
   private long count;
   private final DataInputStream dis;
+  private final Checksum checksum;
 
   public CountingDataInputStream(InputStream is, long fileLength) {
+    this(is, fileLength, null);
+  }
+
+  /**
+   * @param checksum if not null, every byte read is added to it
+   */
+  public CountingDataInputStream(InputStream is, long fileLength, Checksum checksum) {
     this.fileLength = fileLength;
-    this.dis = new DataInputStream(is);
+    this.checksum = checksum;
+    this.dis = new DataInputStream(checksum == null ? is : new CheckedInputStream(is, checksum));
+  }
+
+  /**
+   * Returns the checksum of the bytes read, or null if this stream was created without one.
+   */
+  public Checksum getChecksum() {
+    return this.checksum;
   }
 
   public long getCount() {
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * The CRC32C (Castagnoli) checksum used for oplog records. {@link #create} returns the JDK's
+ * intrinsic implementation when running on Java 9 or later and a table driven one otherwise; both
+ * compute the same value.
+ */
+final class Crc32C implements Checksum {
+
+  private static final Constructor<? extends Checksum> JDK_CRC32C = findJdkCrc32C();
+
+  private static final int[] TABLE = new int[256];
+
+  static {
+    for (int i = 0; i < TABLE.length; i++) {
+      int crc = i;
+      for (int bit = 0; bit < 8; bit++) {
+        crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0x82F63B78 : crc >>> 1;
+      }
+      TABLE[i] = crc;
+    }
+  }
+
+  private int crc = 0xFFFFFFFF;
+
+  /**
+   * Returns a new CRC32C checksum.
+   */
+  static Checksum create() {
+    if (JDK_CRC32C != null) {
+      try {
+        return JDK_CRC32C.newInstance();
+      } catch (ReflectiveOperationException ignore) {
+        // fall back to ours
+      }
+    }
+    return new Crc32C();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Constructor<? extends Checksum> findJdkCrc32C() {
+    try {
+      return (Constructor<? extends Checksum>) Class.forName("java.util.zip.CRC32C")
+          .getConstructor();
+    } catch (ReflectiveOperationException | LinkageError ignore) {
+      return null;
+    }
+  }
+
+  /**
+   * Adds the bytes of the given buffer between the given absolute positions to the checksum without
+   * changing the buffer's position or limit.
+   *
+   * @param scratch used to copy the bytes of a direct buffer
+   */
+  static void update(Checksum checksum, ByteBuffer bb, int from, int to, byte[] scratch) {
+    if (bb.hasArray()) {
+      checksum.update(bb.array(), bb.arrayOffset() + from, to - from);
+      return;
+    }
+    ByteBuffer view = bb.duplicate();
+    view.limit(to);
+    view.position(from);
+    while (view.hasRemaining()) {
+      int length = Math.min(view.remaining(), scratch.length);
+      view.get(scratch, 0, length);
+      checksum.update(scratch, 0, length);
+    }
+  }
+
+  @Override
+  public void update(int b) {
+    this.crc = (this.crc >>> 8) ^ TABLE[(this.crc ^ b) & 0xFF];
+  }
+
+  @Override
+  public void update(byte[] b, int off, int len) {
+    int value = this.crc;
+    for (int i = off; i < off + len; i++) {
+      value = (value >>> 8) ^ TABLE[(value ^ b[i]) & 0xFF];
+    }
+    this.crc = value;
+  }
+
+  @Override
+  public long getValue() {
+    return ~this.crc & 0xFFFFFFFFL;
+  }
+
+  @Override
+  public void reset() {
+    this.crc = 0xFFFFFFFF;
+  }
+}
@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -326,6 +327,14 @@ public class DiskInitFile implements DiskInitFileInterpreter {
    */
   public static final byte IFREC_REGION_CONFIG_ID_90 = 90;
 
+  /**
+   * Written to IF. Records the class of the compressor that compressed values in the oplogs. Byte
+   * Format: variable: compressorClassName (utf) 1: EndOfRecordMarker
+   * 
+   * @since Geode 1.3
+   */
+  public static final byte IFREC_COMPRESSOR_ID = 93;
+
   private final DiskStoreImpl parent;
 
   private final File ifFile;
@@ -360,9 +369,43 @@ public class DiskInitFile implements DiskInitFileInterpreter {
   private int ifLiveRecordCount = 0;
   private int ifTotalRecordCount = 0;
   private boolean compactInProgress;
+  private boolean compactScheduled;
+
+  /**
+   * Records appended under the lock that have not been written to the file yet. They are written,
+   * and forced if metadata writes are synchronous, by a commit once the appending thread has
+   * released the lock, so that records appended concurrently share one write and force.
+   */
+  private final HeapDataOutputStream pendingRecords = new HeapDataOutputStream(Version.CURRENT);
+
+  /**
+   * The number of records appended. Guarded by lock.
+   */
+  private long recordsAppended;
+
+  private final Object commitMonitor = new Object();
+
+  /**
+   * The number of appended records known to be in the file. Guarded by commitMonitor.
+   */
+  private long recordsCommitted;
+
+  private boolean commitInProgress;
+
+  /**
+   * The number of the record the current thread appended last and has not yet waited for.
+   */
+  private final ThreadLocal<Long> pendingRecord = new ThreadLocal<Long>();
+
   // the recovered version
   private Version gfversion;
 
+  /**
+   * The class name of the compressor that compressed values in the oplogs, or null if no values
+   * have been compressed
+   */
+  private String compressorClassName;
+
 
   /**
    * Used to calculate the highest oplog entry id we have seen in a clear entry.
@@ -398,6 +441,113 @@ public class DiskInitFile implements DiskInitFileInterpreter {
       getDiskStore().getBackupLock().unlock();
     }
     this.lock.unlock();
+    if (!this.lock.isHeldByCurrentThread()) {
+      commitPendingRecords();
+    }
+  }
+
+  /**
+   * Waits until the records the current thread appended are in the file. The first waiting thread
+   * becomes the leader of a commit: it writes everything appended so far with one write and, if
+   * metadata writes are synchronous, one force, while the threads that arrive in the meantime wait
+   * for it or for the next commit.
+   */
+  private void commitPendingRecords() {
+    Long recordNumber = this.pendingRecord.get();
+    if (recordNumber == null) {
+      return;
+    }
+    this.pendingRecord.remove();
+    boolean interrupted = false;
+    try {
+      synchronized (this.commitMonitor) {
+        while (this.recordsCommitted < recordNumber && this.commitInProgress) {
+          try {
+            this.commitMonitor.wait();
+          } catch (InterruptedException ignore) {
+            interrupted = true;
+          }
+        }
+        if (this.recordsCommitted >= recordNumber) {
+          return;
+        }
+        this.commitInProgress = true;
+      }
+      try {
+        long written;
+        long records;
+        RandomAccessFile raf;
+        this.lock.lock();
+        try {
+          if (this.closed) {
+            // close wrote out everything that was appended
+            return;
+          }
+          records = this.recordsAppended - getRecordsCommitted();
+          written = writePendingRecords();
+          raf = this.ifRAF;
+        } finally {
+          this.lock.unlock();
+        }
+        if (DiskStoreImpl.SYNC_IF_WRITES) {
+          try {
+            // force outside the lock so that the next commit can append meanwhile
+            raf.getChannel().force(false);
+          } catch (ClosedChannelException ignore) {
+            // a compaction or close replaced the file and forced everything appended so far
+          }
+        }
+        recordsCommitted(written);
+        this.parent.getStats().incInitFileCommits(records);
+      } catch (IOException ex) {
+        DiskAccessException dae = new DiskAccessException(
+            LocalizedStrings.DiskInitFile_FAILED_INIT_FILE_WRITE_BECAUSE_0.toLocalizedString(ex),
+            this.parent);
+        this.parent.handleDiskAccessException(dae);
+        throw dae;
+      } finally {
+        synchronized (this.commitMonitor) {
+          this.commitInProgress = false;
+          this.commitMonitor.notifyAll();
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Writes the appended records to the file. The caller must hold the lock.
+   *
+   * @return the number of records appended so far, all of which are now in the file
+   */
+  private long writePendingRecords() throws IOException {
+    assert lock.isHeldByCurrentThread();
+    if (this.pendingRecords.size() > 0) {
+      this.pendingRecords.sendTo((DataOutput) this.ifRAF);
+      this.pendingRecords.reset();
+    }
+    return this.recordsAppended;
+  }
+
+  private long getRecordsCommitted() {
+    synchronized (this.commitMonitor) {
+      return this.recordsCommitted;
+    }
+  }
+
+  /**
+   * Marks the given number of appended records as in the file.
+   */
+  private void recordsCommitted(long records) {
+    synchronized (this.commitMonitor) {
+      if (records > this.recordsCommitted) {
+        this.recordsCommitted = records;
+        this.commitMonitor.notifyAll();
+      }
+    }
   }
 
   private void recoverFromFailedCompaction() {
@@ -424,6 +574,14 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     return this.gfversion;
   }
 
+  /**
+   * Returns the class name of the compressor that compressed values in the oplogs, or null if
+   * values have never been compressed.
+   */
+  String getCompressorClassName() {
+    return this.compressorClassName;
+  }
+
   DiskStoreID recover() {
     recoverFromFailedCompaction();
     if (!this.ifFile.exists()) {
@@ -609,6 +767,10 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     this.gfversion = version;
   }
 
+  public void cmnCompressor(String compressorClassName) {
+    this.compressorClassName = compressorClassName;
+  }
+
   public boolean cmnPRDestroy(String name) {
     if (this.prMap.remove(name) != null) {
       this.ifLiveRecordCount--;
@@ -1358,6 +1520,38 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     writeGemfireVersion(this.gfversion);
   }
 
+  private void saveCompressor() {
+    if (this.compressorClassName != null) {
+      writeCompressor(this.compressorClassName);
+    }
+  }
+
+  /**
+   * Values compressed by one class of compressor can not be read by another, so the class can not
+   * be changed once it has been recorded.
+   */
+  private void checkCompressor() {
+    Compressor compressor = this.parent.getCompressor();
+    if (compressor != null && this.compressorClassName != null
+        && !compressor.getClass().getName().equals(this.compressorClassName)) {
+      throw new IllegalStateException("The oplogs of disk store " + this.parent.getName()
+          + " contain values compressed by " + this.compressorClassName
+          + " so they can not be read by compressor " + compressor.getClass().getName());
+    }
+  }
+
+  /**
+   * Records the class of the disk store's compressor, so that values it compresses can be read by
+   * a disk store without one, like those of the offline tools.
+   */
+  private void recordCompressor() {
+    Compressor compressor = this.parent.getCompressor();
+    if (compressor != null && this.compressorClassName == null) {
+      this.compressorClassName = compressor.getClass().getName();
+      writeCompressor(this.compressorClassName);
+    }
+  }
+
   private void stopListeningForDataSerializerChanges() {
     if (this.regListener != null) {
       InternalDataSerializer.removeRegistrationListener(this.regListener);
@@ -1387,7 +1581,8 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     // throw new DiskAccessException("Init file is closed!", parent);
     // }
 
-    this.ifRAF.write(bb.array(), 0, bb.position());
+    this.pendingRecords.write(bb.array(), 0, bb.position());
+    this.pendingRecord.set(++this.recordsAppended);
     if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
       logger.trace(LogMarker.PERSIST_WRITES, "DiskInitFile writeIFRecord bb[0] = {}",
           bb.array()[0]);
@@ -1404,7 +1599,8 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     if (this.closed) {
       throw new DiskAccessException("The disk store is closed", parent);
     }
-    hdos.sendTo(this.ifRAF);
+    hdos.sendTo((DataOutput) this.pendingRecords);
+    this.pendingRecord.set(++this.recordsAppended);
     if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
       logger.trace(LogMarker.PERSIST_WRITES, "DiskInitFile writeIFRecord HDOS");
     }
@@ -1425,9 +1621,9 @@ public class DiskInitFile implements DiskInitFileInterpreter {
   private static final double COMPACT_RATIO = 0.5;
 
   private void compactIfNeeded() {
-    lock(true);
+    lock(false);
     try {
-      if (this.compactInProgress)
+      if (this.compactInProgress || this.compactScheduled || this.closed)
         return;
       if (this.ifTotalRecordCount == 0)
         return;
@@ -1437,11 +1633,40 @@ public class DiskInitFile implements DiskInitFileInterpreter {
         return;
       if ((double) this.ifLiveRecordCount / (double) this.ifTotalRecordCount > COMPACT_RATIO)
         return;
-      compact();
+      scheduleCompaction();
     } catch (IOException ignore) {
       return;
     } finally {
-      unlock(true);
+      unlock(false);
+    }
+  }
+
+  /**
+   * Compacts the init file on a disk store task thread so that the write that made it worth
+   * compacting does not wait for it. Offline disk stores compact it right away.
+   */
+  private void scheduleCompaction() {
+    if (this.parent.isOffline()) {
+      compact();
+      return;
+    }
+    this.compactScheduled = true;
+    boolean scheduled = this.parent.executeDiskStoreTask(new Runnable() {
+      public void run() {
+        lock(true);
+        try {
+          compactScheduled = false;
+          if (!closed) {
+            compact();
+          }
+        } finally {
+          unlock(true);
+        }
+      }
+    });
+    if (!scheduled) {
+      // the disk store is shutting down
+      this.compactScheduled = false;
     }
   }
 
@@ -1457,6 +1682,16 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     lock(true);
     this.compactInProgress = true;
     try {
+      try {
+        // the old file is kept if the compaction fails so it needs everything appended so far
+        writePendingRecords();
+      } catch (IOException ex) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Could not write pending records before compacting init file {}", this,
+              ex);
+        }
+        return;
+      }
       try {
         this.ifRAF.close();
       } catch (IOException ignore) {
@@ -1470,7 +1705,20 @@ public class DiskInitFile implements DiskInitFileInterpreter {
           openRAF();
           // fill the new file with data
           writeLiveData();
+          // the new file must be complete on disk before the old one is gone
+          long written;
+          try {
+            written = writePendingRecords();
+            this.ifRAF.getChannel().force(false);
+          } catch (IOException ex) {
+            throw new DiskAccessException(
+                LocalizedStrings.DiskInitFile_FAILED_INIT_FILE_WRITE_BECAUSE_0
+                    .toLocalizedString(ex),
+                this.parent);
+          }
+          recordsCommitted(written);
           success = true;
+          this.parent.getStats().incInitFileCompactions();
 
           // delete the old file
           if (!tmpFile.delete()) {
@@ -1484,6 +1732,8 @@ public class DiskInitFile implements DiskInitFileInterpreter {
         } finally {
           if (!success) {
             // if we failed
+            // drop what was written for the new file
+            this.pendingRecords.reset();
             // close the new one and delete it
             try {
               this.ifRAF.close();
@@ -1521,6 +1771,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
   public void copyTo(File targetDir) throws IOException {
     lock(false);
     try {
+      writePendingRecords();
       FileUtils.copyFileToDirectory(this.ifFile, targetDir);
     } finally {
       unlock(false);
@@ -1547,7 +1798,8 @@ public class DiskInitFile implements DiskInitFileInterpreter {
   }
 
   protected String getFileMode() {
-    return DiskStoreImpl.SYNC_IF_WRITES ? "rwd" : "rw";
+    // synchronous metadata writes are forced by the commit that writes them
+    return "rw";
   }
 
   private void openRAF2() {
@@ -1588,6 +1840,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
       this.ifTotalRecordCount = 0;
       writeDiskStoreId();
       saveGemfireVersion();
+      saveCompressor();
       saveInstantiators();
       saveDataSerializers();
       saveCrfIds();
@@ -1902,6 +2155,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
         && !this.parent.isOfflineModify()) {
       dump();
     }
+    checkCompressor();
     openRAF();
     if (!this.parent.isOffline() || this.parent.isOfflineCompacting()) {
       if (didNotExist) {
@@ -1909,6 +2163,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
         writeDiskStoreId();
         saveGemfireVersion(); // normal create diskstore
       }
+      recordCompressor();
       this.regListener = new InternalDataSerializer.RegistrationListener() {
         public void newInstantiator(Instantiator i) {
           saveInstantiator(i);
@@ -1923,6 +2178,11 @@ public class DiskInitFile implements DiskInitFileInterpreter {
       // miss any registrations.
       saveInstantiators();
       saveDataSerializers();
+      if (!this.parent.isOffline()) {
+        // compact a file that recovered mostly dead records now instead of replaying them again on
+        // the next restart
+        compactIfNeeded();
+      }
     } else {
       this.regListener = null;
     }
@@ -2205,6 +2465,17 @@ public class DiskInitFile implements DiskInitFileInterpreter {
         return;
       this.closed = true;
       stopListeningForDataSerializerChanges();
+      try {
+        long written = writePendingRecords();
+        if (DiskStoreImpl.SYNC_IF_WRITES) {
+          this.ifRAF.getChannel().force(false);
+        }
+        recordsCommitted(written);
+      } catch (IOException ex) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Could not write pending records when closing init file {}", this, ex);
+        }
+      }
       try {
         this.ifRAF.close();
       } catch (IOException ignore) {
@@ -2783,6 +3054,28 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     return message;
   }
 
+  private void writeCompressor(String className) {
+    lock(true);
+    try {
+      HeapDataOutputStream hdos =
+          new HeapDataOutputStream(1 + estimateByteSize(className) + 1, Version.CURRENT);
+      hdos.write(IFREC_COMPRESSOR_ID);
+      hdos.writeUTF(className);
+      hdos.write(END_OF_RECORD_ID);
+      writeIFRecord(hdos, false); // don't do stats for these small records
+    } catch (IOException ex) {
+      DiskAccessException dae = new DiskAccessException(
+          LocalizedStrings.DiskInitFile_FAILED_INIT_FILE_WRITE_BECAUSE_0.toLocalizedString(ex),
+          this.parent);
+      if (!this.compactInProgress) {
+        this.parent.handleDiskAccessException(dae);
+      }
+      throw dae;
+    } finally {
+      unlock(true);
+    }
+  }
+
   private void writeGemfireVersion(Version version) {
     lock(true);
     try {
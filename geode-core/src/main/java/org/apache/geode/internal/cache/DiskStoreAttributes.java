@@ -23,6 +23,8 @@ import java.util.UUID;
 
 import org.apache.geode.cache.DiskStore;
 import org.apache.geode.cache.DiskStoreFactory;
+import org.apache.geode.compression.Compressor;
+import org.apache.geode.internal.ClassPathLoader;
 
 /**
  * Creates an attribute object for DiskStore.
@@ -40,6 +42,10 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
   public int queueSize;
   public int writeBufferSize;
 
+  // compressors need not be serializable, so only the class name is sent to other members
+  public String compressorClassName;
+  public transient Compressor compressor;
+
   public long maxOplogSizeInBytes;
   public long timeInterval;
 
@@ -155,6 +161,26 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
     return this.queueSize;
   }
 
+  /**
+   * Returns the compressor values are written with, creating one of the named class if these
+   * attributes were received from another member.
+   *
+   * @return the compressor, or <code>null</code> if values are written uncompressed.
+   */
+  public Compressor getCompressor() {
+    if (this.compressor == null && this.compressorClassName != null) {
+      try {
+        this.compressor =
+            (Compressor) ClassPathLoader.getLatest().forName(this.compressorClassName).newInstance();
+      } catch (ClassNotFoundException | InstantiationException | IllegalAccessException
+          | ClassCastException e) {
+        throw new IllegalStateException(
+            "Could not create compressor " + this.compressorClassName, e);
+      }
+    }
+    return this.compressor;
+  }
+
   /*
    * (non-Javadoc)
    * 
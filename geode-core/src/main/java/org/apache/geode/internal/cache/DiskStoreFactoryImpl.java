@@ -20,6 +20,7 @@ import java.util.Arrays;
 import org.apache.geode.GemFireIOException;
 import org.apache.geode.cache.DiskStoreFactory;
 import org.apache.geode.cache.DiskStore;
+import org.apache.geode.compression.Compressor;
 import org.apache.geode.distributed.internal.ResourceEvent;
 import org.apache.geode.internal.cache.xmlcache.CacheCreation;
 import org.apache.geode.internal.cache.xmlcache.CacheXml;
@@ -50,6 +51,7 @@ public class DiskStoreFactoryImpl implements DiskStoreFactory {
     setTimeInterval(attrs.getTimeInterval());
     setWriteBufferSize(attrs.getWriteBufferSize());
     setQueueSize(attrs.getQueueSize());
+    setCompressor(attrs.getCompressor());
     setDiskDirs(cloneArray(attrs.getDiskDirs()));
     setDiskDirsAndSizes(cloneArray(attrs.getDiskDirs()), cloneArray(attrs.getDiskDirSizes()));
     setDiskUsageWarningPercentage(attrs.getDiskUsageWarningPercentage());
@@ -286,6 +288,25 @@ public class DiskStoreFactoryImpl implements DiskStoreFactory {
     return this;
   }
 
+  /**
+   * Sets the compressor used to compress the values this disk store writes to its oplogs. Values
+   * that are small or that do not get smaller are written uncompressed. The class of the compressor
+   * is recorded with the disk store so that a disk store without a compressor, such as one opened
+   * by the offline tools, can still read the values. Once values have been compressed, the disk
+   * store can not be created with a compressor of a different class.
+   * <p>
+   * Oplogs that contain compressed values cannot be read by versions that do not support this
+   * setting.
+   *
+   * @param compressor the compressor to use, or <code>null</code> to write values uncompressed.
+   * @return a reference to <code>this</code>
+   */
+  public DiskStoreFactory setCompressor(Compressor compressor) {
+    this.attrs.compressor = compressor;
+    this.attrs.compressorClassName = compressor == null ? null : compressor.getClass().getName();
+    return this;
+  }
+
   public DiskStoreFactory setWriteBufferSize(int writeBufferSize) {
     if (writeBufferSize < 0) {
       // TODO add a message for WriteBufferSize
@@ -41,6 +41,7 @@ import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -73,11 +74,13 @@ import org.apache.geode.cache.DiskStore;
 import org.apache.geode.cache.DiskStoreFactory;
 import org.apache.geode.cache.RegionDestroyedException;
 import org.apache.geode.cache.persistence.PersistentID;
+import org.apache.geode.compression.Compressor;
 import org.apache.geode.distributed.DistributedSystem;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
 import org.apache.geode.i18n.StringId;
+import org.apache.geode.internal.ClassPathLoader;
 import org.apache.geode.internal.Version;
 import org.apache.geode.internal.cache.entries.DiskEntry;
 import org.apache.geode.internal.cache.entries.DiskEntry.Helper.ValueWrapper;
@@ -210,6 +213,28 @@ public class DiskStoreImpl implements DiskStore {
       DistributionConfig.GEMFIRE_PREFIX + "MAX_CONCURRENT_COMPACTIONS",
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "MAX_CONCURRENT_ROLLS", 1).intValue());
 
+  /**
+   * The maximum rate, in megabytes per second, at which the compactor copies live entries forward.
+   * 0, the default, does not limit the rate.
+   */
+  static final long COMPACTION_MAX_MB_PER_SECOND =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.compactionMaxMBPerSecond", 0);
+
+  /**
+   * While synchronous writes take longer than this many milliseconds on average the compactor backs
+   * off. 0, the default, does not back off.
+   */
+  static final long COMPACTION_TARGET_WRITE_LATENCY_MILLIS =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.compactionTargetWriteLatencyMillis",
+          0);
+
+  /**
+   * The most megabytes per second that values are read in the background once the keys of the
+   * recovered regions are recovered. 0, the default, does not limit the rate.
+   */
+  static final long RECOVER_VALUES_MAX_MB_PER_SECOND =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.recoverValuesMaxMBPerSecond", 0);
+
   /**
    * This system property indicates that maximum number of delayed write tasks that can be pending
    * before submitting the tasks start blocking. These tasks are things like unpreblow oplogs,
@@ -218,6 +243,15 @@ public class DiskStoreImpl implements DiskStore {
   public static final int MAX_PENDING_TASKS =
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "disk.MAX_PENDING_TASKS", 6);
 
+  /**
+   * This system property sets the number of oplog files read concurrently during recovery, counting
+   * the one being recovered. The krfs of the others are parsed ahead of recovery, and their crfs
+   * read so that recovery finds them in the file system cache. A value of 1 reads the oplogs one
+   * at a time.
+   */
+  static final int RECOVERY_READ_AHEAD =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "disk.RECOVERY_READ_AHEAD", 4);
+
   /**
    * This system property indicates that IF should also be preallocated. This property will be used
    * in conjunction with the PREALLOCATE_OPLOGS property. If PREALLOCATE_OPLOGS is ON the below will
@@ -235,6 +269,13 @@ public class DiskStoreImpl implements DiskStore {
       !System.getProperty(DistributionConfig.GEMFIRE_PREFIX + "preAllocateDisk", "true")
           .equalsIgnoreCase("false");
 
+  /**
+   * This system property makes oplogs write their data with direct I/O, bypassing the operating
+   * system's page cache, on platforms that support it. Reads still go through the page cache.
+   */
+  static final boolean DIRECT_WRITES =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.directWrites");
+
   /**
    * For some testing purposes we would not consider top property if this flag is set to true
    **/
@@ -257,6 +298,9 @@ public class DiskStoreImpl implements DiskStore {
   /** The stats for this store */
   private final DiskStoreStats stats;
 
+  /** Paces the compactor */
+  private final CompactionThrottle compactionThrottle;
+
   /**
    * Added as stop gap arrangement to fix bug 39380. It is not a clean fix as keeping track of the
    * threads acquiring read lock, etc is not a good idea to solve the issue
@@ -335,6 +379,18 @@ public class DiskStoreImpl implements DiskStore {
 
   private final Object asyncValueRecoveryLock = new Object();
 
+  /**
+   * The async value recovery that is running, if any.
+   */
+  private volatile ValueRecoveryTask activeValueRecovery;
+
+  /**
+   * The async value recoveries that are scheduled or running, so that a region can be preferred
+   * before the recovery of its values starts.
+   */
+  private final Set<ValueRecoveryTask> scheduledValueRecoveries =
+      new CopyOnWriteArraySet<ValueRecoveryTask>();
+
   /**
    * The unique id for this disk store.
    * 
@@ -401,6 +457,7 @@ public class DiskStoreImpl implements DiskStore {
     this.timeInterval = props.getTimeInterval();
     this.queueSize = props.getQueueSize();
     this.writeBufferSize = props.getWriteBufferSize();
+    this.compressor = props.getCompressor();
     this.diskDirs = props.getDiskDirs();
     this.diskDirSizes = props.getDiskDirSizes();
     this.warningPercent = props.getDiskUsageWarningPercentage();
@@ -409,6 +466,8 @@ public class DiskStoreImpl implements DiskStore {
     this.cache = cache;
     StatisticsFactory factory = cache.getDistributedSystem();
     this.stats = new DiskStoreStats(factory, getName());
+    this.compactionThrottle = new CompactionThrottle(COMPACTION_MAX_MB_PER_SECOND * 1024 * 1024,
+        TimeUnit.MILLISECONDS.toNanos(COMPACTION_TARGET_WRITE_LATENCY_MILLIS), this.stats);
 
     // start simple init
 
@@ -690,6 +749,8 @@ public class DiskStoreImpl implements DiskStore {
     if (!async) {
       dr.getStats().startWrite();
     }
+    final boolean trackWrite = !async && this.compactionThrottle.isTrackingWrites();
+    final long writeStart = trackWrite ? System.nanoTime() : 0;
     try {
       if (!async) {
         acquireReadLock(dr);
@@ -747,6 +808,9 @@ public class DiskStoreImpl implements DiskStore {
         dr.getStats().endWrite(start, this.stats.endWrite(start));
         dr.getStats().incWrittenBytes(id.getValueLength());
       }
+      if (trackWrite) {
+        this.compactionThrottle.recordWrite(System.nanoTime() - writeStart);
+      }
     }
   }
 
@@ -2015,7 +2079,10 @@ public class DiskStoreImpl implements DiskStore {
     synchronized (currentAsyncValueRecoveryMap) {
       DiskStoreImpl.this.currentAsyncValueRecoveryMap.putAll(recoveredStores);
     }
-    executeDiskStoreTask(task);
+    this.scheduledValueRecoveries.add(task);
+    if (!executeDiskStoreTask(task)) {
+      this.scheduledValueRecoveries.remove(task);
+    }
   }
 
   /**
@@ -2213,6 +2280,14 @@ public class DiskStoreImpl implements DiskStore {
     compactorReadLock.lock();
   }
 
+  /**
+   * Returns true if a thread is waiting for the compactor write lock, which the compactor's read
+   * lock holds off.
+   */
+  boolean isCompactorWriteLockWanted() {
+    return compactorLock.hasQueuedThreads();
+  }
+
   private volatile boolean closing = false;
   private volatile boolean closed = false;
 
@@ -2807,6 +2882,13 @@ public class DiskStoreImpl implements DiskStore {
                                                                      * @todo && !owner. isDestroyed
                                                                      */; i++) {
           totalCount += oplogs[i].compact(this);
+          // pay for copying that was not paced while another thread wanted the compactor locks
+          try {
+            getCompactionThrottle().pay(() -> !keepCompactorRunning());
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          }
         }
 
         // TODO:Asif : DiskRegion: How do we tackle
@@ -3312,6 +3394,9 @@ public class DiskStoreImpl implements DiskStore {
   private final long timeInterval;
   private final int queueSize;
   private final int writeBufferSize;
+  private final Compressor compressor;
+  /** Created from the class recorded in the init file when there is no compressor */
+  private volatile Compressor recordedCompressor;
   private final File[] diskDirs;
   private final int[] diskDirSizes;
   private volatile float warningPercent;
@@ -3350,6 +3435,44 @@ public class DiskStoreImpl implements DiskStore {
     return this.writeBufferSize;
   }
 
+  public Compressor getCompressor() {
+    return this.compressor;
+  }
+
+  /**
+   * Returns the compressor to decompress values in the oplogs with. That is this disk store's
+   * compressor or, if it has none, like the disk stores of the offline tools, one of the class the
+   * init file recorded.
+   * 
+   * @throws DiskAccessException if no compressor class was recorded or it can not be created
+   */
+  Compressor getCompressorForReads() {
+    if (this.compressor != null) {
+      return this.compressor;
+    }
+    Compressor result = this.recordedCompressor;
+    if (result == null) {
+      String className = this.initFile == null ? null : this.initFile.getCompressorClassName();
+      if (className == null) {
+        throw new DiskAccessException(
+            "Found a compressed value but the compressor that compressed it is not known", this);
+      }
+      try {
+        result = (Compressor) ClassPathLoader.getLatest().forName(className).newInstance();
+      } catch (ClassNotFoundException | InstantiationException | IllegalAccessException
+          | ClassCastException e) {
+        throw new DiskAccessException(
+            "Could not create compressor " + className + " to read compressed values", e, this);
+      }
+      this.recordedCompressor = result;
+    }
+    return result;
+  }
+
+  CompactionThrottle getCompactionThrottle() {
+    return this.compactionThrottle;
+  }
+
   public File[] getDiskDirs() {
     return this.diskDirs;
   }
@@ -3856,10 +3979,15 @@ public class DiskStoreImpl implements DiskStore {
     }
   }
 
-  private void validate() {
+  private void validate(boolean verifyChecksums) {
     assert isValidating();
     this.RECOVER_VALUES = false; // save memory @todo should Oplog make sure
                                  // value is deserializable?
+    if (verifyChecksums) {
+      // the checksums are in the crfs so do not recover from the krfs
+      this.RECOVER_VALUES_SYNC = true;
+      this.verifyingChecksums = true;
+    }
     this.liveEntryCount = 0;
     this.deadRecordCount = 0;
     for (DiskRegionView drv : getKnown()) {
@@ -3871,6 +3999,31 @@ public class DiskStoreImpl implements DiskStore {
     }
     System.out
         .println("Total number of region entries in this disk store is: " + getLiveEntryCount());
+    if (verifyChecksums) {
+      System.out.println("Verified the checksums of " + this.checksummedRecordCount
+          + " records. Found " + this.uncheckedRecordCount + " records without a checksum.");
+    }
+  }
+
+  private boolean verifyingChecksums;
+
+  /**
+   * Returns true if the checksums of the oplog records are verified as they are recovered.
+   */
+  boolean isVerifyingChecksums() {
+    return this.verifyingChecksums;
+  }
+
+  private long checksummedRecordCount;
+
+  void incChecksummedRecordCount() {
+    this.checksummedRecordCount++;
+  }
+
+  private long uncheckedRecordCount;
+
+  void incUncheckedRecordCount() {
+    this.uncheckedRecordCount++;
   }
 
   private int liveEntryCount;
@@ -4176,9 +4329,18 @@ public class DiskStoreImpl implements DiskStore {
   }
 
   public static void validate(String name, File[] dirs) throws Exception {
+    validate(name, dirs, false);
+  }
+
+  /**
+   * @param verifyChecksums whether to also read every crf and drf record and verify the checksum
+   *        of the ones written with one
+   */
+  public static void validate(String name, File[] dirs, boolean verifyChecksums)
+      throws Exception {
     try {
       DiskStoreImpl dsi = createForOfflineValidate(name, dirs);
-      dsi.validate();
+      dsi.validate(verifyChecksums);
     } finally {
       cleanupOffline();
     }
@@ -4250,25 +4412,74 @@ public class DiskStoreImpl implements DiskStore {
     return "DiskStore[" + name + "]";
   }
 
+  /**
+   * Recovers the values of the regions whose keys were recovered from krfs. The regions are
+   * recovered in rounds, each reading all the oplogs in order for the regions that matter most at
+   * the time: first the ones a value was read from or that someone waits for, then primary buckets,
+   * then the rest. A region becoming preferred during a round of less important regions ends that
+   * round early. The values that were already recovered are skipped when a region is read again.
+   */
   private class ValueRecoveryTask implements Runnable {
     private final Set<Oplog> oplogSet;
     private final Map<Long, DiskRecoveryStore> recoveredStores;
 
+    /**
+     * The ids of the regions whose values are not recovered yet.
+     */
+    private final Set<Long> remaining = new ConcurrentHashSet<Long>();
+
+    private final Set<Long> preferred = new ConcurrentHashSet<Long>();
+
+    /**
+     * The ids of the regions the current round recovers.
+     */
+    private volatile Set<Long> round = Collections.emptySet();
+
+    private volatile boolean preempted;
+
+    /** Nanoseconds it takes to read one byte at the maximum rate, or 0 if it is unlimited. */
+    private final double nanosPerByte = RECOVER_VALUES_MAX_MB_PER_SECOND > 0
+        ? (double) TimeUnit.SECONDS.toNanos(1) / (RECOVER_VALUES_MAX_MB_PER_SECOND * 1024 * 1024)
+        : 0;
+
+    /** The time at which the bytes read so far are paid for at the maximum rate. */
+    private long nextReadTime;
+
     public ValueRecoveryTask(Set<Oplog> oplogSet, Map<Long, DiskRecoveryStore> recoveredStores) {
       this.oplogSet = oplogSet;
       this.recoveredStores = new HashMap<Long, DiskRecoveryStore>(recoveredStores);
+      this.remaining.addAll(this.recoveredStores.keySet());
     }
 
     public void run() {
       synchronized (asyncValueRecoveryLock) {
         DiskStoreObserver.startAsyncValueRecovery(DiskStoreImpl.this);
+        activeValueRecovery = this;
         try {
-          for (Oplog oplog : oplogSet) {
-            oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+          while (!this.remaining.isEmpty() && !isClosing()) {
+            this.preempted = false;
+            Set<Long> regionIds = nextRound();
+            this.round = regionIds;
+            for (Oplog oplog : oplogSet) {
+              oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap, regionIds);
+              if (this.preempted) {
+                break;
+              }
+            }
+            if (!this.preempted) {
+              this.remaining.removeAll(regionIds);
+              synchronized (currentAsyncValueRecoveryMap) {
+                // let anyone waiting for these regions go ahead
+                currentAsyncValueRecoveryMap.keySet().removeAll(regionIds);
+                currentAsyncValueRecoveryMap.notifyAll();
+              }
+            }
           }
         } catch (CancelException ignore) {
           // do nothing
         } finally {
+          activeValueRecovery = null;
+          scheduledValueRecoveries.remove(this);
           synchronized (currentAsyncValueRecoveryMap) {
             DiskStoreImpl.this.currentAsyncValueRecoveryMap.keySet()
                 .removeAll(recoveredStores.keySet());
@@ -4278,9 +4489,98 @@ public class DiskStoreImpl implements DiskStore {
         }
       }
     }
+
+    /**
+     * Returns the remaining regions that matter most.
+     */
+    private Set<Long> nextRound() {
+      Set<Long> result = new HashSet<Long>(this.preferred);
+      result.retainAll(this.remaining);
+      if (!result.isEmpty()) {
+        return result;
+      }
+      synchronized (currentAsyncValueRecoveryMap) {
+        for (Long id : this.remaining) {
+          DiskRecoveryStore store = currentAsyncValueRecoveryMap.get(id);
+          if (store instanceof BucketRegion
+              && ((BucketRegion) store).getBucketAdvisor().isPrimary()) {
+            result.add(id);
+          }
+        }
+      }
+      if (!result.isEmpty()) {
+        return result;
+      }
+      return new HashSet<Long>(this.remaining);
+    }
+
+    /**
+     * Ends the current round early unless it only recovers preferred regions.
+     */
+    void prefer(long diskRegionId) {
+      if (this.remaining.contains(diskRegionId) && this.preferred.add(diskRegionId)
+          && !this.preferred.containsAll(this.round)) {
+        this.preempted = true;
+      }
+    }
+
+    boolean isPreempted() {
+      return this.preempted;
+    }
+
+    /**
+     * Sleeps as needed to keep reading values under the maximum rate.
+     */
+    void recovered(int bytes) {
+      if (this.nanosPerByte <= 0) {
+        return;
+      }
+      long now = System.nanoTime();
+      this.nextReadTime = Math.max(this.nextReadTime, now) + (long) (bytes * this.nanosPerByte);
+      long sleepNanos = this.nextReadTime - now;
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException ignore) {
+          Thread.currentThread().interrupt();
+        }
+        getStats().incValueRecoveryThrottleTime(System.nanoTime() - now);
+      }
+    }
+  }
+
+  /**
+   * Recovers the values of the given region ahead of the others if they are being recovered
+   * asynchronously. Called when a value of the region had to be read from disk or someone waits for
+   * its values.
+   */
+  public void preferValueRecovery(long diskRegionId) {
+    for (ValueRecoveryTask task : this.scheduledValueRecoveries) {
+      task.prefer(diskRegionId);
+    }
+  }
+
+  /**
+   * Returns true if the current round of async value recovery should end early because a region
+   * that is not part of it is now preferred.
+   */
+  boolean isValueRecoveryPreempted() {
+    ValueRecoveryTask task = this.activeValueRecovery;
+    return task != null && task.isPreempted();
+  }
+
+  /**
+   * Called by async value recovery after it recovered a value of the given length.
+   */
+  void valueRecovered(int bytes) {
+    ValueRecoveryTask task = this.activeValueRecovery;
+    if (task != null) {
+      task.recovered(bytes);
+    }
   }
 
   public void waitForAsyncRecovery(DiskRegion diskRegion) {
+    preferValueRecovery(diskRegion.getId());
     synchronized (currentAsyncValueRecoveryMap) {
       boolean interrupted = false;
       while (!isClosing() && currentAsyncValueRecoveryMap.containsKey(diskRegion.getId())) {
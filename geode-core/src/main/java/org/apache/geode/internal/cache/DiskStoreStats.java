@@ -55,6 +55,25 @@ public class DiskStoreStats {
   private static final int oplogRecoveriesId;
   private static final int oplogRecoveryTimeId;
   private static final int oplogRecoveredBytesId;
+  private static final int oplogsToRecoverId;
+  private static final int oplogReadAheadsId;
+  private static final int oplogReadAheadBytesId;
+  private static final int oplogBytesToRecoverId;
+  private static final int oplogKrfParsesId;
+  private static final int oplogKrfParseTimeId;
+  private static final int oplogRecoveryParseWaitTimeId;
+  private static final int groupCommitsId;
+  private static final int groupCommittedWritesId;
+  private static final int compactionBacklogBytesId;
+  private static final int compactionThrottleTimeId;
+  private static final int valueRecoveryThrottleTimeId;
+  private static final int initFileCommitsId;
+  private static final int initFileCommittedRecordsId;
+  private static final int initFileCompactionsId;
+  private static final int compressionsId;
+  private static final int decompressionsId;
+  private static final int preCompressedBytesId;
+  private static final int postCompressedBytesId;
   private static final int bytesReadId;
   private static final int removesId;
   private static final int removeTimeId;
@@ -146,6 +165,56 @@ public class DiskStoreStats {
             f.createIntCounter("oplogRecoveries", oplogRecoveriesDesc, "ops"),
             f.createLongCounter("oplogRecoveryTime", oplogRecoveryTimeDesc, "nanoseconds"),
             f.createLongCounter("oplogRecoveredBytes", oplogRecoveredBytesDesc, "bytes"),
+            f.createIntGauge("oplogsToRecover",
+                "Current number of oplogs waiting to be recovered by a recovery in progress",
+                "oplogs"),
+            f.createIntCounter("oplogReadAheads",
+                "The total number of oplog files read ahead of recovery by the recovery readers",
+                "ops"),
+            f.createLongCounter("oplogReadAheadBytes",
+                "The total number of bytes read ahead of recovery by the recovery readers", "bytes"),
+            f.createLongGauge("oplogBytesToRecover",
+                "Current number of bytes in the oplog files waiting to be recovered by a recovery in progress",
+                "bytes"),
+            f.createIntCounter("oplogKrfParses",
+                "The total number of krfs parsed ahead of recovery by the recovery readers", "ops"),
+            f.createLongCounter("oplogKrfParseTime",
+                "The total amount of time the recovery readers spent parsing krfs", "nanoseconds"),
+            f.createLongCounter("oplogRecoveryParseWaitTime",
+                "The total amount of time recovery waited for the recovery readers to parse the next krf",
+                "nanoseconds"),
+            f.createLongCounter("groupCommits",
+                "The total number of times synchronous writes were forced to disk by a group commit",
+                "ops"),
+            f.createLongCounter("groupCommittedWrites",
+                "The total number of synchronous writes forced to disk by group commits", "ops"),
+            f.createLongGauge("compactionBacklogBytes",
+                "Estimated number of live bytes the compactor still has to copy out of the oplogs ready to be compacted",
+                "bytes"),
+            f.createLongCounter("compactionThrottleTime",
+                "The total amount of time the compactor paused to limit its copy rate",
+                "nanoseconds"),
+            f.createLongCounter("valueRecoveryThrottleTime",
+                "The total amount of time background value recovery paused to limit its read rate",
+                "nanoseconds"),
+            f.createLongCounter("initFileCommits",
+                "The total number of times records were written to the init file, each time followed by a force if metadata writes are synchronous",
+                "ops"),
+            f.createLongCounter("initFileCommittedRecords",
+                "The total number of records written to the init file by its commits", "ops"),
+            f.createIntCounter("initFileCompactions",
+                "The total number of times the init file was compacted", "compactions"),
+            f.createLongCounter("compressions",
+                "The total number of values compressed before they were written to an oplog",
+                "operations"),
+            f.createLongCounter("decompressions",
+                "The total number of values decompressed after they were read from an oplog",
+                "operations"),
+            f.createLongCounter("preCompressedBytes",
+                "The total number of bytes of the values compressed before they were written",
+                "bytes"),
+            f.createLongCounter("postCompressedBytes",
+                "The total number of bytes written for the compressed values", "bytes"),
             f.createLongCounter("removes", removesDesc, "ops"),
             f.createLongCounter("removeTime", removeTimeDesc, "nanoseconds"),
             f.createIntGauge("queueSize", queueSizeDesc, "entries"),
@@ -215,6 +284,25 @@ public class DiskStoreStats {
     oplogRecoveriesId = type.nameToId("oplogRecoveries");
     oplogRecoveryTimeId = type.nameToId("oplogRecoveryTime");
     oplogRecoveredBytesId = type.nameToId("oplogRecoveredBytes");
+    oplogsToRecoverId = type.nameToId("oplogsToRecover");
+    oplogReadAheadsId = type.nameToId("oplogReadAheads");
+    oplogReadAheadBytesId = type.nameToId("oplogReadAheadBytes");
+    oplogBytesToRecoverId = type.nameToId("oplogBytesToRecover");
+    oplogKrfParsesId = type.nameToId("oplogKrfParses");
+    oplogKrfParseTimeId = type.nameToId("oplogKrfParseTime");
+    oplogRecoveryParseWaitTimeId = type.nameToId("oplogRecoveryParseWaitTime");
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommittedWritesId = type.nameToId("groupCommittedWrites");
+    compactionBacklogBytesId = type.nameToId("compactionBacklogBytes");
+    compactionThrottleTimeId = type.nameToId("compactionThrottleTime");
+    valueRecoveryThrottleTimeId = type.nameToId("valueRecoveryThrottleTime");
+    initFileCommitsId = type.nameToId("initFileCommits");
+    initFileCommittedRecordsId = type.nameToId("initFileCommittedRecords");
+    initFileCompactionsId = type.nameToId("initFileCompactions");
+    compressionsId = type.nameToId("compressions");
+    decompressionsId = type.nameToId("decompressions");
+    preCompressedBytesId = type.nameToId("preCompressedBytes");
+    postCompressedBytesId = type.nameToId("postCompressedBytes");
     removesId = type.nameToId("removes");
     removeTimeId = type.nameToId("removeTime");
     queueSizeId = type.nameToId("queueSize");
@@ -448,6 +536,128 @@ public class DiskStoreStats {
     this.stats.incLong(oplogRecoveredBytesId, bytesRead);
   }
 
+  public void incOplogsToRecover(int delta) {
+    this.stats.incInt(oplogsToRecoverId, delta);
+  }
+
+  public void endOplogReadAhead(long bytesRead) {
+    this.stats.incInt(oplogReadAheadsId, 1);
+    this.stats.incLong(oplogReadAheadBytesId, bytesRead);
+  }
+
+  public void incOplogBytesToRecover(long delta) {
+    this.stats.incLong(oplogBytesToRecoverId, delta);
+  }
+
+  public long getOplogBytesToRecover() {
+    return this.stats.getLong(oplogBytesToRecoverId);
+  }
+
+  public void endOplogKrfParse(long start) {
+    this.stats.incInt(oplogKrfParsesId, 1);
+    this.stats.incLong(oplogKrfParseTimeId, DistributionStats.getStatTime() - start);
+  }
+
+  public int getOplogKrfParses() {
+    return this.stats.getInt(oplogKrfParsesId);
+  }
+
+  public void endOplogRecoveryParseWait(long start) {
+    this.stats.incLong(oplogRecoveryParseWaitTimeId, DistributionStats.getStatTime() - start);
+  }
+
+  public int getOplogsToRecover() {
+    return this.stats.getInt(oplogsToRecoverId);
+  }
+
+  public int getOplogReadAheads() {
+    return this.stats.getInt(oplogReadAheadsId);
+  }
+
+  public void incGroupCommits(long writes) {
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommittedWritesId, writes);
+  }
+
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+
+  public long getGroupCommittedWrites() {
+    return this.stats.getLong(groupCommittedWritesId);
+  }
+
+  public void setCompactionBacklogBytes(long bytes) {
+    this.stats.setLong(compactionBacklogBytesId, bytes);
+  }
+
+  public long getCompactionBacklogBytes() {
+    return this.stats.getLong(compactionBacklogBytesId);
+  }
+
+  public void incCompactionThrottleTime(long nanos) {
+    this.stats.incLong(compactionThrottleTimeId, nanos);
+  }
+
+  public long getCompactionThrottleTime() {
+    return this.stats.getLong(compactionThrottleTimeId);
+  }
+
+  public void incValueRecoveryThrottleTime(long nanos) {
+    this.stats.incLong(valueRecoveryThrottleTimeId, nanos);
+  }
+
+  public long getValueRecoveryThrottleTime() {
+    return this.stats.getLong(valueRecoveryThrottleTimeId);
+  }
+
+  public void incInitFileCommits(long records) {
+    this.stats.incLong(initFileCommitsId, 1);
+    this.stats.incLong(initFileCommittedRecordsId, records);
+  }
+
+  public void incInitFileCompactions() {
+    this.stats.incInt(initFileCompactionsId, 1);
+  }
+
+  public long getInitFileCommits() {
+    return this.stats.getLong(initFileCommitsId);
+  }
+
+  public long getInitFileCommittedRecords() {
+    return this.stats.getLong(initFileCommittedRecordsId);
+  }
+
+  public int getInitFileCompactions() {
+    return this.stats.getInt(initFileCompactionsId);
+  }
+
+  public void endCompression(long preCompressedBytes, long postCompressedBytes) {
+    this.stats.incLong(compressionsId, 1);
+    this.stats.incLong(preCompressedBytesId, preCompressedBytes);
+    this.stats.incLong(postCompressedBytesId, postCompressedBytes);
+  }
+
+  public void incDecompressions() {
+    this.stats.incLong(decompressionsId, 1);
+  }
+
+  public long getCompressions() {
+    return this.stats.getLong(compressionsId);
+  }
+
+  public long getDecompressions() {
+    return this.stats.getLong(decompressionsId);
+  }
+
+  public long getPreCompressedBytes() {
+    return this.stats.getLong(preCompressedBytesId);
+  }
+
+  public long getPostCompressedBytes() {
+    return this.stats.getLong(postCompressedBytesId);
+  }
+
   public void incRecoveredEntryCreates() {
     this.stats.incLong(recoveredEntryCreatesId, 1);
   }
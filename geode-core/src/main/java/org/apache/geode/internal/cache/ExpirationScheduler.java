@@ -27,7 +27,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ExpirationScheduler uses a single instance of java.util.Timer (and therefore a single thread) per
- * VM to schedule and execute region and entry expiration tasks.
+ * VM to schedule and execute region and entry expiration tasks. If the
+ * gemfire.EXPIRY_WHEEL_TICK_MS system property is set, entry expiration tasks are scheduled on an
+ * {@link ExpirationWheel} with that tick instead.
  */
 
 public class ExpirationScheduler {
@@ -38,8 +40,25 @@ public class ExpirationScheduler {
   private static final int MAX_PENDING_CANCELS = Integer
       .getInteger(DistributionConfig.GEMFIRE_PREFIX + "MAX_PENDING_CANCELS", 10000).intValue();
 
+  /**
+   * The tick of the {@link ExpirationWheel} used for entry expiration, in milliseconds. Entry
+   * expiration uses the timer when this is zero.
+   */
+  private static final long EXPIRY_WHEEL_TICK_MS =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "EXPIRY_WHEEL_TICK_MS", 0);
+
+  private final ExpirationWheel wheel;
+  private final ExpirationStats stats;
+
   public ExpirationScheduler(InternalDistributedSystem ds) {
     this.timer = new SystemTimer(ds, true);
+    if (EXPIRY_WHEEL_TICK_MS > 0) {
+      this.stats = ds != null ? new ExpirationStats(ds, "entryExpiration") : null;
+      this.wheel = new ExpirationWheel(EXPIRY_WHEEL_TICK_MS, this.stats, "Entry Expiration Wheel");
+    } else {
+      this.stats = null;
+      this.wheel = null;
+    }
   }
 
   public void forcePurge() {
@@ -93,11 +112,31 @@ public class ExpirationScheduler {
 
   /** schedules the given entry expiration task and returns true; returns false if not scheduled */
   public boolean addEntryExpiryTask(EntryExpiryTask task) {
-    return addExpiryTask(task) != null;
+    if (this.wheel == null) {
+      return addExpiryTask(task) != null;
+    }
+    try {
+      if (logger.isTraceEnabled()) {
+        logger.trace(LocalizedMessage.create(
+            LocalizedStrings.ExpirationScheduler_SCHEDULING__0__TO_FIRE_IN__1__MS,
+            new Object[] {task, Long.valueOf(task.getExpiryMillis())}));
+      }
+      return this.wheel.schedule(task, task.getExpiryMillis());
+    } catch (EntryNotFoundException e) {
+      // ignore - there are unsynchronized paths that allow an entry to
+      // be destroyed out from under us.
+      return false;
+    }
   }
 
   /** @see java.util.Timer#cancel() */
   public void cancel() {
     timer.cancel();
+    if (this.wheel != null) {
+      this.wheel.cancel();
+      if (this.stats != null) {
+        this.stats.close();
+      }
+    }
   }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import org.apache.geode.StatisticDescriptor;
+import org.apache.geode.Statistics;
+import org.apache.geode.StatisticsFactory;
+import org.apache.geode.StatisticsType;
+import org.apache.geode.StatisticsTypeFactory;
+import org.apache.geode.internal.statistics.StatisticsTypeFactoryImpl;
+
+/**
+ * Statistics about the entry expiration tasks scheduled on an {@link ExpirationWheel}.
+ */
+public class ExpirationStats {
+
+  private static final StatisticsType type;
+
+  private static final int scheduledId;
+  private static final int cancelledId;
+  private static final int expiredId;
+  private static final int pendingId;
+  private static final int lagTimeId;
+  private static final int maxLagTimeId;
+
+  static {
+    StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
+
+    type = f.createType("ExpirationStats", "Statistics about scheduled entry expiration tasks",
+        new StatisticDescriptor[] {
+            f.createLongCounter("scheduled", "The total number of expiration tasks scheduled.",
+                "tasks"),
+            f.createLongCounter("cancelled",
+                "The total number of expiration tasks cancelled before they fired.", "tasks"),
+            f.createLongCounter("expired", "The total number of expiration tasks that fired.",
+                "tasks"),
+            f.createLongGauge("pending", "The number of expiration tasks waiting to fire.",
+                "tasks"),
+            f.createLongCounter("lagTime",
+                "The total time between the moment expiration tasks were due and the moment they fired.",
+                "milliseconds"),
+            f.createLongGauge("maxLagTime",
+                "The largest lag of any expiration task that fired.",
+                "milliseconds")});
+
+    scheduledId = type.nameToId("scheduled");
+    cancelledId = type.nameToId("cancelled");
+    expiredId = type.nameToId("expired");
+    pendingId = type.nameToId("pending");
+    lagTimeId = type.nameToId("lagTime");
+    maxLagTimeId = type.nameToId("maxLagTime");
+  }
+
+  private final Statistics stats;
+
+  public ExpirationStats(StatisticsFactory f, String name) {
+    this.stats = f.createAtomicStatistics(type, name);
+  }
+
+  public void close() {
+    this.stats.close();
+  }
+
+  public void incScheduled() {
+    this.stats.incLong(scheduledId, 1);
+    this.stats.incLong(pendingId, 1);
+  }
+
+  public void incCancelled() {
+    this.stats.incLong(cancelledId, 1);
+    this.stats.incLong(pendingId, -1);
+  }
+
+  public void incExpired(long lagMillis) {
+    this.stats.incLong(expiredId, 1);
+    this.stats.incLong(pendingId, -1);
+    this.stats.incLong(lagTimeId, lagMillis);
+    if (lagMillis > this.stats.getLong(maxLagTimeId)) {
+      this.stats.setLong(maxLagTimeId, lagMillis);
+    }
+  }
+
+  public long getScheduled() {
+    return this.stats.getLong(scheduledId);
+  }
+
+  public long getCancelled() {
+    return this.stats.getLong(cancelledId);
+  }
+
+  public long getExpired() {
+    return this.stats.getLong(expiredId);
+  }
+
+  public long getPending() {
+    return this.stats.getLong(pendingId);
+  }
+
+  public Statistics getStats() {
+    return this.stats;
+  }
+}
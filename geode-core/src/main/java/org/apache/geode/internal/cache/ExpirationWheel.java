@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * A hierarchical timing wheel for expiration tasks. Each level is an array of buckets covering
+ * one tick of that level; a task goes into the bucket of the lowest level whose span covers its
+ * deadline, and the next level's tick is the span of the level below it. Scheduling and cancelling
+ * are O(1) and only contend on the bucket's concurrent set and on the shared side of a read-write
+ * lock, instead of on the single lock of the binary heap used by java.util.Timer.
+ * <p>
+ * Only buckets that hold tasks are queued for the ticker thread. When a bucket of a higher level
+ * comes due its tasks are reinserted, which moves them down to a finer grained level or runs them
+ * if they are due. Tasks are run on the ticker thread, as the SystemTimer thread did before.
+ */
+public class ExpirationWheel {
+  private static final Logger logger = LogService.getLogger();
+
+  static final int WHEEL_SIZE = 512;
+
+  private static final int SCHEDULED = 1;
+  private static final int CANCELLED = 2;
+  private static final int FIRED = 3;
+
+  private static final AtomicIntegerFieldUpdater<ExpiryTask> STATE =
+      AtomicIntegerFieldUpdater.newUpdater(ExpiryTask.class, "wheelState");
+
+  private final long tickMillis;
+
+  private final ExpirationStats stats;
+
+  private final DelayQueue<Bucket> queue = new DelayQueue<>();
+
+  /**
+   * Held for read while adding tasks and for write while the clock advances, so that no task is
+   * added to a bucket that is being flushed for a different time.
+   */
+  private final ReentrantReadWriteLock clockLock = new ReentrantReadWriteLock();
+
+  private final Level levelZero;
+
+  private final Thread ticker;
+
+  private volatile boolean cancelled;
+
+  public ExpirationWheel(long tickMillis, ExpirationStats stats, String threadName) {
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+    }
+    this.tickMillis = tickMillis;
+    this.stats = stats;
+    this.levelZero = new Level(tickMillis, System.currentTimeMillis());
+    ThreadGroup group = LoggingThreadGroup.createThreadGroup(threadName + " Group", logger);
+    this.ticker = new Thread(group, this::tick, threadName);
+    this.ticker.setDaemon(true);
+    this.ticker.start();
+  }
+
+  /**
+   * Schedules the task to run after the given delay.
+   *
+   * @return false if the wheel has been cancelled
+   */
+  public boolean schedule(ExpiryTask task, long delayMillis) {
+    if (this.cancelled) {
+      return false;
+    }
+    task.wheelDeadline = System.currentTimeMillis() + delayMillis;
+    task.wheel = this;
+    STATE.set(task, SCHEDULED);
+    if (this.stats != null) {
+      this.stats.incScheduled();
+    }
+    this.clockLock.readLock().lock();
+    try {
+      this.levelZero.add(task);
+    } finally {
+      this.clockLock.readLock().unlock();
+    }
+    return true;
+  }
+
+  /**
+   * Cancels a task scheduled on this wheel.
+   *
+   * @return true if the task was still scheduled; false if it had already fired or been cancelled
+   */
+  boolean cancel(ExpiryTask task) {
+    if (!STATE.compareAndSet(task, SCHEDULED, CANCELLED)) {
+      return false;
+    }
+    Bucket bucket = task.wheelBucket;
+    if (bucket != null) {
+      bucket.tasks.remove(task);
+    }
+    task.wheelBucket = null;
+    if (this.stats != null) {
+      this.stats.incCancelled();
+    }
+    return true;
+  }
+
+  /** Stops the ticker thread. Tasks that have not fired yet are dropped. */
+  public void cancel() {
+    this.cancelled = true;
+    this.ticker.interrupt();
+  }
+
+  private void tick() {
+    List<ExpiryTask> due = new ArrayList<>();
+    while (!this.cancelled) {
+      try {
+        Bucket bucket = this.queue.poll(this.tickMillis * WHEEL_SIZE, TimeUnit.MILLISECONDS);
+        if (bucket == null) {
+          continue;
+        }
+        this.clockLock.writeLock().lock();
+        try {
+          while (bucket != null) {
+            this.levelZero.advanceClock(bucket.getExpiration());
+            bucket.flush(due);
+            bucket = this.queue.poll();
+          }
+        } finally {
+          this.clockLock.writeLock().unlock();
+        }
+        fire(due);
+        due.clear();
+      } catch (InterruptedException ignore) {
+        // checked by the loop condition
+      }
+    }
+  }
+
+  /**
+   * Runs the due tasks outside of the clock lock, since an expiration action can schedule new
+   * tasks.
+   */
+  private void fire(List<ExpiryTask> due) {
+    long now = System.currentTimeMillis();
+    for (ExpiryTask task : due) {
+      if (!STATE.compareAndSet(task, SCHEDULED, FIRED)) {
+        continue;
+      }
+      task.wheelBucket = null;
+      if (this.stats != null) {
+        this.stats.incExpired(Math.max(0, now - task.wheelDeadline));
+      }
+      // SystemTimerTask.run logs and swallows anything the task throws
+      task.run();
+    }
+  }
+
+  /** One level of the wheel. Accessed with clockLock held. */
+  private class Level {
+    private final long tick;
+    private final long span;
+    private final Bucket[] buckets;
+    private volatile long currentTime;
+    private volatile Level overflow;
+
+    Level(long tick, long startTime) {
+      this.tick = tick;
+      this.span = tick * WHEEL_SIZE;
+      this.buckets = new Bucket[WHEEL_SIZE];
+      for (int i = 0; i < WHEEL_SIZE; i++) {
+        this.buckets[i] = new Bucket();
+      }
+      this.currentTime = startTime - (startTime % tick);
+    }
+
+    void add(ExpiryTask task) {
+      long deadline = task.wheelDeadline;
+      long now = this.currentTime;
+      if (deadline < now + this.span) {
+        // a task that is already due goes into the current bucket, which is due immediately
+        long virtualId = Math.max(deadline, now) / this.tick;
+        Bucket bucket = this.buckets[(int) (virtualId % WHEEL_SIZE)];
+        task.wheelBucket = bucket;
+        bucket.tasks.add(task);
+        if (STATE.get(task) != SCHEDULED) {
+          // lost a race with cancel, which may have looked at the previous bucket
+          bucket.tasks.remove(task);
+          return;
+        }
+        if (bucket.setExpiration(virtualId * this.tick)) {
+          queue.offer(bucket);
+        }
+      } else {
+        getOverflow().add(task);
+      }
+    }
+
+    private Level getOverflow() {
+      Level result = this.overflow;
+      if (result == null) {
+        synchronized (this) {
+          result = this.overflow;
+          if (result == null) {
+            result = new Level(this.span, this.currentTime);
+            this.overflow = result;
+          }
+        }
+      }
+      return result;
+    }
+
+    void advanceClock(long time) {
+      if (time >= this.currentTime + this.tick) {
+        this.currentTime = time - (time % this.tick);
+        Level next = this.overflow;
+        if (next != null) {
+          next.advanceClock(this.currentTime);
+        }
+      }
+    }
+  }
+
+  /** The tasks that come due in one tick of one level. */
+  class Bucket implements Delayed {
+    final Set<ExpiryTask> tasks = ConcurrentHashMap.newKeySet();
+    private final AtomicLong expiration = new AtomicLong(-1);
+
+    /** @return true if the expiration changed, meaning the bucket has to be queued again */
+    boolean setExpiration(long time) {
+      return this.expiration.getAndSet(time) != time;
+    }
+
+    long getExpiration() {
+      return this.expiration.get();
+    }
+
+    /**
+     * Empties the bucket, reinserting each live task into the wheel or adding it to due if its
+     * deadline has been reached.
+     */
+    void flush(List<ExpiryTask> due) {
+      for (ExpiryTask task : this.tasks) {
+        if (!this.tasks.remove(task) || STATE.get(task) != SCHEDULED) {
+          continue;
+        }
+        if (task.wheelDeadline < levelZero.currentTime + tickMillis) {
+          due.add(task);
+        } else {
+          levelZero.add(task);
+        }
+      }
+      this.expiration.set(-1);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(Math.max(getExpiration() - System.currentTimeMillis(), 0),
+          TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(getExpiration(), ((Bucket) other).getExpiration());
+    }
+  }
+}
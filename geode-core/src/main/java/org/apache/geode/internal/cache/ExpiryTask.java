@@ -48,6 +48,18 @@ public abstract class ExpiryTask extends SystemTimer.SystemTimerTask {
 
   private LocalRegion region; // no longer final so cancel can null it out see bug 37574
 
+  /** The wheel this task is scheduled on, or null if it is scheduled on a SystemTimer */
+  volatile ExpirationWheel wheel;
+
+  /** The bucket of {@link #wheel} that holds this task */
+  volatile ExpirationWheel.Bucket wheelBucket;
+
+  /** The absolute time at which this task is due on {@link #wheel} */
+  volatile long wheelDeadline;
+
+  /** The state of this task on {@link #wheel}, updated by the wheel */
+  volatile int wheelState;
+
   private static final ThreadPoolExecutor executor;
 
   static {
@@ -317,7 +329,8 @@ public abstract class ExpiryTask extends SystemTimer.SystemTimerTask {
    */
   @Override
   public boolean cancel() {
-    boolean superCancel = super.cancel();
+    ExpirationWheel w = this.wheel;
+    boolean superCancel = w != null ? w.cancel(this) : super.cancel();
     LocalRegion lr = getLocalRegion();
     if (lr != null) {
       if (superCancel) {
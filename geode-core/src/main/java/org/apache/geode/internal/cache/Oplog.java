@@ -16,6 +16,7 @@ package org.apache.geode.internal.cache;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
@@ -27,10 +28,13 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
 import java.io.SyncFailedException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -44,11 +48,14 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.Checksum;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
@@ -70,6 +77,7 @@ import org.apache.geode.cache.EntryNotFoundException;
 import org.apache.geode.cache.RegionDestroyedException;
 import org.apache.geode.cache.TimeoutException;
 import org.apache.geode.cache.UnsupportedVersionException;
+import org.apache.geode.compression.Compressor;
 import org.apache.geode.distributed.OplogCancelledException;
 import org.apache.geode.distributed.internal.DM;
 import org.apache.geode.distributed.internal.DistributionConfig;
@@ -106,6 +114,7 @@ import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.logging.log4j.LocalizedMessage;
 import org.apache.geode.internal.logging.log4j.LogMarker;
+import org.apache.geode.internal.offheap.AddressableMemoryManager;
 import org.apache.geode.internal.offheap.OffHeapHelper;
 import org.apache.geode.internal.offheap.ReferenceCountHelper;
 import org.apache.geode.internal.offheap.StoredObject;
@@ -185,6 +194,36 @@ public class Oplog implements CompactableOplog, Flushable {
   private static final boolean SYNC_WRITES =
       Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "syncWrites");
 
+  /**
+   * This system property, used with syncWrites, makes concurrent synchronous writes share one
+   * write and force of the oplog instead of each forcing it on its own. Every write still waits
+   * until it is on disk before the operation completes.
+   */
+  private static final boolean GROUP_COMMIT = SYNC_WRITES
+      && Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "syncWrites.groupCommit");
+
+  /**
+   * The longest time, in microseconds, a group commit waits for more writers to join it. It only
+   * waits when the previous group commit had more than one writer.
+   */
+  private static final long GROUP_COMMIT_MAX_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(Long
+      .getLong(DistributionConfig.GEMFIRE_PREFIX + "syncWrites.groupCommitMaxWaitMicros", 100));
+
+  /**
+   * The synchronous write the current thread appended last and has not yet waited for.
+   */
+  private static final ThreadLocal<PendingSyncWrite> pendingSyncWrite =
+      ThreadLocal.withInitial(PendingSyncWrite::new);
+
+  /**
+   * This system property makes values be faulted in from a memory mapping of the crf once the
+   * oplog is no longer appended to, so that concurrent reads of such an oplog neither take the oplog
+   * lock nor seek its file. The mapping is released by the garbage collector, which on some
+   * platforms keeps the crf from being deleted until then.
+   */
+  private static final boolean MMAP_READS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.mmapReads");
+
   /**
    * The HighWaterMark of recentValues.
    */
@@ -223,13 +262,38 @@ public class Oplog implements CompactableOplog, Flushable {
   private static final byte OPLOG_EOF_ID = 0;
   private static final byte END_OF_RECORD_ID = 21;
 
+  /**
+   * Ends a crf or drf record instead of END_OF_RECORD_ID when record checksums are enabled.
+   * Followed by 4 bytes which is the CRC32C of the record from its opcode up to this byte.
+   */
+  private static final byte END_OF_RECORD_WITH_CHECKSUM_ID = 22;
+
+  /**
+   * Whether crf and drf records are written with a checksum. Records written without one are still
+   * read, so this can be turned on and off for an existing disk store; older versions can not read
+   * the records written with one though.
+   */
+  static final boolean RECORD_CHECKSUMS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.recordChecksums");
+
+  /**
+   * Values shorter than this are written uncompressed even if the disk store has a compressor.
+   */
+  static final int COMPRESS_MIN_VALUE_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "disk.compressMinValueSize", 64);
+
+  /**
+   * The number of bytes that end a record.
+   */
+  private static final int END_OF_RECORD_SIZE = RECORD_CHECKSUMS ? 1 + 4 : 1;
+
   /**
    * Written to CRF and DRF. Followed by 16 bytes which is the leastSigBits and mostSigBits of a
    * UUID for the disk store we belong to. 1: EndOfRecord Is written once at the beginning of every
    * oplog file.
    */
   private static final byte OPLOG_DISK_STORE_ID = 62;
-  static final int OPLOG_DISK_STORE_REC_SIZE = 1 + 16 + 1;
+  static final int OPLOG_DISK_STORE_REC_SIZE = 1 + 16 + END_OF_RECORD_SIZE;
 
   /**
    * Written to CRF. Followed by 8 bytes which is the BASE_ID to use for any NEW_ENTRY records. 1:
@@ -240,7 +304,7 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   private static final byte OPLOG_NEW_ENTRY_BASE_ID = 63;
 
-  static final int OPLOG_NEW_ENTRY_BASE_REC_SIZE = 1 + 8 + 1;
+  static final int OPLOG_NEW_ENTRY_BASE_REC_SIZE = 1 + 8 + END_OF_RECORD_SIZE;
 
   /**
    * Written to CRF. The OplogEntryId is +1 the previous new_entry OplogEntryId. Byte Format: 1:
@@ -478,7 +542,7 @@ public class Oplog implements CompactableOplog, Flushable {
    * The maximum size of a DEL_ENTRY record in bytes. Currenty this is 10; 1 for opcode and 8 for
    * oplogEntryId and 1 for END_OF_RECORD_ID
    */
-  private static final int MAX_DELETE_ENTRY_RECORD_BYTES = 1 + 8 + 1;
+  private static final int MAX_DELETE_ENTRY_RECORD_BYTES = 1 + 8 + END_OF_RECORD_SIZE;
 
   /**
    * Written to beginning of each CRF. Contains the RVV for all regions in the CRF. Byte Format 8:
@@ -502,7 +566,7 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   private static final byte OPLOG_GEMFIRE_VERSION = 91;
 
-  static final int OPLOG_GEMFIRE_VERSION_REC_SIZE = 1 + 3 + 1;
+  static final int OPLOG_GEMFIRE_VERSION_REC_SIZE = 1 + 3 + END_OF_RECORD_SIZE;
 
   /**
    * Persist oplog file magic number. Written once at the beginning of every oplog file; CRF, DRF,
@@ -535,7 +599,8 @@ public class Oplog implements CompactableOplog, Flushable {
     }
   }
 
-  public static final int OPLOG_MAGIC_SEQ_REC_SIZE = 1 + OPLOG_TYPE.getLen() + 1;
+  public static final int OPLOG_MAGIC_SEQ_REC_SIZE =
+      1 + OPLOG_TYPE.getLen() + END_OF_RECORD_SIZE;
 
   /** Compact this oplogs or no. A client configurable property * */
   private final boolean compactOplogs;
@@ -545,6 +610,22 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   final Object lock = new Object();
 
+  /**
+   * The number of group committed writes appended to this oplog. Guarded by lock.
+   */
+  private long syncWritesAppended;
+
+  private final Object groupCommitMonitor = new Object();
+
+  /**
+   * The number of group committed writes known to be on disk. Guarded by groupCommitMonitor.
+   */
+  private long syncWritesDurable;
+
+  private boolean groupCommitInProgress;
+
+  private volatile long lastGroupCommitSize;
+
   final ByteBuffer[] bbArray = new ByteBuffer[2];
 
   private boolean lockedForKRFcreate = false;
@@ -555,6 +636,23 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   private boolean doneAppending = false;
 
+  /**
+   * A read only mapping of the crf, created by the first read after doneAppending when
+   * {@link #MMAP_READS} is enabled. Guarded by mappedCrfLock.
+   */
+  private ByteBuffer mappedCrf;
+
+  /**
+   * Set to true if the crf could not be mapped or has been unmapped. Set under mappedCrfLock.
+   */
+  private volatile boolean mapCrfFailed;
+
+  /**
+   * Held for read while reading through mappedCrf and for write while mapping or unmapping it,
+   * since reading a buffer after it is unmapped crashes the JVM.
+   */
+  private final ReentrantReadWriteLock mappedCrfLock = new ReentrantReadWriteLock();
+
   /**
    * Creates new {@code Oplog} for the given region.
    * 
@@ -1095,7 +1193,8 @@ public class Oplog implements CompactableOplog, Flushable {
     }
     this.crf.f = f;
     preblow(this.crf, getMaxCrfSize());
-    this.crf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
+    this.crf.raf = new UninterruptibleRandomAccessFile(f,
+        SYNC_WRITES && !GROUP_COMMIT ? "rwd" : "rw", DiskStoreImpl.DIRECT_WRITES);
     this.crf.RAFClosed = false;
     oplogSet.crfCreate(this.oplogId);
     this.crf.writeBuf = allocateWriteBuf(prevOlf);
@@ -1135,7 +1234,8 @@ public class Oplog implements CompactableOplog, Flushable {
       logger.debug("Creating operation log file {}", f);
     }
     preblow(this.drf, getMaxDrfSize());
-    this.drf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
+    this.drf.raf = new UninterruptibleRandomAccessFile(f,
+        SYNC_WRITES && !GROUP_COMMIT ? "rwd" : "rw", DiskStoreImpl.DIRECT_WRITES);
     this.drf.RAFClosed = false;
     this.oplogSet.drfCreate(this.oplogId);
     this.drf.writeBuf = allocateWriteBuf(prevOlf);
@@ -1529,7 +1629,7 @@ public class Oplog implements CompactableOplog, Flushable {
         try {
           fis = new FileInputStream(drfFile);
           dis = new CountingDataInputStream(new BufferedInputStream(fis, 32 * 1024),
-              drfFile.length());
+              drfFile.length(), getParent().isVerifyingChecksums() ? Crc32C.create() : null);
           boolean endOfLog = false;
           while (!endOfLog) {
             if (dis.atEndOfFile()) {
@@ -1672,7 +1772,8 @@ public class Oplog implements CompactableOplog, Flushable {
   private OplogEntryIdMap skippedKeyBytes;
 
   private boolean readKrf(OplogEntryIdSet deletedIds, boolean recoverValues,
-      boolean recoverValuesSync, Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog) {
+      boolean recoverValuesSync, Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog,
+      KrfRecords parsedKrf) {
     File f = new File(this.diskFile.getPath() + KRF_FILE_EXT);
     if (!f.exists()) {
       return false;
@@ -1692,185 +1793,197 @@ public class Oplog implements CompactableOplog, Flushable {
       return false;
     }
 
-    FileInputStream fis;
-    try {
-      fis = new FileInputStream(f);
-    } catch (FileNotFoundException ignore) {
+    if (!f.exists() || getParent().isOffline() && !getParent().FORCE_KRF_RECOVERY) {
       return false;
     }
+    logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_RECOVERING_OPLOG_0_1_2,
+        new Object[] {toString(), f.getAbsolutePath(), getParent().getName()}));
+    this.recoverNewEntryId = DiskStoreImpl.INVALID_ID;
+    this.recoverModEntryId = DiskStoreImpl.INVALID_ID;
+    this.recoverModEntryIdHWM = DiskStoreImpl.INVALID_ID;
+    int krfEntryCount = 0;
+    final Version version = getProductVersionIfOld();
+    final ByteArrayDataInput in = new ByteArrayDataInput();
+    KrfRecords krf = parsedKrf != null ? parsedKrf : parseKrf(f);
     try {
-      if (getParent().isOffline() && !getParent().FORCE_KRF_RECOVERY) {
-        return false;
-      }
-      logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_RECOVERING_OPLOG_0_1_2,
-          new Object[] {toString(), f.getAbsolutePath(), getParent().getName()}));
-      this.recoverNewEntryId = DiskStoreImpl.INVALID_ID;
-      this.recoverModEntryId = DiskStoreImpl.INVALID_ID;
-      this.recoverModEntryIdHWM = DiskStoreImpl.INVALID_ID;
-      long oplogKeyIdHWM = DiskStoreImpl.INVALID_ID;
-      int krfEntryCount = 0;
-      DataInputStream dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
-      final Version version = getProductVersionIfOld();
-      final ByteArrayDataInput in = new ByteArrayDataInput();
-      try {
-        try {
-          validateOpcode(dis, OPLOG_MAGIC_SEQ_ID);
-          readOplogMagicSeqRecord(dis, f, OPLOG_TYPE.KRF);
-
-          validateOpcode(dis, OPLOG_DISK_STORE_ID);
-          readDiskStoreRecord(dis, f);
-        } catch (DiskAccessException ignore) {
-          // Failed to read the file. There are two possibilities. Either this
-          // file is in old format which does not have a magic seq in the
-          // beginning or this is not a valid file at all. Try reading it as a
-          // file in old format
-          fis.close();
-          fis = new FileInputStream(f);
-          dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
-          readDiskStoreRecord(dis, f);
-        } catch (IllegalStateException ignore) {
-          // Failed to read the file. There are two possibilities. Either this
-          // is in new format which has a magic seq in the beginning or this is
-          // not a valid file at all
-          fis.close();
-          fis = new FileInputStream(f);
-          dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
-          readDiskStoreRecord(dis, f);
-        }
-
-        readGemfireVersionRecord(dis, f);
-        readTotalCountRecord(dis, f);
-        readRVVRecord(dis, f, false, latestOplog);
-        long lastOffset = 0;
-        byte[] keyBytes = DataSerializer.readByteArray(dis);
-        while (keyBytes != null) {
-          byte userBits = dis.readByte();
-          int valueLength = InternalDataSerializer.readArrayLength(dis);
-          byte[] valueBytes = null;
-          long drId = DiskInitFile.readDiskRegionID(dis);
-          DiskRecoveryStore drs = getOplogSet().getCurrentlyRecovering(drId);
-
-          // read version
-          VersionTag tag = null;
-          if (EntryBits.isWithVersions(userBits)) {
-            tag = readVersionsFromOplog(dis);
-            if (drs != null && !drs.getDiskRegionView().getFlags()
-                .contains(DiskRegionFlag.IS_WITH_VERSIONING)) {
-              // 50044 Remove version tag from entry if we don't want versioning
-              // for this region
-              tag = null;
-              userBits = EntryBits.setWithVersions(userBits, false);
-            } else {
-              // Update the RVV with the new entry
-              if (drs != null) {
-                drs.recordRecoveredVersionTag(tag);
-              }
-            }
+      readRVVRecord(new DataInputStream(new ByteArrayInputStream(krf.rvvRecord)), f, false,
+          latestOplog);
+    } catch (IOException ex) {
+      throw new DiskAccessException("Unable to recover from krf file for oplogId=" + oplogId
+          + ", file=" + f.getName() + ". This file is corrupt, but may be safely deleted.", ex,
+          getParent());
+    }
+    for (KrfRecord record : krf.records) {
+      byte userBits = record.userBits;
+      int valueLength = record.valueLength;
+      byte[] valueBytes = null;
+      long drId = record.drId;
+      DiskRecoveryStore drs = getOplogSet().getCurrentlyRecovering(drId);
+
+      // read version
+      VersionTag tag = null;
+      if (EntryBits.isWithVersions(userBits)) {
+        tag = record.hasVersionTag ? createVersionTag(record.entryVersion, record.regionVersion,
+            record.memberId, record.timestamp, record.dsId) : null;
+        if (drs != null
+            && !drs.getDiskRegionView().getFlags().contains(DiskRegionFlag.IS_WITH_VERSIONING)) {
+          // 50044 Remove version tag from entry if we don't want versioning
+          // for this region
+          tag = null;
+          userBits = EntryBits.setWithVersions(userBits, false);
+        } else {
+          // Update the RVV with the new entry
+          if (drs != null) {
+            drs.recordRecoveredVersionTag(tag);
           }
+        }
+      }
 
-          long oplogKeyId = InternalDataSerializer.readVLOld(dis);
-          long oplogOffset;
-          if (EntryBits.isAnyInvalid(userBits) || EntryBits.isTombstone(userBits)) {
-            oplogOffset = -1;
+      long oplogKeyId = record.oplogKeyId;
+      long oplogOffset = record.oplogOffset;
+      if (okToSkipModifyRecord(deletedIds, drId, drs, oplogKeyId, true, tag).skip()) {
+        if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+          logger.trace(LogMarker.PERSIST_RECOVERY,
+              "readNewEntry skipping oplogKeyId=<{}> drId={} userBits={} oplogOffset={} valueLen={}",
+              oplogKeyId, drId, userBits, oplogOffset, valueLength);
+        }
+        this.stats.incRecoveryRecordsSkipped();
+        incSkipped();
+      } else {
+        if (EntryBits.isAnyInvalid(userBits)) {
+          if (EntryBits.isInvalid(userBits)) {
+            valueBytes = DiskEntry.INVALID_BYTES;
           } else {
-            oplogOffset = lastOffset + InternalDataSerializer.readVLOld(dis);
-            lastOffset = oplogOffset;
+            valueBytes = DiskEntry.LOCAL_INVALID_BYTES;
           }
-
-          if (oplogKeyId > oplogKeyIdHWM) {
-            oplogKeyIdHWM = oplogKeyId;
+        } else if (EntryBits.isTombstone(userBits)) {
+          valueBytes = DiskEntry.TOMBSTONE_BYTES;
+        }
+        Object key = deserializeKey(record.keyBytes, version, in);
+        {
+          Object oldValue = getRecoveryMap().put(oplogKeyId, key);
+          if (oldValue != null) {
+            throw new AssertionError(
+                LocalizedStrings.Oplog_DUPLICATE_CREATE.toLocalizedString(oplogKeyId));
           }
-          if (okToSkipModifyRecord(deletedIds, drId, drs, oplogKeyId, true, tag).skip()) {
-            if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
-              logger.trace(LogMarker.PERSIST_RECOVERY,
-                  "readNewEntry skipping oplogKeyId=<{}> drId={} userBits={} oplogOffset={} valueLen={}",
-                  oplogKeyId, drId, userBits, oplogOffset, valueLength);
-            }
-            this.stats.incRecoveryRecordsSkipped();
-            incSkipped();
-          } else {
-            if (EntryBits.isAnyInvalid(userBits)) {
-              if (EntryBits.isInvalid(userBits)) {
-                valueBytes = DiskEntry.INVALID_BYTES;
-              } else {
-                valueBytes = DiskEntry.LOCAL_INVALID_BYTES;
-              }
-            } else if (EntryBits.isTombstone(userBits)) {
-              valueBytes = DiskEntry.TOMBSTONE_BYTES;
-            }
-            Object key = deserializeKey(keyBytes, version, in);
-            {
-              Object oldValue = getRecoveryMap().put(oplogKeyId, key);
-              if (oldValue != null) {
-                throw new AssertionError(
-                    LocalizedStrings.Oplog_DUPLICATE_CREATE.toLocalizedString(oplogKeyId));
-              }
-            }
-            DiskEntry de = drs.getDiskEntry(key);
-            if (de == null) {
-              if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
-                logger.trace(LogMarker.PERSIST_RECOVERY,
-                    "readNewEntry oplogKeyId=<{}> drId={} userBits={} oplogOffset={} valueLen={}",
-                    oplogKeyId, drId, userBits, oplogOffset, valueLength);
-              }
-              DiskEntry.RecoveredEntry re = createRecoveredEntry(valueBytes, valueLength, userBits,
-                  getOplogId(), oplogOffset, oplogKeyId, false, version, in);
-              if (tag != null) {
-                re.setVersionTag(tag);
-              }
-              initRecoveredEntry(drs.getDiskRegionView(), drs.initializeRecoveredEntry(key, re));
-              drs.getDiskRegionView().incRecoveredEntryCount();
-              this.stats.incRecoveredEntryCreates();
-              krfEntryCount++;
-            } else {
-              DiskId curdid = de.getDiskId();
-              // assert curdid.getOplogId() != getOplogId();
-              if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
-                logger.trace(LogMarker.PERSIST_RECOVERY,
-                    "ignore readNewEntry because getOplogId()={} != curdid.getOplogId()={} for drId={} key={}",
-                    getOplogId(), curdid.getOplogId(), drId, key);
-              }
-            }
+        }
+        DiskEntry de = drs.getDiskEntry(key);
+        if (de == null) {
+          if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+            logger.trace(LogMarker.PERSIST_RECOVERY,
+                "readNewEntry oplogKeyId=<{}> drId={} userBits={} oplogOffset={} valueLen={}",
+                oplogKeyId, drId, userBits, oplogOffset, valueLength);
+          }
+          DiskEntry.RecoveredEntry re = createRecoveredEntry(valueBytes, valueLength, userBits,
+              getOplogId(), oplogOffset, oplogKeyId, false, version, in);
+          if (tag != null) {
+            re.setVersionTag(tag);
+          }
+          initRecoveredEntry(drs.getDiskRegionView(), drs.initializeRecoveredEntry(key, re));
+          drs.getDiskRegionView().incRecoveredEntryCount();
+          this.stats.incRecoveredEntryCreates();
+          krfEntryCount++;
+        } else {
+          DiskId curdid = de.getDiskId();
+          // assert curdid.getOplogId() != getOplogId();
+          if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+            logger.trace(LogMarker.PERSIST_RECOVERY,
+                "ignore readNewEntry because getOplogId()={} != curdid.getOplogId()={} for drId={} key={}",
+                getOplogId(), curdid.getOplogId(), drId, key);
           }
-          keyBytes = DataSerializer.readByteArray(dis);
-        } // while
-        setRecoverNewEntryId(oplogKeyIdHWM);
-      } catch (IOException ex) {
-        try {
-          fis.close();
-          fis = null;
-        } catch (IOException ignore) {
         }
-        throw new DiskAccessException("Unable to recover from krf file for oplogId=" + oplogId
-            + ", file=" + f.getName() + ". This file is corrupt, but may be safely deleted.", ex,
-            getParent());
-      }
-      if (recoverValues && krfEntryCount > 0) {
-        oplogsNeedingValueRecovery.add(this);
-        // TODO optimize this code and make it async
-        // It should also honor the lru limit
-        // The fault in logic might not work until
-        // the region is actually created.
-        // Instead of reading the crf it might be better to iterate the live
-        // entry
-        // list that was built during KRF recovery. Just fault values in until
-        // we
-        // hit the LRU limit (if we have one). Only fault in values for entries
-        // recovered from disk that are still in this oplog.
-        // Defer faulting in values until all oplogs for the ds have been
-        // recovered.
       }
-    } finally {
-      // fix for bug 42776
-      if (fis != null) {
-        try {
-          fis.close();
-          fis = null;
-        } catch (IOException ignore) {
+    }
+    setRecoverNewEntryId(krf.oplogKeyIdHWM);
+    if (recoverValues && krfEntryCount > 0) {
+      oplogsNeedingValueRecovery.add(this);
+      // TODO optimize this code and make it async
+      // It should also honor the lru limit
+      // The fault in logic might not work until
+      // the region is actually created.
+      // Instead of reading the crf it might be better to iterate the live
+      // entry
+      // list that was built during KRF recovery. Just fault values in until
+      // we
+      // hit the LRU limit (if we have one). Only fault in values for entries
+      // recovered from disk that are still in this oplog.
+      // Defer faulting in values until all oplogs for the ds have been
+      // recovered.
+    }
+    return true;
+  }
+
+  /**
+   * Parses the given krf of this oplog without applying any of it to the regions being recovered,
+   * so that a recovery reader thread can parse it while the recovery thread applies the krfs of
+   * the oplogs before it. Reading the header sets the product version and total count of this
+   * oplog, as it does when the recovery thread reads it.
+   *
+   * @throws DiskAccessException if the krf can not be read or is corrupt
+   */
+  KrfRecords parseKrf(File f) {
+    try {
+      byte[] contents = Files.readAllBytes(f.toPath());
+      ByteArrayInputStream bytes = new ByteArrayInputStream(contents);
+      DataInputStream dis = new DataInputStream(bytes);
+      try {
+        validateOpcode(dis, OPLOG_MAGIC_SEQ_ID);
+        readOplogMagicSeqRecord(dis, f, OPLOG_TYPE.KRF);
+
+        validateOpcode(dis, OPLOG_DISK_STORE_ID);
+        readDiskStoreRecord(dis, f);
+      } catch (DiskAccessException | IllegalStateException ignore) {
+        // Failed to read the file. Either this file is in old format which does
+        // not have a magic seq in the beginning or this is not a valid file at
+        // all. Try reading it as a file in old format
+        bytes = new ByteArrayInputStream(contents);
+        dis = new DataInputStream(bytes);
+        readDiskStoreRecord(dis, f);
+      }
+
+      readGemfireVersionRecord(dis, f);
+      readTotalCountRecord(dis, f);
+      // the RVV is applied by readKrf, in oplog order
+      int rvvStart = contents.length - bytes.available();
+      skipRVVRecord(dis);
+      KrfRecords krf = new KrfRecords(
+          Arrays.copyOfRange(contents, rvvStart, contents.length - bytes.available()));
+      long lastOffset = 0;
+      byte[] keyBytes = DataSerializer.readByteArray(dis);
+      while (keyBytes != null) {
+        KrfRecord record = new KrfRecord(keyBytes);
+        record.userBits = dis.readByte();
+        record.valueLength = InternalDataSerializer.readArrayLength(dis);
+        record.drId = DiskInitFile.readDiskRegionID(dis);
+        if (EntryBits.isWithVersions(record.userBits)
+            && Version.GFE_70.compareTo(currentRecoveredGFVersion()) <= 0) {
+          // the fields read by readVersionsFromOplog
+          record.hasVersionTag = true;
+          record.entryVersion = (int) InternalDataSerializer.readSignedVL(dis);
+          record.regionVersion = InternalDataSerializer.readUnsignedVL(dis);
+          record.memberId = (int) InternalDataSerializer.readUnsignedVL(dis);
+          record.timestamp = InternalDataSerializer.readUnsignedVL(dis);
+          record.dsId = (int) InternalDataSerializer.readSignedVL(dis);
+        }
+        record.oplogKeyId = InternalDataSerializer.readVLOld(dis);
+        if (EntryBits.isAnyInvalid(record.userBits) || EntryBits.isTombstone(record.userBits)) {
+          record.oplogOffset = -1;
+        } else {
+          record.oplogOffset = lastOffset + InternalDataSerializer.readVLOld(dis);
+          lastOffset = record.oplogOffset;
         }
+        if (record.oplogKeyId > krf.oplogKeyIdHWM) {
+          krf.oplogKeyIdHWM = record.oplogKeyId;
+        }
+        krf.records.add(record);
+        keyBytes = DataSerializer.readByteArray(dis);
       }
+      return krf;
+    } catch (IOException ex) {
+      throw new DiskAccessException("Unable to recover from krf file for oplogId=" + oplogId
+          + ", file=" + f.getName() + ". This file is corrupt, but may be safely deleted.", ex,
+          getParent());
     }
-    return true;
   }
 
   private void validateOpcode(DataInputStream dis, byte expect) throws IOException {
@@ -1903,7 +2016,7 @@ public class Oplog implements CompactableOplog, Flushable {
       try {
         fis = new FileInputStream(this.crf.f);
         dis = new CountingDataInputStream(new BufferedInputStream(fis, 1024 * 1024),
-            this.crf.f.length());
+            this.crf.f.length(), getParent().isVerifyingChecksums() ? Crc32C.create() : null);
         boolean endOfLog = false;
         while (!endOfLog) {
           // long startPosition = byteCount;
@@ -2237,13 +2350,58 @@ public class Oplog implements CompactableOplog, Flushable {
     readEndOfRecord(dis);
   }
 
+  /**
+   * Reads past a regular RVV record without applying it.
+   */
+  private void skipRVVRecord(DataInput dis) throws IOException {
+    long numRegions = InternalDataSerializer.readUnsignedVL(dis);
+    for (int region = 0; region < numRegions; region++) {
+      InternalDataSerializer.readUnsignedVL(dis);
+      DataSerializer.readBoolean(dis);
+      long rvvSize = InternalDataSerializer.readUnsignedVL(dis);
+      for (int memberNum = 0; memberNum < rvvSize; memberNum++) {
+        InternalDataSerializer.readUnsignedVL(dis);
+        new RegionVersionHolder(dis);
+      }
+    }
+    readEndOfRecord(dis);
+  }
+
+  /**
+   * Returns the file {@link #recoverDrf} will read, or null if there is none.
+   */
+  File getDrfRecoveryFile() {
+    return this.drf.f;
+  }
+
+  /**
+   * Returns the file {@link #recoverCrf} will read this oplog's entries from: its krf if it has one
+   * that will be used, otherwise its crf. Returns null if there is no crf.
+   */
+  File getCrfRecoveryFile(boolean recoverValuesSync) {
+    File crfFile = this.crf.f;
+    if (crfFile == null) {
+      return null;
+    }
+    if (!recoverValuesSync && (!getParent().isOffline() || getParent().FORCE_KRF_RECOVERY)) {
+      File krfFile = new File(crfFile.getParentFile(), oplogSet.getPrefix() + getParent().getName()
+          + "_" + this.oplogId + KRF_FILE_EXT);
+      if (krfFile.exists() && getParent().getDiskInitFile().hasKrf(this.oplogId)) {
+        return krfFile;
+      }
+    }
+    return crfFile;
+  }
+
   /**
    * Recovers one oplog
    * 
    * @param latestOplog - true if this oplog is the latest oplog in the disk store.
+   * @param parsedKrf - the krf of this oplog if a recovery reader has already parsed it, or null
    */
   long recoverCrf(OplogEntryIdSet deletedIds, boolean recoverValues, boolean recoverValuesSync,
-      boolean alreadyRecoveredOnce, Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog) {
+      boolean alreadyRecoveredOnce, Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog,
+      KrfRecords parsedKrf) {
     // crf might not exist; but drf always will
     this.diskFile = new File(this.drf.f.getParentFile(),
         oplogSet.getPrefix() + getParent().getName() + "_" + this.oplogId);
@@ -2268,7 +2426,7 @@ public class Oplog implements CompactableOplog, Flushable {
       // if we have a KRF then read it and delay reading the CRF.
       // Unless we are in synchronous recovery mode
       if (!readKrf(deletedIds, recoverValues, recoverValuesSync, oplogsNeedingValueRecovery,
-          latestOplog)) {
+          latestOplog, parsedKrf)) {
         logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_RECOVERING_OPLOG_0_1_2,
             new Object[] {toString(), crfFile.getAbsolutePath(), getParent().getName()}));
         byteCount = readCrf(deletedIds, recoverValues, latestOplog);
@@ -2348,6 +2506,8 @@ public class Oplog implements CompactableOplog, Flushable {
       Version version, ByteArrayDataInput in) {
     DiskEntry.RecoveredEntry re = null;
     if (recoverValue || EntryBits.isAnyInvalid(userBits) || EntryBits.isTombstone(userBits)) {
+      // the DiskId keeps the compressed bit and length since they describe the bytes on disk
+      valueBytes = decompressValue(valueBytes, userBits);
       Object value;
       if (EntryBits.isLocalInvalid(userBits)) {
         value = Token.LOCAL_INVALID;
@@ -2371,8 +2531,33 @@ public class Oplog implements CompactableOplog, Flushable {
   }
 
   private void readEndOfRecord(DataInput di) throws IOException {
+    Checksum checksum = null;
+    long recordChecksum = 0;
+    if (di instanceof CountingDataInputStream) {
+      checksum = ((CountingDataInputStream) di).getChecksum();
+      if (checksum != null) {
+        recordChecksum = checksum.getValue();
+      }
+    }
     int b = di.readByte();
-    if (b != END_OF_RECORD_ID) {
+    if (b == END_OF_RECORD_WITH_CHECKSUM_ID) {
+      int expected = di.readInt();
+      if (checksum != null) {
+        if ((int) recordChecksum != expected) {
+          throw new IOException("The checksum of the record ending at offset "
+              + ((CountingDataInputStream) di).getCount() + " is "
+              + Integer.toHexString((int) recordChecksum) + " but " + Integer.toHexString(expected)
+              + " was written with it");
+        }
+        getParent().incChecksummedRecordCount();
+        checksum.reset();
+      }
+    } else if (b == END_OF_RECORD_ID) {
+      if (checksum != null) {
+        getParent().incUncheckedRecordCount();
+        checksum.reset();
+      }
+    } else {
       if (b == 0) {
         logger.warn(LocalizedMessage.create(LocalizedStrings.Oplog_PARTIAL_RECORD));
 
@@ -2383,8 +2568,8 @@ public class Oplog implements CompactableOplog, Flushable {
         // Our implementation currently relies on all unwritten bytes having
         // a value of 0. So throw this exception if we find one we didn't
         // expect.
-        throw new IllegalStateException(
-            "expected end of record (byte==" + END_OF_RECORD_ID + ") or zero but found " + b);
+        throw new IllegalStateException("expected end of record (byte==" + END_OF_RECORD_ID
+            + " or " + END_OF_RECORD_WITH_CHECKSUM_ID + ") or zero but found " + b);
       }
     }
   }
@@ -2415,22 +2600,27 @@ public class Oplog implements CompactableOplog, Flushable {
       int entryVersion = (int) InternalDataSerializer.readSignedVL(dis);
       long regionVersion = InternalDataSerializer.readUnsignedVL(dis);
       int memberId = (int) InternalDataSerializer.readUnsignedVL(dis);
-      Object member = getParent().getDiskInitFile().getCanonicalObject(memberId);
       long timestamp = InternalDataSerializer.readUnsignedVL(dis);
       int dsId = (int) InternalDataSerializer.readSignedVL(dis);
-      VersionTag vt = VersionTag.create((VersionSource) member);
-      vt.setEntryVersion(entryVersion);
-      vt.setRegionVersion(regionVersion);
-      vt.setMemberID((VersionSource) member);
-      vt.setVersionTimeStamp(timestamp);
-      vt.setDistributedSystemId(dsId);
-      return vt;
+      return createVersionTag(entryVersion, regionVersion, memberId, timestamp, dsId);
     } else {
       // pre-7.0
       return null;
     }
   }
 
+  private VersionTag createVersionTag(int entryVersion, long regionVersion, int memberId,
+      long timestamp, int dsId) {
+    Object member = getParent().getDiskInitFile().getCanonicalObject(memberId);
+    VersionTag vt = VersionTag.create((VersionSource) member);
+    vt.setEntryVersion(entryVersion);
+    vt.setRegionVersion(regionVersion);
+    vt.setMemberID((VersionSource) member);
+    vt.setVersionTimeStamp(timestamp);
+    vt.setDistributedSystemId(dsId);
+    return vt;
+  }
+
   private synchronized VersionTag createDummyTag(DiskRecoveryStore drs) {
     DiskStoreID member = getParent().getDiskStoreID();
     int memberid = getParent().getDiskInitFile().getOrCreateCanonicalId(member);
@@ -2854,6 +3044,7 @@ public class Oplog implements CompactableOplog, Flushable {
   private void validateValue(byte[] valueBytes, byte userBits, Version version,
       ByteArrayDataInput in) {
     if (getParent().isValidating()) {
+      valueBytes = decompressValue(valueBytes, userBits);
       if (EntryBits.isSerialized(userBits)) {
         // make sure values are deserializable
         if (!PdxWriterImpl.isPdx(valueBytes)) { // fix bug 43011
@@ -3310,6 +3501,7 @@ public class Oplog implements CompactableOplog, Flushable {
 
   private void basicClose(boolean forceDelete) {
     flushAll();
+    unmapCrf();
     // No need to get the backup lock prior to synchronizing (correct lock order) since the
     // synchronized block does not attempt to get the backup lock (incorrect lock order)
     synchronized (this.lock/* crf */) {
@@ -3528,7 +3720,13 @@ public class Oplog implements CompactableOplog, Flushable {
           // pdx and tx will not use version
           userBits = EntryBits.setWithVersions(userBits, true);
         }
+        ValueWrapper compressed = compressValue(value, userBits);
+        if (compressed != null) {
+          value = compressed;
+          userBits = EntryBits.setCompressed(userBits, true);
+        }
         basicCreate(region.getDiskRegion(), entry, value, userBits, async);
+        commitPendingSyncWrite();
       } catch (IOException ex) {
         exceptionOccurred = true;
         region.getCancelCriterion().checkCancelInProgress(ex);
@@ -3640,7 +3838,7 @@ public class Oplog implements CompactableOplog, Flushable {
           id.setOplogId(getOplogId());
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeOpLogBytes(this.crf, async, true, true);
           // if (this.crf.currSize != startPosForSynchOp) {
           // assert false;
           // }
@@ -3880,6 +4078,46 @@ public class Oplog implements CompactableOplog, Flushable {
   /**
    * Used when creating a KRF to keep track of what DiskRegionView a DiskEntry belongs to.
    */
+  /**
+   * The records of a krf, parsed by {@link #parseKrf} for {@link #readKrf} to apply.
+   */
+  static class KrfRecords {
+    /** The RVV record of the krf, still serialized */
+    final byte[] rvvRecord;
+
+    final List<KrfRecord> records = new ArrayList<KrfRecord>();
+
+    long oplogKeyIdHWM = DiskStoreImpl.INVALID_ID;
+
+    KrfRecords(byte[] rvvRecord) {
+      this.rvvRecord = rvvRecord;
+    }
+  }
+
+  /**
+   * One entry of a krf. The version tag is kept as the fields it is made of because the member is
+   * only resolved when the record is applied.
+   */
+  private static class KrfRecord {
+    final byte[] keyBytes;
+    byte userBits;
+    int valueLength;
+    long drId;
+    long oplogKeyId;
+    long oplogOffset;
+
+    boolean hasVersionTag;
+    int entryVersion;
+    long regionVersion;
+    int memberId;
+    long timestamp;
+    int dsId;
+
+    KrfRecord(byte[] keyBytes) {
+      this.keyBytes = keyBytes;
+    }
+  }
+
   private static class KRFEntry {
     private final DiskEntry de;
     private final DiskRegionView drv;
@@ -4387,6 +4625,7 @@ public class Oplog implements CompactableOplog, Flushable {
           entry.getDiskId().setPendingAsync(false);
           try {
             getOplogSet().getChild().basicRemove(dr, entry, false, false);
+            commitPendingSyncWrite();
           } catch (IOException ex) {
             getParent().getCancelCriterion().checkCancelInProgress(ex);
             throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0
@@ -4447,7 +4686,13 @@ public class Oplog implements CompactableOplog, Flushable {
           // pdx and tx will not use version
           userBits = EntryBits.setWithVersions(userBits, true);
         }
+        ValueWrapper compressed = compressValue(value, userBits);
+        if (compressed != null) {
+          value = compressed;
+          userBits = EntryBits.setCompressed(userBits, true);
+        }
         basicModify(region.getDiskRegion(), entry, value, userBits, async, false);
+        commitPendingSyncWrite();
       } catch (IOException ex) {
         exceptionOccurred = true;
         region.getCancelCriterion().checkCancelInProgress(ex);
@@ -4492,7 +4737,13 @@ public class Oplog implements CompactableOplog, Flushable {
         vs.setVersions(vt);
         userBits = EntryBits.setWithVersions(userBits, true);
       }
+      ValueWrapper compressed = compressValue(vw, userBits);
+      if (compressed != null) {
+        vw = compressed;
+        userBits = EntryBits.setCompressed(userBits, true);
+      }
       basicModify(drv, entry, vw, userBits, false, false);
+      commitPendingSyncWrite();
     } catch (IOException ex) {
       throw new DiskAccessException(
           LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()),
@@ -4506,12 +4757,62 @@ public class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Returns the value compressed with the disk store's compressor, or null if the value should be
+   * written as is because there is no compressor, the value is too small or it does not get
+   * smaller. Called outside of any oplog lock.
+   */
+  private ValueWrapper compressValue(ValueWrapper value, byte userBits) throws IOException {
+    Compressor compressor = getParent().getCompressor();
+    if (compressor == null || !EntryBits.isNeedsValue(userBits)
+        || EntryBits.isCompressed(userBits) || value.getLength() < COMPRESS_MIN_VALUE_SIZE) {
+      return null;
+    }
+    byte[] bytes = new byte[value.getLength()];
+    value.sendTo(ByteBuffer.wrap(bytes), NO_FLUSH);
+    byte[] compressed = compressor.compress(bytes);
+    getParent().getStats().endCompression(bytes.length, compressed.length);
+    if (compressed.length >= bytes.length) {
+      return null;
+    }
+    return new DiskEntry.Helper.ByteArrayValueWrapper(EntryBits.isSerialized(userBits),
+        compressed);
+  }
+
+  /**
+   * Returns the given value bytes decompressed if they were written compressed.
+   */
+  private byte[] decompressValue(byte[] valueBytes, byte userBits) {
+    if (!EntryBits.isCompressed(userBits) || !EntryBits.isNeedsValue(userBits)) {
+      return valueBytes;
+    }
+    Compressor compressor = getParent().getCompressorForReads();
+    getParent().getStats().incDecompressions();
+    return compressor.decompress(valueBytes);
+  }
+
+  /**
+   * Used to copy a value into an array that is large enough for all of it.
+   */
+  private static final Flushable NO_FLUSH = new Flushable() {
+    @Override
+    public void flush() {
+      // the array always has room for the rest of the value
+    }
+
+    @Override
+    public void flush(ByteBuffer bb, ByteBuffer chunkbb) {
+      bb.put(chunkbb);
+    }
+  };
+
   public void saveConflictVersionTag(LocalRegion region, VersionTag tag, boolean async) {
     if (getOplogSet().getChild() != this) {
       getOplogSet().getChild().saveConflictVersionTag(region, tag, async);
     } else {
       try {
         basicSaveConflictVersionTag(region.getDiskRegion(), tag, async);
+        commitPendingSyncWrite();
       } catch (IOException ex) {
         region.getCancelCriterion().checkCancelInProgress(ex);
         throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_CONFLICT_VERSION_TAG_0
@@ -4562,6 +4863,13 @@ public class Oplog implements CompactableOplog, Flushable {
           vw = new DiskEntry.Helper.CompactorValueWrapper(wrapper.getBytes(),
               wrapper.getValidLength());
         }
+        // values written before the disk store had a compressor get compressed as they are
+        // copied forward
+        ValueWrapper compressed = compressValue(vw, userBits);
+        if (compressed != null) {
+          vw = compressed;
+          userBits = EntryBits.setCompressed(userBits, true);
+        }
         // Compactor always says to do an async basicModify so that its writes
         // will be grouped. This is not a true async write; just a grouped one.
         basicModify(dr, entry, vw, userBits, true, true);
@@ -4634,7 +4942,7 @@ public class Oplog implements CompactableOplog, Flushable {
             long oldOplogId;
             // do the io while holding lock so that switch can set doneAppending
             // Write the data to the opLog for the synch mode
-            startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+            startPosForSynchOp = writeOpLogBytes(this.crf, async, true, true);
             this.crf.currSize = temp;
             startPosForSynchOp += getOpStateValueOffset();
             if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -4758,7 +5066,7 @@ public class Oplog implements CompactableOplog, Flushable {
               throw cce;
             }
             this.firstRecord = false;
-            writeOpLogBytes(this.crf, async, true);
+            writeOpLogBytes(this.crf, async, true, true);
             this.crf.currSize = temp;
             if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
               logger.trace(LogMarker.PERSIST_WRITES,
@@ -4921,6 +5229,7 @@ public class Oplog implements CompactableOplog, Flushable {
       int len = did.getValueLength();
       try {
         basicRemove(dr, entry, async, isClear);
+        commitPendingSyncWrite();
       } catch (IOException ex) {
         exceptionOccurred = true;
         getParent().getCancelCriterion().checkCancelInProgress(ex);
@@ -5102,7 +5411,7 @@ public class Oplog implements CompactableOplog, Flushable {
             // before we flush the crf.
             // However we can't have removes by async if we are doing a sync write
             // because we might be killed right after we do this write.
-            startPosForSynchOp = writeOpLogBytes(this.drf, async, true);
+            startPosForSynchOp = writeOpLogBytes(this.drf, async, true, true);
             setHasDeletes(true);
             if (logger.isDebugEnabled(LogMarker.PERSIST_WRITES)) {
               logger.debug("basicRemove: id=<{}> key=<{}> drId={} oplog#{}", abs(id.getKeyId()),
@@ -5184,6 +5493,34 @@ public class Oplog implements CompactableOplog, Flushable {
 
   private static final int MAX_CHANNEL_RETRIES = 5;
 
+  private static void startRecordChecksum(OplogFile olf) {
+    if (olf.recordChecksum == null) {
+      olf.recordChecksum = Crc32C.create();
+      olf.checksumScratch = new byte[4096];
+    } else {
+      olf.recordChecksum.reset();
+    }
+    olf.recordChecksumStart = olf.writeBuf.position();
+  }
+
+  /**
+   * Adds the bytes of the record being written that are in the given write buffer to its checksum.
+   * Called before the buffer is flushed and cleared.
+   */
+  private static void updateRecordChecksum(OplogFile olf, ByteBuffer bb) {
+    if (olf.recordChecksumStart >= 0) {
+      Crc32C.update(olf.recordChecksum, bb, olf.recordChecksumStart, bb.position(),
+          olf.checksumScratch);
+      olf.recordChecksumStart = 0;
+    }
+  }
+
+  private static int endRecordChecksum(OplogFile olf) {
+    updateRecordChecksum(olf, olf.writeBuf);
+    olf.recordChecksumStart = -1;
+    return (int) olf.recordChecksum.getValue();
+  }
+
   private void flush(OplogFile olf, boolean doSync) throws IOException {
     try {
       // No need to get the backup lock prior to synchronizing (correct lock order) since the
@@ -5194,6 +5531,7 @@ public class Oplog implements CompactableOplog, Flushable {
         }
         ByteBuffer bb = olf.writeBuf;
         if (bb != null && bb.position() != 0) {
+          updateRecordChecksum(olf, bb);
           bb.flip();
           int flushed = 0;
           int numChannelRetries = 0;
@@ -5251,6 +5589,10 @@ public class Oplog implements CompactableOplog, Flushable {
         if (olf.RAFClosed) {
           return;
         }
+        updateRecordChecksum(olf, b1);
+        if (olf.recordChecksumStart >= 0) {
+          Crc32C.update(olf.recordChecksum, b2, b2.position(), b2.limit(), olf.checksumScratch);
+        }
         this.bbArray[0] = b1;
         this.bbArray[1] = b2;
         b1.flip();
@@ -5287,9 +5629,18 @@ public class Oplog implements CompactableOplog, Flushable {
 
   public void flushAll(boolean skipDrf, boolean doSync) {
     try {
+      long appended = 0;
+      if (doSync && GROUP_COMMIT) {
+        synchronized (this.lock) {
+          appended = this.syncWritesAppended;
+        }
+      }
       // TODO: if skipDrf then only need to do drf if crf has flushable data
       flush(this.drf, doSync);
       flush(this.crf, doSync);
+      if (appended > 0) {
+        syncWritesDurable(appended);
+      }
     } catch (IOException ex) {
       getParent().getCancelCriterion().checkCancelInProgress(ex);
       throw new DiskAccessException(
@@ -5314,6 +5665,16 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   private long writeOpLogBytes(OplogFile olf, boolean async, boolean doFlushIfSync)
       throws IOException {
+    return writeOpLogBytes(olf, async, doFlushIfSync, false);
+  }
+
+  /**
+   * @param groupCommit true if a synchronous write may leave the flush to a group commit, which
+   *        the caller must wait for with {@link #commitPendingSyncWrite} once it no longer holds
+   *        the oplog lock
+   */
+  private long writeOpLogBytes(OplogFile olf, boolean async, boolean doFlushIfSync,
+      boolean groupCommit) throws IOException {
     long startPos = -1L;
     getParent().getBackupLock().lock();
     try {
@@ -5338,7 +5699,13 @@ public class Oplog implements CompactableOplog, Flushable {
         // " was not > lastWritePos=" + lastWritePos);
         long bytesWritten = this.opState.write(olf);
         if (!async && doFlushIfSync) {
-          flushAndSync(olf);
+          if (groupCommit && GROUP_COMMIT) {
+            PendingSyncWrite pending = pendingSyncWrite.get();
+            pending.oplog = this;
+            pending.writeNumber = ++this.syncWritesAppended;
+          } else {
+            flushAndSync(olf);
+          }
         }
         getStats().incWrittenBytes(bytesWritten, async);
 
@@ -5353,6 +5720,98 @@ public class Oplog implements CompactableOplog, Flushable {
     return startPos;
   }
 
+  /**
+   * Waits until the synchronous write the current thread appended last, if it left it to a group
+   * commit, is on disk.
+   */
+  private static void commitPendingSyncWrite() {
+    if (!GROUP_COMMIT) {
+      return;
+    }
+    PendingSyncWrite pending = pendingSyncWrite.get();
+    Oplog oplog = pending.oplog;
+    if (oplog != null) {
+      pending.oplog = null;
+      oplog.groupCommit(pending.writeNumber);
+    }
+  }
+
+  /**
+   * Returns once the given write is on disk. The first waiting writer becomes the leader of a group
+   * commit: it flushes everything appended so far with one write and force, while the writers that
+   * arrive in the meantime wait for it or for the next group commit.
+   */
+  private void groupCommit(long writeNumber) {
+    boolean interrupted = false;
+    try {
+      synchronized (this.groupCommitMonitor) {
+        while (this.syncWritesDurable < writeNumber && this.groupCommitInProgress) {
+          try {
+            this.groupCommitMonitor.wait();
+          } catch (InterruptedException ignore) {
+            interrupted = true;
+          }
+        }
+        if (this.syncWritesDurable >= writeNumber) {
+          return;
+        }
+        this.groupCommitInProgress = true;
+      }
+      try {
+        if (GROUP_COMMIT_MAX_WAIT_NANOS > 0 && this.lastGroupCommitSize > 1) {
+          LockSupport.parkNanos(GROUP_COMMIT_MAX_WAIT_NANOS);
+        }
+        long appended;
+        synchronized (this.lock) {
+          appended = this.syncWritesAppended;
+          flush(this.drf, false);
+          flush(this.crf, false);
+        }
+        try {
+          // force outside the lock so that the next group can append meanwhile
+          if (!this.drf.RAFClosed) {
+            this.drf.channel.force(true);
+          }
+          if (!this.crf.RAFClosed) {
+            this.crf.channel.force(true);
+          }
+        } catch (ClosedChannelException ignore) {
+          // the oplog was closed, which flushes and forces it first
+        }
+        syncWritesDurable(appended);
+      } catch (IOException ex) {
+        getParent().getCancelCriterion().checkCancelInProgress(ex);
+        throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0
+            .toLocalizedString(this.diskFile.getPath()), ex, getParent());
+      } finally {
+        synchronized (this.groupCommitMonitor) {
+          this.groupCommitInProgress = false;
+          this.groupCommitMonitor.notifyAll();
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void syncWritesDurable(long appended) {
+    synchronized (this.groupCommitMonitor) {
+      if (appended > this.syncWritesDurable) {
+        this.lastGroupCommitSize = appended - this.syncWritesDurable;
+        this.syncWritesDurable = appended;
+        this.stats.incGroupCommits(this.lastGroupCommitSize);
+        this.groupCommitMonitor.notifyAll();
+      }
+    }
+  }
+
+  private static class PendingSyncWrite {
+    private Oplog oplog;
+    private long writeNumber;
+  }
+
   boolean isRAFOpen() {
     return !this.crf.RAFClosed; // volatile read
   }
@@ -5530,36 +5989,153 @@ public class Oplog implements CompactableOplog, Flushable {
     } else {
       if (offsetInOplog == -1)
         return null;
-      try {
-        for (;;) {
-          dr.getCancelCriterion().checkCancelInProgress(null);
-          boolean interrupted = Thread.interrupted();
-          try {
-            bb = attemptGet(dr, offsetInOplog, bitOnly, valueLength, userBits);
-            break;
-          } catch (InterruptedIOException ignore) { // bug 39756
-            // ignore, we'll clear and retry.
-          } finally {
-            if (interrupted) {
-              Thread.currentThread().interrupt();
-            }
+      bb = readMapped(offsetInOplog, valueLength, userBits);
+      if (bb == null) {
+        bb = readValue(dr, offsetInOplog, bitOnly, valueLength, userBits);
+      }
+      if (EntryBits.isCompressed(bb.getBits())) {
+        BytesAndBits decompressed = new BytesAndBits(decompressValue(bb.getBytes(), bb.getBits()),
+            EntryBits.setCompressed(bb.getBits(), false));
+        decompressed.setVersion(bb.getVersion());
+        bb = decompressed;
+      }
+    }
+    return bb;
+  }
+
+  /**
+   * Reads the value bytes of a record through the crf, retrying if the read is interrupted.
+   */
+  private BytesAndBits readValue(DiskRegionView dr, long offsetInOplog, boolean bitOnly,
+      int valueLength, byte userBits) {
+    try {
+      for (;;) {
+        dr.getCancelCriterion().checkCancelInProgress(null);
+        boolean interrupted = Thread.interrupted();
+        try {
+          return attemptGet(dr, offsetInOplog, bitOnly, valueLength, userBits);
+        } catch (InterruptedIOException ignore) { // bug 39756
+          // ignore, we'll clear and retry.
+        } finally {
+          if (interrupted) {
+            Thread.currentThread().interrupt();
           }
-        } // for
-      } catch (IOException ex) {
-        getParent().getCancelCriterion().checkCancelInProgress(ex);
-        throw new DiskAccessException(
-            LocalizedStrings.Oplog_FAILED_READING_FROM_0_OPLOGID_1_OFFSET_BEING_READ_2_CURRENT_OPLOG_SIZE_3_ACTUAL_FILE_SIZE_4_IS_ASYNCH_MODE_5_IS_ASYNCH_WRITER_ALIVE_6
-                .toLocalizedString(this.diskFile.getPath(), this.oplogId, offsetInOplog,
-                    this.crf.currSize, this.crf.bytesFlushed, !dr.isSync(), Boolean.FALSE),
-            ex, dr.getName());
-      } catch (IllegalStateException ex) {
-        checkClosed();
-        throw ex;
+        }
+      } // for
+    } catch (IOException ex) {
+      getParent().getCancelCriterion().checkCancelInProgress(ex);
+      throw new DiskAccessException(
+          LocalizedStrings.Oplog_FAILED_READING_FROM_0_OPLOGID_1_OFFSET_BEING_READ_2_CURRENT_OPLOG_SIZE_3_ACTUAL_FILE_SIZE_4_IS_ASYNCH_MODE_5_IS_ASYNCH_WRITER_ALIVE_6
+              .toLocalizedString(this.diskFile.getPath(), this.oplogId, offsetInOplog,
+                  this.crf.currSize, this.crf.bytesFlushed, !dr.isSync(), Boolean.FALSE),
+          ex, dr.getName());
+    } catch (IllegalStateException ex) {
+      checkClosed();
+      throw ex;
+    }
+  }
+
+  /**
+   * Maps the crf if {@link #MMAP_READS} is enabled and this oplog is no longer appended to. Returns
+   * true if the crf is mapped.
+   */
+  private boolean mapCrf() {
+    if (!MMAP_READS || this.mapCrfFailed || !this.doneAppending) {
+      return false;
+    }
+    this.mappedCrfLock.writeLock().lock();
+    try {
+      if (this.mappedCrf != null) {
+        return true;
+      }
+      if (this.mapCrfFailed || this.crf.f == null || this.deleted.get()) {
+        return false;
+      }
+      try (RandomAccessFile raf = new RandomAccessFile(this.crf.f, "r")) {
+        long size = raf.length();
+        if (size > Integer.MAX_VALUE) {
+          this.mapCrfFailed = true;
+          return false;
+        }
+        this.mappedCrf = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        return true;
+      } catch (IOException e) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Could not map {}; reading it through its file instead", this.crf.f, e);
+        }
+        this.mapCrfFailed = true;
+        return false;
+      }
+    } finally {
+      this.mappedCrfLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Unmaps the crf, if it is mapped, and keeps it from being mapped again.
+   */
+  private void unmapCrf() {
+    if (!MMAP_READS) {
+      return;
+    }
+    this.mappedCrfLock.writeLock().lock();
+    try {
+      this.mapCrfFailed = true;
+      ByteBuffer mapped = this.mappedCrf;
+      if (mapped != null) {
+        this.mappedCrf = null;
+        // otherwise the file stays mapped, and on Windows can not be deleted, until the buffer is
+        // garbage collected
+        AddressableMemoryManager.freeDirectByteBuffer(mapped);
       }
+    } finally {
+      this.mappedCrfLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Reads the value bytes of a record through the mapping of the crf. Returns null if the crf is
+   * not mapped, in which case the caller reads it through the file.
+   */
+  private BytesAndBits readMapped(long offsetInOplog, int valueLength, byte userBits) {
+    if (!MMAP_READS) {
+      return null;
+    }
+    byte[] valueBytes = readMappedBytes(offsetInOplog, valueLength);
+    if (valueBytes == null && mapCrf()) {
+      valueBytes = readMappedBytes(offsetInOplog, valueLength);
+    }
+    if (valueBytes == null) {
+      return null;
+    }
+    this.stats.incOplogReads();
+    BytesAndBits bb = new BytesAndBits(valueBytes, userBits);
+    // also set the product version for an older product
+    final Version version = getProductVersionIfOld();
+    if (version != null) {
+      bb.setVersion(version);
     }
     return bb;
   }
 
+  private byte[] readMappedBytes(long offsetInOplog, int valueLength) {
+    this.mappedCrfLock.readLock().lock();
+    try {
+      ByteBuffer mapped = this.mappedCrf;
+      if (mapped == null || offsetInOplog + valueLength > mapped.capacity()) {
+        return null;
+      }
+      // each reader positions its own view of the shared mapping
+      ByteBuffer view = mapped.duplicate();
+      view.position((int) offsetInOplog);
+      byte[] valueBytes = new byte[valueLength];
+      view.get(valueBytes);
+      return valueBytes;
+    } finally {
+      this.mappedCrfLock.readLock().unlock();
+    }
+  }
+
   /**
    * Extracts the Value byte array & UserBit from the OpLog and inserts it in the wrapper Object of
    * type BytesAndBitsForCompactor which is passed
@@ -5766,6 +6342,9 @@ public class Oplog implements CompactableOplog, Flushable {
   }
 
   private void deleteFile(final OplogFile olf) {
+    if (olf == this.crf) {
+      unmapCrf();
+    }
     // No need to get the backup lock prior to synchronizing (correct lock order) since the
     // synchronized block does not attempt to get the backup lock (incorrect lock order)
     synchronized (this.lock) {
@@ -5903,6 +6482,27 @@ public class Oplog implements CompactableOplog, Flushable {
     return false;
   }
 
+  /**
+   * Estimates the number of bytes compacting this oplog would copy forward.
+   */
+  long getCompactionCost() {
+    long total = this.totalCount.get();
+    if (total <= 0) {
+      return 0;
+    }
+    long live = Math.max(this.totalLiveCount.get(), 0);
+    return (long) (this.crf.currSize * ((double) Math.min(live, total) / total));
+  }
+
+  /**
+   * Returns the number of garbage bytes compacting this oplog frees per byte it copies forward.
+   * Oplogs with a higher score are compacted first.
+   */
+  double getCompactionScore() {
+    long cost = getCompactionCost();
+    return (double) (this.crf.currSize - cost) / (cost + 1);
+  }
+
   public boolean hadLiveEntries() {
     return this.totalCount.get() != 0;
   }
@@ -6040,7 +6640,7 @@ public class Oplog implements CompactableOplog, Flushable {
     this.compacting = true;
   }
 
-  private final Lock compactorLock = new ReentrantLock();
+  private final ReentrantLock compactorLock = new ReentrantLock();
 
   private void lockCompactor() {
     this.compactorLock.lock();
@@ -6050,6 +6650,14 @@ public class Oplog implements CompactableOplog, Flushable {
     this.compactorLock.unlock();
   }
 
+  /**
+   * Returns true if a thread is waiting for this oplog's compactor lock or for the disk store's
+   * compactor write lock.
+   */
+  private boolean isCompactorLockWanted() {
+    return this.compactorLock.hasQueuedThreads() || getParent().isCompactorWriteLockWanted();
+  }
+
   /**
    * Copy any live entries last stored in this oplog to the current oplog. No need to copy deletes
    * in the drf. Backup only needs them until all the older crfs are empty.
@@ -6105,6 +6713,7 @@ public class Oplog implements CompactableOplog, Flushable {
             }
             lastDe = de;
             didCompact = false;
+            int copiedBytes = 0;
             synchronized (de) { // fix for bug 41797
               DiskId did = de.getDiskId();
               assert did != null;
@@ -6126,6 +6735,7 @@ public class Oplog implements CompactableOplog, Flushable {
                     continue;
                   }
                   // write it to the current oplog
+                  copiedBytes = wrapper.getValidLength();
                   getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
                   // the did's oplogId will now be set to the current active oplog
                   didCompact = true;
@@ -6146,8 +6756,21 @@ public class Oplog implements CompactableOplog, Flushable {
               if (!wrapper.isReusable()) {
                 wrapper = new BytesAndBitsForCompactor();
               }
+              // pace the copying outside of the entry locks, but not while someone is waiting
+              // for the compactor locks this thread still holds
+              try {
+                getParent().getCompactionThrottle().copied(copiedBytes,
+                    this::isCompactorLockWanted);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                compactFailed = true;
+                break;
+              }
             }
           }
+          if (compactFailed) {
+            break;
+          }
         }
 
         if (!compactFailed) {
@@ -6196,8 +6819,11 @@ public class Oplog implements CompactableOplog, Flushable {
   /**
    * This method is called by the async value recovery task to recover the values from the crf if
    * the keys were recovered from the krf.
+   *
+   * @param regionIds the ids of the regions to recover values for in this pass
    */
-  public void recoverValuesIfNeeded(Map<Long, DiskRecoveryStore> diskRecoveryStores) {
+  public void recoverValuesIfNeeded(Map<Long, DiskRecoveryStore> diskRecoveryStores,
+      Set<Long> regionIds) {
     // Early out if we start closing the parent.
     if (getParent().isClosing()) {
       return;
@@ -6217,6 +6843,7 @@ public class Oplog implements CompactableOplog, Flushable {
       // Get the a sorted list of live entries from the target regions
       targetRegions.keySet().retainAll(diskRecoveryStores.keySet());
     }
+    targetRegions.keySet().retainAll(regionIds);
 
     sortedLiveEntries = getSortedLiveEntries(targetRegions.values());
     if (sortedLiveEntries == null) {
@@ -6226,11 +6853,12 @@ public class Oplog implements CompactableOplog, Flushable {
 
     final ByteArrayDataInput in = new ByteArrayDataInput();
     for (KRFEntry entry : sortedLiveEntries) {
-      // Early out if we start closing the parent.
-      if (getParent().isClosing()) {
+      // Early out if we start closing the parent or a more important region needs its values.
+      if (getParent().isClosing() || getParent().isValueRecoveryPreempted()) {
         return;
       }
 
+      int recoveredBytes = 0;
       DiskEntry diskEntry = entry.getDiskEntry();
       DiskRegionView diskRegionView = entry.getDiskRegionView();
       long diskRegionId = diskRegionView.getId();
@@ -6293,7 +6921,9 @@ public class Oplog implements CompactableOplog, Flushable {
             // remove the store.
 
             try {
-              DiskEntry.Helper.recoverValue(diskEntry, getOplogId(), diskRecoveryStore, in);
+              if (DiskEntry.Helper.recoverValue(diskEntry, getOplogId(), diskRecoveryStore, in)) {
+                recoveredBytes = diskEntry.getDiskId().getValueLength();
+              }
             } catch (RegionDestroyedException ignore) {
               // This region has been destroyed, stop recovering from it.
               diskRecoveryStores.remove(diskRegionId);
@@ -6301,6 +6931,10 @@ public class Oplog implements CompactableOplog, Flushable {
           }
         }
       }
+      if (recoveredBytes > 0) {
+        // pace outside of the lock so regions being created are not held up
+        getParent().valueRecovered(recoveredBytes);
+      }
     }
   }
 
@@ -6401,6 +7035,14 @@ public class Oplog implements CompactableOplog, Flushable {
     public long currSize;
     public long bytesFlushed;
     public boolean unpreblown;
+    /** The checksum of the record being written, if record checksums are enabled */
+    public Checksum recordChecksum;
+    /**
+     * The position in writeBuf of the first byte of the record being written that is not yet in
+     * recordChecksum, or -1 if no record is being written.
+     */
+    public int recordChecksumStart = -1;
+    public byte[] checksumScratch;
   }
 
   private static class KRFile {
@@ -6594,7 +7236,7 @@ public class Oplog implements CompactableOplog, Flushable {
       byte[] rvvBytes = serializeRVVs(drMap, gcRVV);
       this.value = new DiskEntry.Helper.ByteArrayValueWrapper(true, rvvBytes);
       // Size is opCode + length + end of record
-      this.size = 1 + rvvBytes.length + 1;
+      this.size = 1 + rvvBytes.length + END_OF_RECORD_SIZE;
     }
 
     public void initialize(long oplogKeyId, byte[] keyBytes, byte[] valueBytes, byte userBits,
@@ -6629,7 +7271,7 @@ public class Oplog implements CompactableOplog, Flushable {
         }
       }
 
-      this.size++; // for END_OF_RECORD_ID
+      this.size += END_OF_RECORD_SIZE;
     }
 
     private void initVersionsBytes(VersionTag tag) throws IOException {
@@ -6726,7 +7368,7 @@ public class Oplog implements CompactableOplog, Flushable {
         }
       }
 
-      this.size++; // for END_OF_RECORD_ID
+      this.size += END_OF_RECORD_SIZE;
     }
 
     private void saveUserBits(boolean notToUseUserBits, byte userBits) {
@@ -6769,7 +7411,7 @@ public class Oplog implements CompactableOplog, Flushable {
 
       this.versionsBytes = serializeVersionTag(tag);
       this.size += this.versionsBytes.length;
-      this.size++; // for END_OF_RECORD_ID
+      this.size += END_OF_RECORD_SIZE;
     }
 
     /**
@@ -6794,6 +7436,9 @@ public class Oplog implements CompactableOplog, Flushable {
 
     public long write(OplogFile olf) throws IOException {
       long bytesWritten = 0;
+      if (RECORD_CHECKSUMS) {
+        startRecordChecksum(olf);
+      }
       writeByte(olf, this.opCode);
       bytesWritten++;
       if (this.opCode == OPLOG_NEW_ENTRY_BASE_ID) {
@@ -6858,8 +7503,15 @@ public class Oplog implements CompactableOplog, Flushable {
         }
       }
 
-      writeByte(olf, END_OF_RECORD_ID);
-      bytesWritten++;
+      if (RECORD_CHECKSUMS) {
+        int checksum = endRecordChecksum(olf);
+        writeByte(olf, END_OF_RECORD_WITH_CHECKSUM_ID);
+        writeInt(olf, checksum);
+        bytesWritten += 1 + 4;
+      } else {
+        writeByte(olf, END_OF_RECORD_ID);
+        bytesWritten++;
+      }
       return bytesWritten;
     }
 
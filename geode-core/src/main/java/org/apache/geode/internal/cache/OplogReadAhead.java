@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionStats;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Reads the files of the oplogs being recovered on a pool of threads, ahead of the thread that
+ * recovers them, so that the reads of several oplogs (usually spread over several disk directories)
+ * are in flight at once. Krfs are parsed into their records, which recovery takes with
+ * {@link #takeParsedKrf}; other files are only read, so that recovery finds their contents in the
+ * file system cache.
+ * <p>
+ * Recovery itself still applies one oplog at a time in the order the files were given, so the
+ * order in which entries and versions are merged into the region maps does not change. Readers stay
+ * at most <code>parallelism</code> files ahead of recovery, which bounds the parsed records held in
+ * memory, and skip files recovery has already reached.
+ */
+class OplogReadAhead {
+  private static final Logger logger = LogService.getLogger();
+
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  private final DiskStoreStats stats;
+
+  private final int window;
+
+  private final ExecutorService readers;
+
+  /**
+   * The index of the file recovery is currently reading. Guarded by this.
+   */
+  private int position;
+
+  private boolean closed;
+
+  /**
+   * The krfs being parsed, by index, until recovery takes them. Guarded by this.
+   */
+  private final Map<Integer, CompletableFuture<Oplog.KrfRecords>> parsedKrfs = new HashMap<>();
+
+  OplogReadAhead(String diskStoreName, int parallelism, DiskStoreStats stats) {
+    this.stats = stats;
+    this.window = parallelism;
+    final ThreadGroup group =
+        LoggingThreadGroup.createThreadGroup("Oplog Recovery Reader Thread Group", logger);
+    ThreadFactory threadFactory =
+        GemfireCacheHelper.CreateThreadFactory(group, "Oplog Recovery Reader " + diskStoreName);
+    this.readers = new ThreadPoolExecutor(parallelism, parallelism, 10, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), threadFactory);
+  }
+
+  /**
+   * Starts reading the given files, in order. A null file is skipped.
+   */
+  void start(List<File> files) {
+    for (int i = 0; i < files.size(); i++) {
+      final int index = i;
+      final File file = files.get(i);
+      if (file != null) {
+        this.readers.execute(() -> readAhead(index, file));
+      }
+    }
+  }
+
+  /**
+   * Starts reading the entry files of the given oplogs, in order. A krf is parsed for
+   * {@link #takeParsedKrf}, any other file is read ahead. A null file is skipped.
+   */
+  void start(List<Oplog> oplogs, List<File> files) {
+    for (int i = 0; i < files.size(); i++) {
+      final int index = i;
+      final Oplog oplog = oplogs.get(i);
+      final File file = files.get(i);
+      if (file == null) {
+        continue;
+      }
+      if (file.getName().endsWith(Oplog.KRF_FILE_EXT)) {
+        final CompletableFuture<Oplog.KrfRecords> result = new CompletableFuture<>();
+        synchronized (this) {
+          this.parsedKrfs.put(index, result);
+        }
+        this.readers.execute(() -> parseAhead(index, oplog, file, result));
+      } else {
+        this.readers.execute(() -> readAhead(index, file));
+      }
+    }
+  }
+
+  /**
+   * Returns the records of the krf of the file recovery is currently at, waiting for a reader to
+   * finish parsing it. Returns null if that file is not a krf or could not be parsed, in which case
+   * recovery reads it itself.
+   */
+  Oplog.KrfRecords takeParsedKrf() {
+    CompletableFuture<Oplog.KrfRecords> result;
+    synchronized (this) {
+      result = this.parsedKrfs.remove(this.position);
+    }
+    if (result == null) {
+      return null;
+    }
+    if (result.isDone()) {
+      return result.getNow(null);
+    }
+    long start = DistributionStats.getStatTime();
+    try {
+      return result.get();
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException ignore) {
+      return null;
+    } finally {
+      this.stats.endOplogRecoveryParseWait(start);
+    }
+  }
+
+  /**
+   * Called by recovery when it is done with the current file and moves on to the next one.
+   */
+  synchronized void advance() {
+    this.position++;
+    notifyAll();
+  }
+
+  void close() {
+    synchronized (this) {
+      this.closed = true;
+      notifyAll();
+      for (CompletableFuture<Oplog.KrfRecords> result : this.parsedKrfs.values()) {
+        result.complete(null);
+      }
+      this.parsedKrfs.clear();
+    }
+    this.readers.shutdownNow();
+  }
+
+  /**
+   * Waits until the file at index is within the window ahead of recovery. Returns false if it
+   * should not be read because recovery has already reached it or is done.
+   */
+  private synchronized boolean awaitWindow(int index) {
+    while (!this.closed && index - this.position > this.window) {
+      try {
+        wait();
+      } catch (InterruptedException ignore) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return !this.closed && index >= this.position;
+  }
+
+  private void parseAhead(int index, Oplog oplog, File file,
+      CompletableFuture<Oplog.KrfRecords> result) {
+    Oplog.KrfRecords records = null;
+    try {
+      if (awaitWindow(index)) {
+        long start = DistributionStats.getStatTime();
+        records = oplog.parseKrf(file);
+        this.stats.endOplogKrfParse(start);
+      }
+    } catch (RuntimeException e) {
+      // recovery parses the krf itself and reports any problem with it
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not parse {} ahead of recovery", file, e);
+      }
+    } finally {
+      result.complete(records);
+    }
+  }
+
+  private void readAhead(int index, File file) {
+    if (!awaitWindow(index)) {
+      return;
+    }
+    long bytesRead = 0;
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (FileInputStream in = new FileInputStream(file)) {
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        bytesRead += count;
+        if (isClosed()) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      // recovery reads the file itself and reports any problem with it
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not read ahead {}", file, e);
+      }
+      return;
+    }
+    this.stats.endOplogReadAhead(bytesRead);
+  }
+
+  private synchronized boolean isClosed() {
+    return this.closed;
+  }
+}
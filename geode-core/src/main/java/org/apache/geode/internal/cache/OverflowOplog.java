@@ -38,11 +38,13 @@ import org.apache.geode.internal.cache.entries.DiskEntry.Helper.ValueWrapper;
 import org.apache.geode.internal.cache.DiskStoreImpl.OplogCompactor;
 import org.apache.geode.internal.cache.Oplog.OplogDiskEntry;
 import org.apache.geode.internal.cache.persistence.BytesAndBits;
+import org.apache.geode.internal.cache.persistence.DirectFileWriter;
 import org.apache.geode.internal.cache.persistence.DiskRegionView;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.logging.log4j.LocalizedMessage;
 import org.apache.geode.internal.logging.log4j.LogMarker;
+import org.apache.geode.internal.shared.NativeCalls;
 
 /**
  * An oplog used for overflow-only regions. For regions that are persistent (i.e. they can be
@@ -155,7 +157,12 @@ class OverflowOplog implements CompactableOplog, Flushable {
     this.dirHolder.incrementTotalOplogSize(this.maxOplogSize);
     final OplogFile olf = getOLF();
     try {
-      olf.raf.setLength(this.maxOplogSize);
+      if (olf.directWriter != null) {
+        // direct writes into holes may fall back to the page cache so allocate the blocks now
+        NativeCalls.getInstance().preBlow(olf.f.getAbsolutePath(), this.maxOplogSize, true);
+      } else {
+        olf.raf.setLength(this.maxOplogSize);
+      }
       olf.raf.seek(0);
     } catch (IOException ignore) {
       // TODO: need a warning since this can impact perf.
@@ -175,6 +182,9 @@ class OverflowOplog implements CompactableOplog, Flushable {
     }
     this.crf.f = f;
     this.crf.raf = new RandomAccessFile(f, "rw");
+    if (DiskStoreImpl.DIRECT_WRITES) {
+      this.crf.directWriter = DirectFileWriter.open(f, false);
+    }
     this.crf.writeBuf = allocateWriteBuf(previous);
     preblow();
     logger.info(LocalizedMessage.create(LocalizedStrings.Oplog_CREATE_0_1_2,
@@ -356,6 +366,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
    * Close the files of a oplog but don't set any state. Used by unit tests
    */
   public void testClose() {
+    closeDirectWriter();
     try {
       this.crf.channel.close();
     } catch (IOException ignore) {
@@ -366,10 +377,20 @@ class OverflowOplog implements CompactableOplog, Flushable {
     }
   }
 
+  private void closeDirectWriter() {
+    if (this.crf.directWriter != null) {
+      try {
+        this.crf.directWriter.close();
+      } catch (IOException ignore) {
+      }
+    }
+  }
+
   private void basicClose() {
     flushAll();
     synchronized (this.crf) {
       if (!this.crf.RAFClosed) {
+        closeDirectWriter();
         try {
           this.crf.channel.close();
         } catch (IOException ignore) {
@@ -642,7 +663,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
             final long channelStartPos = olf.channel.position();
             // differentiate between bytes written on this channel.write() iteration and the
             // total number of bytes written to the channel on this call
-            channelBytesWritten = olf.channel.write(bb);
+            channelBytesWritten = (int) write(olf, bb);
             // Expect channelBytesWritten and the changes in pp.position() and channel.position() to
             // be the same. If they are not, then the channel.write() silently failed. The following
             // retry separates spurious failures from permanent channel failures.
@@ -675,6 +696,19 @@ class OverflowOplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Writes the given buffers at the channel's position, with direct I/O if it is enabled.
+   */
+  private static long write(OplogFile olf, ByteBuffer... srcs) throws IOException {
+    if (olf.directWriter == null) {
+      return srcs.length == 1 ? olf.channel.write(srcs[0]) : olf.channel.write(srcs);
+    }
+    long position = olf.channel.position();
+    long written = olf.directWriter.write(srcs, 0, srcs.length, position);
+    olf.channel.position(position + written);
+    return written;
+  }
+
   /**
    * Method to be used only for testing
    * 
@@ -700,7 +734,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
         b1.flip();
         long flushed = 0;
         do {
-          flushed += olf.channel.write(this.bbArray);
+          flushed += write(olf, this.bbArray);
         } while (b2.hasRemaining());
         this.bbArray[0] = null;
         this.bbArray[1] = null;
@@ -1118,6 +1152,8 @@ class OverflowOplog implements CompactableOplog, Flushable {
     public RandomAccessFile raf;
     public boolean RAFClosed;
     public FileChannel channel;
+    /** Writes to the crf with direct I/O if not null */
+    public DirectFileWriter directWriter;
     public ByteBuffer writeBuf;
     public long currSize; // HWM
     public long bytesFlushed;
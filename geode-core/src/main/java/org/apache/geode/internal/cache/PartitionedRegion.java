@@ -40,6 +40,9 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
@@ -8490,30 +8493,76 @@ public class PartitionedRegion extends LocalRegion
     }
   }
 
+  /**
+   * Populates the given indexes on every local bucket. Buckets are independent of each other, so
+   * when {@link IndexManager#INDEX_POPULATE_PARALLELISM} allows it they are handed to a fork-join
+   * pool and populated concurrently, one task per bucket.
+   */
   private boolean populateEmptyIndexes(Set<Index> indexes,
       HashMap<String, Exception> exceptionsMap) {
-    boolean throwException = false;
-    if (getDataStore() != null && indexes.size() > 0) {
-      Set localBuckets = getDataStore().getAllLocalBuckets();
-      Iterator it = localBuckets.iterator();
-      while (it.hasNext()) {
-        Map.Entry entry = (Map.Entry) it.next();
-        Region bucket = (Region) entry.getValue();
-
-        if (bucket == null) {
-          continue;
+    if (getDataStore() == null || indexes.size() == 0) {
+      return false;
+    }
+    List<Region> buckets = new ArrayList<Region>();
+    for (Object o : getDataStore().getAllLocalBuckets()) {
+      Region bucket = (Region) ((Map.Entry) o).getValue();
+      if (bucket != null) {
+        buckets.add(bucket);
+      }
+    }
+    Map<String, Exception> bucketExceptions = new ConcurrentHashMap<String, Exception>();
+    this.prStats.incIndexBucketsToPopulate(buckets.size());
+    int parallelism = Math.min(IndexManager.INDEX_POPULATE_PARALLELISM, buckets.size());
+    if (parallelism <= 1) {
+      for (Region bucket : buckets) {
+        populateBucketIndexes(bucket, indexes, bucketExceptions);
+      }
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+        ForkJoinWorkerThread thread =
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+        thread.setName("IndexPopulator-" + getName() + "-" + thread.getPoolIndex());
+        return thread;
+      }, null, false);
+      try {
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(buckets.size());
+        for (Region bucket : buckets) {
+          tasks.add(pool.submit(() -> populateBucketIndexes(bucket, indexes, bucketExceptions)));
         }
-        IndexManager bucketIndexManager = IndexUtils.getIndexManager(bucket, true);
-        Set<Index> bucketIndexes = getBucketIndexesForPRIndexes(bucket, indexes);
-        try {
-          bucketIndexManager.populateIndexes(bucketIndexes);
-        } catch (MultiIndexCreationException ex) {
-          exceptionsMap.putAll(ex.getExceptionsMap());
-          throwException = true;
+        // wait for every bucket before reporting a failure so that none is left half populated
+        RuntimeException failure = null;
+        for (ForkJoinTask<?> task : tasks) {
+          try {
+            task.join();
+          } catch (RuntimeException e) {
+            if (failure == null) {
+              failure = e;
+            }
+          }
+        }
+        if (failure != null) {
+          throw failure;
         }
+      } finally {
+        pool.shutdown();
       }
     }
-    return throwException;
+    exceptionsMap.putAll(bucketExceptions);
+    return !bucketExceptions.isEmpty();
+  }
+
+  private void populateBucketIndexes(Region bucket, Set<Index> indexes,
+      Map<String, Exception> exceptionsMap) {
+    long start = this.prStats.startIndexBucketPopulate();
+    try {
+      IndexManager bucketIndexManager = IndexUtils.getIndexManager(bucket, true);
+      Set<Index> bucketIndexes = getBucketIndexesForPRIndexes(bucket, indexes);
+      bucketIndexManager.populateIndexes(bucketIndexes);
+    } catch (MultiIndexCreationException ex) {
+      exceptionsMap.putAll(ex.getExceptionsMap());
+    } finally {
+      this.prStats.endIndexBucketPopulate(start);
+    }
   }
 
   private Set<Index> getBucketIndexesForPRIndexes(Region bucket, Set<Index> indexes) {
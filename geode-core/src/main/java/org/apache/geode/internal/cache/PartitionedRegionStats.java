@@ -172,6 +172,10 @@ public class PartitionedRegionStats {
 
   private static final int prMetaDataSentCountId;
 
+  private static final int indexBucketsToPopulateId;
+  private static final int indexBucketsPopulatedId;
+  private static final int indexBucketPopulateTimeId;
+
   private static final int localMaxMemoryId;
 
   static {
@@ -419,6 +423,14 @@ public class PartitionedRegionStats {
                 "total number of times meta data refreshed sent on client's request.", "operation",
                 false),
 
+            f.createIntGauge("indexBucketsToPopulate",
+                "Current number of local buckets waiting for or undergoing index population.",
+                "buckets"),
+            f.createIntCounter("indexBucketsPopulated",
+                "Total number of local buckets whose indexes have been populated.", "buckets"),
+            f.createLongCounter("indexBucketPopulateTime",
+                "Total time spent populating indexes of local buckets.", "nanoseconds", false),
+
             f.createLongGauge("localMaxMemory",
                 "local max memory in bytes for this region on this member", "bytes")
 
@@ -525,6 +537,10 @@ public class PartitionedRegionStats {
 
     prMetaDataSentCountId = type.nameToId("prMetaDataSentCount");
 
+    indexBucketsToPopulateId = type.nameToId("indexBucketsToPopulate");
+    indexBucketsPopulatedId = type.nameToId("indexBucketsPopulated");
+    indexBucketPopulateTimeId = type.nameToId("indexBucketPopulateTime");
+
     localMaxMemoryId = type.nameToId("localMaxMemory");
   }
 
@@ -1195,4 +1211,32 @@ public class PartitionedRegionStats {
   public long getPRMetaDataSentCount() {
     return this.stats.getLong(prMetaDataSentCountId);
   }
+
+  public void incIndexBucketsToPopulate(int buckets) {
+    this.stats.incInt(indexBucketsToPopulateId, buckets);
+  }
+
+  public long startIndexBucketPopulate() {
+    return CachePerfStats.getStatTime();
+  }
+
+  public void endIndexBucketPopulate(long start) {
+    this.stats.incInt(indexBucketsToPopulateId, -1);
+    this.stats.incInt(indexBucketsPopulatedId, 1);
+    if (CachePerfStats.enableClockStats) {
+      this.stats.incLong(indexBucketPopulateTimeId, CachePerfStats.getStatTime() - start);
+    }
+  }
+
+  public int getIndexBucketsToPopulate() {
+    return this.stats.getInt(indexBucketsToPopulateId);
+  }
+
+  public int getIndexBucketsPopulated() {
+    return this.stats.getInt(indexBucketsPopulatedId);
+  }
+
+  public long getIndexBucketPopulateTime() {
+    return this.stats.getLong(indexBucketPopulateTimeId);
+  }
 }
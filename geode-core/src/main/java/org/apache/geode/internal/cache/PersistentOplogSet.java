@@ -34,6 +34,7 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -443,35 +444,80 @@ public class PersistentOplogSet implements OplogSet {
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
       // first figure out all entries that have been destroyed
-      boolean latestOplog = true;
+      List<File> drfFiles = new ArrayList<File>(oplogSet.size());
       for (Oplog oplog : oplogSet) {
-        byteCount += oplog.recoverDrf(deletedIds, this.alreadyRecoveredOnce.get(), latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+        drfFiles.add(oplog.getDrfRecoveryFile());
+      }
+      OplogReadAhead readAhead = startReadAhead(drfFiles);
+      try {
+        boolean latestOplog = true;
+        for (Oplog oplog : oplogSet) {
+          byteCount += oplog.recoverDrf(deletedIds, this.alreadyRecoveredOnce.get(), latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          if (readAhead != null) {
+            readAhead.advance();
+          }
+        }
+      } finally {
+        if (readAhead != null) {
+          readAhead.close();
         }
       }
       parent.incDeadRecordCount(deletedIds.size());
       // now figure out live entries
-      latestOplog = true;
-      for (Oplog oplog : oplogSet) {
-        long startOpLogRead = parent.getStats().startOplogRead();
-        long bytesRead = oplog.recoverCrf(deletedIds,
-            // @todo make recoverValues per region
-            recoverValues(), recoverValuesSync(), this.alreadyRecoveredOnce.get(),
-            oplogsNeedingValueRecovery, latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
-        byteCount += bytesRead;
-        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+      List<Oplog> oplogs = new ArrayList<Oplog>(oplogSet);
+      List<File> crfFiles = new ArrayList<File>(oplogs.size());
+      long[] crfFileSizes = new long[oplogs.size()];
+      long bytesToRecover = 0;
+      for (int i = 0; i < oplogs.size(); i++) {
+        File file = oplogs.get(i).getCrfRecoveryFile(recoverValuesSync());
+        crfFiles.add(file);
+        crfFileSizes[i] = file == null ? 0 : file.length();
+        bytesToRecover += crfFileSizes[i];
+      }
+      int oplogsToRecover = oplogs.size();
+      parent.getStats().incOplogsToRecover(oplogsToRecover);
+      parent.getStats().incOplogBytesToRecover(bytesToRecover);
+      readAhead = startReadAhead(oplogs, crfFiles);
+      try {
+        boolean latestOplog = true;
+        for (int i = 0; i < oplogs.size(); i++) {
+          Oplog oplog = oplogs.get(i);
+          Oplog.KrfRecords parsedKrf = readAhead != null ? readAhead.takeParsedKrf() : null;
+          long startOpLogRead = parent.getStats().startOplogRead();
+          long bytesRead = oplog.recoverCrf(deletedIds,
+              // @todo make recoverValues per region
+              recoverValues(), recoverValuesSync(), this.alreadyRecoveredOnce.get(),
+              oplogsNeedingValueRecovery, latestOplog, parsedKrf);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          byteCount += bytesRead;
+          parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+          parent.getStats().incOplogsToRecover(-1);
+          oplogsToRecover--;
+          parent.getStats().incOplogBytesToRecover(-crfFileSizes[i]);
+          bytesToRecover -= crfFileSizes[i];
+          if (readAhead != null) {
+            readAhead.advance();
+          }
 
-        // Callback to the disk regions to indicate the oplog is recovered
-        // Used for offline export
-        for (DiskRecoveryStore drs : this.currentRecoveryMap.values()) {
-          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          // Callback to the disk regions to indicate the oplog is recovered
+          // Used for offline export
+          for (DiskRecoveryStore drs : this.currentRecoveryMap.values()) {
+            drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          }
+        }
+      } finally {
+        if (readAhead != null) {
+          readAhead.close();
         }
+        parent.getStats().incOplogsToRecover(-oplogsToRecover);
+        parent.getStats().incOplogBytesToRecover(-bytesToRecover);
       }
       long endOpLogRecovery = System.currentTimeMillis();
       long elapsed = endOpLogRecovery - startOpLogRecovery;
@@ -523,6 +569,41 @@ public class PersistentOplogSet implements OplogSet {
     return byteCount;
   }
 
+  /**
+   * Starts reading the given oplog files ahead of recovery if
+   * {@link DiskStoreImpl#RECOVERY_READ_AHEAD} allows more than one oplog to be read at a time.
+   * Returns null if it does not.
+   */
+  private OplogReadAhead startReadAhead(List<File> files) {
+    OplogReadAhead readAhead = createReadAhead(files.size());
+    if (readAhead != null) {
+      readAhead.start(files);
+    }
+    return readAhead;
+  }
+
+  /**
+   * Starts parsing the krfs and reading the crfs of the given oplogs ahead of recovery if
+   * {@link DiskStoreImpl#RECOVERY_READ_AHEAD} allows more than one oplog to be read at a time.
+   * Returns null if it does not.
+   */
+  private OplogReadAhead startReadAhead(List<Oplog> oplogs, List<File> files) {
+    OplogReadAhead readAhead = createReadAhead(files.size());
+    if (readAhead != null) {
+      readAhead.start(oplogs, files);
+    }
+    return readAhead;
+  }
+
+  private OplogReadAhead createReadAhead(int files) {
+    // the recovery thread itself reads one of the oplogs
+    int readers = Math.min(DiskStoreImpl.RECOVERY_READ_AHEAD - 1, files - 1);
+    if (readers < 1) {
+      return null;
+    }
+    return new OplogReadAhead(parent.getName(), readers, parent.getStats());
+  }
+
   protected boolean recoverValuesSync() {
     return parent.RECOVER_VALUES_SYNC;
   }
@@ -1034,30 +1115,37 @@ public class PersistentOplogSet implements OplogSet {
   }
 
   /**
-   * Add compactable oplogs to the list, up to the maximum size.
-   * 
-   * @param l
-   * @param max
+   * Adds up to max oplogs that need compaction to the given list, the ones that free the most
+   * garbage per byte copied first, and records the compaction backlog in the disk store stats.
    */
   public void getCompactableOplogs(List<CompactableOplog> l, int max) {
+    List<Oplog> candidates = new ArrayList<Oplog>();
     synchronized (this.oplogIdToOplog) {
-      // Sort this list so we compact the oldest first instead of the one
-      // that was
-      // compactable first.
-      // ArrayList<CompactableOplog> l = new
-      // ArrayList<CompactableOplog>(this.oplogIdToOplog.values());
-      // Collections.sort(l);
-      // Iterator<Oplog> itr = l.iterator();
-      {
-        Iterator<Oplog> itr = this.oplogIdToOplog.values().iterator();
-        while (itr.hasNext() && l.size() < max) {
-          Oplog oplog = itr.next();
-          if (oplog.needsCompaction()) {
-            l.add(oplog);
-          }
+      for (Oplog oplog : this.oplogIdToOplog.values()) {
+        if (oplog.needsCompaction()) {
+          candidates.add(oplog);
         }
       }
     }
+    // the counts behind the scores keep changing so take a snapshot to sort by
+    final Map<Oplog, Double> scores = new HashMap<Oplog, Double>();
+    long backlog = 0;
+    for (Oplog oplog : candidates) {
+      scores.put(oplog, oplog.getCompactionScore());
+      backlog += oplog.getCompactionCost();
+    }
+    parent.getStats().setCompactionBacklogBytes(backlog);
+    Collections.sort(candidates, new Comparator<Oplog>() {
+      public int compare(Oplog o1, Oplog o2) {
+        return Double.compare(scores.get(o2), scores.get(o1));
+      }
+    });
+    for (Oplog oplog : candidates) {
+      if (l.size() >= max) {
+        break;
+      }
+      l.add(oplog);
+    }
   }
 
   public void scheduleForRecovery(DiskRecoveryStore drs) {
@@ -1077,6 +1077,8 @@ public interface DiskEntry extends RegionEntry {
 
             if (v == null) {
               v = readValueFromDisk(entry, region);
+              // the region is being read so recover the rest of its values next
+              dr.getDiskStore().preferValueRecovery(dr.getId());
               if (entry instanceof LRUEntry) {
                 if (v != null && !Token.isInvalid(v)) {
                   lruEntryFaultIn((LRUEntry) entry, region);
@@ -1105,8 +1107,12 @@ public interface DiskEntry extends RegionEntry {
       return v; // OFFHEAP: the value ends up being returned by RegionEntry.getValue
     }
 
-    public static void recoverValue(DiskEntry entry, long oplogId, DiskRecoveryStore recoveryStore,
-        ByteArrayDataInput in) {
+    /**
+     * @return true if the value was read from the given oplog
+     */
+    public static boolean recoverValue(DiskEntry entry, long oplogId,
+        DiskRecoveryStore recoveryStore, ByteArrayDataInput in) {
+      boolean recovered = false;
       boolean lruFaultedIn = false;
       synchronized (entry) {
         if (entry.isValueNull()) {
@@ -1122,6 +1128,7 @@ public interface DiskEntry extends RegionEntry {
                   value = getValueFromDisk(dr, did, in);
                   if (value != null) {
                     setValueOnFaultIn(value, did, entry, dr, recoveryStore);
+                    recovered = true;
                   }
                 }
               }
@@ -1140,6 +1147,7 @@ public interface DiskEntry extends RegionEntry {
       if (lruFaultedIn) {
         lruUpdateCallback(recoveryStore);
       }
+      return recovered;
     }
 
     /**
@@ -89,6 +89,8 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
         "Maximum number of entry destroys triggered by LRU before scan occurs.";
     final String lruEvaluationsDesc = "Number of entries evaluated during LRU operations.";
     final String lruGreedyReturnsDesc = "Number of non-LRU entries evicted during LRU operations";
+    final String lruLockContentionsDesc =
+        "Number of times an operation waited for the lock of a striped LRU list.";
 
     statType = f.createType("HeapLRUStatistics",
         "Statistics about byte based Least Recently Used region entry disposal",
@@ -97,7 +99,8 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
             f.createLongCounter("lruDestroys", lruDestroysDesc, "entries"),
             f.createLongGauge("lruDestroysLimit", lruDestroysLimitDesc, "entries"),
             f.createLongCounter("lruEvaluations", lruEvaluationsDesc, "entries"),
-            f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),});
+            f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
+            f.createLongCounter("lruLockContentions", lruLockContentionsDesc, "operations"),});
   }
 
   // //////////////////// Instance Fields /////////////////////
@@ -260,6 +263,10 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
         return statType.nameToId("lruGreedyReturns");
       }
 
+      public int getLockContentionsStatId() {
+        return statType.nameToId("lruLockContentions");
+      }
+
       /**
        * Okay, deep breath. Instead of basing the LRU calculation on the number of entries in the
        * region or on their "size" (which turned out to be incorrectly estimated in the general
@@ -81,6 +81,8 @@ public class LRUCapacityController extends LRUAlgorithm implements Declarable {
         "Maximum number of entry destroys triggered by LRU before scan occurs.";
     final String lruEvaluationsDesc = "Number of entries evaluated during LRU operations.";
     final String lruGreedyReturnsDesc = "Number of non-LRU entries evicted during LRU operations";
+    final String lruLockContentionsDesc =
+        "Number of times an operation waited for the lock of a striped LRU list.";
 
     statType = f.createType("LRUStatistics",
         "Statistics about entry based Least Recently Used region entry disposal",
@@ -91,7 +93,8 @@ public class LRUCapacityController extends LRUAlgorithm implements Declarable {
             f.createLongCounter("lruDestroys", lruDestroysDesc, "entries"),
             f.createLongGauge("lruDestroysLimit", lruDestroysLimitDesc, "entries"),
             f.createLongCounter("lruEvaluations", lruEvaluationsDesc, "entries"),
-            f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),});
+            f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
+            f.createLongCounter("lruLockContentions", lruLockContentionsDesc, "operations"),});
 
   }
 
@@ -285,6 +288,10 @@ public class LRUCapacityController extends LRUAlgorithm implements Declarable {
         return statType.nameToId("lruGreedyReturns");
       }
 
+      public int getLockContentionsStatId() {
+        return statType.nameToId("lruLockContentions");
+      }
+
       public boolean mustEvict(LRUStatistics stats, Region region, int delta) {
         return stats.getCounter() + delta > stats.getLimit();
       }
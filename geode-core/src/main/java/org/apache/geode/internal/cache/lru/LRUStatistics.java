@@ -44,6 +44,7 @@ public class LRUStatistics {
   protected int destroysId;
   protected int evaluationsId;
   protected int greedyReturnsId;
+  protected int lockContentionsId;
 
   // Note: the following atomics have been added so that the LRU code
   // does not depend on the value of a statistic for its operations.
@@ -74,6 +75,7 @@ public class LRUStatistics {
     destroysId = helper.getDestroysStatId();
     this.evaluationsId = helper.getEvaluationsStatId();
     this.greedyReturnsId = helper.getGreedyReturnsStatId();
+    this.lockContentionsId = helper.getLockContentionsStatId();
   }
 
   public LRUStatistics(StatisticsFactory factory, String name, StatisticsType statisticsType) {
@@ -85,6 +87,7 @@ public class LRUStatistics {
     destroysId = 0;
     this.evaluationsId = 0;
     this.greedyReturnsId = 0;
+    this.lockContentionsId = 0;
   }
 
   public void close() {
@@ -193,6 +196,10 @@ public class LRUStatistics {
     stats.incLong(greedyReturnsId, numEvals);
   }
 
+  public void incLockContentions() {
+    stats.incLong(lockContentionsId, 1);
+  }
+
 
   public Statistics getStats() {
     return this.stats;
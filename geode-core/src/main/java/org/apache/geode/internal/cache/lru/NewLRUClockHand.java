@@ -165,7 +165,7 @@ public class NewLRUClockHand {
    * return the head entry in the list preserving the cupipe requirement of at least one entry left
    * in the list
    */
-  private LRUClockNode getHeadEntry() {
+  protected LRUClockNode getHeadEntry() {
     synchronized (lock) {
       LRUClockNode aNode = NewLRUClockHand.this.head.nextLRUNode();
       if (aNode == this.tail) {
@@ -409,7 +409,7 @@ public class NewLRUClockHand {
   protected static class HeadLock extends Object {
   }
 
-  private static class GuardNode implements LRUClockNode {
+  protected static class GuardNode implements LRUClockNode {
 
     private LRUClockNode next;
     LRUClockNode prev;
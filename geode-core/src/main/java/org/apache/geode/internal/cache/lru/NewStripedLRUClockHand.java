@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.lru;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.InternalRegionArguments;
+import org.apache.geode.internal.cache.versions.RegionVersionVector;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.log4j.LogMarker;
+
+/**
+ * NewStripedLRUClockHand splits the LRU list of {@link NewLRUClockHand} into a number of stripes,
+ * each with its own lock, so that concurrent creates and eviction scans on one region do not all
+ * contend on a single monitor. A node always lives in the stripe chosen by its identity hash code.
+ * Eviction takes the head of the stripes in round robin order, so the order is only approximately
+ * least recently used across the whole region; within a stripe it is the same clock algorithm as
+ * the unstriped list.
+ * <p>
+ * Enabled for LRU regions by setting the gemfire.lru.stripes system property to the number of
+ * stripes.
+ */
+public class NewStripedLRUClockHand extends NewLRUClockHand {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of stripes used by LRU lists. Values less than 2 disable striping.
+   */
+  public static final int STRIPES =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "lru.stripes", 0);
+
+  private final Stripe[] stripes;
+
+  /** Where the next eviction scan starts */
+  private final AtomicInteger nextStripe = new AtomicInteger();
+
+  public static boolean isEnabled() {
+    return STRIPES > 1;
+  }
+
+  public NewStripedLRUClockHand(Object region, EnableLRU ccHelper,
+      InternalRegionArguments internalRegionArgs, int stripes) {
+    super(region, ccHelper, internalRegionArgs);
+    this.stripes = createStripes(stripes);
+  }
+
+  public NewStripedLRUClockHand(Region region, EnableLRU ccHelper, NewLRUClockHand oldList,
+      int stripes) {
+    super(region, ccHelper, oldList);
+    this.stripes = createStripes(stripes);
+  }
+
+  private static Stripe[] createStripes(int count) {
+    Stripe[] result = new Stripe[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = new Stripe();
+    }
+    return result;
+  }
+
+  private Stripe stripeFor(LRUClockNode aNode) {
+    int hash = System.identityHashCode(aNode);
+    hash ^= (hash >>> 16);
+    return this.stripes[(hash & Integer.MAX_VALUE) % this.stripes.length];
+  }
+
+  /**
+   * Locks a stripe, counting the acquisitions that had to wait for another thread.
+   */
+  private void lock(Stripe stripe) {
+    if (!stripe.lock.tryLock()) {
+      stats().incLockContentions();
+      stripe.lock.lock();
+    }
+  }
+
+  @Override
+  public void appendEntry(final LRUClockNode aNode) {
+    Stripe stripe = stripeFor(aNode);
+    lock(stripe);
+    try {
+      if (aNode.nextLRUNode() != null || aNode.prevLRUNode() != null) {
+        return;
+      }
+      if (logger.isTraceEnabled(LogMarker.LRU_CLOCK)) {
+        logger.trace(LogMarker.LRU_CLOCK, "adding {} to lru stripe", aNode);
+      }
+      aNode.setNextLRUNode(stripe.tail);
+      stripe.tail.prevLRUNode().setNextLRUNode(aNode);
+      aNode.setPrevLRUNode(stripe.tail.prevLRUNode());
+      stripe.tail.setPrevLRUNode(aNode);
+      stripe.size++;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Removes and returns the head of the next non empty stripe, starting with the stripe after the
+   * one used by the previous call.
+   */
+  @Override
+  protected LRUClockNode getHeadEntry() {
+    int start = this.nextStripe.getAndIncrement() & Integer.MAX_VALUE;
+    for (int i = 0; i < this.stripes.length; i++) {
+      Stripe stripe = this.stripes[(start + i) % this.stripes.length];
+      if (stripe.size == 0) {
+        continue;
+      }
+      lock(stripe);
+      try {
+        LRUClockNode aNode = stripe.head.nextLRUNode();
+        if (aNode == stripe.tail) {
+          continue;
+        }
+        LRUClockNode next = aNode.nextLRUNode();
+        stripe.head.setNextLRUNode(next);
+        next.setPrevLRUNode(stripe.head);
+        aNode.setNextLRUNode(null);
+        aNode.setPrevLRUNode(null);
+        stripe.size--;
+        return aNode;
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean unlinkEntry(LRUClockNode entry) {
+    entry.setEvicted();
+    stats().incDestroys();
+    Stripe stripe = stripeFor(entry);
+    lock(stripe);
+    try {
+      LRUClockNode next = entry.nextLRUNode();
+      LRUClockNode prev = entry.prevLRUNode();
+      if (next == null || prev == null) {
+        // not in the list anymore.
+        return false;
+      }
+      next.setPrevLRUNode(prev);
+      prev.setNextLRUNode(next);
+      entry.setNextLRUNode(null);
+      entry.setPrevLRUNode(null);
+      stripe.size--;
+    } finally {
+      stripe.lock.unlock();
+    }
+    return true;
+  }
+
+  @Override
+  public void clear(RegionVersionVector rvv) {
+    if (rvv != null) {
+      return; // when concurrency checks are enabled the clear operation removes entries iteratively
+    }
+    super.clear(null);
+    for (Stripe stripe : this.stripes) {
+      stripe.lock.lock();
+      try {
+        stripe.init();
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : this.stripes) {
+      size += stripe.size;
+    }
+    return size;
+  }
+
+  @Override
+  public long getExpensiveListCount() {
+    long count = 0;
+    for (Stripe stripe : this.stripes) {
+      stripe.lock.lock();
+      try {
+        for (LRUClockNode aNode = stripe.head.nextLRUNode(); aNode != stripe.tail; aNode =
+            aNode.nextLRUNode()) {
+          count++;
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public String getAuditReport() {
+    int totalNodes = 0;
+    int evictedNodes = 0;
+    int usedNodes = 0;
+    for (Stripe stripe : this.stripes) {
+      for (LRUClockNode h = stripe.head; h != null; h = h.nextLRUNode()) {
+        totalNodes++;
+        if (h.testEvicted())
+          evictedNodes++;
+        if (h.testRecentlyUsed())
+          usedNodes++;
+      }
+    }
+    StringBuilder result = new StringBuilder(128);
+    result.append("LRUList Audit: stripes = ").append(this.stripes.length)
+        .append(" listEntries = ").append(totalNodes).append(" evicted = ").append(evictedNodes)
+        .append(" used = ").append(usedNodes);
+    return result.toString();
+  }
+
+  @Override
+  public void dumpList() {
+    if (!logger.isTraceEnabled(LogMarker.LRU_CLOCK)) {
+      return;
+    }
+    for (int i = 0; i < this.stripes.length; i++) {
+      Stripe stripe = this.stripes[i];
+      stripe.lock.lock();
+      try {
+        int idx = 1;
+        for (LRUClockNode aNode = stripe.head; aNode != null; aNode = aNode.nextLRUNode()) {
+          logger.trace(LogMarker.LRU_CLOCK, "  stripe {} ({}) {}", i, (idx++), aNode);
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * One stripe of the list. Like the unstriped list it always has a guard node at each end.
+   */
+  private static class Stripe {
+    final ReentrantLock lock = new ReentrantLock();
+
+    LRUClockNode head;
+    LRUClockNode tail;
+    volatile int size;
+
+    Stripe() {
+      init();
+    }
+
+    void init() {
+      this.head = new GuardNode();
+      this.tail = new GuardNode();
+      this.head.setNextLRUNode(this.tail);
+      this.tail.setPrevLRUNode(this.head);
+      this.size = 0;
+    }
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Writes to a file with direct I/O so that the written data bypasses the operating system's page
+ * cache. Direct I/O needs the file position, the length and the memory address of every write to
+ * be aligned to the block size of the file system, so each write is copied into an aligned buffer
+ * and padded to whole blocks. The blocks at either end of a write keep the bytes already written
+ * around it: the last block written is remembered and other blocks are read back from the file.
+ * <p>
+ * Bytes past the furthest position written by this writer are assumed to not matter, so it should
+ * only be used on files it writes from the start, like newly created oplogs.
+ * <p>
+ * Direct I/O needs Java 10 or later and a file system that supports it. {@link #open} returns null
+ * when either is missing, in which case callers write through the page cache as usual.
+ */
+public class DirectFileWriter {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The size of the aligned buffer. Writes larger than this are done in several parts.
+   */
+  private static final int BUFFER_SIZE = 256 * 1024;
+
+  private static final OpenOption DIRECT = findDirectOption();
+
+  private static final Method ALIGNED_SLICE = findMethod(ByteBuffer.class, "alignedSlice",
+      int.class);
+
+  private static final Method GET_BLOCK_SIZE =
+      findMethod(java.nio.file.FileStore.class, "getBlockSize");
+
+  private final Path path;
+
+  private final OpenOption[] options;
+
+  private final int blockSize;
+
+  private final ByteBuffer buf;
+
+  /** A copy of the last block written */
+  private final ByteBuffer lastBlock;
+
+  /** The file position of {@link #lastBlock}, or -1 if there is none */
+  private long lastBlockStart = -1;
+
+  /** The furthest position written */
+  private long highWater;
+
+  private FileChannel channel;
+
+  private DirectFileWriter(Path path, OpenOption[] options, int blockSize) throws IOException {
+    this.path = path;
+    this.options = options;
+    this.blockSize = blockSize;
+    this.buf = allocateAligned(BUFFER_SIZE, blockSize);
+    this.lastBlock = allocateAligned(blockSize, blockSize);
+    this.channel = FileChannel.open(path, options);
+  }
+
+  /**
+   * Returns a writer for the given existing file, or null if direct I/O is not available for it.
+   *
+   * @param sync true if each write should also be synchronously written to the device
+   */
+  public static DirectFileWriter open(File file, boolean sync) {
+    if (DIRECT == null || ALIGNED_SLICE == null || GET_BLOCK_SIZE == null) {
+      return null;
+    }
+    Path path = file.toPath();
+    try {
+      int blockSize = (int) (long) (Long) GET_BLOCK_SIZE.invoke(Files.getFileStore(path));
+      if (blockSize <= 0 || Integer.bitCount(blockSize) != 1 || blockSize > BUFFER_SIZE) {
+        return null;
+      }
+      OpenOption[] options = sync
+          ? new OpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE,
+              StandardOpenOption.DSYNC, DIRECT}
+          : new OpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE, DIRECT};
+      return new DirectFileWriter(path, options, blockSize);
+    } catch (Exception | LinkageError e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not open {} for direct I/O because: {}", file, e.getMessage(), e);
+      }
+      return null;
+    }
+  }
+
+  private static OpenOption findDirectOption() {
+    try {
+      Class<?> c = Class.forName("com.sun.nio.file.ExtendedOpenOption");
+      for (Object option : c.getEnumConstants()) {
+        if (((Enum<?>) option).name().equals("DIRECT")) {
+          return (OpenOption) option;
+        }
+      }
+    } catch (ClassNotFoundException | LinkageError ignore) {
+      // not available
+    }
+    return null;
+  }
+
+  private static Method findMethod(Class<?> c, String name, Class<?>... parameterTypes) {
+    try {
+      return c.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException | LinkageError ignore) {
+      return null;
+    }
+  }
+
+  private static ByteBuffer allocateAligned(int size, int alignment) throws IOException {
+    try {
+      ByteBuffer bb = ByteBuffer.allocateDirect(size + alignment);
+      ByteBuffer result = (ByteBuffer) ALIGNED_SLICE.invoke(bb, alignment);
+      result.limit(size);
+      return result.slice();
+    } catch (ReflectiveOperationException e) {
+      throw new IOException("Could not allocate an aligned buffer", e);
+    }
+  }
+
+  public int getBlockSize() {
+    return this.blockSize;
+  }
+
+  /**
+   * Writes the remaining bytes of the given buffer at the given file position.
+   *
+   * @return the number of bytes written, which is all of them
+   */
+  public synchronized int write(ByteBuffer src, long position) throws IOException {
+    int result = src.remaining();
+    if (result == 0) {
+      return 0;
+    }
+    long pos = position;
+    do {
+      long chunkStart = pos & -this.blockSize;
+      int offset = (int) (pos - chunkStart);
+      int length = Math.min(src.remaining(), BUFFER_SIZE - offset);
+      long chunkEnd = pos + length;
+      int chunkLength = (int) (((chunkEnd + this.blockSize - 1) & -this.blockSize) - chunkStart);
+      this.buf.clear();
+      if (offset > 0) {
+        loadBlock(chunkStart, 0);
+      }
+      long tailStart = (chunkEnd - 1) & -this.blockSize;
+      if ((chunkEnd & (this.blockSize - 1)) != 0 && (tailStart != chunkStart || offset == 0)) {
+        loadBlock(tailStart, (int) (tailStart - chunkStart));
+      }
+      ByteBuffer part = src.duplicate();
+      part.limit(part.position() + length);
+      this.buf.limit(offset + length);
+      this.buf.position(offset);
+      this.buf.put(part);
+      src.position(src.position() + length);
+      this.buf.limit(chunkLength);
+      this.buf.position(0);
+      writeFully(chunkStart);
+      rememberLastBlock(chunkStart + chunkLength - this.blockSize, chunkLength - this.blockSize);
+      this.highWater = Math.max(this.highWater, chunkEnd);
+      pos = chunkEnd;
+    } while (src.hasRemaining());
+    return result;
+  }
+
+  /**
+   * Writes the remaining bytes of the given buffers, one after the other, starting at the given
+   * file position.
+   *
+   * @return the number of bytes written, which is all of them
+   */
+  public synchronized long write(ByteBuffer[] srcs, int offset, int length, long position)
+      throws IOException {
+    long written = 0;
+    for (int i = offset; i < offset + length; i++) {
+      if (srcs[i].hasRemaining()) {
+        written += write(srcs[i], position + written);
+      }
+    }
+    return written;
+  }
+
+  /**
+   * Fills the given block of {@link #buf} with the bytes the file has there.
+   */
+  private void loadBlock(long blockStart, int bufOffset) throws IOException {
+    ByteBuffer block = this.buf.duplicate();
+    block.limit(bufOffset + this.blockSize);
+    block.position(bufOffset);
+    if (blockStart == this.lastBlockStart) {
+      ByteBuffer last = this.lastBlock.duplicate();
+      last.clear();
+      block.put(last);
+      return;
+    }
+    if (blockStart < this.highWater) {
+      readFully(block, blockStart);
+    }
+    // whatever was not read is past the end of the file or was never written
+    while (block.hasRemaining()) {
+      block.put((byte) 0);
+    }
+  }
+
+  private void rememberLastBlock(long blockStart, int bufOffset) {
+    ByteBuffer block = this.buf.duplicate();
+    block.limit(bufOffset + this.blockSize);
+    block.position(bufOffset);
+    this.lastBlock.clear();
+    this.lastBlock.put(block);
+    this.lastBlockStart = blockStart;
+  }
+
+  /**
+   * Reads the given block, stopping early at the end of the file.
+   */
+  private void readFully(ByteBuffer block, long blockStart) throws IOException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          // a direct read only comes up short at the end of the file
+          this.channel.read(block, blockStart);
+          break;
+        } catch (ClosedByInterruptException e) {
+          interrupted = true;
+          reopen();
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Writes all of {@link #buf} at the given position, redoing the write if interrupted since
+   * rewriting the same blocks is harmless.
+   */
+  private void writeFully(long position) throws IOException {
+    boolean interrupted = false;
+    try {
+      while (this.buf.hasRemaining()) {
+        try {
+          this.channel.write(this.buf, position + this.buf.position());
+        } catch (ClosedByInterruptException e) {
+          interrupted = true;
+          reopen();
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void reopen() throws IOException {
+    // clear the interrupt so that opening does not fail; the caller sets it again
+    Thread.interrupted();
+    this.channel = FileChannel.open(this.path, this.options);
+  }
+
+  /**
+   * Called when the file was truncated to the given length by someone else.
+   */
+  public synchronized void truncated(long length) {
+    if (this.lastBlockStart + this.blockSize > length) {
+      this.lastBlockStart = -1;
+    }
+    this.highWater = Math.min(this.highWater, length);
+  }
+
+  public synchronized void force(boolean metaData) throws IOException {
+    this.channel.force(metaData);
+  }
+
+  public synchronized void close() throws IOException {
+    this.channel.close();
+  }
+}
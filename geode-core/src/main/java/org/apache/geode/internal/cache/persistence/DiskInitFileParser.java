@@ -433,6 +433,16 @@ public class DiskInitFileParser {
           interpreter.cmnGemfireVersion(gfversion);
           break;
         }
+        case DiskInitFile.IFREC_COMPRESSOR_ID: {
+          String compressorClassName = dis.readUTF();
+          readEndOfRecord(dis);
+          if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+            logger.trace(LogMarker.PERSIST_RECOVERY, "IFREC_COMPRESSOR_ID compressorClassName={}",
+                compressorClassName);
+          }
+          interpreter.cmnCompressor(compressorClassName);
+          break;
+        }
         case DiskInitFile.IFREC_PR_DESTROY: {
           String name = dis.readUTF();
           readEndOfRecord(dis);
@@ -42,6 +42,8 @@ public class RestoreScript {
 
   static final String REFUSE_TO_OVERWRITE_MESSAGE = "Backup not restored. Refusing to overwrite ";
 
+  static final String DAMAGED_BACKUP_MESSAGE = "Backup not restored. File has the wrong length ";
+
   private static final String[] ABOUT_SCRIPT_COMMENT =
       {"Restore a backup of gemfire persistent data to the location it was backed up",
           "from. This script will refuse to restore if the original data still exists.",
@@ -50,12 +52,16 @@ public class RestoreScript {
   private static final String EXISTENCE_CHECK_COMMENT =
       "Test for existing originals.  If they exist, do not restore the backup.";
 
+  private static final String LENGTH_CHECK_COMMENT =
+      "Test that backed up files have the length recorded in the backup manifest.";
+
   private static final String RESTORE_DATA_COMMENT = "Restore data";
 
   private final ScriptGenerator generator;
   private final Map<File, File> baselineFiles = new HashMap<>();
   private final Map<File, File> backedUpFiles = new LinkedHashMap<>();
   private final List<File> existenceTests = new ArrayList<>();
+  private final Map<File, Long> lengthTests = new LinkedHashMap<>();
 
   public RestoreScript() {
     this(SystemUtils.isWindows() ? new WindowsScriptGenerator() : new UnixScriptGenerator());
@@ -77,6 +83,14 @@ public class RestoreScript {
     existenceTests.add(originalFile.getAbsoluteFile());
   }
 
+  /**
+   * Makes the script refuse to restore if the given file of the backup does not have the given
+   * length.
+   */
+  public void addLengthTest(final File backupFile, final long length) {
+    lengthTests.put(backupFile.getAbsoluteFile(), length);
+  }
+
   public void generate(final File outputDir) throws IOException {
     File outputFile = new File(outputDir, generator.getScriptName());
     try (BufferedWriter writer = Files.newBufferedWriter(outputFile.toPath())) {
@@ -84,6 +98,7 @@ public class RestoreScript {
       writePreamble(writer);
       writeAbout(writer);
       writeExistenceTest(writer);
+      writeLengthTest(writer, outputDir.toPath());
       writeRestoreData(writer, outputDir.toPath());
       writeIncrementalData(writer);
       generator.writeExit(writer);
@@ -112,6 +127,18 @@ public class RestoreScript {
     writer.newLine();
   }
 
+  private void writeLengthTest(BufferedWriter writer, Path outputDir) throws IOException {
+    if (lengthTests.isEmpty()) {
+      return;
+    }
+    generator.writeComment(writer, LENGTH_CHECK_COMMENT);
+    for (Map.Entry<File, Long> entry : lengthTests.entrySet()) {
+      File backup = outputDir.toAbsolutePath().relativize(entry.getKey().toPath()).toFile();
+      generator.writeLengthTest(writer, backup, entry.getValue());
+    }
+    writer.newLine();
+  }
+
   private void writeRestoreData(BufferedWriter writer, Path outputDir) throws IOException {
     generator.writeComment(writer, RESTORE_DATA_COMMENT);
     for (Map.Entry<File, File> entry : backedUpFiles.entrySet()) {
@@ -31,6 +31,8 @@ interface ScriptGenerator {
 
   void writeExistenceTest(BufferedWriter writer, File file) throws IOException;
 
+  void writeLengthTest(BufferedWriter writer, File backup, long length) throws IOException;
+
   void writeComment(BufferedWriter writer, String string) throws IOException;
 
   String getScriptName();
@@ -30,12 +30,25 @@ public class UninterruptibleRandomAccessFile {
   private final File file;
   private final String mode;
   private boolean isClosed;
+  /** Writes through the channel with direct I/O if not null */
+  private final DirectFileWriter directWriter;
 
   public UninterruptibleRandomAccessFile(File file, String mode) throws FileNotFoundException {
+    this(file, mode, false);
+  }
+
+  /**
+   * @param directWrites true if writes through the channel should bypass the page cache when the
+   *        platform supports it. Only for files that are written from the start.
+   */
+  public UninterruptibleRandomAccessFile(File file, String mode, boolean directWrites)
+      throws FileNotFoundException {
     this.file = file;
     this.mode = mode;
     this.raf = new RandomAccessFile(file, mode);
     this.channel = new UninterruptibleFileChannelImpl();
+    this.directWriter =
+        directWrites ? DirectFileWriter.open(file, mode.equals("rwd") || mode.equals("rws")) : null;
   }
 
   public UninterruptibleFileChannel getChannel() {
@@ -57,12 +70,17 @@ public class UninterruptibleRandomAccessFile {
 
   public synchronized void close() throws IOException {
     this.isClosed = true;
+    if (this.directWriter != null) {
+      this.directWriter.close();
+    }
     this.raf.close();
   }
 
   public synchronized void setLength(long newLength) throws IOException {
     this.raf.setLength(newLength);
-
+    if (this.directWriter != null) {
+      this.directWriter.truncated(newLength);
+    }
   }
 
   public synchronized FileDescriptor getFD() throws IOException {
@@ -153,6 +171,9 @@ public class UninterruptibleRandomAccessFile {
         throws IOException {
       return doUninterruptibly(new FileOperation() {
         public long doOp(FileChannel channel) throws IOException {
+          if (directWriter != null) {
+            return writeDirect(channel, srcs, offset, length);
+          }
           return channel.write(srcs, offset, length);
         }
       });
@@ -162,6 +183,9 @@ public class UninterruptibleRandomAccessFile {
     public long write(final ByteBuffer[] srcs) throws IOException {
       return doUninterruptibly(new FileOperation() {
         public long doOp(FileChannel channel) throws IOException {
+          if (directWriter != null) {
+            return writeDirect(channel, srcs, 0, srcs.length);
+          }
           return channel.write(srcs);
         }
       });
@@ -180,6 +204,9 @@ public class UninterruptibleRandomAccessFile {
     public int write(final ByteBuffer src) throws IOException {
       return (int) doUninterruptibly(new FileOperation() {
         public long doOp(FileChannel channel) throws IOException {
+          if (directWriter != null) {
+            return writeDirect(channel, new ByteBuffer[] {src}, 0, 1);
+          }
           return channel.write(src);
         }
       });
@@ -219,6 +246,9 @@ public class UninterruptibleRandomAccessFile {
       doUninterruptibly(new FileOperation() {
         public long doOp(FileChannel channel) throws IOException {
           channel.truncate(size);
+          if (directWriter != null) {
+            directWriter.truncated(size);
+          }
           return 0;
         }
       });
@@ -239,11 +269,26 @@ public class UninterruptibleRandomAccessFile {
     public void force(final boolean b) throws IOException {
       doUninterruptibly(new FileOperation() {
         public long doOp(FileChannel channel) throws IOException {
+          if (directWriter != null) {
+            directWriter.force(b);
+          }
           channel.force(b);
           return 0;
         }
       });
     }
 
+    /**
+     * Writes at the channel's position with the direct writer and moves the position past the
+     * written bytes, like a write through the channel would.
+     */
+    private long writeDirect(FileChannel channel, ByteBuffer[] srcs, int offset, int length)
+        throws IOException {
+      long position = channel.position();
+      long written = directWriter.write(srcs, offset, length, position);
+      channel.position(position + written);
+      return written;
+    }
+
   }
 }
@@ -58,6 +58,13 @@ class UnixScriptGenerator implements ScriptGenerator {
     writer.newLine();
   }
 
+  public void writeLengthTest(final BufferedWriter writer, final File backup, final long length)
+      throws IOException {
+    writer.write("test `wc -c < '" + backup + "'` -eq " + length + " || { echo '"
+        + RestoreScript.DAMAGED_BACKUP_MESSAGE + backup + "'; exit 1; }");
+    writer.newLine();
+  }
+
   public void writeExit(final BufferedWriter writer) throws IOException {
     // do nothing
   }
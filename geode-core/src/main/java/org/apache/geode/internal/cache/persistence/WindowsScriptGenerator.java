@@ -80,6 +80,14 @@ class WindowsScriptGenerator implements ScriptGenerator {
     writer.newLine();
   }
 
+  @Override
+  public void writeLengthTest(BufferedWriter writer, File backup, long length)
+      throws IOException {
+    writer.write("FOR %%F IN (\"" + backup + "\") DO IF NOT \"%%~zF\"==\"" + length
+        + "\" echo \"" + RestoreScript.DAMAGED_BACKUP_MESSAGE + backup + "\" && exit /B 1 ");
+    writer.newLine();
+  }
+
   @Override
   public void writeExit(BufferedWriter writer) throws IOException {
     writeComment(writer, WindowsScriptGenerator.EXIT_MARKER);
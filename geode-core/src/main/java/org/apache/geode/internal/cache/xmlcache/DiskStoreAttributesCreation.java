@@ -62,6 +62,8 @@ public class DiskStoreAttributesCreation extends UserSpecifiedDiskStoreAttribute
     this.timeInterval = attrs.getTimeInterval();
     this.writeBufferSize = attrs.getWriteBufferSize();
     this.queueSize = attrs.getQueueSize();
+    this.compressor = attrs.compressor;
+    this.compressorClassName = attrs.compressorClassName;
     this.diskDirs = attrs.getDiskDirs();
     this.diskDirSizes = attrs.getDiskDirSizes();
 
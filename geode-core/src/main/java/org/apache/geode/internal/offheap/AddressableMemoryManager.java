@@ -230,6 +230,42 @@ public class AddressableMemoryManager {
     }
   }
 
+  private static volatile Method dbbCleanerMethod = null;
+  private static volatile boolean dbbCleanFailed = false;
+
+  /**
+   * Frees the memory of a direct ByteBuffer, unmapping it if it is a MappedByteBuffer, now rather
+   * than when it is garbage collected. The buffer, and any view of it, must not be used afterwards.
+   * 
+   * @return false if the memory could not be freed; the garbage collector will still free it
+   */
+  public static boolean freeDirectByteBuffer(ByteBuffer bb) {
+    if (!bb.isDirect() || dbbCleanFailed) {
+      return false;
+    }
+    if (unsafe != null && unsafe.invokeCleaner(bb)) {
+      return true;
+    }
+    // before Java 9 the buffer has a sun.misc.Cleaner instead
+    try {
+      Method m = dbbCleanerMethod;
+      if (m == null) {
+        m = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        dbbCleanerMethod = m;
+      }
+      Object cleaner = m.invoke(bb);
+      if (cleaner == null) {
+        return false;
+      }
+      cleaner.getClass().getMethod("clean").invoke(cleaner);
+      return true;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      dbbCleanerMethod = null;
+      dbbCleanFailed = true;
+      return false;
+    }
+  }
+
   /**
    * Create a direct byte buffer given its address and size. The returned ByteBuffer will be direct
    * and use the memory at the given address.
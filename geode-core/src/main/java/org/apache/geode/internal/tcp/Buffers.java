@@ -14,23 +14,55 @@
  */
 package org.apache.geode.internal.tcp;
 
-import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
-import java.util.IdentityHashMap;
-import java.util.Iterator;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.geode.distributed.internal.DMStats;
-import org.apache.geode.internal.Assert;
 
 /**
- *
+ * Message buffers for p2p connections. Direct buffers are costly to allocate and are only freed
+ * once the garbage collector finds them, so they are kept in a pool for reuse. The pool has a size
+ * class for each power of two: a buffer taken from it has a capacity of the requested size rounded
+ * up to the next power of two, with its limit set to the requested size. A released buffer goes
+ * back to its size class unless the pool already holds {@link #MAX_POOLED_BYTES}, in which case it
+ * is left to the garbage collector. Buffers too large for the pool are allocated and dropped as
+ * needed.
+ * <p>
+ * A buffer has a single owner from the time it is acquired until it is released. Readers that hand
+ * parts of their buffer to a {@link MsgDestreamer} wait for the destreamer to finish with them, so
+ * the buffers never need to be shared.
  */
 public class Buffers {
   /**
-   * A list of soft references to byte buffers.
+   * The most bytes of idle direct buffers kept for reuse. Buffers larger than a quarter of this are
+   * never pooled.
+   */
+  static final long MAX_POOLED_BYTES =
+      Long.getLong("p2p.maxPooledBufferBytes", 64L * 1024 * 1024).longValue();
+
+  /** The smallest size class; smaller requests get a buffer of this size */
+  private static final int MIN_SIZE_CLASS = 12;
+
+  /**
+   * Idle direct buffers by size class; the buffers of class i have a capacity of 2^i bytes. The
+   * largest class is 16MB so that a message chunk filling a pooled buffer stays within
+   * {@link Connection#MAX_MSG_SIZE}.
    */
-  private static final ConcurrentLinkedQueue bufferQueue = new ConcurrentLinkedQueue();
+  @SuppressWarnings("unchecked")
+  private static final Deque<PooledBuffer>[] pool = new Deque[25];
+  static {
+    for (int i = 0; i < pool.length; i++) {
+      pool[i] = new ConcurrentLinkedDeque<>();
+    }
+  }
+
+  /** The bytes of the buffers in {@link #pool} */
+  private static final AtomicLong pooledBytes = new AtomicLong();
+
+  /** The bytes of the pooled size buffers that have been acquired and not yet released */
+  private static final AtomicLong outstandingBytes = new AtomicLong();
 
   /**
    * Should only be called by threads that have currently acquired send permission.
@@ -48,49 +80,45 @@ public class Buffers {
   static ByteBuffer acquireBuffer(int size, DMStats stats, boolean send) {
     ByteBuffer result;
     if (TCPConduit.useDirectBuffers) {
-      IdentityHashMap<BBSoftReference, BBSoftReference> alreadySeen = null; // keys are used like a
-                                                                            // set
-      BBSoftReference ref = (BBSoftReference) bufferQueue.poll();
-      while (ref != null) {
-        ByteBuffer bb = ref.getBB();
-        if (bb == null) {
-          // it was garbage collected
-          int refSize = ref.consumeSize();
-          if (refSize > 0) {
-            if (ref.getSend()) { // fix bug 46773
-              stats.incSenderBufferSize(-refSize, true);
+      int sizeClass = sizeClass(size);
+      if (sizeClass >= 0) {
+        PooledBuffer pooled = pool[sizeClass].pollFirst();
+        outstandingBytes.addAndGet(1L << sizeClass);
+        if (pooled != null) {
+          pooledBytes.addAndGet(-(1L << sizeClass));
+          stats.incBufferPoolHits();
+          stats.setBufferPoolBytes(pooledBytes.get(), outstandingBytes.get());
+          result = pooled.bb;
+          result.clear();
+          result.limit(size);
+          if (pooled.send != send) {
+            // count it where it is used now
+            int capacity = result.capacity();
+            if (send) {
+              stats.incReceiverBufferSize(-capacity, true);
+              stats.incSenderBufferSize(capacity, true);
             } else {
-              stats.incReceiverBufferSize(-refSize, true);
+              stats.incSenderBufferSize(-capacity, true);
+              stats.incReceiverBufferSize(capacity, true);
             }
           }
-        } else if (bb.capacity() >= size) {
-          bb.rewind();
-          bb.limit(size);
-          return bb;
-        } else {
-          // wasn't big enough so put it back in the queue
-          Assert.assertTrue(bufferQueue.offer(ref));
-          if (alreadySeen == null) {
-            alreadySeen = new IdentityHashMap<BBSoftReference, BBSoftReference>();
-          }
-          if (alreadySeen.put(ref, ref) != null) {
-            // if it returns non-null then we have already seen this item
-            // so we have worked all the way through the queue once.
-            // So it is time to give up and allocate a new buffer.
-            break;
-          }
+          return result;
         }
-        ref = (BBSoftReference) bufferQueue.poll();
+        stats.incBufferPoolMisses();
+        stats.setBufferPoolBytes(pooledBytes.get(), outstandingBytes.get());
+        result = ByteBuffer.allocateDirect(1 << sizeClass);
+        result.limit(size);
+      } else {
+        result = ByteBuffer.allocateDirect(size);
       }
-      result = ByteBuffer.allocateDirect(size);
     } else {
       // if we are using heap buffers then don't bother with keeping them around
       result = ByteBuffer.allocate(size);
     }
     if (send) {
-      stats.incSenderBufferSize(size, TCPConduit.useDirectBuffers);
+      stats.incSenderBufferSize(result.capacity(), TCPConduit.useDirectBuffers);
     } else {
-      stats.incReceiverBufferSize(size, TCPConduit.useDirectBuffers);
+      stats.incReceiverBufferSize(result.capacity(), TCPConduit.useDirectBuffers);
     }
     return result;
   }
@@ -107,67 +135,67 @@ public class Buffers {
    * Releases a previously acquired buffer.
    */
   static void releaseBuffer(ByteBuffer bb, DMStats stats, boolean send) {
-    if (TCPConduit.useDirectBuffers) {
-      BBSoftReference bbRef = new BBSoftReference(bb, send);
-      bufferQueue.offer(bbRef);
-    } else {
-      if (send) {
-        stats.incSenderBufferSize(-bb.capacity(), false);
-      } else {
-        stats.incReceiverBufferSize(-bb.capacity(), false);
+    int capacity = bb.capacity();
+    if (TCPConduit.useDirectBuffers && bb.isDirect()) {
+      int sizeClass = sizeClass(capacity);
+      if (sizeClass >= 0 && capacity == 1 << sizeClass) {
+        outstandingBytes.addAndGet(-capacity);
+        if (pooledBytes.addAndGet(capacity) <= MAX_POOLED_BYTES) {
+          pool[sizeClass].offerFirst(new PooledBuffer(bb, send));
+          stats.setBufferPoolBytes(pooledBytes.get(), outstandingBytes.get());
+          return;
+        }
+        // the pool is full so let this one be garbage collected
+        pooledBytes.addAndGet(-capacity);
+        stats.setBufferPoolBytes(pooledBytes.get(), outstandingBytes.get());
       }
     }
+    if (send) {
+      stats.incSenderBufferSize(-capacity, bb.isDirect());
+    } else {
+      stats.incReceiverBufferSize(-capacity, bb.isDirect());
+    }
+  }
+
+  /**
+   * Returns the size class of buffers able to hold the given number of bytes, or -1 if buffers of
+   * that size are not pooled.
+   */
+  private static int sizeClass(int size) {
+    int sizeClass = Math.max(MIN_SIZE_CLASS, 32 - Integer.numberOfLeadingZeros(size - 1));
+    if (sizeClass >= pool.length || (1L << sizeClass) > MAX_POOLED_BYTES / 4) {
+      return -1;
+    }
+    return sizeClass;
   }
 
   public static void initBufferStats(DMStats stats) { // fixes 46773
     if (TCPConduit.useDirectBuffers) {
-      @SuppressWarnings("unchecked")
-      Iterator<BBSoftReference> it = (Iterator<BBSoftReference>) bufferQueue.iterator();
-      while (it.hasNext()) {
-        BBSoftReference ref = it.next();
-        if (ref.getBB() != null) {
-          if (ref.getSend()) { // fix bug 46773
-            stats.incSenderBufferSize(ref.getSize(), true);
+      for (Deque<PooledBuffer> buffers : pool) {
+        for (PooledBuffer pooled : buffers) {
+          if (pooled.send) { // fix bug 46773
+            stats.incSenderBufferSize(pooled.bb.capacity(), true);
           } else {
-            stats.incReceiverBufferSize(ref.getSize(), true);
+            stats.incReceiverBufferSize(pooled.bb.capacity(), true);
           }
         }
       }
+      stats.setBufferPoolBytes(pooledBytes.get(), outstandingBytes.get());
     }
   }
 
   /**
-   * A soft reference that remembers the size of the byte buffer it refers to. TODO Dan - I really
-   * think this should be a weak reference. The JVM doesn't seem to clear soft references if it is
-   * getting low on direct memory.
+   * An idle buffer in the pool, remembering whether it was counted as a sender or receiver buffer
+   * when it was allocated.
    */
-  private static class BBSoftReference extends SoftReference<ByteBuffer> {
-    private int size;
-    private final boolean send;
+  private static class PooledBuffer {
+    final ByteBuffer bb;
+    final boolean send;
 
-    public BBSoftReference(ByteBuffer bb, boolean send) {
-      super(bb);
-      this.size = bb.capacity();
+    PooledBuffer(ByteBuffer bb, boolean send) {
+      this.bb = bb;
       this.send = send;
     }
-
-    public int getSize() {
-      return this.size;
-    }
-
-    public synchronized int consumeSize() {
-      int result = this.size;
-      this.size = 0;
-      return result;
-    }
-
-    public boolean getSend() {
-      return this.send;
-    }
-
-    public ByteBuffer getBB() {
-      return (ByteBuffer) super.get();
-    }
   }
 
 }
@@ -73,6 +73,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.Collections;
 import java.util.HashMap;
@@ -80,6 +82,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -319,6 +322,24 @@ public class Connection implements Runnable {
   /** message reader thread */
   private volatile Thread readerThread;
 
+  /**
+   * True while this receiver has no reader thread because it is parked on a
+   * {@link ReceiverSelector} waiting for something to read
+   */
+  private final AtomicBoolean readerParked = new AtomicBoolean();
+
+  /** Set once this receiver's channel has been made non-blocking so that it can be parked */
+  private volatile boolean nonBlockingReads;
+
+  /** The domino count of this receiver's reader, kept to restore it when the reader resumes */
+  private int dominoNumber;
+
+  /**
+   * The thread-owned sockets of a thread-owned receiver's reader while it is parked. Published to
+   * the thread that resumes it by {@link #readerParked}.
+   */
+  private Map parkedThreadOwnedSockets;
+
   /** whether the reader thread is, or should be, running */
   volatile boolean stopped = true;
 
@@ -1174,6 +1195,8 @@ public class Connection implements Runnable {
     }
     if (preserveOrder && BATCH_SENDS) {
       conn.createBatchSendBuffer();
+    } else if (sharedResource && COALESCE_WRITES) {
+      conn.createWriteCoalescer();
     }
     conn.finishedConnecting = true;
     return conn;
@@ -1328,6 +1351,21 @@ public class Connection implements Runnable {
     this.batchFlusher.start();
   }
 
+  /**
+   * Combine the socket writes of threads sending on the same shared connection, see
+   * {@link WriteCoalescer}. Unlike batch sends this never delays a message.
+   */
+  private static final boolean COALESCE_WRITES = Boolean.getBoolean("p2p.coalesceWrites");
+  private WriteCoalescer writeCoalescer;
+
+  private void createWriteCoalescer() {
+    // only sync writes are coalesced, so not connections that may queue async writes
+    if (!this.useNIO || (this.preserveOrder && this.asyncDistributionTimeout != 0)) {
+      return;
+    }
+    this.writeCoalescer = new WriteCoalescer(this.outLock);
+  }
+
   public void cleanUpOnIdleTaskCancel() {
     // Make sure receivers are removed from the connection table, this should always be a noop, but
     // is done here as a failsafe.
@@ -1575,6 +1613,8 @@ public class Connection implements Runnable {
       // synchronized block to fix bug #42159
       // Make sure anyone waiting for a handshake stops waiting
       notifyHandshakeWaiter(false);
+      // a parked reader has to run to see that it is stopped
+      resumeReader();
       // wait a bit for the our reader thread to exit
       // don't wait if we are the reader thread
       boolean isIBM = false;
@@ -1684,39 +1724,49 @@ public class Connection implements Runnable {
     this.readerThread.setName(p2pReaderName());
     ConnectionTable.threadWantsSharedResources();
     makeReaderThread(this.isReceiver);
+    if (this.nonBlockingReads) {
+      // resumed after being parked
+      resumeReaderThreadState();
+    }
+    boolean parked = false;
     try {
       if (useNIO()) {
-        runNioReader();
+        parked = runNioReader();
       } else {
         runOioReader();
       }
     } finally {
-      // bug36060: do the socket close within a finally block
-      if (logger.isDebugEnabled()) {
-        logger.debug("Stopping {} for {}", p2pReaderName(), remoteAddr);
-      }
-      initiateSuspicionIfSharedUnordered();
-      if (this.isReceiver) {
-        if (!this.sharedResource) {
-          this.conduit.getStats().incThreadOwnedReceivers(-1L, dominoCount.get());
+      if (parked) {
+        // this connection may already be read by another thread so leave it alone
+        Thread.currentThread().setName("unused p2p reader");
+      } else {
+        // bug36060: do the socket close within a finally block
+        if (logger.isDebugEnabled()) {
+          logger.debug("Stopping {} for {}", p2pReaderName(), remoteAddr);
+        }
+        initiateSuspicionIfSharedUnordered();
+        if (this.isReceiver) {
+          if (!this.sharedResource) {
+            this.conduit.getStats().incThreadOwnedReceivers(-1L, dominoCount.get());
+          }
+          asyncClose(false);
+          this.owner.removeAndCloseThreadOwnedSockets();
+        }
+        ByteBuffer tmp = this.nioInputBuffer;
+        if (tmp != null) {
+          this.nioInputBuffer = null;
+          final DMStats stats = this.owner.getConduit().getStats();
+          Buffers.releaseReceiveBuffer(tmp, stats);
+        }
+        // make sure that if the reader thread exits we notify a thread waiting
+        // for the handshake.
+        // see bug 37524 for an example of listeners hung in waitForHandshake
+        notifyHandshakeWaiter(false);
+        this.readerThread.setName("unused p2p reader");
+        synchronized (this.stateLock) {
+          this.isRunning = false;
+          this.readerThread = null;
         }
-        asyncClose(false);
-        this.owner.removeAndCloseThreadOwnedSockets();
-      }
-      ByteBuffer tmp = this.nioInputBuffer;
-      if (tmp != null) {
-        this.nioInputBuffer = null;
-        final DMStats stats = this.owner.getConduit().getStats();
-        Buffers.releaseReceiveBuffer(tmp, stats);
-      }
-      // make sure that if the reader thread exits we notify a thread waiting
-      // for the handshake.
-      // see bug 37524 for an example of listeners hung in waitForHandshake
-      notifyHandshakeWaiter(false);
-      this.readerThread.setName("unused p2p reader");
-      synchronized (this.stateLock) {
-        this.isRunning = false;
-        this.readerThread = null;
       }
     } // finally
   }
@@ -1735,12 +1785,21 @@ public class Connection implements Runnable {
     return sb.toString();
   }
 
-  private void runNioReader() {
+  /**
+   * Reads and processes messages until the connection is closed or, for a receiver being
+   * {@linkplain #parkReader parked}, until there is nothing left to read.
+   *
+   * @return true if this receiver was parked, in which case its reader may already be running in
+   *         another thread
+   */
+  private boolean runNioReader() {
     // take a snapshot of uniqueId to detect reconnect attempts; see bug 37592
     SocketChannel channel = null;
     try {
       channel = getSocket().getChannel();
-      channel.configureBlocking(true);
+      if (!this.nonBlockingReads) {
+        channel.configureBlocking(true);
+      }
     } catch (ClosedChannelException e) {
       // bug 37693: the channel was asynchronously closed. Our work
       // is done.
@@ -1749,7 +1808,7 @@ public class Connection implements Runnable {
             LocalizedStrings.Connection_RUNNIOREADER_CAUGHT_CLOSED_CHANNEL.toLocalizedString());
       } catch (Exception ignore) {
       }
-      return; // exit loop and thread
+      return false; // exit loop and thread
     } catch (IOException ex) {
       if (stopped || owner.getConduit().getCancelCriterion().isCancelInProgress()) {
         try {
@@ -1757,7 +1816,7 @@ public class Connection implements Runnable {
               LocalizedStrings.Connection_RUNNIOREADER_CAUGHT_SHUTDOWN.toLocalizedString());
         } catch (Exception ignore) {
         }
-        return; // bug37520: exit loop (and thread)
+        return false; // bug37520: exit loop (and thread)
       }
       logger.fatal(LocalizedMessage
           .create(LocalizedStrings.Connection_FAILED_SETTING_CHANNEL_TO_BLOCKING_MODE_0, ex));
@@ -1767,7 +1826,7 @@ public class Connection implements Runnable {
             .toLocalizedString(ex));
       } catch (Exception ignore) {
       }
-      return;
+      return false;
     }
 
     if (!stopped) {
@@ -1780,6 +1839,7 @@ public class Connection implements Runnable {
     // as there is a race between this thread and the application thread doing direct ack
     // fix for #40869
     boolean isHandShakeReader = false;
+    boolean parked = false;
     try {
       for (;;) {
         if (stopped) {
@@ -1811,6 +1871,11 @@ public class Connection implements Runnable {
             connectionState = STATE_IDLE;
           }
           if (amt == 0) {
+            if (this.nonBlockingReads) {
+              parked = true;
+              parkReader();
+              return true;
+            }
             continue;
           }
           if (amt < 0) {
@@ -1822,7 +1887,7 @@ public class Connection implements Runnable {
             } catch (Exception e) {
               // ignore - shutting down
             }
-            return;
+            return false;
           }
 
           processNIOBuffer();
@@ -1838,6 +1903,14 @@ public class Connection implements Runnable {
             // Once we have read the handshake the reader can go away
             break;
           }
+          if (!this.nonBlockingReads && this.isReceiver && this.handshakeRead
+              && this.owner.parksIdleReceivers()) {
+            // from now on read without blocking and park when there is nothing to read
+            synchronized (channel.blockingLock()) {
+              channel.configureBlocking(false);
+              this.nonBlockingReads = true;
+            }
+          }
         } catch (CancelException e) {
           if (logger.isDebugEnabled()) {
             logger.debug("{} Terminated <{}> due to cancellation", p2pReaderName(), this, e);
@@ -1848,7 +1921,7 @@ public class Connection implements Runnable {
                 LocalizedStrings.Connection_CACHECLOSED_IN_CHANNEL_READ_0.toLocalizedString(e));
           } catch (Exception ex) {
           }
-          return;
+          return false;
         } catch (ClosedChannelException e) {
           this.readerShuttingDown = true;
           try {
@@ -1856,7 +1929,7 @@ public class Connection implements Runnable {
                 .toLocalizedString(e));
           } catch (Exception ex) {
           }
-          return;
+          return false;
         } catch (IOException e) {
           if (!isSocketClosed() && !"Socket closed".equalsIgnoreCase(e.getMessage()) // needed for
                                                                                      // Solaris jdk
@@ -1879,7 +1952,7 @@ public class Connection implements Runnable {
                 LocalizedStrings.Connection_IOEXCEPTION_IN_CHANNEL_READ_0.toLocalizedString(e));
           } catch (Exception ex) {
           }
-          return;
+          return false;
 
         } catch (Exception e) {
           this.owner.getConduit().getCancelCriterion().checkCancelInProgress(null); // bug 37101
@@ -1893,20 +1966,94 @@ public class Connection implements Runnable {
                 LocalizedStrings.Connection_0_EXCEPTION_IN_CHANNEL_READ.toLocalizedString(e));
           } catch (Exception ex) {
           }
-          return;
+          return false;
         }
       } // for
     } finally {
-      if (!isHandShakeReader) {
+      if (!isHandShakeReader && !parked) {
         synchronized (stateLock) {
           connectionState = STATE_IDLE;
         }
       }
-      if (logger.isDebugEnabled()) {
+      if (logger.isDebugEnabled() && !parked) {
         logger.debug("{} runNioReader terminated id={} from {}", p2pReaderName(), conduitIdStr,
             remoteAddr);
       }
     }
+    return false;
+  }
+
+  /**
+   * Gives up this receiver's reader thread until its socket has something to read again.
+   */
+  private void parkReader() {
+    synchronized (this.stateLock) {
+      this.readerThread = null;
+    }
+    parkReaderThreadState();
+    this.readerParked.set(true);
+    if (this.stopped) {
+      // closed since the last read; the close may have missed that we are parked
+      resumeReader();
+    } else {
+      this.owner.parkReceiver(this);
+    }
+  }
+
+  /**
+   * Takes the state a thread-owned receiver's reader keeps in thread locals off the current
+   * thread, which goes back to the pool, so that whichever thread resumes the reader can restore
+   * it. That is the thread-owned sockets the reader has sent on and its preference for them.
+   */
+  private void parkReaderThreadState() {
+    dominoCount.set(0);
+    if (!this.sharedResource) {
+      this.parkedThreadOwnedSockets = this.owner.takeThreadOwnedSockets();
+      ConnectionTable.threadWantsSharedResources();
+      isDominoThread.remove();
+    }
+  }
+
+  /**
+   * Gives the current thread the state this receiver's reader had when it was parked.
+   */
+  private void resumeReaderThreadState() {
+    dominoCount.set(this.dominoNumber);
+    setThreadName(this.dominoNumber);
+    if (!this.sharedResource) {
+      if (!tipDomino()) {
+        ConnectionTable.threadWantsOwnResources();
+      }
+      this.owner.giveThreadOwnedSockets(this.parkedThreadOwnedSockets);
+      this.parkedThreadOwnedSockets = null;
+    }
+  }
+
+  /**
+   * Resumes reading on a pool thread if this receiver is parked.
+   */
+  void resumeReader() {
+    if (this.readerParked.compareAndSet(true, false)) {
+      try {
+        this.owner.executeCommand(this);
+      } catch (RejectedExecutionException e) {
+        // the connection table is closed so no reader will run again
+        asyncClose(false);
+        if (!this.sharedResource) {
+          this.owner.closeThreadOwnedSockets(this.parkedThreadOwnedSockets);
+          this.parkedThreadOwnedSockets = null;
+          this.conduit.getStats().incThreadOwnedReceivers(-1L, this.dominoNumber);
+        }
+        ByteBuffer tmp = this.nioInputBuffer;
+        if (tmp != null) {
+          this.nioInputBuffer = null;
+          Buffers.releaseReceiveBuffer(tmp, this.owner.getConduit().getStats());
+        }
+        synchronized (this.stateLock) {
+          this.isRunning = false;
+        }
+      }
+    }
   }
 
   /**
@@ -2325,6 +2472,7 @@ public class Connection implements Runnable {
                   dominoNumber = 0;
                 }
                 dominoCount.set(dominoNumber);
+                this.dominoNumber = dominoNumber;
                 // this.senderName = dis.readUTF();
                 setThreadName(dominoNumber);
               }
@@ -3160,7 +3308,7 @@ public class Connection implements Runnable {
           distributionTimeoutTarget = now + this.asyncDistributionTimeout;
         }
         long queueTimeoutTarget = now + this.asyncQueueTimeout;
-        channel.configureBlocking(false);
+        configureBlockingWrites(channel, false);
         try {
           do {
             this.owner.getConduit().getCancelCriterion().checkCancelInProgress(null);
@@ -3272,7 +3420,7 @@ public class Connection implements Runnable {
             }
           } while (buffer.remaining() > 0);
         } finally {
-          channel.configureBlocking(true);
+          configureBlockingWrites(channel, true);
         }
       }
     } finally {
@@ -3304,6 +3452,10 @@ public class Connection implements Runnable {
         }
         // fall through
       }
+      if (this.writeCoalescer != null) {
+        this.writeCoalescer.write(channel, buffer, stats);
+        return;
+      }
       long startLock = stats.startSocketLock();
       synchronized (this.outLock) {
         stats.endSocketLock(startLock);
@@ -3323,6 +3475,9 @@ public class Connection implements Runnable {
             stats.endSocketWrite(true, start, amtWritten, 0);
             // this.writerThread = null;
           }
+          if (amtWritten == 0 && this.nonBlockingReads) {
+            waitForWritable(channel);
+          }
         } while (buffer.remaining() > 0);
       } // synchronized
     } else {
@@ -3330,6 +3485,33 @@ public class Connection implements Runnable {
     }
   }
 
+  /**
+   * Sets the blocking mode of the channel for an async write, unless it belongs to a receiver whose
+   * channel stays non-blocking so that it can be parked.
+   */
+  private void configureBlockingWrites(SocketChannel channel, boolean block) throws IOException {
+    synchronized (channel.blockingLock()) {
+      if (!this.nonBlockingReads) {
+        channel.configureBlocking(block);
+      }
+    }
+  }
+
+  /**
+   * Waits until the given non-blocking channel can be written to.
+   */
+  private void waitForWritable(SocketChannel channel) throws IOException {
+    try (Selector selector = Selector.open()) {
+      channel.register(selector, SelectionKey.OP_WRITE);
+      while (selector.select(MAX_WAIT_TIME) == 0) {
+        this.owner.getConduit().getCancelCriterion().checkCancelInProgress(null);
+        if (this.stopped) {
+          throw new ClosedChannelException();
+        }
+      }
+    }
+  }
+
   /** gets the buffer for receiving message length bytes */
   protected ByteBuffer getNIOBuffer() {
     final DMStats stats = this.owner.getConduit().getStats();
@@ -3818,6 +4000,7 @@ public class Connection implements Runnable {
                     dominoNumber = 0;
                   }
                   dominoCount.set(dominoNumber);
+                  this.dominoNumber = dominoNumber;
                   // this.senderName = dis.readUTF();
                 }
                 if (!this.sharedResource) {
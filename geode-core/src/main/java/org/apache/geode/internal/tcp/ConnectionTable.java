@@ -144,6 +144,19 @@ public class ConnectionTable {
   private final static long READER_POOL_KEEP_ALIVE_TIME =
       Long.getLong("p2p.READER_POOL_KEEP_ALIVE_TIME", 120).longValue();
 
+  /**
+   * Number of threads watching the sockets of idle receivers so that those receivers do not each
+   * hold a reader thread while there is nothing to read. Default is 0, which gives every
+   * receiver its own reader thread for as long as it is connected.
+   */
+  private final static int RECEIVER_SELECTORS =
+      Integer.getInteger("p2p.receiverSelectors", 0).intValue();
+
+  /**
+   * Threads watching idle receivers, empty unless {@link #RECEIVER_SELECTORS} is set
+   */
+  private final ReceiverSelector[] receiverSelectors;
+
   private final SocketCloser socketCloser;
 
   /**
@@ -209,10 +222,26 @@ public class ConnectionTable {
     this.threadOrderedConnMap = new ThreadLocal();
     this.threadConnMaps = new ArrayList();
     this.threadConnectionMap = new ConcurrentHashMap();
-    this.p2pReaderThreadPool = createThreadPoolForIO(conduit.getDM().getSystem().isShareSockets());
+    // parked receivers are resumed often, so pool their threads even when conserving sockets
+    this.p2pReaderThreadPool = createThreadPoolForIO(
+        conduit.getDM().getSystem().isShareSockets() && RECEIVER_SELECTORS <= 0);
+    this.receiverSelectors = createReceiverSelectors();
     this.socketCloser = new SocketCloser();
   }
 
+  private static ReceiverSelector[] createReceiverSelectors() throws IOException {
+    ReceiverSelector[] selectors = new ReceiverSelector[Math.max(RECEIVER_SELECTORS, 0)];
+    if (selectors.length > 0) {
+      final ThreadGroup group =
+          LoggingThreadGroup.createThreadGroup("P2P Receiver Selector Threads", logger);
+      for (int i = 0; i < selectors.length; i++) {
+        selectors[i] = new ReceiverSelector(group, i + 1);
+        selectors[i].start();
+      }
+    }
+    return selectors;
+  }
+
   private Executor createThreadPoolForIO(boolean conserveSockets) {
     Executor executor = null;
     final ThreadGroup connectionRWGroup =
@@ -737,6 +766,9 @@ public class ConnectionTable {
         this.threadConnMaps.clear();
       }
     }
+    for (ReceiverSelector selector : this.receiverSelectors) {
+      selector.close();
+    }
     {
       Executor localExec = this.p2pReaderThreadPool;
       if (localExec != null) {
@@ -756,6 +788,47 @@ public class ConnectionTable {
     this.socketCloser.close();
   }
 
+  /**
+   * Returns true if receivers whose socket has nothing to read should give up their reader thread
+   * and be {@linkplain #parkReceiver parked}.
+   */
+  boolean parksIdleReceivers() {
+    return this.receiverSelectors.length > 0 && !this.closed;
+  }
+
+  /**
+   * Has the given receiver's reader resumed with {@link #executeCommand} once its socket is
+   * readable.
+   */
+  void parkReceiver(Connection receiver) {
+    // a receiver is always parked on the same selector so that its channel is registered once
+    int index =
+        (System.identityHashCode(receiver) & Integer.MAX_VALUE) % this.receiverSelectors.length;
+    this.receiverSelectors[index].park(receiver);
+  }
+
+  /**
+   * Detaches the thread-owned sockets of the calling thread from it, for a thread-owned receiver
+   * whose reader is being parked. Returns null if the thread has none.
+   */
+  Map takeThreadOwnedSockets() {
+    Map m = (Map) this.threadOrderedConnMap.get();
+    this.threadOrderedConnMap.remove();
+    return m;
+  }
+
+  /**
+   * Makes thread-owned sockets taken with {@link #takeThreadOwnedSockets} those of the calling
+   * thread, which resumes the parked reader that had them.
+   */
+  void giveThreadOwnedSockets(Map m) {
+    if (m == null) {
+      this.threadOrderedConnMap.remove();
+    } else {
+      this.threadOrderedConnMap.set(m);
+    }
+  }
+
   public void executeCommand(Runnable runnable) {
     Executor local = this.p2pReaderThreadPool;
     if (local != null) {
@@ -1025,7 +1098,13 @@ public class ConnectionTable {
   }
 
   public void removeAndCloseThreadOwnedSockets() {
-    Map m = (Map) this.threadOrderedConnMap.get();
+    closeThreadOwnedSockets((Map) this.threadOrderedConnMap.get());
+  }
+
+  /**
+   * Closes the given thread-owned sockets of a thread.
+   */
+  void closeThreadOwnedSockets(Map m) {
     if (m != null) {
       // Static cleanup may intervene; we MUST synchronize.
       synchronized (m) {
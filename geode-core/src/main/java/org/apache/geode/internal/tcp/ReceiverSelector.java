@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * A thread that watches the sockets of idle receivers. A receiver whose socket has nothing to read
+ * is parked here instead of blocking its reader thread, which goes back to the reader pool. When
+ * the socket becomes readable the receiver is resumed on a pool thread, which reads and dispatches
+ * messages as usual until the socket is drained again. Only one thread reads a receiver at a time,
+ * so messages are still processed in the order they were sent.
+ * <p>
+ * A parked receiver's channel is non-blocking and stays registered with this selector until it is
+ * closed, with no interest while its reader is running.
+ *
+ * @see Connection#parkReader
+ */
+class ReceiverSelector implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  private final Selector selector;
+
+  /** Receivers waiting to be registered by the selector thread */
+  private final Queue<Connection> parked = new ConcurrentLinkedQueue<>();
+
+  private final Thread thread;
+
+  private volatile boolean closed;
+
+  ReceiverSelector(ThreadGroup group, int id) throws IOException {
+    this.selector = Selector.open();
+    this.thread = new Thread(group, this, "P2P receiver selector " + id);
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    this.thread.start();
+  }
+
+  /**
+   * Watches the given receiver's socket and resumes its reader when there is something to read.
+   * The receiver's channel must already be non-blocking.
+   */
+  void park(Connection conn) {
+    this.parked.add(conn);
+    this.selector.wakeup();
+    if (this.closed) {
+      // the table is closing; let the reader see it
+      conn.resumeReader();
+    }
+  }
+
+  public void run() {
+    try {
+      while (!this.closed) {
+        this.selector.select();
+        registerParked();
+        Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+          SelectionKey key = it.next();
+          it.remove();
+          Connection conn = (Connection) key.attachment();
+          try {
+            key.interestOps(0);
+          } catch (CancelledKeyException ignore) {
+            // closed; the reader will find out
+          }
+          conn.resumeReader();
+        }
+      }
+    } catch (ClosedSelectorException ignore) {
+      // closed
+    } catch (IOException e) {
+      if (!this.closed) {
+        logger.fatal("{} failed and will stop watching idle receivers", this.thread.getName(), e);
+      }
+    } finally {
+      // readers that are still parked are resumed so that they can finish
+      for (SelectionKey key : this.selector.keys()) {
+        ((Connection) key.attachment()).resumeReader();
+      }
+      Connection conn;
+      while ((conn = this.parked.poll()) != null) {
+        conn.resumeReader();
+      }
+      try {
+        this.selector.close();
+      } catch (IOException ignore) {
+      }
+    }
+  }
+
+  private void registerParked() {
+    Connection conn;
+    while ((conn = this.parked.poll()) != null) {
+      try {
+        SocketChannel channel = conn.getSocket().getChannel();
+        SelectionKey key = channel.keyFor(this.selector);
+        if (key == null) {
+          channel.register(this.selector, SelectionKey.OP_READ, conn);
+        } else {
+          key.interestOps(SelectionKey.OP_READ);
+        }
+      } catch (IOException | CancelledKeyException e) {
+        // closed while being parked; the reader will find out
+        conn.resumeReader();
+      }
+    }
+  }
+
+  void close() {
+    this.closed = true;
+    this.selector.wakeup();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.geode.distributed.internal.DMStats;
+
+/**
+ * Combines the socket writes of threads sending on the same shared connection. A sending thread
+ * queues its message and then takes the connection's output lock. Whichever thread holds the lock
+ * writes every queued message with one gathering write, so threads that queued while an earlier
+ * write was in progress usually find their message already sent when they get the lock. No thread
+ * waits for others to queue, so a lone sender sees no added latency and a sender never waits longer
+ * than for the write in progress plus the one that includes its message.
+ * <p>
+ * A thread returns only once its message has been written, so its buffer can be reused as usual.
+ */
+class WriteCoalescer {
+
+  /** The most messages written by one gathering write */
+  static final int MAX_BATCH = 64;
+
+  private final Object outLock;
+
+  private final Queue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+
+  /** The buffers of the write in progress; guarded by outLock */
+  private final ByteBuffer[] buffers = new ByteBuffer[MAX_BATCH];
+
+  /** The messages of the write in progress; guarded by outLock */
+  private final PendingWrite[] batch = new PendingWrite[MAX_BATCH];
+
+  WriteCoalescer(Object outLock) {
+    this.outLock = outLock;
+  }
+
+  /**
+   * Writes all of the given buffer, possibly along with the buffers of other threads.
+   */
+  void write(GatheringByteChannel channel, ByteBuffer buffer, DMStats stats) throws IOException {
+    PendingWrite write = new PendingWrite(buffer);
+    this.queue.add(write);
+    long startLock = stats.startSocketLock();
+    synchronized (this.outLock) {
+      stats.endSocketLock(startLock);
+      while (!write.done) {
+        writeBatch(channel, stats);
+      }
+    }
+    if (write.failure != null) {
+      // written, and failed, by another thread
+      throw new IOException(String.valueOf(write.failure.getMessage()), write.failure);
+    }
+  }
+
+  /**
+   * Writes the oldest queued messages. If the write fails, all queued messages fail with it since
+   * the connection is no longer usable. That includes unexpected exceptions and errors, because a
+   * waiting thread whose message was taken from the queue would otherwise never see it done.
+   */
+  private void writeBatch(GatheringByteChannel channel, DMStats stats) throws IOException {
+    int count = 0;
+    PendingWrite write;
+    while (count < MAX_BATCH && (write = this.queue.poll()) != null) {
+      this.batch[count] = write;
+      this.buffers[count] = write.buffer;
+      count++;
+    }
+    long written = 0;
+    long start = stats.startSocketWrite(true);
+    try {
+      int first = 0;
+      while (first < count) {
+        written += channel.write(this.buffers, first, count - first);
+        while (first < count && !this.buffers[first].hasRemaining()) {
+          first++;
+        }
+      }
+      if (count > 1) {
+        stats.incCoalescedWrites(count);
+      }
+      for (int i = 0; i < count; i++) {
+        this.batch[i].done = true;
+      }
+    } catch (Throwable e) {
+      for (int i = 0; i < count; i++) {
+        this.batch[i].fail(e);
+      }
+      while ((write = this.queue.poll()) != null) {
+        write.fail(e);
+      }
+      throw e;
+    } finally {
+      stats.endSocketWrite(true, start, (int) written, 0);
+      Arrays.fill(this.batch, 0, count, null);
+      Arrays.fill(this.buffers, 0, count, null);
+    }
+  }
+
+  /** A message waiting to be written; its state is guarded by the output lock */
+  private static class PendingWrite {
+    final ByteBuffer buffer;
+
+    boolean done;
+
+    Throwable failure;
+
+    PendingWrite(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    void fail(Throwable e) {
+      this.failure = e;
+      this.done = true;
+    }
+  }
+}
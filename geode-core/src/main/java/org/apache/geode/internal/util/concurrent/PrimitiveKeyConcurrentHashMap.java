@@ -0,0 +1,740 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.util.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A concurrent map whose keys are all {@link Integer} or all {@link Long}. The keys are stored
+ * unboxed in open addressed, linear probing tables, one per segment, so a lookup does not allocate
+ * and does not dereference a key object. Each segment is guarded by a {@link StampedLock}; reads
+ * are optimistic and only take the read lock if they race with a writer of the same segment.
+ * <p>
+ * Iterators are weakly consistent: they read each segment in place under an optimistic read, a few
+ * entries at a time. If a writer changes a segment while it is being iterated, the entries of that
+ * segment not returned yet are copied under the read lock. They never throw
+ * {@link java.util.ConcurrentModificationException}, return each entry at most once, and may or
+ * may not reflect modifications made after the iterator reached a segment.
+ * <p>
+ * Keys of any other type are never present; passing one to a mutating method throws
+ * {@link IllegalArgumentException}. Null values are not supported. A load factor above
+ * {@value #MAXIMUM_LOAD_FACTOR} is lowered to it because an open addressed table can not be full.
+ */
+@SuppressWarnings("unchecked")
+public class PrimitiveKeyConcurrentHashMap<K, V> extends AbstractMap<K, V>
+    implements ConcurrentMapWithReusableEntries<K, V> {
+
+  /** The type of the keys stored in a {@link PrimitiveKeyConcurrentHashMap} */
+  public enum KeyType {
+    INT {
+      @Override
+      boolean accepts(Object key) {
+        return key instanceof Integer;
+      }
+
+      @Override
+      long toLong(Object key) {
+        return ((Integer) key).intValue();
+      }
+
+      @Override
+      Object box(long key) {
+        return (int) key;
+      }
+    },
+    LONG {
+      @Override
+      boolean accepts(Object key) {
+        return key instanceof Long;
+      }
+
+      @Override
+      long toLong(Object key) {
+        return ((Long) key).longValue();
+      }
+
+      @Override
+      Object box(long key) {
+        return key;
+      }
+    };
+
+    abstract boolean accepts(Object key);
+
+    abstract long toLong(Object key);
+
+    abstract Object box(long key);
+
+    /**
+     * Returns the key type for the given key constraint, or null if keys of that class can not be
+     * stored unboxed.
+     */
+    public static KeyType forKeyConstraint(Class<?> keyConstraint) {
+      if (keyConstraint == Integer.class) {
+        return INT;
+      } else if (keyConstraint == Long.class) {
+        return LONG;
+      }
+      return null;
+    }
+  }
+
+  private static final int MAXIMUM_SEGMENTS = 1 << 16;
+
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  static final float MAXIMUM_LOAD_FACTOR = 0.9f;
+
+  private final KeyType keyType;
+
+  private final float loadFactor;
+
+  private final Segment[] segments;
+
+  private final int segmentShift;
+
+  private Set<Map.Entry<K, V>> entrySet;
+
+  private Set<Map.Entry<K, V>> reusableEntrySet;
+
+  public PrimitiveKeyConcurrentHashMap(KeyType keyType) {
+    this(keyType, 16, 0.75f, 16);
+  }
+
+  public PrimitiveKeyConcurrentHashMap(KeyType keyType, int initialCapacity, float loadFactor,
+      int concurrencyLevel) {
+    if (keyType == null) {
+      throw new NullPointerException("keyType");
+    }
+    if (!(loadFactor > 0) || initialCapacity < 0 || concurrencyLevel <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.keyType = keyType;
+    this.loadFactor = Math.min(loadFactor, MAXIMUM_LOAD_FACTOR);
+
+    int segmentCount = 1;
+    int shift = 0;
+    while (segmentCount < Math.min(concurrencyLevel, MAXIMUM_SEGMENTS)) {
+      segmentCount <<= 1;
+      ++shift;
+    }
+    this.segmentShift = 32 - shift;
+    this.segments = new Segment[segmentCount];
+
+    int segmentCapacity =
+        tableSizeFor((int) ((initialCapacity / segmentCount + 1) / this.loadFactor));
+    for (int i = 0; i < segmentCount; i++) {
+      this.segments[i] = new Segment(segmentCapacity, this.loadFactor);
+    }
+  }
+
+  public KeyType getKeyType() {
+    return this.keyType;
+  }
+
+  private static int tableSizeFor(int capacity) {
+    int size = 2;
+    while (size < capacity && size < MAXIMUM_CAPACITY) {
+      size <<= 1;
+    }
+    return size;
+  }
+
+  /**
+   * Spreads the bits of a key. The high bits select the segment and the low bits the slot, so the
+   * mix has to be good in both halves; this is the finalizer of MurmurHash3.
+   */
+  private static long mix(long key) {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private Segment segmentFor(long hash) {
+    return this.segments[(int) (hash >>> 32) >>> this.segmentShift & (this.segments.length - 1)];
+  }
+
+  private long checkedKey(Object key) {
+    if (!this.keyType.accepts(key)) {
+      throw new IllegalArgumentException(
+          "Expected a key of type " + this.keyType + " but was " + key);
+    }
+    return this.keyType.toLong(key);
+  }
+
+  @Override
+  public V get(Object key) {
+    if (!this.keyType.accepts(key)) {
+      return null;
+    }
+    long k = this.keyType.toLong(key);
+    long hash = mix(k);
+    return (V) segmentFor(hash).get(k, (int) hash);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public V put(K key, V value) {
+    long k = checkedKey(key);
+    long hash = mix(k);
+    return (V) segmentFor(hash).put(k, (int) hash, checkedValue(value), false);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    long k = checkedKey(key);
+    long hash = mix(k);
+    return (V) segmentFor(hash).put(k, (int) hash, checkedValue(value), true);
+  }
+
+  @Override
+  public V remove(Object key) {
+    if (!this.keyType.accepts(key)) {
+      return null;
+    }
+    long k = this.keyType.toLong(key);
+    long hash = mix(k);
+    return (V) segmentFor(hash).remove(k, (int) hash, null);
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    if (value == null || !this.keyType.accepts(key)) {
+      return false;
+    }
+    long k = this.keyType.toLong(key);
+    long hash = mix(k);
+    return segmentFor(hash).remove(k, (int) hash, value) != null;
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    long k = checkedKey(key);
+    long hash = mix(k);
+    return segmentFor(hash).replace(k, (int) hash, checkedValue(oldValue),
+        checkedValue(newValue)) != null;
+  }
+
+  @Override
+  public V replace(K key, V value) {
+    long k = checkedKey(key);
+    long hash = mix(k);
+    return (V) segmentFor(hash).replace(k, (int) hash, null, checkedValue(value));
+  }
+
+  private static <V> V checkedValue(V value) {
+    if (value == null) {
+      throw new NullPointerException();
+    }
+    return value;
+  }
+
+  @Override
+  public int size() {
+    long size = 0;
+    for (Segment segment : this.segments) {
+      size += segment.count;
+    }
+    return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (Segment segment : this.segments) {
+      if (segment.count != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    for (Segment segment : this.segments) {
+      segment.clear();
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    Set<Map.Entry<K, V>> es = this.entrySet;
+    return es != null ? es : (this.entrySet = new EntrySet(false));
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySetWithReusableEntries() {
+    Set<Map.Entry<K, V>> es = this.reusableEntrySet;
+    return es != null ? es : (this.reusableEntrySet = new EntrySet(true));
+  }
+
+  /**
+   * The keys and values of a segment. Both arrays are replaced together on resize, so a reader
+   * that loaded a table always sees a matching pair. A slot is empty if its value is null.
+   */
+  private static final class Table {
+    final long[] keys;
+    final Object[] values;
+
+    Table(int capacity) {
+      this.keys = new long[capacity];
+      this.values = new Object[capacity];
+    }
+  }
+
+  private static final class Segment {
+    final StampedLock lock = new StampedLock();
+
+    volatile Table table;
+
+    /** Number of mappings, only written while holding the write lock */
+    volatile int count;
+
+    private final float loadFactor;
+
+    Segment(int capacity, float loadFactor) {
+      this.table = new Table(capacity);
+      this.loadFactor = loadFactor;
+    }
+
+    Object get(long key, int hash) {
+      long stamp = this.lock.tryOptimisticRead();
+      if (stamp != 0) {
+        Object value = find(this.table, key, hash);
+        if (this.lock.validate(stamp)) {
+          return value;
+        }
+      }
+      stamp = this.lock.readLock();
+      try {
+        return find(this.table, key, hash);
+      } finally {
+        this.lock.unlockRead(stamp);
+      }
+    }
+
+    /**
+     * Probes for a key. Under an optimistic read the table may be changing underneath us, so the
+     * probe is bounded by the table length and the result is only trusted after validation.
+     */
+    private Object find(Table t, long key, int hash) {
+      long[] keys = t.keys;
+      Object[] values = t.values;
+      int mask = values.length - 1;
+      int index = hash & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        Object value = values[index];
+        if (value == null) {
+          return null;
+        }
+        if (keys[index] == key) {
+          return value;
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+
+    /** Returns the slot holding key, or -1. Must be called with the write lock held. */
+    private int indexOf(Table t, long key, int hash) {
+      int mask = t.values.length - 1;
+      int index = hash & mask;
+      while (t.values[index] != null) {
+        if (t.keys[index] == key) {
+          return index;
+        }
+        index = (index + 1) & mask;
+      }
+      return -1;
+    }
+
+    Object put(long key, int hash, Object value, boolean onlyIfAbsent) {
+      long stamp = this.lock.writeLock();
+      try {
+        Table t = this.table;
+        int mask = t.values.length - 1;
+        int index = hash & mask;
+        Object existing;
+        while ((existing = t.values[index]) != null) {
+          if (t.keys[index] == key) {
+            if (!onlyIfAbsent) {
+              t.values[index] = value;
+            }
+            return existing;
+          }
+          index = (index + 1) & mask;
+        }
+        t.keys[index] = key;
+        t.values[index] = value;
+        int c = this.count + 1;
+        this.count = c;
+        if (c > t.values.length * this.loadFactor && t.values.length < MAXIMUM_CAPACITY) {
+          rehash(t);
+        }
+        return null;
+      } finally {
+        this.lock.unlockWrite(stamp);
+      }
+    }
+
+    Object replace(long key, int hash, Object expected, Object value) {
+      long stamp = this.lock.writeLock();
+      try {
+        Table t = this.table;
+        int index = indexOf(t, key, hash);
+        if (index < 0) {
+          return null;
+        }
+        Object existing = t.values[index];
+        if (expected != null && !expected.equals(existing)) {
+          return null;
+        }
+        t.values[index] = value;
+        return existing;
+      } finally {
+        this.lock.unlockWrite(stamp);
+      }
+    }
+
+    /**
+     * Removes key if it is mapped to expected, or to anything if expected is null. The probe
+     * sequence is repaired by shifting later entries back rather than leaving tombstones, so a
+     * table never fills up with deleted slots.
+     */
+    Object remove(long key, int hash, Object expected) {
+      long stamp = this.lock.writeLock();
+      try {
+        Table t = this.table;
+        int index = indexOf(t, key, hash);
+        if (index < 0) {
+          return null;
+        }
+        Object existing = t.values[index];
+        if (expected != null && !expected.equals(existing)) {
+          return null;
+        }
+        long[] keys = t.keys;
+        Object[] values = t.values;
+        int mask = values.length - 1;
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+          int home = (int) mix(keys[next]) & mask;
+          // move the entry into the hole unless its home slot lies cyclically in (hole, next]
+          if (((next - home) & mask) >= ((next - hole) & mask)) {
+            keys[hole] = keys[next];
+            values[hole] = values[next];
+            hole = next;
+          }
+          next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        this.count = this.count - 1;
+        return existing;
+      } finally {
+        this.lock.unlockWrite(stamp);
+      }
+    }
+
+    private void rehash(Table old) {
+      Table t = new Table(old.values.length << 1);
+      int mask = t.values.length - 1;
+      for (int i = 0; i < old.values.length; i++) {
+        Object value = old.values[i];
+        if (value != null) {
+          long key = old.keys[i];
+          int index = (int) mix(key) & mask;
+          while (t.values[index] != null) {
+            index = (index + 1) & mask;
+          }
+          t.keys[index] = key;
+          t.values[index] = value;
+        }
+      }
+      this.table = t;
+    }
+
+    void clear() {
+      long stamp = this.lock.writeLock();
+      try {
+        if (this.count != 0) {
+          this.table = new Table(this.table.values.length);
+          this.count = 0;
+        }
+      } finally {
+        this.lock.unlockWrite(stamp);
+      }
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+    private final boolean reuseEntries;
+
+    EntrySet(boolean reuseEntries) {
+      this.reuseEntries = reuseEntries;
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+      return new EntryIterator(this.reuseEntries);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      V v = PrimitiveKeyConcurrentHashMap.this.get(e.getKey());
+      return v != null && v.equals(e.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return PrimitiveKeyConcurrentHashMap.this.remove(e.getKey(), e.getValue());
+    }
+
+    @Override
+    public int size() {
+      return PrimitiveKeyConcurrentHashMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      PrimitiveKeyConcurrentHashMap.this.clear();
+    }
+  }
+
+  /** The number of entries an iterator reads from a segment between validations */
+  private static final int ITERATOR_BATCH_SIZE = 64;
+
+  private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+    private final boolean reuseEntries;
+    private final ReusableEntry reusableEntry;
+    private int nextSegment;
+
+    /** The segment being read, its table, and the stamp taken when the iterator reached it */
+    private Segment segment;
+    private Table table;
+    private long stamp;
+
+    /** The next slot of the table to read, or -1 once the rest of the segment is in the batch */
+    private int nextSlot = -1;
+
+    /** Entries read from the segment but not returned yet */
+    private long[] batchKeys = new long[ITERATOR_BATCH_SIZE];
+    private Object[] batchValues = new Object[ITERATOR_BATCH_SIZE];
+    private int batchIndex;
+    private int batchSize;
+
+    /** The keys returned from the current segment, to leave them out if it has to be copied */
+    private long[] returned = new long[ITERATOR_BATCH_SIZE];
+    private int returnedCount;
+
+    private K lastKey;
+    private V lastValue;
+
+    EntryIterator(boolean reuseEntries) {
+      this.reuseEntries = reuseEntries;
+      this.reusableEntry = reuseEntries ? new ReusableEntry() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (this.batchIndex >= this.batchSize) {
+        if (this.nextSlot >= 0) {
+          readBatch();
+        } else if (this.nextSegment < segments.length) {
+          this.segment = segments[this.nextSegment++];
+          this.stamp = this.segment.lock.tryOptimisticRead();
+          this.table = this.segment.table;
+          this.nextSlot = 0;
+          this.returnedCount = 0;
+        } else {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Reads the next entries of the current segment. The slots read are only trusted if no writer
+     * has locked the segment since the iterator reached it, as entries never move otherwise.
+     */
+    private void readBatch() {
+      long[] keys = this.table.keys;
+      Object[] values = this.table.values;
+      int slot = this.nextSlot;
+      int n = 0;
+      while (slot < values.length && n < ITERATOR_BATCH_SIZE) {
+        Object value = values[slot++];
+        if (value != null) {
+          this.batchKeys[n] = keys[slot - 1];
+          this.batchValues[n] = value;
+          n++;
+        }
+      }
+      if (this.stamp == 0 || !this.segment.lock.validate(this.stamp)) {
+        copyRest();
+        return;
+      }
+      this.nextSlot = slot < values.length ? slot : -1;
+      this.batchIndex = 0;
+      this.batchSize = n;
+    }
+
+    /**
+     * Copies the entries of the current segment that have not been returned yet under the read
+     * lock. Removals shift entries back and resizes move all of them, so the position reached in
+     * the table no longer says which entries were returned.
+     */
+    private void copyRest() {
+      Arrays.sort(this.returned, 0, this.returnedCount);
+      long readStamp = this.segment.lock.readLock();
+      try {
+        Table t = this.segment.table;
+        if (this.batchKeys.length < this.segment.count) {
+          this.batchKeys = new long[this.segment.count];
+          this.batchValues = new Object[this.segment.count];
+        }
+        long[] keys = this.batchKeys;
+        Object[] values = this.batchValues;
+        int n = 0;
+        for (int i = 0; i < t.values.length; i++) {
+          Object value = t.values[i];
+          if (value != null
+              && Arrays.binarySearch(this.returned, 0, this.returnedCount, t.keys[i]) < 0) {
+            keys[n] = t.keys[i];
+            values[n] = value;
+            n++;
+          }
+        }
+        this.batchIndex = 0;
+        this.batchSize = n;
+      } finally {
+        this.segment.lock.unlockRead(readStamp);
+      }
+      this.nextSlot = -1;
+      this.table = null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      long key = this.batchKeys[this.batchIndex];
+      this.lastKey = (K) keyType.box(key);
+      this.lastValue = (V) this.batchValues[this.batchIndex];
+      this.batchValues[this.batchIndex] = null;
+      this.batchIndex++;
+      if (this.table != null) {
+        if (this.returnedCount == this.returned.length) {
+          this.returned = Arrays.copyOf(this.returned, this.returnedCount << 1);
+        }
+        this.returned[this.returnedCount++] = key;
+      }
+      if (this.reuseEntries) {
+        this.reusableEntry.key = this.lastKey;
+        this.reusableEntry.value = this.lastValue;
+        return this.reusableEntry;
+      }
+      return new WriteThroughEntry(this.lastKey, this.lastValue);
+    }
+
+    @Override
+    public void remove() {
+      if (this.lastKey == null) {
+        throw new IllegalStateException();
+      }
+      PrimitiveKeyConcurrentHashMap.this.remove(this.lastKey, this.lastValue);
+      this.lastKey = null;
+    }
+  }
+
+  /** An entry with the equality of {@link Map.Entry} whose value can not be changed */
+  private class ReusableEntry implements Map.Entry<K, V> {
+    K key;
+    V value;
+
+    @Override
+    public K getKey() {
+      return this.key;
+    }
+
+    @Override
+    public V getValue() {
+      return this.value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return this.key.equals(e.getKey()) && this.value.equals(e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return this.key.hashCode() ^ this.value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return this.key + "=" + this.value;
+    }
+  }
+
+  /** An entry returned by the iterators of {@link #entrySet()}, which writes through to the map */
+  private final class WriteThroughEntry extends ReusableEntry {
+    WriteThroughEntry(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      V old = this.value;
+      PrimitiveKeyConcurrentHashMap.this.put(this.key, checkedValue(value));
+      this.value = value;
+      return old;
+    }
+  }
+}
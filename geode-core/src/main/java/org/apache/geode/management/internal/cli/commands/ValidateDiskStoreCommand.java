@@ -43,7 +43,10 @@ public class ValidateDiskStoreCommand implements GfshCommand {
       @CliOption(key = CliStrings.VALIDATE_DISK_STORE__DISKDIRS, mandatory = true,
           help = CliStrings.VALIDATE_DISK_STORE__DISKDIRS__HELP) String[] diskDirs,
       @CliOption(key = CliStrings.VALIDATE_DISK_STORE__J,
-          help = CliStrings.VALIDATE_DISK_STORE__J__HELP) String[] jvmProps) {
+          help = CliStrings.VALIDATE_DISK_STORE__J__HELP) String[] jvmProps,
+      @CliOption(key = CliStrings.VALIDATE_DISK_STORE__VERIFY_CHECKSUMS,
+          specifiedDefaultValue = "true", unspecifiedDefaultValue = "false",
+          help = CliStrings.VALIDATE_DISK_STORE__VERIFY_CHECKSUMS__HELP) boolean verifyChecksums) {
     try {
       // create a new process ...bug 46075
       StringBuilder dirList = new StringBuilder();
@@ -72,6 +75,7 @@ public class ValidateDiskStoreCommand implements GfshCommand {
       commandList.add(DiskStoreValidater.class.getName());
       commandList.add(diskStoreName);
       commandList.add(dirList.toString());
+      commandList.add(String.valueOf(verifyChecksums));
 
       ProcessBuilder procBuilder = new ProcessBuilder(commandList);
       StringBuilder output = new StringBuilder();
@@ -2825,6 +2825,9 @@ public class CliStrings {
   public static final String VALIDATE_DISK_STORE__J = "J";
   public static final String VALIDATE_DISK_STORE__J__HELP =
       "Arguments passed to the Java Virtual Machine performing the compact operation on the disk store.";
+  public static final String VALIDATE_DISK_STORE__VERIFY_CHECKSUMS = "verify-checksums";
+  public static final String VALIDATE_DISK_STORE__VERIFY_CHECKSUMS__HELP =
+      "Whether to read all oplog records and verify the checksums of those written with one.";
   public static final String VALIDATE_DISK_STORE__MSG__NO_DIRS =
       VALIDATE_DISK_STORE__DISKDIRS + " is mandatory";
   public static final String VALIDATE_DISK_STORE__MSG__IO_ERROR =
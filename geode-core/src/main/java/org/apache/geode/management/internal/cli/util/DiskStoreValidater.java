@@ -29,13 +29,14 @@ public class DiskStoreValidater {
    * @param args
    */
   public static void main(String[] args) {
-    if (args.length < 2 || args.length > 2) {
-      throw new IllegalArgumentException("Requires only 2  arguments : <DiskStore> <Dirs>");
+    if (args.length < 2 || args.length > 3) {
+      throw new IllegalArgumentException(
+          "Requires 2 or 3 arguments : <DiskStore> <Dirs> [<VerifyChecksums>]");
     }
-    validate((String) args[0], (String) args[1]);
+    validate((String) args[0], (String) args[1], args.length > 2 && Boolean.parseBoolean(args[2]));
   }
 
-  static void validate(String diskStoreName, String diskDirs) {
+  static void validate(String diskStoreName, String diskDirs, boolean verifyChecksums) {
     try {
       File[] dirs = null;
       String[] dirList = null;
@@ -48,10 +49,15 @@ public class DiskStoreValidater {
       } else {
         System.out.println(CliStrings.VALIDATE_DISK_STORE__MSG__NO_DIRS);
       }
-      DiskStoreImpl.validate(diskStoreName, dirs);
+      DiskStoreImpl.validate(diskStoreName, dirs, verifyChecksums);
     } catch (Exception e) {
-      System.out.println(CliStrings.format(CliStrings.VALIDATE_DISK_STORE__MSG__ERROR,
-          diskStoreName, e.getMessage()));
+      String message = e.getMessage();
+      if (e.getCause() != null) {
+        // for example the record whose checksum did not match
+        message += " " + e.getCause().getMessage();
+      }
+      System.out.println(
+          CliStrings.format(CliStrings.VALIDATE_DISK_STORE__MSG__ERROR, diskStoreName, message));
     }
   }
 }
@@ -15,6 +15,8 @@
 package org.apache.geode.pdx.internal.unsafe;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 import sun.misc.Unsafe;
 
@@ -26,6 +28,17 @@ import sun.misc.Unsafe;
  */
 public class UnsafeWrapper {
 
+  /** Unsafe.invokeCleaner, which only exists in Java 9 and later, or null */
+  private static final Method INVOKE_CLEANER;
+  static {
+    Method m = null;
+    try {
+      m = Unsafe.class.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (NoSuchMethodException ignore) {
+    }
+    INVOKE_CLEANER = m;
+  }
+
   private final Unsafe unsafe;
   {
     Unsafe tmp = null;
@@ -195,4 +208,20 @@ public class UnsafeWrapper {
   public void setMemory(long addr, long size, byte v) {
     this.unsafe.setMemory(addr, size, v);
   }
+
+  /**
+   * Frees the memory of a direct ByteBuffer now rather than when it is garbage collected. Returns
+   * false if this JVM is older than Java 9 or the buffer could not be freed.
+   */
+  public boolean invokeCleaner(ByteBuffer buffer) {
+    if (INVOKE_CLEANER == null) {
+      return false;
+    }
+    try {
+      INVOKE_CLEANER.invoke(this.unsafe, buffer);
+      return true;
+    } catch (ReflectiveOperationException | RuntimeException ignore) {
+      return false;
+    }
+  }
 }
@@ -44,6 +44,8 @@ import io.netty.channel.oio.OioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.oio.OioServerSocketChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.Future;
 
 import org.apache.geode.InternalGemFireError;
@@ -71,7 +73,9 @@ import org.apache.geode.redis.internal.ByteToCommandDecoder;
 import org.apache.geode.redis.internal.Coder;
 import org.apache.geode.redis.internal.ExecutionHandlerContext;
 import org.apache.geode.redis.internal.RedisDataType;
+import org.apache.geode.redis.internal.RedisStats;
 import org.apache.geode.redis.internal.RegionProvider;
+import org.apache.geode.redis.internal.ZipList;
 
 /**
  * The GeodeRedisServer is a server that understands the Redis protocol. As commands are sent to the
@@ -80,15 +84,22 @@ import org.apache.geode.redis.internal.RegionProvider;
  * through GFSH or started through the provided static main class.
  * <p>
  * Each Redis data type instance is stored in a separate {@link Region} except for the Strings and
- * HyperLogLogs which are collectively stored in one Region respectively. That Region along with a
- * meta data region used internally are protected so the client may not store keys with the name
+ * HyperLogLogs which are collectively stored in one Region respectively. Hashes and lists start out
+ * in a compact encoding, all collectively stored in one Region, and only get a Region of their own
+ * once they grow past the limits set by {@value ZipList#MAX_ENTRIES_SYS_PROP_NAME} and
+ * {@value ZipList#MAX_VALUE_SYS_PROP_NAME}. These Regions along with a meta data region used
+ * internally are protected so the client may not store keys with the name
  * {@link GeodeRedisServer#REDIS_META_DATA_REGION} or {@link GeodeRedisServer#STRING_REGION}. The
  * default Region type is {@link RegionShortcut#PARTITION} although this can be changed by
  * specifying the SystemProperty {@value #DEFAULT_REGION_SYS_PROP_NAME} to a type defined by
- * {@link RegionShortcut}. If the {@link GeodeRedisServer#NUM_THREADS_SYS_PROP_NAME} system property
- * is set to 0, one thread per client will be created. Otherwise a worker thread pool of specified
- * size is used or a default size of 4 * {@link Runtime#availableProcessors()} if the property is
- * not set.
+ * {@link RegionShortcut}. Sorted sets in a partitioned Region are indexed for each command, setting
+ * {@value RegionProvider#REPLICATE_SORTED_SETS_SYS_PROP_NAME} creates them as replicated Regions
+ * whose index every member maintains. If the {@link GeodeRedisServer#NUM_THREADS_SYS_PROP_NAME}
+ * system property is set to 0, one thread per client will be created. Otherwise a worker thread
+ * pool of specified size is used or a default size of 4 * {@link Runtime#availableProcessors()} if
+ * the property is not set. With a worker pool, commands are executed on a separate pool of command threads sized
+ * by {@value #NUM_COMMAND_THREADS_SYS_PROP_NAME}, with the same default, so that the worker threads
+ * only do socket I/O. Commands a client pipelines are executed and flushed together.
  * <p>
  * Setting the AUTH password requires setting the property "redis-password" just as "redis-port"
  * would be in xml or through GFSH.
@@ -160,6 +171,11 @@ public class GeodeRedisServer {
    */
   private final int numWorkerThreads;
 
+  /**
+   * The number of threads that will execute commands, zero to execute them on the worker threads
+   */
+  private final int numCommandThreads;
+
   /**
    * The number of threads that will work socket selectors
    */
@@ -211,6 +227,8 @@ public class GeodeRedisServer {
 
   private EventLoopGroup bossGroup;
   private EventLoopGroup workerGroup;
+  private EventExecutorGroup commandGroup;
+  private RedisStats redisStats;
   private final static int numExpirationThreads = 1;
   private final ScheduledExecutorService expirationExecutor;
 
@@ -232,6 +250,12 @@ public class GeodeRedisServer {
    */
   public static final String HLL_REGION = "ReDiS_HlL";
 
+  /**
+   * The field that defines the name of the {@link Region} which holds all of the compact hashes and
+   * lists. The current value of this field is {@code COMPACT_REGION}.
+   */
+  public static final String COMPACT_REGION = "ReDiS_CoMpAcT";
+
   /**
    * The field that defines the name of the {@link Region} which holds all of the Redis meta data.
    * The current value of this field is {@code REDIS_META_DATA_REGION}.
@@ -251,6 +275,13 @@ public class GeodeRedisServer {
    */
   public static final String NUM_THREADS_SYS_PROP_NAME = "gemfireredis.numthreads";
 
+  /**
+   * System property name that can be used to set the number of threads commands are executed on,
+   * so that blocking cache operations do not hold up the worker threads doing socket I/O. Zero
+   * executes commands on the worker threads.
+   */
+  public static final String NUM_COMMAND_THREADS_SYS_PROP_NAME = "gemfireredis.numcommandthreads";
+
   /**
    * The actual {@link RegionShortcut} type specified by the system property
    * {@value #DEFAULT_REGION_SYS_PROP_NAME}.
@@ -342,6 +373,8 @@ public class GeodeRedisServer {
     this.numWorkerThreads = setNumWorkerThreads();
     if (this.numWorkerThreads == 0)
       this.singleThreadPerConnection = true;
+    this.numCommandThreads = Integer.getInteger(NUM_COMMAND_THREADS_SYS_PROP_NAME,
+        4 * Runtime.getRuntime().availableProcessors());
     this.numSelectorThreads = 1;
     this.metaListener = new MetaCacheListener();
     this.expirationFutures = new ConcurrentHashMap<ByteArrayWrapper, ScheduledFuture<?>>();
@@ -419,6 +452,7 @@ public class GeodeRedisServer {
       Region<ByteArrayWrapper, ByteArrayWrapper> stringsRegion;
 
       Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion;
+      Region<ByteArrayWrapper, ZipList> compactRegion;
       Region<String, RedisDataType> redisMetaData;
       InternalCache gemFireCache = (InternalCache) cache;
       try {
@@ -432,6 +466,11 @@ public class GeodeRedisServer {
               gemFireCache.createRegionFactory(this.DEFAULT_REGION_TYPE);
           hLLRegion = regionFactory.create(HLL_REGION);
         }
+        if ((compactRegion = cache.getRegion(COMPACT_REGION)) == null) {
+          RegionFactory<ByteArrayWrapper, ZipList> regionFactory =
+              gemFireCache.createRegionFactory(this.DEFAULT_REGION_TYPE);
+          compactRegion = regionFactory.create(COMPACT_REGION);
+        }
         if ((redisMetaData = cache.getRegion(REDIS_META_DATA_REGION)) == null) {
           AttributesFactory af = new AttributesFactory();
           af.addCacheListener(metaListener);
@@ -447,10 +486,12 @@ public class GeodeRedisServer {
         assErr.initCause(e);
         throw assErr;
       }
-      this.regionCache = new RegionProvider(stringsRegion, hLLRegion, redisMetaData,
+      this.redisStats = new RedisStats(cache.getDistributedSystem(), "GeodeRedisServer");
+      this.regionCache = new RegionProvider(stringsRegion, hLLRegion, compactRegion, redisMetaData,
           expirationFutures, expirationExecutor, this.DEFAULT_REGION_TYPE);
       redisMetaData.put(REDIS_META_DATA_REGION, RedisDataType.REDIS_PROTECTED);
       redisMetaData.put(HLL_REGION, RedisDataType.REDIS_PROTECTED);
+      redisMetaData.put(COMPACT_REGION, RedisDataType.REDIS_PROTECTED);
       redisMetaData.put(STRING_REGION, RedisDataType.REDIS_PROTECTED);
     }
     checkForRegions();
@@ -508,8 +549,22 @@ public class GeodeRedisServer {
 
     };
 
+    ThreadFactory commandThreadFactory = new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r);
+        t.setName("GeodeRedisServer-CommandThread-" + counter.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+
+    };
+
     bossGroup = null;
     workerGroup = null;
+    commandGroup = null;
     Class<? extends ServerChannel> socketClass = null;
     if (singleThreadPerConnection) {
       bossGroup = new OioEventLoopGroup(Integer.MAX_VALUE, selectorThreadFactory);
@@ -518,6 +573,8 @@ public class GeodeRedisServer {
     } else {
       bossGroup = new NioEventLoopGroup(this.numSelectorThreads, selectorThreadFactory);
       workerGroup = new NioEventLoopGroup(this.numWorkerThreads, workerThreadFactory);
+      if (this.numCommandThreads > 0)
+        commandGroup = new DefaultEventExecutorGroup(this.numCommandThreads, commandThreadFactory);
       socketClass = NioServerSocketChannel.class;
     }
     InternalDistributedSystem system = (InternalDistributedSystem) cache.getDistributedSystem();
@@ -532,8 +589,10 @@ public class GeodeRedisServer {
               logger.fine("GeodeRedisServer-Connection established with " + ch.remoteAddress());
             ChannelPipeline p = ch.pipeline();
             p.addLast(ByteToCommandDecoder.class.getSimpleName(), new ByteToCommandDecoder());
-            p.addLast(ExecutionHandlerContext.class.getSimpleName(),
-                new ExecutionHandlerContext(ch, cache, regionCache, GeodeRedisServer.this, pwdB));
+            // A null group executes the handler on the worker thread of the channel
+            p.addLast(commandGroup, ExecutionHandlerContext.class.getSimpleName(),
+                new ExecutionHandlerContext(ch, cache, regionCache, GeodeRedisServer.this, pwdB,
+                    redisStats));
           }
         }).option(ChannelOption.SO_REUSEADDR, true).option(ChannelOption.SO_RCVBUF, getBufferSize())
         .childOption(ChannelOption.SO_KEEPALIVE, true)
@@ -549,6 +608,8 @@ public class GeodeRedisServer {
         logMessage += ", One worker thread per connection";
       else
         logMessage += ", Worker threads: " + this.numWorkerThreads;
+      if (this.commandGroup != null)
+        logMessage += ", Command threads: " + this.numCommandThreads;
       this.logger.info(logMessage);
     }
     this.serverChannel = f.channel();
@@ -632,7 +693,10 @@ public class GeodeRedisServer {
       this.serverChannel.close();
       c.syncUninterruptibly();
       c2.syncUninterruptibly();
+      if (this.commandGroup != null)
+        this.commandGroup.shutdownGracefully().syncUninterruptibly();
       this.regionCache.close();
+      this.redisStats.close();
       if (mainThread != null)
         mainThread.interrupt();
       for (ScheduledFuture<?> f : this.expirationFutures.values())
@@ -23,6 +23,10 @@ import io.netty.handler.codec.DecoderException;
 import io.netty.util.concurrent.EventExecutor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -31,12 +35,14 @@ import org.apache.geode.LogWriter;
 import org.apache.geode.cache.Cache;
 import org.apache.geode.cache.CacheClosedException;
 import org.apache.geode.cache.CacheTransactionManager;
+import org.apache.geode.cache.Region;
 import org.apache.geode.cache.RegionDestroyedException;
 import org.apache.geode.cache.TransactionException;
 import org.apache.geode.cache.TransactionId;
 import org.apache.geode.cache.UnsupportedOperationInTransactionException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.RegionNotFoundException;
+import org.apache.geode.redis.internal.executor.string.SetExecutor;
 import org.apache.geode.redis.internal.executor.transactions.TransactionExecutor;
 import org.apache.geode.redis.GeodeRedisServer;
 
@@ -49,6 +55,11 @@ import org.apache.geode.redis.GeodeRedisServer;
  * Besides being part of Netty's pipeline, this class also serves as a context to the execution of a
  * command. It abstracts transactions, provides access to the {@link RegionProvider} and anything
  * else an executing {@link Command} may need.
+ * <p>
+ * Commands that arrive in the same read from the socket, as they do when a client pipelines its
+ * requests, are held until the read is complete and then executed together. A run of consecutive
+ * plain SET commands in such a pipeline is applied with a single
+ * {@link Region#putAll(Map) putAll} on the strings Region, and all responses are flushed once.
  * 
  *
  */
@@ -59,6 +70,17 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
                                                                                           // seconds
                                                                                           // total
 
+  /**
+   * The system property name used to set the largest number of pipelined commands held back to be
+   * executed together
+   */
+  public static final String MAX_PIPELINE_DEPTH_SYS_PROP_NAME = "gemfireredis.maxpipelinedepth";
+
+  private static final int MAX_PIPELINE_DEPTH =
+      Integer.getInteger(MAX_PIPELINE_DEPTH_SYS_PROP_NAME, 1024);
+
+  private static final String SUCCESS = "OK";
+
   private final Cache cache;
   private final GeodeRedisServer server;
   private final LogWriter logger;
@@ -67,6 +89,13 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
   private final Runnable flusher;
   private final EventExecutor lastExecutor;
   private final ByteBufAllocator byteBufAllocator;
+  private final RedisStats stats;
+
+  /**
+   * Commands received in the current read, only touched by the executor of this handler
+   */
+  private final List<Command> pipeline;
+
   /**
    * TransactionId for any transactions started by this client
    */
@@ -90,10 +119,11 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
    * @param server Instance of the server it is attached to, only used so that any execution can
    *        initiate a shutdwon
    * @param pwd Authentication password for each context, can be null
+   * @param stats Statistics shared by all contexts of the server
    */
   public ExecutionHandlerContext(Channel ch, Cache cache, RegionProvider regionProvider,
-      GeodeRedisServer server, byte[] pwd) {
-    if (ch == null || cache == null || regionProvider == null || server == null)
+      GeodeRedisServer server, byte[] pwd, RedisStats stats) {
+    if (ch == null || cache == null || regionProvider == null || server == null || stats == null)
       throw new IllegalArgumentException("Only the authentication password may be null");
     this.cache = cache;
     this.server = server;
@@ -115,6 +145,8 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
     this.regionProvider = regionProvider;
     this.authPwd = pwd;
     this.isAuthenticated = pwd != null ? false : true;
+    this.stats = stats;
+    this.pipeline = new ArrayList<Command>();
   }
 
   private void flushChannel() {
@@ -131,12 +163,104 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
   }
 
   /**
-   * This will handle the execution of received commands
+   * This will queue received commands until the read they belong to is complete
    */
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
     Command command = (Command) msg;
-    executeCommand(ctx, command);
+    this.pipeline.add(command);
+    this.stats.incCommandsQueued(1);
+    if (this.pipeline.size() >= MAX_PIPELINE_DEPTH)
+      executePipeline(ctx);
+  }
+
+  /**
+   * This will handle the execution of the commands received in the last read
+   */
+  @Override
+  public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+    executePipeline(ctx);
+    super.channelReadComplete(ctx);
+  }
+
+  private void executePipeline(ChannelHandlerContext ctx) {
+    List<Command> commands = this.pipeline;
+    int size = commands.size();
+    if (size == 0)
+      return;
+    this.stats.endPipeline(size);
+    try {
+      int i = 0;
+      while (i < size && this.channel.isOpen()) {
+        int end = i + 1;
+        if (isBatchable(commands.get(i))) {
+          while (end < size && isBatchable(commands.get(end)))
+            end++;
+        }
+        if (end - i > 1)
+          executeSetBatch(ctx, commands.subList(i, end));
+        else
+          executeCommandOrFail(ctx, commands.get(i));
+        i = end;
+      }
+    } finally {
+      this.stats.incCommandsQueued(-size);
+      commands.clear();
+    }
+  }
+
+  private void executeCommandOrFail(ChannelHandlerContext ctx, Command command) {
+    try {
+      executeCommand(ctx, command);
+    } catch (Exception e) {
+      exceptionCaught(ctx, e);
+    }
+  }
+
+  /**
+   * A plain SET outside of a transaction can be folded into a putAll with its neighbours, SET with
+   * options and everything else is executed on its own
+   */
+  private boolean isBatchable(Command command) {
+    return command.getCommandType() == RedisCommandType.SET
+        && command.getProcessedCommand().size() == 3 && this.isAuthenticated && !hasTransaction();
+  }
+
+  /**
+   * Applies a run of plain SET commands with one putAll. Keys go through the same type checks as
+   * in the SET executor, and if the putAll fails every command is executed on its own so the usual
+   * retries apply.
+   */
+  private void executeSetBatch(ChannelHandlerContext ctx, List<Command> commands) {
+    SetExecutor setExecutor = (SetExecutor) RedisCommandType.SET.getExecutor();
+    Map<ByteArrayWrapper, ByteArrayWrapper> map = new HashMap<ByteArrayWrapper, ByteArrayWrapper>();
+    for (Command command : commands) {
+      try {
+        map.put(command.getKey(), setExecutor.prepareBatchedSet(command, this));
+      } catch (RedisDataTypeMismatchException e) {
+        command.setResponse(getExceptionResponse(ctx, e));
+      }
+    }
+
+    boolean applied;
+    try {
+      Region<ByteArrayWrapper, ByteArrayWrapper> r = this.regionProvider.getStringsRegion();
+      r.putAll(map);
+      applied = true;
+      this.stats.incBatches(commands.size());
+    } catch (Exception e) {
+      applied = false;
+    }
+
+    for (Command command : commands) {
+      ByteBuf response = command.getResponse();
+      if (response != null)
+        writeToChannel(response);
+      else if (applied)
+        writeToChannel(Coder.getSimpleStringResponse(this.byteBufAllocator, SUCCESS));
+      else
+        executeCommandOrFail(ctx, command);
+    }
   }
 
   /**
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.redis.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.geode.StatisticDescriptor;
+import org.apache.geode.Statistics;
+import org.apache.geode.StatisticsFactory;
+import org.apache.geode.StatisticsType;
+import org.apache.geode.StatisticsTypeFactory;
+import org.apache.geode.internal.statistics.StatisticsTypeFactoryImpl;
+
+/**
+ * Statistics about how the commands sent to a {@link org.apache.geode.redis.GeodeRedisServer} are
+ * pipelined and batched by the {@link ExecutionHandlerContext}.
+ */
+public class RedisStats {
+
+  private static final StatisticsType type;
+
+  private static final int commandsQueuedId;
+  private static final int pipelinesId;
+  private static final int pipelinedCommandsId;
+  private static final int maxPipelineDepthId;
+  private static final int batchesId;
+  private static final int batchedCommandsId;
+
+  static {
+    StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
+
+    type = f.createType("RedisStats", "Statistics about pipelined Redis commands",
+        new StatisticDescriptor[] {
+            f.createLongGauge("commandsQueued",
+                "The number of received commands waiting to be executed.", "commands"),
+            f.createLongCounter("pipelines",
+                "The total number of reads that carried more than one command.", "operations"),
+            f.createLongCounter("pipelinedCommands",
+                "The total number of commands received as part of a pipeline.", "commands"),
+            f.createLongGauge("maxPipelineDepth",
+                "The largest number of commands received in a single read.", "commands"),
+            f.createLongCounter("batches",
+                "The total number of region operations that applied several pipelined commands.",
+                "operations"),
+            f.createLongCounter("batchedCommands",
+                "The total number of pipelined commands applied as part of a batch.",
+                "commands")});
+
+    commandsQueuedId = type.nameToId("commandsQueued");
+    pipelinesId = type.nameToId("pipelines");
+    pipelinedCommandsId = type.nameToId("pipelinedCommands");
+    maxPipelineDepthId = type.nameToId("maxPipelineDepth");
+    batchesId = type.nameToId("batches");
+    batchedCommandsId = type.nameToId("batchedCommands");
+  }
+
+  private final Statistics stats;
+
+  /**
+   * Connections end their pipelines concurrently, so the maximum is kept here and sampled into the
+   * gauge
+   */
+  private final AtomicInteger maxPipelineDepth = new AtomicInteger();
+
+  public RedisStats(StatisticsFactory f, String name) {
+    this.stats = f.createAtomicStatistics(type, name);
+    this.stats.setLongSupplier(maxPipelineDepthId, this.maxPipelineDepth::get);
+  }
+
+  public void close() {
+    this.stats.close();
+  }
+
+  public void incCommandsQueued(int delta) {
+    this.stats.incLong(commandsQueuedId, delta);
+  }
+
+  /**
+   * @param depth Number of commands received in one read
+   */
+  public void endPipeline(int depth) {
+    if (depth > 1) {
+      this.stats.incLong(pipelinesId, 1);
+      this.stats.incLong(pipelinedCommandsId, depth);
+    }
+    this.maxPipelineDepth.accumulateAndGet(depth, Math::max);
+  }
+
+  public void incBatches(int commands) {
+    this.stats.incLong(batchesId, 1);
+    this.stats.incLong(batchedCommandsId, commands);
+  }
+
+  public long getCommandsQueued() {
+    return this.stats.getLong(commandsQueuedId);
+  }
+
+  public long getPipelines() {
+    return this.stats.getLong(pipelinesId);
+  }
+
+  public long getPipelinedCommands() {
+    return this.stats.getLong(pipelinedCommandsId);
+  }
+
+  public long getMaxPipelineDepth() {
+    return this.maxPipelineDepth.get();
+  }
+
+  public long getBatches() {
+    return this.stats.getLong(batchesId);
+  }
+
+  public long getBatchedCommands() {
+    return this.stats.getLong(batchedCommandsId);
+  }
+
+  public Statistics getStats() {
+    return this.stats;
+  }
+}
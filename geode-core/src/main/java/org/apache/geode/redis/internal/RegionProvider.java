@@ -15,30 +15,35 @@
 package org.apache.geode.redis.internal;
 
 import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheListener;
 import org.apache.geode.cache.CacheTransactionManager;
+import org.apache.geode.cache.EntryEvent;
 import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionDestroyedException;
 import org.apache.geode.cache.RegionShortcut;
 import org.apache.geode.cache.TransactionId;
-import org.apache.geode.cache.query.IndexExistsException;
-import org.apache.geode.cache.query.IndexInvalidException;
-import org.apache.geode.cache.query.IndexNameConflictException;
 import org.apache.geode.cache.query.Query;
 import org.apache.geode.cache.query.QueryInvalidException;
 import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.query.RegionNotFoundException;
+import org.apache.geode.cache.util.CacheListenerAdapter;
 import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.internal.hll.HyperLogLogPlus;
 import org.apache.geode.management.cli.Result;
@@ -47,7 +52,6 @@ import org.apache.geode.management.internal.cli.commands.CreateRegionCommand;
 import org.apache.geode.redis.GeodeRedisServer;
 import org.apache.geode.redis.internal.executor.ExpirationExecutor;
 import org.apache.geode.redis.internal.executor.ListQuery;
-import org.apache.geode.redis.internal.executor.SortedSetQuery;
 
 /**
  * This class stands between {@link Executor} and {@link Cache#getRegion(String)}. This is needed
@@ -78,10 +82,61 @@ public class RegionProvider implements Closeable {
    */
   private final Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion;
 
+  /**
+   * This is the {@link Region} that stores the {@link ZipList} encoding of all
+   * {@link RedisDataType#REDIS_HASH} and {@link RedisDataType#REDIS_LIST} keys small enough not to
+   * need a Region of their own
+   */
+  private final Region<ByteArrayWrapper, ZipList> compactRegion;
+
+  /**
+   * How long to wait for another member to finish moving a key out of the compact Region before
+   * finishing the move on its behalf
+   */
+  private static final long UPGRADE_TIMEOUT_MILLIS = 10000;
+
+  /**
+   * Released when the entry of a key in the compact Region changes, for the commands waiting for
+   * the key to be moved to its own Region
+   */
+  private final ConcurrentMap<ByteArrayWrapper, CountDownLatch> upgradeWaiters =
+      new ConcurrentHashMap<>();
+
+  private final CacheListener<ByteArrayWrapper, ZipList> compactListener =
+      new CacheListenerAdapter<ByteArrayWrapper, ZipList>() {
+        @Override
+        public void afterUpdate(EntryEvent<ByteArrayWrapper, ZipList> event) {
+          releaseUpgradeWaiters(event.getKey());
+        }
+
+        @Override
+        public void afterDestroy(EntryEvent<ByteArrayWrapper, ZipList> event) {
+          releaseUpgradeWaiters(event.getKey());
+        }
+
+        @Override
+        public void afterInvalidate(EntryEvent<ByteArrayWrapper, ZipList> event) {
+          releaseUpgradeWaiters(event.getKey());
+        }
+      };
+
   private final Cache cache;
   private final QueryService queryService;
   private final ConcurrentMap<ByteArrayWrapper, Map<Enum<?>, Query>> preparedQueries =
       new ConcurrentHashMap<>();
+  /**
+   * The system property name used to create sorted set Regions as replicated when the default
+   * Region type is partitioned, so that every member can maintain a {@link SortedSetIndex} of the
+   * whole set instead of building one for each command
+   */
+  public static final String REPLICATE_SORTED_SETS_SYS_PROP_NAME =
+      "gemfireredis.replicatesortedsets";
+
+  private static final boolean REPLICATE_SORTED_SETS =
+      Boolean.getBoolean(REPLICATE_SORTED_SETS_SYS_PROP_NAME);
+
+  private final ConcurrentMap<ByteArrayWrapper, SortedSetIndex> sortedSetIndexes =
+      new ConcurrentHashMap<>();
   private final ConcurrentMap<ByteArrayWrapper, ScheduledFuture<?>> expirationsMap;
   private final ScheduledExecutorService expirationExecutor;
   private final RegionShortcut defaultRegionType;
@@ -90,14 +145,18 @@ public class RegionProvider implements Closeable {
 
   public RegionProvider(Region<ByteArrayWrapper, ByteArrayWrapper> stringsRegion,
       Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion,
+      Region<ByteArrayWrapper, ZipList> compactRegion,
       Region<String, RedisDataType> redisMetaRegion,
       ConcurrentMap<ByteArrayWrapper, ScheduledFuture<?>> expirationsMap,
       ScheduledExecutorService expirationExecutor, RegionShortcut defaultShortcut) {
-    if (stringsRegion == null || hLLRegion == null || redisMetaRegion == null)
+    if (stringsRegion == null || hLLRegion == null || compactRegion == null
+        || redisMetaRegion == null)
       throw new NullPointerException();
     this.regions = new ConcurrentHashMap<>();
     this.stringsRegion = stringsRegion;
     this.hLLRegion = hLLRegion;
+    this.compactRegion = compactRegion;
+    this.compactRegion.getAttributesMutator().addCacheListener(this.compactListener);
     this.redisMetaRegion = redisMetaRegion;
     this.cache = GemFireCacheImpl.getInstance();
     this.queryService = cache.getQueryService();
@@ -143,6 +202,218 @@ public class RegionProvider implements Closeable {
     return this.regions.get(key);
   }
 
+  /**
+   * Gets the {@link Region} of a hash or list key. Unlike {@link #getRegion(ByteArrayWrapper)} this
+   * also finds Regions created by another member when the key outgrew its {@link ZipList}
+   * encoding, and references them locally.
+   *
+   * @param key Key of the Region
+   * @param type Type of the key
+   * @return The Region, or null if the key has none
+   */
+  public Region<?, ?> getRegion(ByteArrayWrapper key, RedisDataType type) {
+    Region<?, ?> r = this.regions.get(key);
+    if (r != null && !r.isDestroyed())
+      return r;
+    String stringKey = key.toString();
+    if (r == null && cache.getRegion(stringKey) == null)
+      return null;
+    Lock lock = this.locks.get(stringKey);
+    if (lock == null) {
+      this.locks.putIfAbsent(stringKey, new ReentrantLock());
+      lock = this.locks.get(stringKey);
+    }
+    try {
+      lock.lock();
+      r = this.regions.get(key);
+      if (r != null && r.isDestroyed()) {
+        removeRegionState(key, type);
+        r = null;
+      }
+      if (r == null) {
+        r = cache.getRegion(stringKey);
+        if (r == null)
+          return null;
+        if (type == RedisDataType.REDIS_LIST)
+          doInitializeList(key, r);
+        this.regions.put(key, r);
+      }
+      return r;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the {@link ZipList} encoding of a hash or list key, waiting for any move of the key to its
+   * own {@link Region} to finish
+   *
+   * @param key Key to get
+   * @param type Type of the key
+   * @param context Context of the calling command
+   * @return The encoding, or null if the key does not exist or is held in a Region
+   */
+  public ZipList getCompact(ByteArrayWrapper key, RedisDataType type,
+      ExecutionHandlerContext context) {
+    long waitStart = 0;
+    while (true) {
+      ZipList compact = this.compactRegion.get(key);
+      if (compact == null || !compact.isUpgrading())
+        return compact;
+      long now = System.currentTimeMillis();
+      if (waitStart == 0) {
+        waitStart = now;
+      } else if (now - waitStart > UPGRADE_TIMEOUT_MILLIS) {
+        // The member moving the key has gone away, the placeholder holds everything to finish
+        finishUpgrade(key, type, compact, context);
+        continue;
+      }
+      CountDownLatch latch = this.upgradeWaiters.computeIfAbsent(key, k -> new CountDownLatch(1));
+      // the move may have finished before the latch was registered
+      if (!compact.equals(this.compactRegion.get(key)))
+        continue;
+      try {
+        latch.await(waitStart + UPGRADE_TIMEOUT_MILLIS - now + 1, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted waiting on key " + key, e);
+      }
+    }
+  }
+
+  private void releaseUpgradeWaiters(ByteArrayWrapper key) {
+    CountDownLatch latch = this.upgradeWaiters.remove(key);
+    if (latch != null)
+      latch.countDown();
+  }
+
+  /**
+   * Applies an update to the {@link ZipList} encoding of a hash or list key, creating the key if it
+   * does not exist. The update is given the decoded elements, a hash as alternating fields and
+   * values, and changes them in place. It runs against a private copy and is retried whenever the
+   * key changes concurrently, so it must not have side effects and must not return null.
+   * <p>
+   * If the updated elements no longer fit the encoding the key is moved to a Region of its own,
+   * and once the elements are empty the key is removed. Outside a transaction the move happens
+   * right away; inside one the encoding is allowed to grow and the move happens on the next
+   * update.
+   *
+   * @param key Key to update
+   * @param type Type of the key, {@link RedisDataType#REDIS_HASH} or
+   *        {@link RedisDataType#REDIS_LIST}
+   * @param update The change to apply
+   * @param context Context of the calling command
+   * @return The result of the update, or null if the key is held in a Region or the encoding is
+   *         turned off, in which case the caller applies the change to the Region
+   */
+  public <R> R updateCompact(ByteArrayWrapper key, RedisDataType type,
+      Function<List<ByteArrayWrapper>, R> update, ExecutionHandlerContext context) {
+    if (!ZipList.isEnabled())
+      return null;
+    checkDataType(key, type);
+    boolean hasTransaction = context != null && context.hasTransaction();
+    int elementsPerEntry = type == RedisDataType.REDIS_HASH ? 2 : 1;
+    while (true) {
+      ZipList current = getCompact(key, type, context);
+      if (current == null && getRegion(key, type) != null)
+        return null;
+
+      List<ByteArrayWrapper> elements = current == null ? new ArrayList<>() : current.decode();
+      R result = update.apply(elements);
+
+      if (elements.isEmpty()) {
+        if (current == null)
+          return result;
+        if (this.compactRegion.remove(key, current)) {
+          metaRemoveEntry(key);
+          cancelKeyExpiration(key);
+          return result;
+        }
+        continue;
+      }
+
+      ZipList updated = ZipList.encode(elements);
+      boolean upgrade = !hasTransaction && !ZipList.fits(elements, elementsPerEntry);
+      if (upgrade)
+        updated = updated.asUpgrading();
+      else if (updated.equals(current))
+        return result;
+
+      if (current == null) {
+        if (!putCompactIfAbsent(key, type, updated))
+          continue;
+        RedisDataType existingType = metaPutIfAbsent(key, type);
+        if (existingType != null && existingType != type) {
+          this.compactRegion.remove(key, updated);
+          throw new RedisDataTypeMismatchException(
+              "The key name \"" + key + "\" is already used by a " + existingType.toString());
+        }
+      } else if (!this.compactRegion.replace(key, current, updated)) {
+        continue;
+      }
+
+      if (upgrade)
+        finishUpgrade(key, type, updated, context);
+      return result;
+    }
+  }
+
+  /**
+   * Adds the encoding of a key that was found neither in the compact Region nor in a Region of its
+   * own. This holds the lock of the key, which is also held while a Region is created for it, so a
+   * key that was moved to its own Region since it was looked up is not added back.
+   *
+   * @return true if the encoding was added, false if the key was created or moved concurrently
+   */
+  private boolean putCompactIfAbsent(ByteArrayWrapper key, RedisDataType type, ZipList encoding) {
+    String stringKey = key.toString();
+    Lock lock = this.locks.get(stringKey);
+    if (lock == null) {
+      this.locks.putIfAbsent(stringKey, new ReentrantLock());
+      lock = this.locks.get(stringKey);
+    }
+    lock.lock();
+    try {
+      if (getRegion(key, type) != null)
+        return false;
+      return this.compactRegion.putIfAbsent(key, encoding) == null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Moves a key out of the compact Region into a Region of its own. The placeholder stays in the
+   * compact Region until the copy is complete so that no other command sees a partial key.
+   */
+  private void finishUpgrade(ByteArrayWrapper key, RedisDataType type, ZipList placeholder,
+      ExecutionHandlerContext context) {
+    getRegion(key, type); // drops a stale reference to an earlier Region of the same name
+    Region<?, ?> r = getOrCreateRegion0(key, type, context, true);
+    List<ByteArrayWrapper> elements = placeholder.decode();
+    if (type == RedisDataType.REDIS_HASH) {
+      Map<ByteArrayWrapper, ByteArrayWrapper> fields = new HashMap<>();
+      for (int i = 0; i + 1 < elements.size(); i += 2) {
+        fields.put(elements.get(i), elements.get(i + 1));
+      }
+      @SuppressWarnings("unchecked")
+      Region<ByteArrayWrapper, ByteArrayWrapper> hash =
+          (Region<ByteArrayWrapper, ByteArrayWrapper>) r;
+      hash.putAll(fields);
+    } else {
+      Map<Object, Object> list = new HashMap<>();
+      for (int i = 0; i < elements.size(); i++) {
+        list.put(i, elements.get(i));
+      }
+      list.put("head", 0);
+      list.put("tail", elements.size() - 1);
+      @SuppressWarnings("unchecked")
+      Region<Object, Object> listRegion = (Region<Object, Object>) r;
+      listRegion.putAll(list);
+    }
+    this.compactRegion.remove(key, placeholder);
+  }
+
   public void removeRegionReferenceLocally(ByteArrayWrapper key, RedisDataType type) {
     Lock lock = this.locks.get(key.toString());
     boolean locked = false;
@@ -185,6 +456,8 @@ public class RegionProvider implements Closeable {
         } else if (type == RedisDataType.REDIS_HLL) {
           return this.hLLRegion.remove(key) != null;
         } else {
+          if (type == RedisDataType.REDIS_HASH || type == RedisDataType.REDIS_LIST)
+            this.compactRegion.remove(key);
           return destroyRegion(key, type);
         }
       } catch (Exception exc) {
@@ -240,7 +513,7 @@ public class RegionProvider implements Closeable {
           } else if (type == RedisDataType.REDIS_SORTEDSET) {
             try {
               doInitializeSortedSet(key, r);
-            } catch (RegionNotFoundException | IndexInvalidException e) {
+            } catch (RegionDestroyedException e) {
               // ignore
             }
           }
@@ -286,14 +559,14 @@ public class RegionProvider implements Closeable {
             Exception concurrentCreateDestroyException = null;
             do {
               concurrentCreateDestroyException = null;
-              r = createRegionGlobally(stringKey);
+              r = createRegionGlobally(stringKey, getRegionType(type));
               try {
                 if (type == RedisDataType.REDIS_LIST) {
                   doInitializeList(key, r);
                 } else if (type == RedisDataType.REDIS_SORTEDSET) {
                   try {
                     doInitializeSortedSet(key, r);
-                  } catch (RegionNotFoundException | IndexInvalidException e) {
+                  } catch (RegionDestroyedException e) {
                     concurrentCreateDestroyException = e;
                   }
                 }
@@ -331,6 +604,8 @@ public class RegionProvider implements Closeable {
    */
   private boolean destroyRegion(ByteArrayWrapper key, RedisDataType type) {
     Region<?, ?> r = this.regions.get(key);
+    if (r == null && (type == RedisDataType.REDIS_HASH || type == RedisDataType.REDIS_LIST))
+      r = cache.getRegion(key.toString()); // may have been moved out of the compact Region remotely
     if (r != null) {
       try {
         r.destroyRegion();
@@ -352,30 +627,25 @@ public class RegionProvider implements Closeable {
   private void removeRegionState(ByteArrayWrapper key, RedisDataType type) {
     this.preparedQueries.remove(key);
     this.regions.remove(key);
+    SortedSetIndex index = this.sortedSetIndexes.remove(key);
+    if (index != null)
+      index.close();
   }
 
-  private void doInitializeSortedSet(ByteArrayWrapper key, Region<?, ?> r)
-      throws RegionNotFoundException, IndexInvalidException {
-    String fullpath = r.getFullPath();
-    try {
-      queryService.createIndex("scoreIndex", "entry.value.score",
-          r.getFullPath() + ".entrySet entry");
-      queryService.createIndex("scoreIndex2", "value.score", r.getFullPath() + ".values value");
-    } catch (IndexNameConflictException | IndexExistsException | UnsupportedOperationException e) {
-      // ignore, these indexes already exist or unsupported but make sure prepared queries are made
-    }
-    HashMap<Enum<?>, Query> queryList = new HashMap<>();
-    for (SortedSetQuery lq : SortedSetQuery.values()) {
-      String queryString = lq.getQueryString(fullpath);
-      Query query = this.queryService.newQuery(queryString);
-      queryList.put(lq, query);
-    }
-    this.preparedQueries.put(key, queryList);
+  @SuppressWarnings("unchecked")
+  private void doInitializeSortedSet(ByteArrayWrapper key, Region<?, ?> r) {
+    // a partitioned region only delivers events for the buckets held locally
+    if (r.getAttributes().getDataPolicy().withPartitioning())
+      return;
+    SortedSetIndex index = SortedSetIndex.create((Region<ByteArrayWrapper, DoubleWrapper>) r);
+    SortedSetIndex old = this.sortedSetIndexes.put(key, index);
+    if (old != null)
+      old.close();
   }
 
   private void doInitializeList(ByteArrayWrapper key, Region r) {
-    r.put("head", 0);
-    r.put("tail", 0);
+    r.putIfAbsent("head", 0);
+    r.putIfAbsent("tail", 0);
     String fullpath = r.getFullPath();
     HashMap<Enum<?>, Query> queryList = new HashMap<>();
     for (ListQuery lq : ListQuery.values()) {
@@ -391,15 +661,16 @@ public class RegionProvider implements Closeable {
    * creation, a runtime exception will be thrown.
    * 
    * @param key Name of Region to create
+   * @param regionType Type of Region to create
    * @return Region Region created globally
    */
-  private Region<?, ?> createRegionGlobally(String key) {
+  private Region<?, ?> createRegionGlobally(String key, RegionShortcut regionType) {
     Region<?, ?> r = null;
     r = cache.getRegion(key);
     if (r != null)
       return r;
     do {
-      Result result = createRegionCmd.createRegion(key, defaultRegionType, null, null, true, null,
+      Result result = createRegionCmd.createRegion(key, regionType, null, null, true, null,
           null, null, null, null, null, null, null, false, false, true, false, false, false, true,
           null, null, null, null, null, null, null, null, null, null, null, false, null, null, null,
           null, null, null, null, null, null, null, null);
@@ -416,6 +687,30 @@ public class RegionProvider implements Closeable {
     return r;
   }
 
+  /**
+   * Sorted sets are served from a {@link SortedSetIndex}, which a member can only maintain for
+   * entries it holds. When {@value #REPLICATE_SORTED_SETS_SYS_PROP_NAME} is set, a partitioned
+   * default is swapped for the replicated type with the same persistence and overflow. Any other
+   * type is used as is.
+   *
+   * @param type Type of the key the Region is created for
+   * @return Type of Region to create
+   */
+  private RegionShortcut getRegionType(RedisDataType type) {
+    String name = this.defaultRegionType.name();
+    if (!REPLICATE_SORTED_SETS || type != RedisDataType.REDIS_SORTEDSET
+        || !name.startsWith("PARTITION") || name.contains("PROXY"))
+      return this.defaultRegionType;
+    if (name.contains("PERSISTENT"))
+      return name.contains("OVERFLOW") ? RegionShortcut.REPLICATE_PERSISTENT_OVERFLOW
+          : RegionShortcut.REPLICATE_PERSISTENT;
+    if (name.contains("OVERFLOW"))
+      return RegionShortcut.REPLICATE_OVERFLOW;
+    if (name.contains("HEAP_LRU"))
+      return RegionShortcut.REPLICATE_HEAP_LRU;
+    return RegionShortcut.REPLICATE;
+  }
+
   public Query getQuery(ByteArrayWrapper key, Enum<?> query) {
     return this.preparedQueries.get(key).get(query);
     /*
@@ -445,6 +740,24 @@ public class RegionProvider implements Closeable {
           "The key name \"" + key + "\" is already used by a " + currentType.toString());
   }
 
+  /**
+   * Get the score index of a sorted set key. A sorted set in a partitioned Region has no maintained
+   * index, so a snapshot of its current entries is built instead.
+   *
+   * @param key Key of the sorted set
+   * @return The index, or null if the key has no sorted set on this member
+   */
+  @SuppressWarnings("unchecked")
+  public SortedSetIndex getSortedSetIndex(ByteArrayWrapper key) {
+    SortedSetIndex index = this.sortedSetIndexes.get(key);
+    if (index != null)
+      return index;
+    Region<?, ?> r = this.regions.get(key);
+    if (r == null || r.isDestroyed() || !r.getAttributes().getDataPolicy().withPartitioning())
+      return null;
+    return SortedSetIndex.snapshot((Region<ByteArrayWrapper, DoubleWrapper>) r);
+  }
+
   public boolean regionExists(ByteArrayWrapper key) {
     return this.regions.containsKey(key);
   }
@@ -457,6 +770,10 @@ public class RegionProvider implements Closeable {
     return this.hLLRegion;
   }
 
+  public Region<ByteArrayWrapper, ZipList> getCompactRegion() {
+    return this.compactRegion;
+  }
+
   private RedisDataType getRedisDataType(String key) {
     return this.redisMetaRegion.get(key);
   }
@@ -551,7 +868,12 @@ public class RegionProvider implements Closeable {
 
   @Override
   public void close() {
+    this.compactRegion.getAttributesMutator().removeCacheListener(this.compactListener);
     this.preparedQueries.clear();
+    for (SortedSetIndex index : this.sortedSetIndexes.values()) {
+      index.close();
+    }
+    this.sortedSetIndexes.clear();
   }
 
   public String dumpRegionsCache() {
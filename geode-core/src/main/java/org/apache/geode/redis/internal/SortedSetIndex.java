@@ -0,0 +1,554 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.redis.internal;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.geode.cache.EntryDestroyedException;
+import org.apache.geode.cache.EntryEvent;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionEvent;
+import org.apache.geode.cache.util.CacheListenerAdapter;
+
+/**
+ * An in memory score index for a {@link RedisDataType#REDIS_SORTEDSET} key. The {@link Region}
+ * that backs the key remains the source of truth and is what Geode distributes and persists; this
+ * index mirrors it through a cache listener so that rank and range lookups do not have to run an
+ * OQL query over every member of the set.
+ * <p>
+ * Members are kept in a skip list ordered by score and then by member bytes, the same order Redis
+ * uses. Every forward link records how many members it skips, so rank lookups and positional
+ * ranges take O(log n) instead of a scan. Lexicographical lookups descend the same list by member
+ * alone, which like in Redis is only meaningful when all members share a score.
+ * <p>
+ * A maintained index only sees the events the local member sees, so it is only complete when the
+ * backing region holds every entry locally. For a partitioned region {@link RegionProvider} builds
+ * a {@link #snapshot(Region)} for each command instead.
+ */
+public class SortedSetIndex {
+
+  private static final int MAX_LEVEL = 32;
+
+  private final Region<ByteArrayWrapper, DoubleWrapper> region;
+
+  private final Map<ByteArrayWrapper, Node> members = new HashMap<>();
+
+  private final Node head = new Node(null, null, MAX_LEVEL);
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Maintainer maintainer = new Maintainer();
+
+  private Node tail;
+
+  private int level = 1;
+
+  private SortedSetIndex(Region<ByteArrayWrapper, DoubleWrapper> region) {
+    this.region = region;
+  }
+
+  /**
+   * Creates an index for the given region, registers it to follow all future changes, and loads
+   * the entries already present in the region
+   *
+   * @param region Region backing the sorted set
+   * @return The populated index
+   */
+  public static SortedSetIndex create(Region<ByteArrayWrapper, DoubleWrapper> region) {
+    SortedSetIndex index = new SortedSetIndex(region);
+    region.getAttributesMutator().addCacheListener(index.maintainer);
+    for (ByteArrayWrapper member : region.keySet()) {
+      index.refresh(member);
+    }
+    return index;
+  }
+
+  /**
+   * Creates an index of the entries the region holds right now, across all members for a
+   * partitioned region. The index does not follow later changes and is meant to serve a single
+   * command.
+   *
+   * @param region Region backing the sorted set
+   * @return The populated index
+   */
+  public static SortedSetIndex snapshot(Region<ByteArrayWrapper, DoubleWrapper> region) {
+    SortedSetIndex index = new SortedSetIndex(region);
+    index.lock.writeLock().lock();
+    try {
+      for (Entry<ByteArrayWrapper, DoubleWrapper> entry : region.entrySet()) {
+        DoubleWrapper value;
+        try {
+          value = entry.getValue();
+        } catch (EntryDestroyedException e) {
+          continue;
+        }
+        index.apply(entry.getKey(), value);
+      }
+    } finally {
+      index.lock.writeLock().unlock();
+    }
+    return index;
+  }
+
+  /**
+   * Stops following the backing region
+   */
+  public void close() {
+    if (!this.region.isDestroyed()) {
+      try {
+        this.region.getAttributesMutator().removeCacheListener(this.maintainer);
+      } catch (Exception e) {
+        // the region is going away, nothing left to detach from
+      }
+    }
+    clear();
+  }
+
+  public int size() {
+    this.lock.readLock().lock();
+    try {
+      return this.members.size();
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the zero based rank of a member
+   *
+   * @param member Member to look up
+   * @param reverse True to rank from the highest score
+   * @return The rank, or -1 if the member is not in the set
+   */
+  public int rank(ByteArrayWrapper member, boolean reverse) {
+    this.lock.readLock().lock();
+    try {
+      Node node = this.members.get(member);
+      if (node == null)
+        return -1;
+      int rank = countBefore(node.score, node.member);
+      return reverse ? this.members.size() - 1 - rank : rank;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the members between two ranks, both inclusive and already bounded by the caller
+   *
+   * @param start First rank
+   * @param stop Last rank
+   * @param reverse True to rank from the highest score
+   * @return Entries of member to score in rank order
+   */
+  public List<Entry<ByteArrayWrapper, DoubleWrapper>> rangeByRank(int start, int stop,
+      boolean reverse) {
+    this.lock.readLock().lock();
+    try {
+      int size = this.members.size();
+      if (start < 0 || start > stop || start >= size)
+        return Collections.emptyList();
+      stop = Math.min(stop, size - 1);
+      if (reverse)
+        return collect(size - 1 - start, stop - start + 1, true);
+      return collect(start, stop - start + 1, false);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  public int countByScore(double min, boolean minInclusive, double max, boolean maxInclusive) {
+    this.lock.readLock().lock();
+    try {
+      return Math.max(0, countByScore(max, maxInclusive) - countByScore(min, !minInclusive));
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the members whose score falls in the given bounds
+   *
+   * @param min Lowest score
+   * @param minInclusive True if members scoring exactly min are included
+   * @param max Highest score
+   * @param maxInclusive True if members scoring exactly max are included
+   * @param offset Number of matching members to skip
+   * @param limit Maximum number of members to return, negative for no limit
+   * @param reverse True to walk from the highest score down
+   * @return Entries of member to score in score order
+   */
+  public List<Entry<ByteArrayWrapper, DoubleWrapper>> rangeByScore(double min,
+      boolean minInclusive, double max, boolean maxInclusive, int offset, int limit,
+      boolean reverse) {
+    this.lock.readLock().lock();
+    try {
+      int first = countByScore(min, !minInclusive);
+      int end = countByScore(max, maxInclusive);
+      return collectRange(first, end, offset, limit, reverse);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Counts the members between two members in lexicographical order
+   *
+   * @param min Lowest member, or null for no lower bound
+   * @param minInclusive True if min itself is included
+   * @param max Highest member, or null for no upper bound
+   * @param maxInclusive True if max itself is included
+   * @return Number of members in range
+   */
+  public int countByLex(ByteArrayWrapper min, boolean minInclusive, ByteArrayWrapper max,
+      boolean maxInclusive) {
+    this.lock.readLock().lock();
+    try {
+      int first = min == null ? 0 : countByLex(min, !minInclusive);
+      int end = max == null ? this.members.size() : countByLex(max, maxInclusive);
+      return Math.max(0, end - first);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the members between two members in lexicographical order
+   *
+   * @param min Lowest member, or null for no lower bound
+   * @param minInclusive True if min itself is included
+   * @param max Highest member, or null for no upper bound
+   * @param maxInclusive True if max itself is included
+   * @param offset Number of matching members to skip
+   * @param limit Maximum number of members to return, negative for no limit
+   * @return Members in lexicographical order
+   */
+  public List<ByteArrayWrapper> rangeByLex(ByteArrayWrapper min, boolean minInclusive,
+      ByteArrayWrapper max, boolean maxInclusive, int offset, int limit) {
+    this.lock.readLock().lock();
+    try {
+      int first = min == null ? 0 : countByLex(min, !minInclusive);
+      int end = max == null ? this.members.size() : countByLex(max, maxInclusive);
+      List<Entry<ByteArrayWrapper, DoubleWrapper>> entries =
+          collectRange(first, end, offset, limit, false);
+      List<ByteArrayWrapper> result = new ArrayList<>(entries.size());
+      for (Entry<ByteArrayWrapper, DoubleWrapper> entry : entries) {
+        result.add(entry.getKey());
+      }
+      return result;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Brings the index in line with the current local value of a member. Reading the region while
+   * holding the write lock makes the outcome independent of the order listener callbacks arrive in.
+   */
+  void refresh(ByteArrayWrapper member) {
+    this.lock.writeLock().lock();
+    try {
+      DoubleWrapper value = null;
+      Region.Entry<ByteArrayWrapper, DoubleWrapper> entry = this.region.getEntry(member);
+      if (entry != null) {
+        try {
+          value = entry.getValue();
+        } catch (EntryDestroyedException e) {
+          // treated as removed
+        }
+      }
+      apply(member, value);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Sets the score of a member, removing it when the value is null. Callers hold the write lock.
+   */
+  private void apply(ByteArrayWrapper member, DoubleWrapper value) {
+    Node existing = this.members.get(member);
+    if (existing != null) {
+      if (value != null && value.score != null && existing.score == value.score.doubleValue()) {
+        existing.value = value;
+        return;
+      }
+      unlink(existing);
+      this.members.remove(member);
+    }
+    if (value != null && value.score != null) {
+      this.members.put(member, insert(member, value));
+    }
+  }
+
+  void clear() {
+    this.lock.writeLock().lock();
+    try {
+      this.members.clear();
+      for (int i = 0; i < MAX_LEVEL; i++) {
+        this.head.next[i] = null;
+        this.head.span[i] = 0;
+      }
+      this.tail = null;
+      this.level = 1;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  private static int compare(double score, ByteArrayWrapper member, Node node) {
+    if (score < node.score)
+      return -1;
+    if (score > node.score)
+      return 1;
+    return member.compareTo(node.member);
+  }
+
+  /**
+   * Number of members ordered before the given score and member
+   */
+  private int countBefore(double score, ByteArrayWrapper member) {
+    int rank = 0;
+    Node x = this.head;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.next[i] != null && compare(score, member, x.next[i]) > 0) {
+        rank += x.span[i];
+        x = x.next[i];
+      }
+    }
+    return rank;
+  }
+
+  /**
+   * Number of members scoring below the given score, or at or below it when inclusive
+   */
+  private int countByScore(double score, boolean inclusive) {
+    int rank = 0;
+    Node x = this.head;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.next[i] != null
+          && (x.next[i].score < score || (inclusive && x.next[i].score == score))) {
+        rank += x.span[i];
+        x = x.next[i];
+      }
+    }
+    return rank;
+  }
+
+  /**
+   * Number of members ordered below the given member, or at or below it when inclusive
+   */
+  private int countByLex(ByteArrayWrapper member, boolean inclusive) {
+    int rank = 0;
+    Node x = this.head;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.next[i] != null) {
+        int cmp = x.next[i].member.compareTo(member);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+          rank += x.span[i];
+          x = x.next[i];
+        } else {
+          break;
+        }
+      }
+    }
+    return rank;
+  }
+
+  /**
+   * Collects the ranks [first, end) after applying offset and limit, walking backwards from end
+   * when reversed
+   */
+  private List<Entry<ByteArrayWrapper, DoubleWrapper>> collectRange(int first, int end,
+      int offset, int limit, boolean reverse) {
+    int count = end - first - offset;
+    if (count <= 0)
+      return Collections.emptyList();
+    if (limit >= 0)
+      count = Math.min(count, limit);
+    if (reverse)
+      return collect(end - 1 - offset, count, true);
+    return collect(first + offset, count, false);
+  }
+
+  private List<Entry<ByteArrayWrapper, DoubleWrapper>> collect(int rank, int count,
+      boolean reverse) {
+    List<Entry<ByteArrayWrapper, DoubleWrapper>> result = new ArrayList<>(count);
+    Node x = nodeAt(rank);
+    while (x != null && result.size() < count) {
+      result.add(new SimpleImmutableEntry<>(x.member, x.value));
+      x = reverse ? x.previous : x.next[0];
+    }
+    return result;
+  }
+
+  /**
+   * Finds the node at a zero based rank by following spans
+   */
+  private Node nodeAt(int rank) {
+    int traversed = 0;
+    int target = rank + 1;
+    Node x = this.head;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.next[i] != null && traversed + x.span[i] <= target) {
+        traversed += x.span[i];
+        x = x.next[i];
+      }
+      if (traversed == target)
+        return x;
+    }
+    return null;
+  }
+
+  private Node insert(ByteArrayWrapper member, DoubleWrapper value) {
+    double score = value.score;
+    Node[] update = new Node[MAX_LEVEL];
+    int[] rank = new int[MAX_LEVEL];
+    Node x = this.head;
+    for (int i = this.level - 1; i >= 0; i--) {
+      rank[i] = i == this.level - 1 ? 0 : rank[i + 1];
+      while (x.next[i] != null && compare(score, member, x.next[i]) > 0) {
+        rank[i] += x.span[i];
+        x = x.next[i];
+      }
+      update[i] = x;
+    }
+
+    int newLevel = randomLevel();
+    if (newLevel > this.level) {
+      for (int i = this.level; i < newLevel; i++) {
+        rank[i] = 0;
+        update[i] = this.head;
+        update[i].span[i] = this.members.size();
+      }
+      this.level = newLevel;
+    }
+
+    Node node = new Node(member, value, newLevel);
+    for (int i = 0; i < newLevel; i++) {
+      node.next[i] = update[i].next[i];
+      update[i].next[i] = node;
+      node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+      update[i].span[i] = (rank[0] - rank[i]) + 1;
+    }
+    for (int i = newLevel; i < this.level; i++) {
+      update[i].span[i]++;
+    }
+
+    node.previous = update[0] == this.head ? null : update[0];
+    if (node.next[0] != null)
+      node.next[0].previous = node;
+    else
+      this.tail = node;
+    return node;
+  }
+
+  private void unlink(Node node) {
+    Node[] update = new Node[MAX_LEVEL];
+    Node x = this.head;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.next[i] != null && compare(node.score, node.member, x.next[i]) > 0) {
+        x = x.next[i];
+      }
+      update[i] = x;
+    }
+    for (int i = 0; i < this.level; i++) {
+      if (update[i].next[i] == node) {
+        update[i].span[i] += node.span[i] - 1;
+        update[i].next[i] = node.next[i];
+      } else {
+        update[i].span[i]--;
+      }
+    }
+    if (node.next[0] != null)
+      node.next[0].previous = node.previous;
+    else
+      this.tail = node.previous;
+    while (this.level > 1 && this.head.next[this.level - 1] == null) {
+      this.level--;
+    }
+  }
+
+  private static int randomLevel() {
+    int level = 1;
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    while (level < MAX_LEVEL && random.nextInt(4) == 0) {
+      level++;
+    }
+    return level;
+  }
+
+  private static class Node {
+    private final ByteArrayWrapper member;
+    private final double score;
+    private DoubleWrapper value;
+    private final Node[] next;
+    private final int[] span;
+    private Node previous;
+
+    private Node(ByteArrayWrapper member, DoubleWrapper value, int level) {
+      this.member = member;
+      this.value = value;
+      this.score = value == null ? 0 : value.score;
+      this.next = new Node[level];
+      this.span = new int[level];
+    }
+  }
+
+  /**
+   * Keeps the index in step with the backing region on this member
+   */
+  private class Maintainer extends CacheListenerAdapter<ByteArrayWrapper, DoubleWrapper> {
+
+    @Override
+    public void afterCreate(EntryEvent<ByteArrayWrapper, DoubleWrapper> event) {
+      refresh(event.getKey());
+    }
+
+    @Override
+    public void afterUpdate(EntryEvent<ByteArrayWrapper, DoubleWrapper> event) {
+      refresh(event.getKey());
+    }
+
+    @Override
+    public void afterInvalidate(EntryEvent<ByteArrayWrapper, DoubleWrapper> event) {
+      refresh(event.getKey());
+    }
+
+    @Override
+    public void afterDestroy(EntryEvent<ByteArrayWrapper, DoubleWrapper> event) {
+      refresh(event.getKey());
+    }
+
+    @Override
+    public void afterRegionClear(RegionEvent<ByteArrayWrapper, DoubleWrapper> event) {
+      clear();
+    }
+
+    @Override
+    public void afterRegionDestroy(RegionEvent<ByteArrayWrapper, DoubleWrapper> event) {
+      clear();
+    }
+  }
+}
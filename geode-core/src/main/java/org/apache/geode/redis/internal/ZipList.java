@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.redis.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.geode.DataSerializable;
+import org.apache.geode.DataSerializer;
+
+/**
+ * The compact encoding of a small {@link RedisDataType#REDIS_HASH} or
+ * {@link RedisDataType#REDIS_LIST}. Like a Redis ziplist, all elements are packed into one byte[]
+ * so the whole key is a single entry of the compact {@link org.apache.geode.cache.Region} instead
+ * of a Region of its own. A hash is stored as alternating fields and values, a list as its elements
+ * in order.
+ * <p>
+ * The layout is a flag byte, the element count, then every element as its length followed by its
+ * bytes, with counts and lengths written as unsigned varints. Instances are immutable and compare
+ * by their encoded bytes so they can be used with {@link java.util.concurrent.ConcurrentMap}
+ * replace and remove.
+ */
+public class ZipList implements DataSerializable {
+
+  private static final long serialVersionUID = -4403744911733283404L;
+
+  /**
+   * The system property name used to set the number of entries a hash or list can hold before it is
+   * moved to its own {@link org.apache.geode.cache.Region}. Zero turns the compact encoding off.
+   */
+  public static final String MAX_ENTRIES_SYS_PROP_NAME = "gemfireredis.compactmaxentries";
+
+  /**
+   * The system property name used to set the largest element, in bytes, that a compact hash or list
+   * will hold
+   */
+  public static final String MAX_VALUE_SYS_PROP_NAME = "gemfireredis.compactmaxvalue";
+
+  public static final int MAX_ENTRIES = Integer.getInteger(MAX_ENTRIES_SYS_PROP_NAME, 128);
+
+  public static final int MAX_VALUE = Integer.getInteger(MAX_VALUE_SYS_PROP_NAME, 64);
+
+  private static final byte FLAG_NONE = 0;
+
+  private static final byte FLAG_UPGRADING = 1;
+
+  private byte[] data;
+
+  private transient int hashCode;
+
+  /**
+   * Empty constructor for serialization
+   */
+  public ZipList() {}
+
+  private ZipList(byte[] data) {
+    this.data = data;
+    this.hashCode = Arrays.hashCode(data);
+  }
+
+  public static boolean isEnabled() {
+    return MAX_ENTRIES > 0;
+  }
+
+  /**
+   * Checks if elements are small and few enough to stay compact
+   *
+   * @param elements Elements to check
+   * @param elementsPerEntry 2 for a hash, 1 for a list
+   * @return True if the elements fit the compact encoding
+   */
+  public static boolean fits(List<ByteArrayWrapper> elements, int elementsPerEntry) {
+    if (elements.size() > MAX_ENTRIES * elementsPerEntry)
+      return false;
+    for (ByteArrayWrapper element : elements) {
+      if (element.length() > MAX_VALUE)
+        return false;
+    }
+    return true;
+  }
+
+  public static ZipList encode(List<ByteArrayWrapper> elements) {
+    int length = 1 + varIntSize(elements.size());
+    for (ByteArrayWrapper element : elements) {
+      length += varIntSize(element.length()) + element.length();
+    }
+    byte[] data = new byte[length];
+    data[0] = FLAG_NONE;
+    int pos = writeVarInt(data, 1, elements.size());
+    for (ByteArrayWrapper element : elements) {
+      byte[] bytes = element.toBytes();
+      pos = writeVarInt(data, pos, bytes.length);
+      System.arraycopy(bytes, 0, data, pos, bytes.length);
+      pos += bytes.length;
+    }
+    return new ZipList(data);
+  }
+
+  /**
+   * @return A new mutable list of the encoded elements
+   */
+  public List<ByteArrayWrapper> decode() {
+    int[] pos = {1};
+    int count = readVarInt(this.data, pos);
+    List<ByteArrayWrapper> elements = new ArrayList<>(count + 1);
+    for (int i = 0; i < count; i++) {
+      int length = readVarInt(this.data, pos);
+      elements.add(new ByteArrayWrapper(Arrays.copyOfRange(this.data, pos[0], pos[0] + length)));
+      pos[0] += length;
+    }
+    return elements;
+  }
+
+  /**
+   * @return Number of encoded elements
+   */
+  public int size() {
+    return readVarInt(this.data, new int[] {1});
+  }
+
+  /**
+   * Returns the placeholder stored while the key is moved to its own Region. It carries the same
+   * elements so that any member can finish the move.
+   *
+   * @return A copy of this encoding flagged as upgrading
+   */
+  public ZipList asUpgrading() {
+    byte[] copy = this.data.clone();
+    copy[0] = FLAG_UPGRADING;
+    return new ZipList(copy);
+  }
+
+  public boolean isUpgrading() {
+    return this.data[0] == FLAG_UPGRADING;
+  }
+
+  @Override
+  public void toData(DataOutput out) throws IOException {
+    DataSerializer.writeByteArray(this.data, out);
+  }
+
+  @Override
+  public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    this.data = DataSerializer.readByteArray(in);
+    this.hashCode = Arrays.hashCode(this.data);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.hashCode;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ZipList && Arrays.equals(this.data, ((ZipList) other).data);
+  }
+
+  @Override
+  public String toString() {
+    return isUpgrading() ? "ZipList[upgrading]" : "ZipList" + decode();
+  }
+
+  private static int varIntSize(int value) {
+    int size = 1;
+    while ((value >>>= 7) != 0) {
+      size++;
+    }
+    return size;
+  }
+
+  private static int writeVarInt(byte[] data, int pos, int value) {
+    while ((value & ~0x7F) != 0) {
+      data[pos++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    data[pos++] = (byte) value;
+    return pos;
+  }
+
+  private static int readVarInt(byte[] data, int[] pos) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = data[pos[0]++];
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
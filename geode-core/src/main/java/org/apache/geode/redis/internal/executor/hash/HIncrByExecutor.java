@@ -16,12 +16,10 @@ package org.apache.geode.redis.internal.executor.hash;
 
 import java.util.List;
 
-import org.apache.geode.cache.Region;
 import org.apache.geode.redis.internal.ByteArrayWrapper;
 import org.apache.geode.redis.internal.Coder;
 import org.apache.geode.redis.internal.Command;
 import org.apache.geode.redis.internal.ExecutionHandlerContext;
-import org.apache.geode.redis.internal.RedisDataType;
 import org.apache.geode.redis.internal.RedisConstants.ArityDef;
 
 public class HIncrByExecutor extends HashExecutor {
@@ -58,53 +56,57 @@ public class HIncrByExecutor extends HashExecutor {
 
     ByteArrayWrapper key = command.getKey();
 
-    Region<ByteArrayWrapper, ByteArrayWrapper> keyRegion =
-        getOrCreateRegion(context, key, RedisDataType.REDIS_HASH);
-
     byte[] byteField = commandElems.get(FIELD_INDEX);
     ByteArrayWrapper field = new ByteArrayWrapper(byteField);
 
     /*
-     * Put incrememnt as value if field doesn't exist
+     * The update gives back either the new value or the error to respond with
      */
+    Object result = updateHash(context, key, hash -> {
 
-    ByteArrayWrapper oldValue = keyRegion.get(field);
+      /*
+       * Put incrememnt as value if field doesn't exist
+       */
 
-    if (oldValue == null) {
-      keyRegion.put(field, new ByteArrayWrapper(incrArray));
-      command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), increment));
-      return;
-    }
+      ByteArrayWrapper oldValue = hash.get(field);
 
-    /*
-     * If the field did exist then increment the field
-     */
+      if (oldValue == null) {
+        hash.put(field, new ByteArrayWrapper(incrArray));
+        return increment;
+      }
 
-    long value;
+      /*
+       * If the field did exist then increment the field
+       */
 
-    try {
-      value = Long.parseLong(oldValue.toString());
-    } catch (NumberFormatException e) {
-      command.setResponse(
-          Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_FIELD_NOT_USABLE));
-      return;
-    }
+      long value;
 
-    /*
-     * Check for overflow
-     */
-    if ((value >= 0 && increment > (Long.MAX_VALUE - value))
-        || (value <= 0 && increment < (Long.MIN_VALUE - value))) {
-      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_OVERFLOW));
-      return;
-    }
+      try {
+        value = Long.parseLong(oldValue.toString());
+      } catch (NumberFormatException e) {
+        return ERROR_FIELD_NOT_USABLE;
+      }
 
-    value += increment;
-    // String newValue = String.valueOf(value);
+      /*
+       * Check for overflow
+       */
+      if ((value >= 0 && increment > (Long.MAX_VALUE - value))
+          || (value <= 0 && increment < (Long.MIN_VALUE - value))) {
+        return ERROR_OVERFLOW;
+      }
 
-    keyRegion.put(field, new ByteArrayWrapper(Coder.longToBytes(value)));
+      value += increment;
+
+      hash.put(field, new ByteArrayWrapper(Coder.longToBytes(value)));
+      return value;
+    });
+
+    if (result instanceof String) {
+      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), (String) result));
+      return;
+    }
 
-    command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), value));
+    command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), (Long) result));
 
   }
 
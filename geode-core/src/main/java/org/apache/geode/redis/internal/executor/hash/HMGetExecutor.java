@@ -39,8 +39,8 @@ public class HMGetExecutor extends HashExecutor {
 
     ByteArrayWrapper key = command.getKey();
 
-    Region<ByteArrayWrapper, ByteArrayWrapper> keyRegion = getRegion(context, key);
     checkDataType(key, RedisDataType.REDIS_HASH, context);
+    Map<ByteArrayWrapper, ByteArrayWrapper> keyRegion = getHash(context, key);
 
     if (keyRegion == null) {
       command.setResponse(
@@ -55,7 +55,11 @@ public class HMGetExecutor extends HashExecutor {
       fields.add(field);
     }
 
-    Map<ByteArrayWrapper, ByteArrayWrapper> results = keyRegion.getAll(fields);
+    Map<ByteArrayWrapper, ByteArrayWrapper> results;
+    if (keyRegion instanceof Region)
+      results = ((Region<ByteArrayWrapper, ByteArrayWrapper>) keyRegion).getAll(fields);
+    else
+      results = keyRegion;
 
     ArrayList<ByteArrayWrapper> values = new ArrayList<ByteArrayWrapper>();
 
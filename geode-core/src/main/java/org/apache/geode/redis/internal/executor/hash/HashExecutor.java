@@ -14,10 +14,17 @@
  */
 package org.apache.geode.redis.internal.executor.hash;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
 import org.apache.geode.cache.Region;
 import org.apache.geode.redis.internal.ByteArrayWrapper;
 import org.apache.geode.redis.internal.ExecutionHandlerContext;
 import org.apache.geode.redis.internal.RedisDataType;
+import org.apache.geode.redis.internal.ZipList;
 import org.apache.geode.redis.internal.executor.AbstractExecutor;
 
 public abstract class HashExecutor extends AbstractExecutor {
@@ -34,7 +41,64 @@ public abstract class HashExecutor extends AbstractExecutor {
   @SuppressWarnings("unchecked")
   protected Region<ByteArrayWrapper, ByteArrayWrapper> getRegion(ExecutionHandlerContext context,
       ByteArrayWrapper key) {
-    return (Region<ByteArrayWrapper, ByteArrayWrapper>) context.getRegionProvider().getRegion(key);
+    return (Region<ByteArrayWrapper, ByteArrayWrapper>) context.getRegionProvider().getRegion(key,
+        RedisDataType.REDIS_HASH);
+  }
+
+  /**
+   * Gets the fields of a hash for reading, whether the hash is held compactly or in a Region of its
+   * own. A compact hash is returned as an unmodifiable snapshot.
+   *
+   * @param context Context of the command
+   * @param key Name of the hash
+   * @return The fields of the hash, or null if the hash does not exist
+   */
+  @SuppressWarnings("unchecked")
+  protected static Map<ByteArrayWrapper, ByteArrayWrapper> getHash(
+      ExecutionHandlerContext context, ByteArrayWrapper key) {
+    ZipList compact =
+        context.getRegionProvider().getCompact(key, RedisDataType.REDIS_HASH, context);
+    if (compact != null)
+      return Collections.unmodifiableMap(toMap(compact.decode()));
+    return (Map<ByteArrayWrapper, ByteArrayWrapper>) context.getRegionProvider().getRegion(key,
+        RedisDataType.REDIS_HASH);
+  }
+
+  /**
+   * Applies a change to a hash, creating it if need be. The change is first tried against the
+   * compact encoding, where it may be run more than once, and otherwise applied to the Region of
+   * the hash.
+   *
+   * @param context Context of the command
+   * @param key Name of the hash
+   * @param update The change to apply to the fields of the hash
+   * @return The result of the change
+   */
+  protected <R> R updateHash(ExecutionHandlerContext context, ByteArrayWrapper key,
+      Function<Map<ByteArrayWrapper, ByteArrayWrapper>, R> update) {
+    List<R> result = context.getRegionProvider().updateCompact(key, RedisDataType.REDIS_HASH,
+        elements -> {
+          Map<ByteArrayWrapper, ByteArrayWrapper> fields = toMap(elements);
+          R r = update.apply(fields);
+          elements.clear();
+          for (Map.Entry<ByteArrayWrapper, ByteArrayWrapper> entry : fields.entrySet()) {
+            elements.add(entry.getKey());
+            elements.add(entry.getValue());
+          }
+          // wrapped because the result of the change itself may be null
+          return Collections.singletonList(r);
+        }, context);
+    if (result != null)
+      return result.get(0);
+    return update.apply(getOrCreateRegion(context, key, RedisDataType.REDIS_HASH));
+  }
+
+  private static Map<ByteArrayWrapper, ByteArrayWrapper> toMap(List<ByteArrayWrapper> elements) {
+    Map<ByteArrayWrapper, ByteArrayWrapper> fields = new LinkedHashMap<>();
+    for (int i = 0; i + 1 < elements.size(); i += 2) {
+      fields.put(elements.get(i), elements.get(i + 1));
+    }
+    return fields;
   }
 
 }
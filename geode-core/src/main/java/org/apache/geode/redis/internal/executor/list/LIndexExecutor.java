@@ -45,14 +45,17 @@ public class LIndexExecutor extends ListExecutor {
     byte[] indexArray = commandElems.get(2);
 
     checkDataType(key, RedisDataType.REDIS_LIST, context);
-    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
+    List<ByteArrayWrapper> compactList = getCompactList(context, key);
+    Region<Integer, ByteArrayWrapper> keyRegion =
+        compactList == null ? getRegion(context, key) : null;
 
-    if (keyRegion == null) {
+    if (compactList == null && keyRegion == null) {
       command.setResponse(Coder.getNilResponse(context.getByteBufAllocator()));
       return;
     }
 
-    int listSize = keyRegion.size() - LIST_EMPTY_SIZE;
+    int listSize =
+        compactList != null ? compactList.size() : keyRegion.size() - LIST_EMPTY_SIZE;
 
     Integer redisIndex;
 
@@ -81,6 +84,15 @@ public class LIndexExecutor extends ListExecutor {
       return;
     }
 
+    if (compactList != null) {
+      if (redisIndex >= listSize)
+        command.setResponse(Coder.getNilResponse(context.getByteBufAllocator()));
+      else
+        command.setResponse(Coder.getBulkStringResponse(context.getByteBufAllocator(),
+            compactList.get(redisIndex).toBytes()));
+      return;
+    }
+
     /*
      * Now we must get that element from the region
      */
@@ -42,6 +42,13 @@ public class LLenExecutor extends ListExecutor {
     int listSize = 0;
 
     checkDataType(key, RedisDataType.REDIS_LIST, context);
+    List<ByteArrayWrapper> compactList = getCompactList(context, key);
+    if (compactList != null) {
+      command.setResponse(
+          Coder.getIntegerResponse(context.getByteBufAllocator(), compactList.size()));
+      return;
+    }
+
     Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
 
     if (keyRegion == null) {
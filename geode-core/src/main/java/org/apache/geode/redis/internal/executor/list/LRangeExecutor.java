@@ -50,14 +50,17 @@ public class LRangeExecutor extends ListExecutor {
 
 
     checkDataType(key, RedisDataType.REDIS_LIST, context);
-    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
+    List<ByteArrayWrapper> compactList = getCompactList(context, key);
+    Region<Integer, ByteArrayWrapper> keyRegion =
+        compactList == null ? getRegion(context, key) : null;
 
-    if (keyRegion == null) {
+    if (compactList == null && keyRegion == null) {
       command.setResponse(Coder.getEmptyArrayResponse(context.getByteBufAllocator()));
       return;
     }
 
-    int listSize = keyRegion.size() - LIST_EMPTY_SIZE;
+    int listSize =
+        compactList != null ? compactList.size() : keyRegion.size() - LIST_EMPTY_SIZE;
     if (listSize == 0) {
       command.setResponse(Coder.getEmptyArrayResponse(context.getByteBufAllocator()));
       return;
@@ -81,6 +84,11 @@ public class LRangeExecutor extends ListExecutor {
     redisStart = Math.min(redisStart, listSize - 1);
     redisStop = Math.min(redisStop, listSize - 1);
 
+    if (compactList != null) {
+      command.setResponse(Coder.getBulkStringArrayResponse(context.getByteBufAllocator(),
+          compactList.subList(redisStart, redisStop + 1)));
+      return;
+    }
 
     List<Struct> range;
     try {
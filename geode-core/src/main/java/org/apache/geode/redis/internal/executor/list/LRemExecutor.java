@@ -14,7 +14,9 @@
  */
 package org.apache.geode.redis.internal.executor.list;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.query.Query;
@@ -51,13 +53,6 @@ public class LRemExecutor extends ListExecutor {
 
 
     checkDataType(key, RedisDataType.REDIS_LIST, context);
-    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
-
-    if (keyRegion == null) {
-      command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
-      return;
-    }
-
     try {
       count = Coder.bytesToInt(countArray);
     } catch (NumberFormatException e) {
@@ -65,6 +60,20 @@ public class LRemExecutor extends ListExecutor {
       return;
     }
 
+    Integer compactRemoved = updateCompactList(context, key,
+        list -> removeMatches(list, new ByteArrayWrapper(value), count));
+    if (compactRemoved != null) {
+      command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), compactRemoved));
+      return;
+    }
+
+    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
+
+    if (keyRegion == null) {
+      command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
+      return;
+    }
+
     List<Struct> removeList;
     try {
       removeList = getRemoveList(context, key, new ByteArrayWrapper(value), count);
@@ -88,6 +97,32 @@ public class LRemExecutor extends ListExecutor {
     command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), numRemoved));
   }
 
+  /**
+   * Removes up to count occurrences of value, from the head if count is positive, from the tail if
+   * it is negative, or all of them if it is zero
+   */
+  private int removeMatches(List<ByteArrayWrapper> list, ByteArrayWrapper value, int count) {
+    int limit = count == 0 ? Integer.MAX_VALUE : Math.abs(count);
+    int numRemoved = 0;
+    if (count >= 0) {
+      for (Iterator<ByteArrayWrapper> it = list.iterator(); it.hasNext() && numRemoved < limit;) {
+        if (it.next().equals(value)) {
+          it.remove();
+          numRemoved++;
+        }
+      }
+    } else {
+      for (ListIterator<ByteArrayWrapper> it = list.listIterator(list.size());
+          it.hasPrevious() && numRemoved < limit;) {
+        if (it.previous().equals(value)) {
+          it.remove();
+          numRemoved++;
+        }
+      }
+    }
+    return numRemoved;
+  }
+
   private List<Struct> getRemoveList(ExecutionHandlerContext context, ByteArrayWrapper key,
       ByteArrayWrapper value, int count) throws Exception {
     Object[] params;
@@ -53,13 +53,6 @@ public class LSetExecutor extends ListExecutor {
 
 
     checkDataType(key, RedisDataType.REDIS_LIST, context);
-    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
-
-    if (keyRegion == null) {
-      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_INDEX));
-      return;
-    }
-
     try {
       index = Coder.bytesToInt(indexArray);
     } catch (NumberFormatException e) {
@@ -67,6 +60,29 @@ public class LSetExecutor extends ListExecutor {
       return;
     }
 
+    final int redisIndex = index;
+    Boolean compactSet = updateCompactList(context, key, list -> {
+      int i = redisIndex < 0 ? redisIndex + list.size() : redisIndex;
+      if (i < 0 || i >= list.size())
+        return false;
+      list.set(i, new ByteArrayWrapper(value));
+      return true;
+    });
+    if (compactSet != null) {
+      if (compactSet)
+        command.setResponse(Coder.getSimpleStringResponse(context.getByteBufAllocator(), SUCCESS));
+      else
+        command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_INDEX));
+      return;
+    }
+
+    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
+
+    if (keyRegion == null) {
+      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_INDEX));
+      return;
+    }
+
     int listSize = keyRegion.size() - LIST_EMPTY_SIZE;
     if (index < 0)
       index += listSize;
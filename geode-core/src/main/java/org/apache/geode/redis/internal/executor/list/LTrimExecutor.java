@@ -14,6 +14,7 @@
  */
 package org.apache.geode.redis.internal.executor.list;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.geode.cache.Region;
@@ -53,6 +54,36 @@ public class LTrimExecutor extends ListExecutor {
 
 
     checkDataType(key, RedisDataType.REDIS_LIST, context);
+    try {
+      redisStart = Coder.bytesToInt(startArray);
+      redisStop = Coder.bytesToInt(stopArray);
+    } catch (NumberFormatException e) {
+      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_NOT_NUMERIC));
+      return;
+    }
+
+    final int trimStart = redisStart;
+    final int trimStop = redisStop;
+    Boolean compactExists = updateCompactList(context, key, list -> {
+      if (list.isEmpty())
+        return false;
+      int start = getBoundedStartIndex(trimStart, list.size());
+      int stop = Math.min(getBoundedEndIndex(trimStop, list.size()), list.size() - 1);
+      List<ByteArrayWrapper> kept = start <= stop
+          ? new ArrayList<>(list.subList(start, stop + 1)) : new ArrayList<>();
+      list.clear();
+      list.addAll(kept);
+      return true;
+    });
+    if (compactExists != null) {
+      if (compactExists)
+        command.setResponse(Coder.getSimpleStringResponse(context.getByteBufAllocator(), SUCCESS));
+      else
+        command.setResponse(
+            Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_KEY_NOT_EXISTS));
+      return;
+    }
+
     Region keyRegion = getRegion(context, key);
 
     if (keyRegion == null) {
@@ -67,14 +98,6 @@ public class LTrimExecutor extends ListExecutor {
       return;
     }
 
-    try {
-      redisStart = Coder.bytesToInt(startArray);
-      redisStop = Coder.bytesToInt(stopArray);
-    } catch (NumberFormatException e) {
-      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_NOT_NUMERIC));
-      return;
-    }
-
     redisStart = getBoundedStartIndex(redisStart, listSize);
     redisStop = getBoundedEndIndex(redisStop, listSize);
     redisStart = Math.min(redisStart, listSize - 1);
@@ -15,6 +15,7 @@
 package org.apache.geode.redis.internal.executor.list;
 
 import java.util.List;
+import java.util.function.Function;
 
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.query.QueryService;
@@ -22,6 +23,7 @@ import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.redis.internal.ByteArrayWrapper;
 import org.apache.geode.redis.internal.ExecutionHandlerContext;
 import org.apache.geode.redis.internal.RedisDataType;
+import org.apache.geode.redis.internal.ZipList;
 import org.apache.geode.redis.internal.executor.AbstractExecutor;
 
 public abstract class ListExecutor extends AbstractExecutor {
@@ -47,7 +49,37 @@ public abstract class ListExecutor extends AbstractExecutor {
   @SuppressWarnings("unchecked")
   protected Region<Integer, ByteArrayWrapper> getRegion(ExecutionHandlerContext context,
       ByteArrayWrapper key) {
-    return (Region<Integer, ByteArrayWrapper>) context.getRegionProvider().getRegion(key);
+    return (Region<Integer, ByteArrayWrapper>) context.getRegionProvider().getRegion(key,
+        RedisDataType.REDIS_LIST);
+  }
+
+  /**
+   * @param context Context of the command
+   * @param key Name of the list
+   * @return The elements of the list if it is held compactly, null otherwise
+   */
+  protected List<ByteArrayWrapper> getCompactList(ExecutionHandlerContext context,
+      ByteArrayWrapper key) {
+    ZipList compact =
+        context.getRegionProvider().getCompact(key, RedisDataType.REDIS_LIST, context);
+    return compact == null ? null : compact.decode();
+  }
+
+  /**
+   * Applies a change to the compact encoding of a list, see
+   * {@link org.apache.geode.redis.internal.RegionProvider#updateCompact}. The change is given an
+   * empty list if the key does not exist.
+   *
+   * @param context Context of the command
+   * @param key Name of the list
+   * @param update The change to apply, it must not return null
+   * @return The result of the change, or null if the list is held in a Region and the command has
+   *         to fall back to the Region
+   */
+  protected <R> R updateCompactList(ExecutionHandlerContext context, ByteArrayWrapper key,
+      Function<List<ByteArrayWrapper>, R> update) {
+    return context.getRegionProvider().updateCompact(key, RedisDataType.REDIS_LIST, update,
+        context);
   }
 
   /**
@@ -15,6 +15,7 @@
 package org.apache.geode.redis.internal.executor.list;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.geode.cache.Region;
 
@@ -39,6 +40,20 @@ public abstract class PopExecutor extends ListExecutor implements Extendable {
     ByteArrayWrapper key = command.getKey();
 
     checkDataType(key, RedisDataType.REDIS_LIST, context);
+    Optional<ByteArrayWrapper> popped = updateCompactList(context, key, list -> {
+      if (list.isEmpty())
+        return Optional.empty();
+      return Optional.of(list.remove(popType() == ListDirection.LEFT ? 0 : list.size() - 1));
+    });
+    if (popped != null) {
+      if (popped.isPresent())
+        command.setResponse(
+            Coder.getBulkStringResponse(context.getByteBufAllocator(), popped.get().toBytes()));
+      else
+        command.setResponse(Coder.getNilResponse(context.getByteBufAllocator()));
+      return;
+    }
+
     Region keyRegion = getRegion(context, key);
 
     if (keyRegion == null || keyRegion.size() == LIST_EMPTY_SIZE) {
@@ -41,6 +41,21 @@ public abstract class PushExecutor extends PushXExecutor implements Extendable {
 
     ByteArrayWrapper key = command.getKey();
 
+    Integer compactSize = updateCompactList(context, key, list -> {
+      for (int i = START_VALUES_INDEX; i < commandElems.size(); i++) {
+        ByteArrayWrapper wrapper = new ByteArrayWrapper(commandElems.get(i));
+        if (pushType() == ListDirection.LEFT)
+          list.add(0, wrapper);
+        else
+          list.add(wrapper);
+      }
+      return list.size();
+    });
+    if (compactSize != null) {
+      command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), compactSize));
+      return;
+    }
+
     Region<Integer, ByteArrayWrapper> keyRegion =
         getOrCreateRegion(context, key, RedisDataType.REDIS_LIST);
     pushElements(key, commandElems, START_VALUES_INDEX, commandElems.size(), keyRegion, pushType(),
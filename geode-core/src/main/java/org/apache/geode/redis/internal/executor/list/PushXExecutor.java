@@ -39,12 +39,27 @@ public abstract class PushXExecutor extends ListExecutor implements Extendable {
 
     ByteArrayWrapper key = command.getKey();
 
+    checkDataType(key, RedisDataType.REDIS_LIST, context);
+    Integer compactSize = updateCompactList(context, key, list -> {
+      if (list.isEmpty())
+        return NOT_EXISTS;
+      ByteArrayWrapper wrapper = new ByteArrayWrapper(commandElems.get(2));
+      if (pushType() == ListDirection.LEFT)
+        list.add(0, wrapper);
+      else
+        list.add(wrapper);
+      return list.size();
+    });
+    if (compactSize != null) {
+      command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), compactSize));
+      return;
+    }
+
     Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
     if (keyRegion == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
       return;
     }
-    checkDataType(key, RedisDataType.REDIS_LIST, context);
     pushElements(key, commandElems, 2, 3, keyRegion, pushType(), context);
 
     int listSize = keyRegion.size() - LIST_EMPTY_SIZE;
@@ -19,6 +19,7 @@ import org.apache.geode.redis.internal.ByteArrayWrapper;
 import org.apache.geode.redis.internal.DoubleWrapper;
 import org.apache.geode.redis.internal.ExecutionHandlerContext;
 import org.apache.geode.redis.internal.RedisDataType;
+import org.apache.geode.redis.internal.SortedSetIndex;
 import org.apache.geode.redis.internal.executor.AbstractExecutor;
 
 public abstract class SortedSetExecutor extends AbstractExecutor {
@@ -40,4 +41,8 @@ public abstract class SortedSetExecutor extends AbstractExecutor {
     return r;
   }
 
+  protected SortedSetIndex getIndex(ExecutionHandlerContext context, ByteArrayWrapper key) {
+    return context.getRegionProvider().getSortedSetIndex(key);
+  }
+
 }
@@ -15,12 +15,9 @@
 package org.apache.geode.redis.internal.executor.sortedset;
 
 import java.util.List;
+import java.util.Map.Entry;
 
 import org.apache.geode.cache.Region;
-import org.apache.geode.cache.Region.Entry;
-import org.apache.geode.cache.query.Query;
-import org.apache.geode.cache.query.SelectResults;
-import org.apache.geode.cache.query.Struct;
 import org.apache.geode.redis.internal.ByteArrayWrapper;
 import org.apache.geode.redis.internal.Coder;
 import org.apache.geode.redis.internal.Command;
@@ -28,7 +25,7 @@ import org.apache.geode.redis.internal.DoubleWrapper;
 import org.apache.geode.redis.internal.ExecutionHandlerContext;
 import org.apache.geode.redis.internal.RedisConstants.ArityDef;
 import org.apache.geode.redis.internal.RedisDataType;
-import org.apache.geode.redis.internal.executor.SortedSetQuery;
+import org.apache.geode.redis.internal.SortedSetIndex;
 
 public class ZRemRangeByRankExecutor extends SortedSetExecutor {
 
@@ -50,8 +47,9 @@ public class ZRemRangeByRankExecutor extends SortedSetExecutor {
 
     checkDataType(key, RedisDataType.REDIS_SORTEDSET, context);
     Region<ByteArrayWrapper, DoubleWrapper> keyRegion = getRegion(context, key);
+    SortedSetIndex index = getIndex(context, key);
 
-    if (keyRegion == null) {
+    if (keyRegion == null || index == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NONE_REMOVED));
       return;
     }
@@ -67,7 +65,7 @@ public class ZRemRangeByRankExecutor extends SortedSetExecutor {
       return;
     }
 
-    int sSetSize = keyRegion.size();
+    int sSetSize = index.size();
 
     startRank = getBoundedStartIndex(startRank, sSetSize);
     stopRank = getBoundedEndIndex(stopRank, sSetSize);
@@ -80,26 +78,17 @@ public class ZRemRangeByRankExecutor extends SortedSetExecutor {
     }
 
     int numRemoved = 0;
-    List<?> removeList = null;
-    try {
-      if (startRank == 0 && stopRank == sSetSize - 1) {
-        numRemoved = keyRegion.size();
-        context.getRegionProvider().removeKey(key);
-      } else {
-        removeList = getRemoveKeys(context, key, startRank, stopRank);
-      }
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+    List<Entry<ByteArrayWrapper, DoubleWrapper>> removeList = null;
+    if (startRank == 0 && stopRank == sSetSize - 1) {
+      numRemoved = keyRegion.size();
+      context.getRegionProvider().removeKey(key);
+    } else {
+      removeList = index.rangeByRank(startRank, stopRank, false);
     }
 
     if (removeList != null) {
-      for (Object entry : removeList) {
-        ByteArrayWrapper removeKey;
-        if (entry instanceof Entry)
-          removeKey = (ByteArrayWrapper) ((Entry<?, ?>) entry).getKey();
-        else
-          removeKey = (ByteArrayWrapper) ((Struct) entry).getFieldValues()[0];
-        Object oldVal = keyRegion.remove(removeKey);
+      for (Entry<ByteArrayWrapper, DoubleWrapper> entry : removeList) {
+        Object oldVal = keyRegion.remove(entry.getKey());
         if (oldVal != null)
           numRemoved++;
       }
@@ -108,14 +97,4 @@ public class ZRemRangeByRankExecutor extends SortedSetExecutor {
     }
     command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), numRemoved));
   }
-
-  private List<?> getRemoveKeys(ExecutionHandlerContext context, ByteArrayWrapper key,
-      int startRank, int stopRank) throws Exception {
-    Query query = getQuery(key, SortedSetQuery.ZREMRANGEBYRANK, context);
-    Object[] params = {stopRank + 1};
-
-    SelectResults<?> results = (SelectResults<?>) query.execute(params);
-
-    return results.asList().subList(startRank, stopRank + 1);
-  }
 }
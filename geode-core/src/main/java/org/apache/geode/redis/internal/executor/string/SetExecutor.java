@@ -110,6 +110,20 @@ public class SetExecutor extends StringExecutor {
 
   }
 
+  /**
+   * Does the type checks of a plain SET whose value is put by the caller together with other
+   * commands
+   * 
+   * @return The value to put for the key of the command, a key of another type fails the same
+   *         way as with {@link #executeCommand(Command, ExecutionHandlerContext)}
+   */
+  public ByteArrayWrapper prepareBatchedSet(Command command, ExecutionHandlerContext context) {
+    ByteArrayWrapper key = command.getKey();
+    checkDataType(key, context);
+    checkAndSetDataType(key, context);
+    return new ByteArrayWrapper(command.getProcessedCommand().get(VALUE_INDEX));
+  }
+
   private boolean setNX(Region<ByteArrayWrapper, ByteArrayWrapper> r, Command command,
       ByteArrayWrapper key, ByteArrayWrapper valueWrapper, ExecutionHandlerContext context) {
     checkAndSetDataType(key, context);
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.apache.geode.distributed.ConfigurationProperties.OFF_HEAP_MEMORY_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.offheap.MemoryAllocator;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests that removing an index releases the off-heap memory of its keys.
+ */
+@Category(IntegrationTest.class)
+public class OffHeapIndexKeysIntegrationTest {
+
+  static {
+    // IndexManager reads this once when it is loaded, and each integration test class gets its own
+    // JVM
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "index.OFF_HEAP_KEYS", "true");
+  }
+
+  private Cache cache;
+
+  private Region<Integer, String> region;
+
+  private MemoryAllocator allocator;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    props.setProperty(OFF_HEAP_MEMORY_SIZE, "10m");
+    cache = new CacheFactory(props).create();
+    region = cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL).setOffHeap(true)
+        .create("region");
+    allocator = ((InternalCache) cache).getOffHeapStore();
+    for (int i = 0; i < 100; i++) {
+      StringBuilder value = new StringBuilder("value-" + i);
+      while (value.length() < IndexManager.OFF_HEAP_INDEX_KEY_MIN_LENGTH) {
+        value.append('-');
+      }
+      region.put(i, value.toString());
+    }
+  }
+
+  @After
+  public void tearDown() {
+    IndexManager.INPLACE_OBJECT_MODIFICATION_FOR_TEST = false;
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void removingRangeIndexReleasesKeys() throws Exception {
+    long usedWithoutIndex = allocator.getUsedMemory();
+    QueryService queryService = cache.getQueryService();
+
+    Index index = queryService.createIndex("index", "e", "/region e");
+    assertThat(allocator.getUsedMemory()).isGreaterThan(usedWithoutIndex);
+
+    queryService.removeIndex(index);
+    assertThat(allocator.getUsedMemory()).isEqualTo(usedWithoutIndex);
+  }
+
+  @Test
+  public void removingHashIndexReleasesKeys() throws Exception {
+    // a hash index only keeps keys in its reverse map
+    IndexManager.INPLACE_OBJECT_MODIFICATION_FOR_TEST = true;
+    long usedWithoutIndex = allocator.getUsedMemory();
+    QueryService queryService = cache.getQueryService();
+
+    Index index = queryService.createHashIndex("index", "e", "/region e");
+    assertThat(allocator.getUsedMemory()).isGreaterThan(usedWithoutIndex);
+
+    queryService.removeIndex(index);
+    assertThat(allocator.getUsedMemory()).isEqualTo(usedWithoutIndex);
+  }
+}
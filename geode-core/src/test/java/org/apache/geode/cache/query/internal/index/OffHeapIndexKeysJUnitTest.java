@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.internal.index.OffHeapIndexKeys.OffHeapIndexKey;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.internal.offheap.MemoryAllocator;
+import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
+import org.apache.geode.internal.offheap.NullOffHeapMemoryStats;
+import org.apache.geode.internal.offheap.NullOutOfOffHeapMemoryListener;
+import org.apache.geode.internal.offheap.SlabImpl;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OffHeapIndexKeysJUnitTest {
+
+  private MemoryAllocator allocator;
+  private OffHeapIndexKeys keys;
+
+  @Before
+  public void setUp() {
+    allocator = MemoryAllocatorImpl.createForUnitTest(new NullOutOfOffHeapMemoryListener(),
+        new NullOffHeapMemoryStats(), new SlabImpl[] {new SlabImpl(1024 * 1024)});
+    keys = new OffHeapIndexKeys(allocator);
+  }
+
+  @After
+  public void tearDown() {
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  private static String longKey(String prefix) {
+    StringBuilder sb = new StringBuilder(prefix);
+    while (sb.length() < IndexManager.OFF_HEAP_INDEX_KEY_MIN_LENGTH) {
+      sb.append('-');
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void shortAndNonStringKeysStayOnHeap() {
+    assertThat(keys.toStoredKey("a")).isEqualTo("a");
+    assertThat(keys.toStoredKey(42)).isEqualTo(42);
+    assertThat(allocator.getUsedMemory()).isEqualTo(0);
+  }
+
+  @Test
+  public void longStringKeysAreStoredOffHeap() {
+    String key = longKey("key");
+
+    Object stored = keys.toStoredKey(key);
+
+    assertThat(stored).isInstanceOf(OffHeapIndexKey.class);
+    assertThat(allocator.getUsedMemory()).isGreaterThan(0);
+    assertThat(OffHeapIndexKeys.toHeapKey(stored)).isEqualTo(key);
+    assertThat(stored.hashCode()).isEqualTo(key.hashCode());
+    assertThat(stored).isEqualTo(keys.toStoredKey(key));
+  }
+
+  @Test
+  public void heapKeyComparatorOrdersStoredAndHeapKeysTogether() {
+    Comparator comparator =
+        OffHeapIndexKeys.heapKeyComparator(TypeUtils.getExtendedNumericComparator());
+    ConcurrentSkipListMap<Object, Object> map = new ConcurrentSkipListMap<>(comparator);
+    map.put(keys.toStoredKey(longKey("b")), "b");
+    map.put(keys.toStoredKey(longKey("a")), "a");
+    map.put(keys.toStoredKey(longKey("c")), "c");
+
+    assertThat(map.get(longKey("b"))).isEqualTo("b");
+    assertThat(map.headMap(longKey("c")).values()).containsExactly("a", "b");
+    assertThat(map.containsKey(longKey("d"))).isFalse();
+  }
+
+  @Test
+  public void heapKeyComparatorOrdersKeysWithCommonPrefix() {
+    Comparator comparator =
+        OffHeapIndexKeys.heapKeyComparator(TypeUtils.getExtendedNumericComparator());
+    StringBuilder prefix = new StringBuilder();
+    while (prefix.length() < OffHeapIndexKeys.PREFIX_LENGTH) {
+      prefix.append('p');
+    }
+    String a = longKey(prefix + "a");
+    String b = longKey(prefix + "b");
+
+    assertThat(comparator.compare(keys.toStoredKey(a), keys.toStoredKey(b))).isLessThan(0);
+    assertThat(comparator.compare(b, keys.toStoredKey(a))).isGreaterThan(0);
+    assertThat(comparator.compare(keys.toStoredKey(a), a)).isEqualTo(0);
+    assertThat(keys.toStoredKey(a)).isNotEqualTo(keys.toStoredKey(b));
+  }
+
+  @Test
+  public void releaseAllReleasesMemoryAndKeepsKeysReadable() {
+    String key = longKey("key");
+    Object stored = keys.toStoredKey(key);
+
+    keys.releaseAll();
+
+    assertThat(allocator.getUsedMemory()).isEqualTo(0);
+    assertThat(OffHeapIndexKeys.toHeapKey(stored)).isEqualTo(key);
+    assertThat(stored).isEqualTo(key);
+    assertThat(keys.toStoredKey(key)).isEqualTo(key);
+  }
+
+  @Test
+  public void keysStayOnHeapOnceTheyUseTheirShareOfMemory() {
+    long limit = allocator.getTotalMemory() * IndexManager.OFF_HEAP_INDEX_KEYS_MAX_PERCENT / 100;
+    List<Object> stored = new ArrayList<>();
+    Object last;
+    int i = 0;
+    do {
+      last = keys.toStoredKey(longKey("key" + i++));
+      stored.add(last);
+    } while (last instanceof OffHeapIndexKey);
+
+    assertThat(last).isEqualTo(longKey("key" + (i - 1)));
+    assertThat(allocator.getUsedMemory()).isLessThan(2 * limit);
+    assertThat(allocator.getFreeMemory()).isGreaterThan(limit);
+  }
+
+  @Test
+  public void unreachableKeysAreReleasedWithoutFurtherStores() {
+    keys.toStoredKey(longKey("key"));
+    assertThat(allocator.getUsedMemory()).isGreaterThan(0);
+
+    await().atMost(30, TimeUnit.SECONDS).until(() -> {
+      System.gc();
+      return allocator.getUsedMemory() == 0;
+    });
+  }
+
+  @Test
+  public void toHeapKeyReturnsHeapKeysAsTheyAre() {
+    Object key = new Object();
+
+    assertThat(OffHeapIndexKeys.toHeapKey(key)).isSameAs(key);
+    assertThat(OffHeapIndexKeys.toHeapKey(null)).isNull();
+  }
+}
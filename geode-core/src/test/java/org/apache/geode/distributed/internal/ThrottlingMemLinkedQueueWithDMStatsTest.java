@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class ThrottlingMemLinkedQueueWithDMStatsTest {
+
+  private ThrottledMemQueueStatHelper stats;
+
+  private ThrottlingMemLinkedQueueWithDMStats queue;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    stats = mock(ThrottledMemQueueStatHelper.class);
+    queue = new ThrottlingMemLinkedQueueWithDMStats(1000, 100, 100, 50, stats, true,
+        TimeUnit.MILLISECONDS.toNanos(500));
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void emptyQueueAdmitsElementLargerThanCredit() throws Exception {
+    queue.put(new Element(500));
+
+    assertThat(queue.getMemSize()).isEqualTo(500);
+  }
+
+  @Test
+  public void addWaitsForCreditUntilQueueDrains() throws Exception {
+    queue.put(new Element(60));
+    Future<?> put = executor.submit(() -> {
+      queue.put(new Element(60));
+      return null;
+    });
+
+    assertThatThrownBy(() -> put.get(200, TimeUnit.MILLISECONDS))
+        .isInstanceOf(TimeoutException.class);
+    assertThat(queue.getMemSize()).isEqualTo(60);
+
+    queue.take();
+
+    put.get(10, TimeUnit.SECONDS);
+    assertThat(queue.getMemSize()).isEqualTo(60);
+    verify(stats).incThrottleCount();
+  }
+
+  @Test
+  public void fastConsumerIsAdmittedPastThrottlePoint() throws Exception {
+    Future<?> consumer = executor.submit(() -> {
+      while (true) {
+        queue.take();
+      }
+    });
+    for (int i = 0; i < 2000; i++) {
+      queue.put(new Element(10));
+    }
+    while (queue.getMemSize() > 0) {
+      Thread.sleep(1);
+    }
+    consumer.cancel(true);
+
+    // with nothing draining the queue, only credit lets these in
+    ExecutorService producer = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> puts = producer.submit(() -> {
+        for (int i = 0; i < 60; i++) {
+          queue.put(new Element(10));
+        }
+        return null;
+      });
+      puts.get(10, TimeUnit.SECONDS);
+    } finally {
+      producer.shutdownNow();
+    }
+    assertThat(queue.getMemSize()).isEqualTo(600);
+  }
+
+  @Test
+  public void slowConsumerIsHeldNearFloor() throws Exception {
+    AtomicBoolean done = new AtomicBoolean();
+    Future<?> consumer = executor.submit(() -> {
+      // 100 bytes per second can drain 50 bytes in the target time
+      while (!done.get()) {
+        Thread.sleep(100);
+        queue.poll(10, TimeUnit.MILLISECONDS);
+      }
+      return null;
+    });
+
+    int maxMemSize = 0;
+    for (int i = 0; i < 20; i++) {
+      queue.put(new Element(10));
+      if (i >= 15) {
+        maxMemSize = Math.max(maxMemSize, queue.getMemSize());
+      }
+    }
+    done.set(true);
+    consumer.get(10, TimeUnit.SECONDS);
+
+    assertThat(maxMemSize).isGreaterThan(0).isLessThanOrEqualTo(50);
+  }
+
+  private static class Element implements Sizeable {
+    private final int size;
+
+    Element(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class VirtualThreadExecutorTest {
+
+  private VirtualThreadExecutor executor;
+
+  private PoolStatHelper poolStats;
+
+  private QueueStatHelper queueStats;
+
+  @Before
+  public void setUp() {
+    poolStats = mock(PoolStatHelper.class);
+    queueStats = mock(QueueStatHelper.class);
+    // platform threads, so that the executor is tested on every Java version
+    executor = new VirtualThreadExecutor(Executors.defaultThreadFactory(), 2, 0, Runnable::run,
+        poolStats, queueStats);
+  }
+
+  @After
+  public void tearDown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void runsNoMoreTasksThanMaxThreads() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(10);
+    for (int i = 0; i < 10; i++) {
+      executor.execute(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          release.await();
+        } catch (InterruptedException ignore) {
+        } finally {
+          running.decrementAndGet();
+          done.countDown();
+        }
+      });
+    }
+    long end = System.currentTimeMillis() + 10000;
+    while (executor.getActiveCount() < 2 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    assertThat(executor.getActiveCount()).isEqualTo(2);
+
+    release.countDown();
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxRunning.get()).isEqualTo(2);
+    verify(poolStats, times(10)).startJob();
+    verify(queueStats, times(10)).add();
+  }
+
+  @Test
+  public void blocksWhileQueueIsFull() throws Exception {
+    executor.shutdownNow();
+    executor = new VirtualThreadExecutor(Executors.defaultThreadFactory(), 1, 1, Runnable::run,
+        poolStats, queueStats);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(3);
+    Runnable task = () -> {
+      try {
+        release.await();
+      } catch (InterruptedException ignore) {
+      } finally {
+        done.countDown();
+      }
+    };
+    executor.execute(task);
+    long end = System.currentTimeMillis() + 10000;
+    while (executor.getActiveCount() < 1 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    executor.execute(task);
+
+    Thread producer = new Thread(() -> executor.execute(task));
+    producer.start();
+    producer.join(200);
+    assertThat(producer.isAlive()).isTrue();
+
+    release.countDown();
+
+    producer.join(10000);
+    assertThat(producer.isAlive()).isFalse();
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void runsTasksInVirtualThreads() throws Exception {
+    assumeTrue(VirtualThreadExecutor.isSupported());
+    executor.shutdownNow();
+    executor = new VirtualThreadExecutor("test processor", 2, 0, Runnable::run, poolStats,
+        queueStats);
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute(() -> {
+      thread.set(Thread.currentThread());
+      done.countDown();
+    });
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(Thread.class.getMethod("isVirtual").invoke(thread.get())).isEqualTo(true);
+    assertThat(thread.get().getName()).startsWith("test processor");
+  }
+
+  @Test
+  public void terminatesAfterShutdown() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException ignore) {
+      }
+    });
+    executor.shutdown();
+
+    assertThatThrownBy(() -> executor.execute(() -> {
+    })).isInstanceOf(RejectedExecutionException.class);
+    assertThat(executor.awaitTermination(100, TimeUnit.MILLISECONDS)).isFalse();
+
+    release.countDown();
+
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(executor.isTerminated()).isTrue();
+  }
+}
@@ -46,6 +46,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -326,6 +327,34 @@ public class BackupJUnitTest {
     }
   }
 
+  @Test
+  public void testBackupWritesManifest() throws Exception {
+    createDiskStore();
+    Region<Object, Object> region = createRegion();
+    for (int i = 0; i < 1024; i++) {
+      region.put(i, getBytes(i));
+    }
+
+    BackupManager backup =
+        cache.startBackup(cache.getInternalDistributedSystem().getDistributedMember());
+    backup.prepareForBackup();
+    backup.doBackup(backupDir, null, false);
+
+    Collection<File> manifests = FileUtils.listFiles(backupDir,
+        new RegexFileFilter(BackupManifest.FILE_NAME), DirectoryFileFilter.DIRECTORY);
+    assertEquals(1, manifests.size());
+    File memberBackupDir = manifests.iterator().next().getParentFile();
+    assertEquals(Collections.emptyList(), BackupManifest.verify(memberBackupDir));
+    Collection<File> crfs = FileUtils.listFiles(memberBackupDir, new String[] {"crf"}, true);
+    assertFalse(crfs.isEmpty());
+
+    // a truncated oplog is detected
+    File crf = crfs.iterator().next();
+    Files.delete(crf.toPath());
+    Files.write(crf.toPath(), new byte[1]);
+    assertEquals(1, BackupManifest.verify(memberBackupDir).size());
+  }
+
   private byte[] getBytes(File file) throws IOException {
     // The cache xml file should be small enough to fit in one byte array
     int size = (int) file.length();
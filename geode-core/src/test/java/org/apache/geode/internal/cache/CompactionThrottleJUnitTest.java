@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactionThrottleJUnitTest {
+
+  private DiskStoreStats stats;
+
+  @Before
+  public void setUp() {
+    stats = mock(DiskStoreStats.class);
+  }
+
+  @Test
+  public void doesNotSleepByDefault() throws Exception {
+    CompactionThrottle throttle = new CompactionThrottle(0, 0, stats);
+
+    throttle.copied(100 * 1024 * 1024, () -> false);
+
+    assertThat(throttle.isTrackingWrites()).isFalse();
+    verify(stats, never()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void limitsCopyRate() throws Exception {
+    CompactionThrottle throttle = new CompactionThrottle(1000 * 1000, 0, stats);
+    long start = System.nanoTime();
+
+    for (int i = 0; i < 10; i++) {
+      throttle.copied(20 * 1000, () -> false);
+    }
+
+    // 200KB at 1MB/s
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(
+        TimeUnit.MILLISECONDS.toNanos(150));
+    verify(stats, atLeastOnce()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void backsOffWhileWritesAreSlow() throws Exception {
+    CompactionThrottle throttle =
+        new CompactionThrottle(0, TimeUnit.MILLISECONDS.toNanos(1), stats);
+    for (int i = 0; i < 32; i++) {
+      throttle.recordWrite(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    throttle.copied(1, () -> false);
+
+    assertThat(throttle.isTrackingWrites()).isTrue();
+    verify(stats, atLeastOnce()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void doesNotBackOffWhileWritesAreFast() throws Exception {
+    CompactionThrottle throttle =
+        new CompactionThrottle(0, TimeUnit.MILLISECONDS.toNanos(10), stats);
+    for (int i = 0; i < 32; i++) {
+      throttle.recordWrite(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    throttle.copied(1, () -> false);
+
+    verify(stats, never()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void doesNotSleepForEntriesWithNoBytes() throws Exception {
+    CompactionThrottle throttle =
+        new CompactionThrottle(1000, TimeUnit.MILLISECONDS.toNanos(1), stats);
+    for (int i = 0; i < 32; i++) {
+      throttle.recordWrite(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    throttle.copied(0, () -> false);
+
+    verify(stats, never()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void stopsSleepingWhenPreempted() throws Exception {
+    // one second of copying at 1KB/s
+    CompactionThrottle throttle = new CompactionThrottle(1000, 0, stats);
+    AtomicBoolean preempted = new AtomicBoolean();
+    long start = System.nanoTime();
+
+    throttle.copied(1000, () -> {
+      boolean wasPreempted = preempted.get();
+      preempted.set(true);
+      return wasPreempted;
+    });
+
+    assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(500));
+  }
+
+  @Test
+  public void paysForPreemptedCopyingLater() throws Exception {
+    // 200ms of copying at 1MB/s
+    CompactionThrottle throttle = new CompactionThrottle(1000 * 1000, 0, stats);
+    throttle.copied(200 * 1000, () -> true);
+    long start = System.nanoTime();
+
+    throttle.pay(() -> false);
+
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(
+        TimeUnit.MILLISECONDS.toNanos(150));
+  }
+}
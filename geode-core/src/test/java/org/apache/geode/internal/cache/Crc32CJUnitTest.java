@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class Crc32CJUnitTest {
+
+  private static final byte[] CHECK_INPUT = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+  private static final long CHECK_VALUE = 0xE3069283L;
+
+  @Test
+  public void computesCheckValue() {
+    Checksum checksum = new Crc32C();
+
+    checksum.update(CHECK_INPUT, 0, CHECK_INPUT.length);
+
+    assertThat(checksum.getValue()).isEqualTo(CHECK_VALUE);
+  }
+
+  @Test
+  public void createdChecksumComputesSameValue() {
+    byte[] bytes = new byte[10000];
+    new Random(1).nextBytes(bytes);
+    Checksum ours = new Crc32C();
+    Checksum created = Crc32C.create();
+
+    ours.update(bytes, 0, bytes.length);
+    created.update(bytes, 0, bytes.length);
+
+    assertThat(created.getValue()).isEqualTo(ours.getValue());
+  }
+
+  @Test
+  public void resetStartsOver() {
+    Checksum checksum = new Crc32C();
+    checksum.update(1);
+
+    checksum.reset();
+    checksum.update(CHECK_INPUT, 0, CHECK_INPUT.length);
+
+    assertThat(checksum.getValue()).isEqualTo(CHECK_VALUE);
+  }
+
+  @Test
+  public void updatesFromPartOfDirectBuffer() {
+    ByteBuffer bb = ByteBuffer.allocateDirect(100);
+    bb.put(new byte[5]);
+    bb.put(CHECK_INPUT);
+    bb.put(new byte[5]);
+    Checksum checksum = new Crc32C();
+
+    Crc32C.update(checksum, bb, 5, 5 + CHECK_INPUT.length, new byte[4]);
+
+    assertThat(checksum.getValue()).isEqualTo(CHECK_VALUE);
+    assertThat(bb.position()).isEqualTo(15);
+    assertThat(bb.limit()).isEqualTo(100);
+  }
+
+  @Test
+  public void updatesFromPartOfHeapBuffer() {
+    ByteBuffer bb = ByteBuffer.allocate(100);
+    bb.put(new byte[3]);
+    bb.put(CHECK_INPUT);
+    Checksum checksum = new Crc32C();
+
+    Crc32C.update(checksum, bb, 3, 3 + CHECK_INPUT.length, new byte[4]);
+
+    assertThat(checksum.getValue()).isEqualTo(CHECK_VALUE);
+  }
+}
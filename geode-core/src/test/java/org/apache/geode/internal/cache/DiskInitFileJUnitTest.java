@@ -17,7 +17,12 @@ package org.apache.geode.internal.cache;
 import static org.junit.Assert.*;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.jmock.Expectations;
 import org.jmock.Mockery;
@@ -176,4 +181,72 @@ public class DiskInitFileJUnitTest {
     dif.destroy();
   }
 
+  /**
+   * Test that records written concurrently by several threads, which share commits to the init
+   * file, are all recovered.
+   */
+  @Test
+  public void testConcurrentWritesAreRecovered() throws Exception {
+    // create a mock statistics factory for creating directory holders
+    final StatisticsFactory sf = context.mock(StatisticsFactory.class);
+    context.checking(new Expectations() {
+      {
+        ignoring(sf);
+      }
+    });
+    // Add a mock region to the init file so it doesn't
+    // delete the file when the init file is closed
+    final DiskRegionView drv = context.mock(DiskRegionView.class);
+    context.checking(new Expectations() {
+      {
+        ignoring(drv);
+      }
+    });
+    // Create a mock disk store impl. All we need to do is return
+    // this init file directory.
+    final DiskStoreImpl parent = context.mock(DiskStoreImpl.class);
+    context.checking(new Expectations() {
+      {
+        allowing(parent).getInfoFileDir();
+        will(returnValue(new DirectoryHolder(sf, testDirectory, 0, 0)));
+        ignoring(parent);
+      }
+    });
+
+    final DiskInitFile dif =
+        new DiskInitFile("testConcurrentWrites", parent, false, Collections.<File>emptySet());
+    dif.createRegion(drv);
+    final int threadCount = 8;
+    final int idsPerThread = 100;
+    final int[][] ids = new int[threadCount][idsPerThread];
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int t = 0; t < threadCount; t++) {
+        final int thread = t;
+        futures.add(executor.submit(new Runnable() {
+          public void run() {
+            for (int i = 0; i < idsPerThread; i++) {
+              ids[thread][i] = dif.getOrCreateCanonicalId("object" + thread + "-" + i);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    dif.close();
+
+    DiskInitFile recovered =
+        new DiskInitFile("testConcurrentWrites", parent, true, Collections.<File>emptySet());
+    for (int t = 0; t < threadCount; t++) {
+      for (int i = 0; i < idsPerThread; i++) {
+        assertEquals("object" + t + "-" + i, recovered.getCanonicalObject(ids[t][i]));
+      }
+    }
+    recovered.destroy();
+  }
 }
@@ -22,14 +22,20 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.apache.commons.lang.SerializationUtils;
 import org.junit.experimental.categories.Category;
 
 import org.apache.geode.cache.AttributesFactory;
@@ -40,6 +46,9 @@ import org.apache.geode.cache.DiskStore;
 import org.apache.geode.cache.DiskStoreFactory;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.compression.CompressionException;
+import org.apache.geode.compression.Compressor;
+import org.apache.geode.compression.SnappyCompressor;
 import org.apache.geode.distributed.DistributedSystem;
 import org.apache.geode.test.junit.categories.IntegrationTest;
 
@@ -166,6 +175,106 @@ public class DiskStoreFactoryJUnitTest {
     }
   }
 
+  @Test
+  public void testCompressor() {
+    DiskStoreFactoryImpl dsf = (DiskStoreFactoryImpl) cache.createDiskStoreFactory();
+    String name = "testCompressor";
+    DiskStoreImpl ds = (DiskStoreImpl) dsf.create(name);
+    assertNull(ds.getCompressor());
+    name = "testCompressor2";
+    ds = (DiskStoreImpl) dsf.setCompressor(SnappyCompressor.getDefaultInstance()).create(name);
+    assertSame(SnappyCompressor.getDefaultInstance(), ds.getCompressor());
+  }
+
+  @Test
+  public void testCompressorClassIsSerializedWithAttributes() {
+    DiskStoreAttributes attrs = new DiskStoreAttributes();
+    attrs.compressor = new DeflateCompressor();
+    attrs.compressorClassName = DeflateCompressor.class.getName();
+    DiskStoreAttributes copy = (DiskStoreAttributes) SerializationUtils.clone(attrs);
+    assertTrue(copy.getCompressor() instanceof DeflateCompressor);
+    assertNull(((DiskStoreAttributes) SerializationUtils.clone(new DiskStoreAttributes()))
+        .getCompressor());
+  }
+
+  @Test
+  public void testCompressedValuesAreRecovered() {
+    DiskStoreFactoryImpl dsf = (DiskStoreFactoryImpl) cache.createDiskStoreFactory();
+    String name = "testCompressedValuesAreRecovered";
+    char[] chars = new char[1000];
+    Arrays.fill(chars, 'a');
+    String value = new String(chars);
+    DiskStore ds = dsf.setCompressor(SnappyCompressor.getDefaultInstance()).create(name);
+    Region<String, String> region = cache.<String, String>createRegionFactory(
+        RegionShortcut.LOCAL_PERSISTENT).setDiskStoreName(name).create("region");
+    region.put("key", value);
+    DiskStoreStats stats = ((DiskStoreImpl) ds).getStats();
+    assertEquals(1, stats.getCompressions());
+    assertTrue(stats.getPostCompressedBytes() < stats.getPreCompressedBytes());
+
+    cache.close();
+    createCache();
+    dsf = (DiskStoreFactoryImpl) cache.createDiskStoreFactory();
+    ds = dsf.setCompressor(SnappyCompressor.getDefaultInstance()).create(name);
+    region = cache.<String, String>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(name).create("region");
+    assertEquals(value, region.get("key"));
+    assertTrue(((DiskStoreImpl) ds).getStats().getDecompressions() > 0);
+
+    region.destroyRegion();
+    ds.destroy();
+  }
+
+  @Test
+  public void testCompressedValuesAreRecoveredWithoutCompressor() {
+    DiskStoreFactoryImpl dsf = (DiskStoreFactoryImpl) cache.createDiskStoreFactory();
+    String name = "testCompressedValuesAreRecoveredWithoutCompressor";
+    char[] chars = new char[1000];
+    Arrays.fill(chars, 'a');
+    String value = new String(chars);
+    dsf.setCompressor(new DeflateCompressor()).create(name);
+    Region<String, String> region = cache.<String, String>createRegionFactory(
+        RegionShortcut.LOCAL_PERSISTENT).setDiskStoreName(name).create("region");
+    region.put("key", value);
+
+    cache.close();
+    createCache();
+    // the class of the compressor was recorded, so values can be read without one
+    DiskStore ds = cache.createDiskStoreFactory().create(name);
+    region = cache.<String, String>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(name).create("region");
+    assertEquals(value, region.get("key"));
+    assertTrue(((DiskStoreImpl) ds).getStats().getDecompressions() > 0);
+
+    region.destroyRegion();
+    ds.destroy();
+  }
+
+  @Test
+  public void testCompressorClassCanNotBeChanged() {
+    DiskStoreFactoryImpl dsf = (DiskStoreFactoryImpl) cache.createDiskStoreFactory();
+    String name = "testCompressorClassCanNotBeChanged";
+    dsf.setCompressor(new DeflateCompressor()).create(name);
+    cache.<String, String>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(name).create("region");
+
+    cache.close();
+    createCache();
+    try {
+      ((DiskStoreFactoryImpl) cache.createDiskStoreFactory())
+          .setCompressor(SnappyCompressor.getDefaultInstance()).create(name);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+
+    DiskStore ds = ((DiskStoreFactoryImpl) cache.createDiskStoreFactory())
+        .setCompressor(new DeflateCompressor()).create(name);
+    Region<String, String> region = cache.<String, String>createRegionFactory(
+        RegionShortcut.LOCAL_PERSISTENT).setDiskStoreName(name).create("region");
+    region.destroyRegion();
+    ds.destroy();
+  }
+
   @Test
   public void testWriteBufferSize() {
     DiskStoreFactory dsf = cache.createDiskStoreFactory();
@@ -444,6 +553,38 @@ public class DiskStoreFactoryJUnitTest {
     verify(diskStore, times(1)).close();
   }
 
+  /**
+   * A compressor other than the default one, created by name when reading without a compressor
+   */
+  public static class DeflateCompressor implements Compressor {
+    @Override
+    public byte[] compress(byte[] input) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+        deflater.write(input);
+      } catch (IOException e) {
+        throw new CompressionException(e);
+      }
+      return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] input) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (InflaterInputStream inflater =
+          new InflaterInputStream(new ByteArrayInputStream(input))) {
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = inflater.read(buffer)) != -1) {
+          out.write(buffer, 0, n);
+        }
+      } catch (IOException e) {
+        throw new CompressionException(e);
+      }
+      return out.toByteArray();
+    }
+  }
+
   // setDiskDirs and setDiskDirsAndSizes are tested in DiskRegionIllegalArguementsJUnitTest
   // also setDiskUsageWarningPercentage and setDiskUsageCriticalPercentage
 }
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests the asynchronous recovery of values from oplogs whose keys were recovered from krfs.
+ */
+@Category(IntegrationTest.class)
+public class DiskStoreValueRecoveryIntegrationTest {
+
+  /** About a second of reading at the maximum rate */
+  private static final int COLD_ENTRIES = 1000;
+
+  private static final int HOT_ENTRIES = 100;
+
+  private static final int VALUE_SIZE = 1024;
+
+  static {
+    // DiskStoreImpl reads this once when it is loaded, and each integration test class gets its
+    // own JVM
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "disk.recoverValuesMaxMBPerSecond",
+        "1");
+  }
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File diskDir;
+
+  private Cache cache;
+
+  private DiskStoreImpl diskStore;
+
+  @Before
+  public void setUp() throws Exception {
+    diskDir = temporaryFolder.newFolder("disk");
+    createCache();
+    // the values of the hot region are written last so they would be recovered last
+    Region<Integer, byte[]> cold = createRegion("cold");
+    for (int i = 0; i < COLD_ENTRIES; i++) {
+      cold.put(i, value(i));
+    }
+    Region<Integer, byte[]> hot = createRegion("hot");
+    for (int i = 0; i < HOT_ENTRIES; i++) {
+      hot.put(i, value(i));
+    }
+    cache.close();
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void recoversAllValuesAtLimitedRate() {
+    createCache();
+    LocalRegion cold = (LocalRegion) createRegion("cold");
+    LocalRegion hot = (LocalRegion) createRegion("hot");
+
+    diskStore.waitForAsyncRecovery(cold.getDiskRegion());
+    diskStore.waitForAsyncRecovery(hot.getDiskRegion());
+
+    assertThat(countValuesInVM(cold, COLD_ENTRIES)).isEqualTo(COLD_ENTRIES);
+    assertThat(countValuesInVM(hot, HOT_ENTRIES)).isEqualTo(HOT_ENTRIES);
+    assertValues(cold, COLD_ENTRIES);
+    assertValues(hot, HOT_ENTRIES);
+    assertThat(diskStore.getStats().getValueRecoveryThrottleTime()).isGreaterThan(0);
+  }
+
+  @Test
+  public void recoversPreferredRegionFirstAndResumesInterruptedRound() {
+    createCache();
+    LocalRegion hot = (LocalRegion) createRegion("hot");
+
+    // waiting prefers the hot region, which ends the round that started with the cold values
+    diskStore.waitForAsyncRecovery(hot.getDiskRegion());
+    LocalRegion cold = (LocalRegion) createRegion("cold");
+
+    assertThat(countValuesInVM(hot, HOT_ENTRIES)).isEqualTo(HOT_ENTRIES);
+    assertThat(countValuesInVM(cold, COLD_ENTRIES)).isLessThan(COLD_ENTRIES);
+
+    diskStore.waitForAsyncRecovery(cold.getDiskRegion());
+
+    assertThat(countValuesInVM(cold, COLD_ENTRIES)).isEqualTo(COLD_ENTRIES);
+    assertValues(cold, COLD_ENTRIES);
+    assertValues(hot, HOT_ENTRIES);
+  }
+
+  private void createCache() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+    diskStore = (DiskStoreImpl) cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir})
+        .create("store");
+  }
+
+  private Region<Integer, byte[]> createRegion(String name) {
+    return cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("store").create(name);
+  }
+
+  private static int countValuesInVM(LocalRegion region, int entries) {
+    int count = 0;
+    for (int i = 0; i < entries; i++) {
+      if (region.getValueInVM(i) != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static void assertValues(LocalRegion region, int entries) {
+    for (int i = 0; i < entries; i++) {
+      assertThat(Arrays.equals((byte[]) region.get(i), value(i))).as("value of " + i).isTrue();
+    }
+  }
+
+  private static byte[] value(int key) {
+    byte[] value = new byte[VALUE_SIZE];
+    Arrays.fill(value, (byte) key);
+    return value;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class ExpirationWheelTest {
+
+  private ExpirationWheel wheel;
+
+  @Before
+  public void setUp() {
+    wheel = new ExpirationWheel(1, null, "ExpirationWheelTest");
+  }
+
+  @After
+  public void tearDown() {
+    wheel.cancel();
+  }
+
+  @Test
+  public void runsTaskThatIsAlreadyDue() {
+    ExpiryTask task = mock(ExpiryTask.class);
+
+    assertThat(wheel.schedule(task, 0)).isTrue();
+
+    verify(task, timeout(5000)).run();
+  }
+
+  @Test
+  public void runsTaskOnlyAfterItsDelay() {
+    ExpiryTask task = mock(ExpiryTask.class);
+    long start = System.currentTimeMillis();
+
+    wheel.schedule(task, 200);
+
+    verify(task, timeout(5000)).run();
+    assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(200);
+  }
+
+  @Test
+  public void runsTaskBeyondTheFirstLevel() {
+    ExpiryTask task = mock(ExpiryTask.class);
+
+    // more than WHEEL_SIZE ticks away, so the task starts on an overflow level
+    wheel.schedule(task, ExpirationWheel.WHEEL_SIZE + 100);
+
+    verify(task, timeout(10000)).run();
+  }
+
+  @Test
+  public void cancelledTaskDoesNotRun() {
+    ExpiryTask task = mock(ExpiryTask.class);
+    wheel.schedule(task, 100);
+
+    assertThat(wheel.cancel(task)).isTrue();
+    assertThat(wheel.cancel(task)).isFalse();
+
+    verify(task, after(500).never()).run();
+  }
+
+  @Test
+  public void cancelAfterRunReturnsFalse() {
+    ExpiryTask task = mock(ExpiryTask.class);
+    wheel.schedule(task, 0);
+    verify(task, timeout(5000)).run();
+
+    assertThat(wheel.cancel(task)).isFalse();
+  }
+
+  @Test
+  public void scheduleAfterCancellingTheWheelFails() {
+    wheel.cancel();
+
+    assertThat(wheel.schedule(mock(ExpiryTask.class), 0)).isFalse();
+  }
+}
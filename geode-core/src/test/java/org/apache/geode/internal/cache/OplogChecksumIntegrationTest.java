@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests that the checksums written with oplog records detect a corrupted crf.
+ */
+@Category(IntegrationTest.class)
+public class OplogChecksumIntegrationTest {
+
+  private static final int ENTRIES = 100;
+
+  private static final byte MARKER = (byte) 0x5A;
+
+  static {
+    // Oplog reads this once when it is loaded, and each integration test class gets its own JVM
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "disk.recordChecksums", "true");
+  }
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File diskDir;
+
+  private Cache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    diskDir = temporaryFolder.newFolder("disk");
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir}).create("store");
+    Region<Integer, byte[]> region =
+        cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+            .setDiskStoreName("store").create("region");
+    for (int i = 0; i < ENTRIES; i++) {
+      byte[] value = new byte[100];
+      Arrays.fill(value, MARKER);
+      region.put(i, value);
+    }
+    cache.close();
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void validateReportsCorruptedValue() throws Exception {
+    DiskStoreImpl.validate("store", new File[] {diskDir}, true);
+
+    flipValueByte();
+
+    assertThatThrownBy(() -> DiskStoreImpl.validate("store", new File[] {diskDir}, true))
+        .hasStackTraceContaining("The checksum of the record ending at offset");
+  }
+
+  @Test
+  public void validateWithoutVerifyingChecksumsDoesNotReadTheCrfs() throws Exception {
+    flipValueByte();
+
+    // the keys are recovered from the krf, which the corruption did not touch
+    DiskStoreImpl.validate("store", new File[] {diskDir}, false);
+  }
+
+  /**
+   * Changes one byte in the middle of the value of one of the entries in the crf.
+   */
+  private void flipValueByte() throws Exception {
+    File[] crfs = diskDir.listFiles((dir, name) -> name.endsWith(".crf"));
+    assertThat(crfs).hasSize(1);
+    byte[] bytes = Files.readAllBytes(crfs[0].toPath());
+    int run = 0;
+    for (int i = 0; i < bytes.length; i++) {
+      run = bytes[i] == MARKER ? run + 1 : 0;
+      if (run == 50) {
+        bytes[i] = (byte) ~MARKER;
+        Files.write(crfs[0].toPath(), bytes);
+        return;
+      }
+    }
+    throw new AssertionError("no value found in " + crfs[0]);
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests that synchronous writes forced together by group commit are each durable once they
+ * return.
+ */
+@Category(IntegrationTest.class)
+public class OplogGroupCommitIntegrationTest {
+
+  private static final int THREADS = 8;
+
+  private static final int PUTS_PER_THREAD = 200;
+
+  static {
+    // Oplog reads these once when it is loaded, and each integration test class gets its own JVM
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "syncWrites", "true");
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "syncWrites.groupCommit", "true");
+  }
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File diskDir;
+
+  private Cache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    diskDir = temporaryFolder.newFolder("disk");
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void concurrentSyncWritesAreRecoveredFromFilesCopiedWhenTheyReturn() throws Exception {
+    Region<String, Integer> region = createRegion();
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        final int thread = t;
+        writers.add(executor.submit(() -> {
+          for (int i = 0; i < PUTS_PER_THREAD; i++) {
+            region.put(key(thread, i), i);
+            if (i % 4 == 0) {
+              region.destroy(key(thread, i));
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> writer : writers) {
+        writer.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    DiskStoreStats stats = ((DiskStoreImpl) cache.findDiskStore("store")).getStats();
+    assertThat(stats.getGroupCommits()).isGreaterThan(0);
+    assertThat(stats.getGroupCommittedWrites()).isGreaterThan(stats.getGroupCommits());
+
+    // the files as they are now are what a crash right after the writes returned would leave
+    File snapshot = temporaryFolder.newFolder("snapshot");
+    copyFiles(diskDir, snapshot);
+    cache.close();
+    for (File file : diskDir.listFiles()) {
+      Files.delete(file.toPath());
+    }
+    copyFiles(snapshot, diskDir);
+
+    Region<String, Integer> recovered = createRegion();
+    for (int t = 0; t < THREADS; t++) {
+      for (int i = 0; i < PUTS_PER_THREAD; i++) {
+        if (i % 4 == 0) {
+          assertThat(recovered.containsKey(key(t, i))).isFalse();
+        } else {
+          assertThat(recovered.get(key(t, i))).isEqualTo(i);
+        }
+      }
+    }
+  }
+
+  private Region<String, Integer> createRegion() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir}).create("store");
+    return cache.<String, Integer>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("store").setDiskSynchronous(true).create("region");
+  }
+
+  private static String key(int thread, int i) {
+    return thread + "-" + i;
+  }
+
+  private static void copyFiles(File from, File to) throws Exception {
+    for (File file : from.listFiles()) {
+      Files.copy(file.toPath(), new File(to, file.getName()).toPath(),
+          StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
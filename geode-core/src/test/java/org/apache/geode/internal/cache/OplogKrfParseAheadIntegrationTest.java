@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests recovery from several oplogs whose krfs are parsed ahead of recovery by the recovery
+ * readers.
+ */
+@Category(IntegrationTest.class)
+public class OplogKrfParseAheadIntegrationTest {
+
+  private static final int ENTRIES = 20000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File diskDir;
+
+  private Cache cache;
+
+  private DiskStoreImpl diskStore;
+
+  @Before
+  public void setUp() throws Exception {
+    diskDir = temporaryFolder.newFolder("disk");
+    createCache();
+    Region<Integer, String> region = createRegion();
+    // later oplogs update and destroy entries created in earlier ones
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i, 0));
+    }
+    for (int i = 0; i < ENTRIES; i += 2) {
+      region.put(i, value(i, 1));
+    }
+    for (int i = 0; i < ENTRIES; i += 5) {
+      region.destroy(i);
+    }
+    diskStore.forceRoll();
+    await().atMost(30, TimeUnit.SECONDS).until(() -> countFiles(Oplog.KRF_FILE_EXT) > 2);
+    cache.close();
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void recoversEntriesInOplogOrder() {
+    createCache();
+    Region<Integer, String> region = createRegion();
+
+    assertThat(region.size()).isEqualTo(ENTRIES - ENTRIES / 5);
+    for (int i = 0; i < ENTRIES; i++) {
+      if (i % 5 == 0) {
+        assertThat(region.containsKey(i)).as("destroyed " + i).isFalse();
+      } else {
+        assertThat(region.get(i)).isEqualTo(value(i, i % 2 == 0 ? 1 : 0));
+      }
+    }
+    DiskStoreStats stats = diskStore.getStats();
+    assertThat(stats.getOplogKrfParses()).isGreaterThan(0);
+    assertThat(stats.getOplogsToRecover()).isEqualTo(0);
+    assertThat(stats.getOplogBytesToRecover()).isEqualTo(0);
+  }
+
+  private void createCache() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+    diskStore = (DiskStoreImpl) cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir})
+        .setMaxOplogSize(1).create("store");
+  }
+
+  private Region<Integer, String> createRegion() {
+    return cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("store").create("region");
+  }
+
+  private int countFiles(String extension) {
+    return diskDir.listFiles((dir, name) -> name.endsWith(extension)).length;
+  }
+
+  private static String value(int key, int version) {
+    StringBuilder value = new StringBuilder();
+    while (value.length() < 200) {
+      value.append(key).append('-').append(version).append(' ');
+    }
+    return value.toString();
+  }
+}
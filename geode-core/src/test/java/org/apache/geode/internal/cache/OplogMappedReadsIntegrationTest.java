@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.DiskStore;
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests reading overflowed values through the mappings of oplogs that have rolled.
+ */
+@Category(IntegrationTest.class)
+public class OplogMappedReadsIntegrationTest {
+
+  private static final int ENTRIES = 3000;
+
+  private static final int VALUE_SIZE = 1024;
+
+  static {
+    // Oplog reads this once when it is loaded, and each integration test class gets its own JVM
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "disk.mmapReads", "true");
+  }
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+
+  private DiskStore diskStore;
+
+  private Region<Integer, byte[]> region;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+    diskStore = cache.createDiskStoreFactory()
+        .setDiskDirs(new File[] {temporaryFolder.newFolder("disk")}).setMaxOplogSize(1)
+        .setAutoCompact(false).setAllowForceCompaction(true).create("store");
+    region = cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("store").setEvictionAttributes(
+            EvictionAttributes.createLRUEntryAttributes(1, EvictionAction.OVERFLOW_TO_DISK))
+        .create("region");
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void readsValuesThroughMappingsAfterRollAndCompaction() {
+    long mappedBefore = getMappedBufferCount();
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i, 0));
+    }
+    assertValues(0, 0);
+    assertThat(getMappedBufferCount()).isGreaterThan(mappedBefore);
+
+    // make most of the first oplogs garbage so that they are compacted and deleted
+    for (int i = 0; i < ENTRIES; i++) {
+      if (i % 10 != 0) {
+        region.put(i, value(i, 1));
+      }
+    }
+    assertThat(diskStore.forceCompaction()).isTrue();
+    assertValues(0, 1);
+
+    cache.close();
+    assertThat(getMappedBufferCount()).isEqualTo(mappedBefore);
+  }
+
+  private void assertValues(int unchangedVersion, int changedVersion) {
+    for (int i = 0; i < ENTRIES; i++) {
+      byte[] expected = value(i, i % 10 == 0 ? unchangedVersion : changedVersion);
+      assertThat(Arrays.equals(region.get(i), expected)).as("value of " + i).isTrue();
+    }
+  }
+
+  private static byte[] value(int key, int version) {
+    byte[] value = new byte[VALUE_SIZE];
+    Arrays.fill(value, (byte) (key + version));
+    return value;
+  }
+
+  private static long getMappedBufferCount() {
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (pool.getName().equals("mapped")) {
+        return pool.getCount();
+      }
+    }
+    throw new IllegalStateException("no mapped buffer pool");
+  }
+}
@@ -186,7 +186,8 @@ public class OplogRVVJUnitTest {
     oplog.addRecoveredFile(crfFiles.iterator().next(), dirHolder);
     OplogEntryIdSet deletedIds = new OplogEntryIdSet();
     oplog.recoverDrf(deletedIds, false, true);
-    oplog.recoverCrf(deletedIds, true, true, false, Collections.singleton(oplog), true);
+    oplog.recoverCrf(deletedIds, true, true, false, Collections.singleton(oplog), true,
+        null);
     context.assertIsSatisfied();
   }
 
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.DiskAccessException;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class OplogReadAheadJUnitTest {
+
+  @Rule
+  public TemporaryFolder tempDir = new TemporaryFolder();
+
+  private DiskStoreStats stats;
+
+  private OplogReadAhead readAhead;
+
+  @Before
+  public void setUp() {
+    stats = mock(DiskStoreStats.class);
+  }
+
+  @After
+  public void tearDown() {
+    if (readAhead != null) {
+      readAhead.close();
+    }
+  }
+
+  @Test
+  public void readsFilesWithinWindow() throws Exception {
+    List<File> files = createFiles(3, 1000);
+    readAhead = new OplogReadAhead("test", 2, stats);
+
+    readAhead.start(files);
+
+    verify(stats, timeout(10000).times(3)).endOplogReadAhead(1000);
+  }
+
+  @Test
+  public void skipsFilesRecoveryHasReached() throws Exception {
+    List<File> files = createFiles(4, 100);
+    readAhead = new OplogReadAhead("test", 1, stats);
+    readAhead.advance();
+    readAhead.advance();
+    readAhead.advance();
+
+    readAhead.start(files);
+
+    verify(stats, timeout(10000)).endOplogReadAhead(100);
+    verifyNoMoreInteractions(stats);
+  }
+
+  @Test
+  public void skipsNullFiles() throws Exception {
+    List<File> files = createFiles(2, 10);
+    files.add(0, null);
+    readAhead = new OplogReadAhead("test", 3, stats);
+
+    readAhead.start(files);
+
+    verify(stats, timeout(10000).times(2)).endOplogReadAhead(10);
+  }
+
+  @Test
+  public void parsesKrfsAndHandsThemToRecoveryInOrder() throws Exception {
+    File krf1 = tempDir.newFile("oplog_1" + Oplog.KRF_FILE_EXT);
+    File crf2 = tempDir.newFile("oplog_2" + Oplog.CRF_FILE_EXT);
+    File krf3 = tempDir.newFile("oplog_3" + Oplog.KRF_FILE_EXT);
+    Oplog oplog1 = mock(Oplog.class);
+    Oplog oplog3 = mock(Oplog.class);
+    Oplog.KrfRecords records1 = new Oplog.KrfRecords(new byte[0]);
+    Oplog.KrfRecords records3 = new Oplog.KrfRecords(new byte[0]);
+    when(oplog1.parseKrf(krf1)).thenReturn(records1);
+    when(oplog3.parseKrf(krf3)).thenReturn(records3);
+    readAhead = new OplogReadAhead("test", 2, stats);
+
+    readAhead.start(Arrays.asList(oplog1, mock(Oplog.class), oplog3),
+        Arrays.asList(krf1, crf2, krf3));
+
+    assertThat(readAhead.takeParsedKrf()).isSameAs(records1);
+    readAhead.advance();
+    assertThat(readAhead.takeParsedKrf()).isNull();
+    readAhead.advance();
+    assertThat(readAhead.takeParsedKrf()).isSameAs(records3);
+    verify(stats, timeout(10000).times(2)).endOplogKrfParse(anyLong());
+  }
+
+  @Test
+  public void recoveryParsesKrfItselfIfReaderFails() throws Exception {
+    File krf = tempDir.newFile("oplog_1" + Oplog.KRF_FILE_EXT);
+    Oplog oplog = mock(Oplog.class);
+    when(oplog.parseKrf(krf)).thenThrow(new DiskAccessException("corrupt"));
+    readAhead = new OplogReadAhead("test", 1, stats);
+
+    readAhead.start(Arrays.asList(oplog), Arrays.asList(krf));
+
+    assertThat(readAhead.takeParsedKrf()).isNull();
+  }
+
+  private List<File> createFiles(int count, int size) throws IOException {
+    List<File> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      File file = tempDir.newFile();
+      Files.write(file.toPath(), new byte[size]);
+      files.add(file);
+    }
+    return files;
+  }
+}
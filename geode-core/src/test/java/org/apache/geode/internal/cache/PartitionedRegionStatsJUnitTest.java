@@ -33,6 +33,8 @@ import org.apache.geode.cache.EvictionAttributes;
 import org.apache.geode.cache.PartitionAttributesFactory;
 import org.apache.geode.cache.PartitionedRegionStorageException;
 import org.apache.geode.cache.RegionExistsException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.test.junit.categories.IntegrationTest;
 import org.junit.After;
 import org.junit.Before;
@@ -297,6 +299,29 @@ public class PartitionedRegionStatsJUnitTest {
     validateOverflowStats(pr);
   }
 
+  /**
+   * This test verifies that creating indexes populates every local bucket and records it in the
+   * PR statistics.
+   */
+  @Test
+  public void testIndexBucketPopulateStats() throws Exception {
+    PartitionedRegion pr = createPR("testIndexBucketPopulateStats", 100, 0);
+    for (int i = 0; i < 100; i++) {
+      pr.put(i, i);
+    }
+    int localBuckets = pr.getDataStore().getAllLocalBucketIds().size();
+
+    QueryService qs = pr.getCache().getQueryService();
+    qs.defineIndex("valueIndex", "intValue", pr.getFullPath());
+    qs.createDefinedIndexes();
+
+    assertEquals(localBuckets, pr.getPrStats().getIndexBucketsPopulated());
+    assertEquals(0, pr.getPrStats().getIndexBucketsToPopulate());
+    SelectResults results = (SelectResults) qs
+        .newQuery("select * from " + pr.getFullPath() + " where intValue < 10").execute();
+    assertEquals(10, results.size());
+  }
+
   private void validateOverflowStats(PartitionedRegion pr) throws Exception {
     Statistics stats = pr.getPrStats().getStats();
     DiskRegionStats diskStats = pr.getDiskRegionStats();
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.util.concurrent.PrimitiveKeyConcurrentHashMap;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests which regions store their entries in a {@link PrimitiveKeyConcurrentHashMap}.
+ */
+@Category(IntegrationTest.class)
+public class PrimitiveKeyRegionMapIntegrationTest {
+
+  static {
+    // AbstractRegionMap reads this once when it is loaded, and each integration test class gets
+    // its own JVM
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "PRIMITIVE_KEY_MAPS",
+        "/ints, /partitioned");
+  }
+
+  private Cache cache;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void onlyListedRegionsUsePrimitiveKeyMaps() {
+    Region<Integer, String> ints = cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL)
+        .setKeyConstraint(Integer.class).setLoadFactor(1.5f).create("ints");
+    Region<Integer, String> others = cache
+        .<Integer, String>createRegionFactory(RegionShortcut.LOCAL)
+        .setKeyConstraint(Integer.class).create("others");
+
+    assertThat(getMap(ints)).isInstanceOf(PrimitiveKeyConcurrentHashMap.class);
+    assertThat(getMap(others)).isNotInstanceOf(PrimitiveKeyConcurrentHashMap.class);
+
+    for (int i = 0; i < 1000; i++) {
+      ints.put(i, String.valueOf(i));
+    }
+    assertThat(ints.size()).isEqualTo(1000);
+    assertThat(ints.get(999)).isEqualTo("999");
+  }
+
+  @Test
+  public void listedRegionWithoutPrimitiveKeyConstraintUsesStandardMap() {
+    Region<String, String> region = cache.<String, String>createRegionFactory(RegionShortcut.LOCAL)
+        .setKeyConstraint(String.class).create("ints");
+
+    assertThat(getMap(region)).isNotInstanceOf(PrimitiveKeyConcurrentHashMap.class);
+  }
+
+  @Test
+  public void bucketsFollowThePathOfTheirPartitionedRegion() {
+    PartitionedRegion region =
+        (PartitionedRegion) cache.<Long, String>createRegionFactory(RegionShortcut.PARTITION)
+            .setKeyConstraint(Long.class).create("partitioned");
+    region.put(1L, "one");
+
+    BucketRegion bucket = region.getDataStore().getAllLocalBucketRegions().iterator().next();
+    assertThat(getMap(bucket)).isInstanceOf(PrimitiveKeyConcurrentHashMap.class);
+    assertThat(region.get(1L)).isEqualTo("one");
+  }
+
+  private static Object getMap(Region<?, ?> region) {
+    return ((AbstractRegionMap) ((LocalRegion) region).getRegionMap())._getMap();
+  }
+}
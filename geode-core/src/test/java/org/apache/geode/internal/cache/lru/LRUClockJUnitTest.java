@@ -241,6 +241,40 @@ public class LRUClockJUnitTest {
     assertEquals(null, clock.getLRUEntry());
   }
 
+  @Test
+  public void testStripedClockReturnsEachLiveEntryOnce() throws Exception {
+    NewLRUClockHand clock =
+        new NewStripedLRUClockHand(getARegion(), new TestEnableLRU(), new InternalRegionArguments(),
+            8);
+    LRUTestEntry[] nodes = new LRUTestEntry[1000];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = getANode(i);
+      clock.appendEntry(nodes[i]);
+    }
+    assertEquals(1000, clock.size());
+
+    for (int i = 0; i < nodes.length; i += 3) {
+      clock.unlinkEntry(nodes[i]);
+    }
+    for (int i = 1; i < nodes.length; i += 3) {
+      nodes[i].setRecentlyUsed();
+    }
+    assertEquals(666, clock.size());
+    assertEquals(666, clock.getExpensiveListCount());
+
+    boolean[] returned = new boolean[nodes.length];
+    LRUTestEntry n;
+    while ((n = (LRUTestEntry) clock.getLRUEntry()) != null) {
+      assertFalse("node " + n.id() + " was unlinked", n.id() % 3 == 0);
+      assertFalse("node " + n.id() + " was returned twice", returned[n.id()]);
+      returned[n.id()] = true;
+    }
+    for (int i = 0; i < nodes.length; i++) {
+      assertEquals("node " + i, i % 3 != 0, returned[i]);
+    }
+    assertEquals(0, clock.size());
+  }
+
   /** manufacture a node so that a shared type can be used by SharedLRUClockTest. */
   private LRUTestEntry getANode(int id) {
     return new LocalLRUTestEntry(id);
@@ -370,6 +404,7 @@ public class LRUClockJUnitTest {
       final String lruEvictionsDesc = "Number of total entry evictions triggered by LRU.";
       final String lruEvaluationsDesc = "Number of entries evaluated during LRU operations.";
       final String lruGreedyReturnsDesc = "Number of non-LRU entries evicted during LRU operations";
+      final String lruLockContentionsDesc = "Number of waits for a striped LRU list lock.";
       final String lruDestroysDesc = "Number of entry destroys triggered by LRU.";
       final String lruDestroysLimitDesc =
           "Maximum number of entry destroys triggered by LRU before scan occurs.";
@@ -382,7 +417,8 @@ public class LRUClockJUnitTest {
               f.createLongCounter("lruEvaluations", lruEvaluationsDesc, "entries"),
               f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
               f.createLongCounter("lruDestroys", lruDestroysDesc, "entries"),
-              f.createLongCounter("lruDestroysLimit", lruDestroysLimitDesc, "entries"),});
+              f.createLongCounter("lruDestroysLimit", lruDestroysLimitDesc, "entries"),
+              f.createLongCounter("lruLockContentions", lruLockContentionsDesc, "operations"),});
     }
 
     @Override
@@ -459,6 +495,11 @@ public class LRUClockJUnitTest {
       return statType.nameToId("lruGreedyReturns");
     }
 
+    @Override
+    public int getLockContentionsStatId() {
+      return statType.nameToId("lruLockContentions");
+    }
+
     @Override
     public boolean mustEvict(LRUStatistics stats, Region region, int delta) {
       throw new UnsupportedOperationException("Not implemented");
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Only runs where direct I/O is available: Java 10 or later on a file system that supports it.
+ */
+@Category(IntegrationTest.class)
+public class DirectFileWriterIntegrationTest {
+
+  @Rule
+  public TemporaryFolder tempDir = new TemporaryFolder();
+
+  private File file;
+
+  private DirectFileWriter writer;
+
+  @Before
+  public void setUp() throws Exception {
+    file = tempDir.newFile();
+    writer = DirectFileWriter.open(file, false);
+    assumeNotNull(writer);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (writer != null) {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void appendsUnalignedWrites() throws Exception {
+    byte[] expected = randomBytes(10000);
+
+    int position = 0;
+    for (int length : new int[] {1, 100, 4095, 3, 5000, 801}) {
+      writer.write(ByteBuffer.wrap(expected, position, length), position);
+      position += length;
+    }
+
+    assertThat(Arrays.copyOf(Files.readAllBytes(file.toPath()), expected.length))
+        .isEqualTo(expected);
+  }
+
+  @Test
+  public void writesLargerThanBuffer() throws Exception {
+    byte[] expected = randomBytes(1024 * 1024 + 17);
+    ByteBuffer src = ByteBuffer.allocateDirect(expected.length);
+    src.put(expected).flip();
+
+    assertThat(writer.write(src, 0)).isEqualTo(expected.length);
+
+    assertThat(src.hasRemaining()).isFalse();
+    assertThat(Arrays.copyOf(Files.readAllBytes(file.toPath()), expected.length))
+        .isEqualTo(expected);
+  }
+
+  @Test
+  public void overwriteKeepsSurroundingBytes() throws Exception {
+    byte[] expected = randomBytes(3 * writer.getBlockSize());
+    writer.write(ByteBuffer.wrap(expected), 0);
+    // write something else so the first block is no longer the last one written
+    writer.write(ByteBuffer.wrap(new byte[] {1}), expected.length);
+
+    byte[] update = randomBytes(10);
+    System.arraycopy(update, 0, expected, 7, update.length);
+    writer.write(ByteBuffer.wrap(update), 7);
+
+    assertThat(Arrays.copyOf(Files.readAllBytes(file.toPath()), expected.length))
+        .isEqualTo(expected);
+  }
+
+  @Test
+  public void gatheringWriteWritesBuffersInOrder() throws Exception {
+    byte[] first = randomBytes(33);
+    byte[] second = randomBytes(5000);
+
+    long written =
+        writer.write(new ByteBuffer[] {ByteBuffer.wrap(first), ByteBuffer.wrap(second)}, 0, 2, 5);
+
+    assertThat(written).isEqualTo(first.length + second.length);
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    assertThat(Arrays.copyOfRange(bytes, 5, 5 + first.length)).isEqualTo(first);
+    assertThat(Arrays.copyOfRange(bytes, 5 + first.length, 5 + first.length + second.length))
+        .isEqualTo(second);
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -102,6 +102,17 @@ public class UnixScriptGeneratorTest {
         + RestoreScript.REFUSE_TO_OVERWRITE_MESSAGE + file + "' && exit 1 ");
   }
 
+  @Test
+  public void writeLengthTest() throws Exception {
+    File file = new File("dir0", "BACKUPds_1.crf");
+    scriptGenerator.writeLengthTest(writer, file, 1234);
+    writer.flush();
+    List<String> output = Files.readAllLines(outputFile.toPath());
+    assertThat(output).hasSize(1);
+    assertThat(output).containsExactly("test `wc -c < '" + file + "'` -eq 1234 || { echo '"
+        + RestoreScript.DAMAGED_BACKUP_MESSAGE + file + "'; exit 1; }");
+  }
+
   @Test
   public void writeExitTest() throws Exception {
     scriptGenerator.writeExit(writer);
@@ -102,6 +102,18 @@ public class WindowsScriptGeneratorTest {
         + RestoreScript.REFUSE_TO_OVERWRITE_MESSAGE + file + "\" && exit /B 1 ");
   }
 
+  @Test
+  public void writeLengthTest() throws Exception {
+    File file = new File("dir0", "BACKUPds_1.crf");
+    scriptGenerator.writeLengthTest(writer, file, 1234);
+    writer.flush();
+    List<String> output = Files.readAllLines(outputFile.toPath());
+    assertThat(output).hasSize(1);
+    assertThat(output).containsExactly("FOR %%F IN (\"" + file
+        + "\") DO IF NOT \"%%~zF\"==\"1234\" echo \"" + RestoreScript.DAMAGED_BACKUP_MESSAGE + file
+        + "\" && exit /B 1 ");
+  }
+
   @Test
   public void writeExitTest() throws Exception {
     scriptGenerator.writeExit(writer);
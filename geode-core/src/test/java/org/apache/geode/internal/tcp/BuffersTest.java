@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.distributed.internal.DMStats;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class BuffersTest {
+
+  private boolean useDirectBuffers;
+
+  private DMStats stats;
+
+  @Before
+  public void setUp() {
+    useDirectBuffers = TCPConduit.useDirectBuffers;
+    TCPConduit.useDirectBuffers = true;
+    stats = mock(DMStats.class);
+  }
+
+  @After
+  public void tearDown() {
+    TCPConduit.useDirectBuffers = useDirectBuffers;
+  }
+
+  @Test
+  public void bufferIsRoundedUpToSizeClass() {
+    ByteBuffer bb = Buffers.acquireReceiveBuffer(5000, stats);
+
+    assertThat(bb.isDirect()).isTrue();
+    assertThat(bb.capacity()).isEqualTo(8192);
+    assertThat(bb.limit()).isEqualTo(5000);
+    assertThat(bb.position()).isEqualTo(0);
+
+    Buffers.releaseReceiveBuffer(bb, stats);
+  }
+
+  @Test
+  public void releasedBufferIsReused() {
+    ByteBuffer bb = Buffers.acquireSenderBuffer(100000, stats);
+    bb.position(10);
+    Buffers.releaseSenderBuffer(bb, stats);
+
+    ByteBuffer reused = Buffers.acquireSenderBuffer(70000, stats);
+
+    assertThat(reused).isSameAs(bb);
+    assertThat(reused.position()).isEqualTo(0);
+    assertThat(reused.limit()).isEqualTo(70000);
+    verify(stats).incBufferPoolHits();
+
+    Buffers.releaseSenderBuffer(reused, stats);
+  }
+
+  @Test
+  public void buffersTooLargeToPoolAreNotReused() {
+    int size = (int) Math.min(Buffers.MAX_POOLED_BYTES / 4 + 1, 17 * 1024 * 1024);
+    ByteBuffer bb = Buffers.acquireReceiveBuffer(size, stats);
+    assertThat(bb.capacity()).isEqualTo(size);
+    Buffers.releaseReceiveBuffer(bb, stats);
+
+    ByteBuffer next = Buffers.acquireReceiveBuffer(size, stats);
+
+    assertThat(next).isNotSameAs(bb);
+  }
+}
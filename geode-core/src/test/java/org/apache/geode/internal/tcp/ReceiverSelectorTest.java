@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class ReceiverSelectorTest {
+
+  private ServerSocketChannel server;
+
+  private SocketChannel sender;
+
+  private SocketChannel receiverChannel;
+
+  private ReceiverSelector selector;
+
+  private Connection receiver;
+
+  @Before
+  public void setUp() throws Exception {
+    server = ServerSocketChannel.open();
+    server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    sender = SocketChannel.open(server.getLocalAddress());
+    receiverChannel = server.accept();
+    receiverChannel.configureBlocking(false);
+
+    receiver = mock(Connection.class);
+    when(receiver.getSocket()).thenReturn(receiverChannel.socket());
+
+    selector = new ReceiverSelector(Thread.currentThread().getThreadGroup(), 1);
+    selector.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    selector.close();
+    sender.close();
+    receiverChannel.close();
+    server.close();
+  }
+
+  @Test
+  public void resumesReaderWhenSocketIsReadable() throws Exception {
+    selector.park(receiver);
+    verify(receiver, after(200).never()).resumeReader();
+
+    sender.write(ByteBuffer.wrap(new byte[] {1}));
+
+    verify(receiver, timeout(10000)).resumeReader();
+  }
+
+  @Test
+  public void resumesReaderWhenSocketIsClosedByPeer() throws Exception {
+    selector.park(receiver);
+
+    sender.close();
+
+    verify(receiver, timeout(10000)).resumeReader();
+  }
+
+  @Test
+  public void resumesParkedReadersWhenClosed() throws Exception {
+    selector.park(receiver);
+    verify(receiver, after(200).never()).resumeReader();
+
+    selector.close();
+
+    verify(receiver, timeout(10000)).resumeReader();
+  }
+}
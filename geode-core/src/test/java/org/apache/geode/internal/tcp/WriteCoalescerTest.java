@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.distributed.internal.DMStats;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class WriteCoalescerTest {
+
+  private static final int THREADS = 8;
+
+  private static final int MESSAGES_PER_THREAD = 500;
+
+  private Object outLock;
+
+  private WriteCoalescer coalescer;
+
+  private DMStats stats;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    outLock = new Object();
+    coalescer = new WriteCoalescer(outLock);
+    stats = mock(DMStats.class);
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void concurrentWritesAreWrittenWhole() throws Exception {
+    TrickleChannel channel = new TrickleChannel();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      final byte id = (byte) t;
+      futures.add(executor.submit(() -> {
+        start.await();
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+          buffer.clear();
+          while (buffer.hasRemaining()) {
+            buffer.put(id);
+          }
+          buffer.flip();
+          coalescer.write(channel, buffer, stats);
+          assertThat(buffer.hasRemaining()).isFalse();
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get();
+    }
+
+    byte[] written = channel.getBytes();
+    assertThat(written).hasSize(THREADS * MESSAGES_PER_THREAD * 10);
+    int[] counts = new int[THREADS];
+    for (int i = 0; i < written.length; i += 10) {
+      for (int j = 1; j < 10; j++) {
+        assertThat(written[i + j]).isEqualTo(written[i]);
+      }
+      counts[written[i]]++;
+    }
+    for (int count : counts) {
+      assertThat(count).isEqualTo(MESSAGES_PER_THREAD);
+    }
+  }
+
+  @Test
+  public void writeFailureIsThrown() throws Exception {
+    TrickleChannel channel = new TrickleChannel();
+    channel.failure = new IOException("broken pipe");
+
+    assertThatThrownBy(() -> coalescer.write(channel, ByteBuffer.allocate(5), stats))
+        .isSameAs(channel.failure);
+  }
+
+  @Test
+  public void unexpectedWriteFailureFailsAllQueuedWrites() throws Exception {
+    TrickleChannel channel = new TrickleChannel();
+    channel.unexpected = new IllegalStateException("unexpected");
+    CountDownLatch queued = new CountDownLatch(3);
+    doAnswer(invocation -> {
+      queued.countDown();
+      return 0L;
+    }).when(stats).startSocketLock();
+
+    List<Future<?>> futures = new ArrayList<>();
+    synchronized (outLock) {
+      // keep the lock until all three messages are queued so one thread takes all of them
+      for (int t = 0; t < 3; t++) {
+        futures.add(executor.submit(() -> {
+          coalescer.write(channel, ByteBuffer.allocate(5), stats);
+          return null;
+        }));
+      }
+      assertThat(queued.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    int thrown = 0;
+    for (Future<?> future : futures) {
+      Throwable failure = null;
+      try {
+        future.get(10, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        failure = e.getCause();
+      }
+      if (failure == channel.unexpected) {
+        thrown++;
+      } else {
+        assertThat(failure).isInstanceOf(IOException.class);
+        assertThat(failure.getCause()).isSameAs(channel.unexpected);
+      }
+    }
+    // the thread that wrote the batch throws what the channel threw
+    assertThat(thrown).isEqualTo(1);
+  }
+
+  /**
+   * Writes at most a few bytes per call so that gathering writes need several calls.
+   */
+  private static class TrickleChannel implements GatheringByteChannel {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private volatile IOException failure;
+
+    private volatile RuntimeException unexpected;
+
+    synchronized byte[] getBytes() {
+      return bytes.toByteArray();
+    }
+
+    @Override
+    public synchronized long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+      if (failure != null) {
+        throw failure;
+      }
+      if (unexpected != null) {
+        throw unexpected;
+      }
+      int budget = 17;
+      long written = 0;
+      for (int i = offset; i < offset + length && budget > 0; i++) {
+        while (srcs[i].hasRemaining() && budget > 0) {
+          bytes.write(srcs[i].get());
+          budget--;
+          written++;
+        }
+      }
+      return written;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+      return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      return (int) write(new ByteBuffer[] {src});
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
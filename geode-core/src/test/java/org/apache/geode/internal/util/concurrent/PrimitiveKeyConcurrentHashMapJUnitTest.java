@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.util.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.util.concurrent.PrimitiveKeyConcurrentHashMap.KeyType;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class PrimitiveKeyConcurrentHashMapJUnitTest {
+
+  @Test
+  public void behavesLikeHashMapUnderRandomOperations() {
+    PrimitiveKeyConcurrentHashMap<Integer, String> map =
+        new PrimitiveKeyConcurrentHashMap<>(KeyType.INT, 4, 0.75f, 4);
+    Map<Integer, String> expected = new HashMap<>();
+    Random random = new Random(17);
+
+    for (int i = 0; i < 200000; i++) {
+      int key = random.nextInt(2000) - 1000;
+      switch (random.nextInt(4)) {
+        case 0:
+        case 1:
+          String value = String.valueOf(random.nextInt());
+          assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+          break;
+        case 2:
+          assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+          break;
+        default:
+          assertThat(map.get(key)).isEqualTo(expected.get(key));
+      }
+    }
+
+    assertThat(map.size()).isEqualTo(expected.size());
+    assertThat(map).isEqualTo(expected);
+  }
+
+  @Test
+  public void conditionalOperationsHonorExpectedValue() {
+    PrimitiveKeyConcurrentHashMap<Long, String> map =
+        new PrimitiveKeyConcurrentHashMap<>(KeyType.LONG);
+
+    assertThat(map.putIfAbsent(1L, "a")).isNull();
+    assertThat(map.putIfAbsent(1L, "b")).isEqualTo("a");
+    assertThat(map.replace(1L, "b", "c")).isFalse();
+    assertThat(map.replace(1L, "a", "c")).isTrue();
+    assertThat(map.remove(1L, "a")).isFalse();
+    assertThat(map.remove(1L, "c")).isTrue();
+    assertThat(map).isEmpty();
+  }
+
+  @Test
+  public void keysOfOtherTypesAreNeverPresent() {
+    PrimitiveKeyConcurrentHashMap<Object, String> map =
+        new PrimitiveKeyConcurrentHashMap<>(KeyType.INT);
+    map.put(1, "a");
+
+    assertThat(map.get(1L)).isNull();
+    assertThat(map.remove("1")).isNull();
+    assertThat(map.keySet()).containsExactly(1);
+    assertThatThrownBy(() -> map.put(1L, "b")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void iteratorRemoveRemovesFromMap() {
+    PrimitiveKeyConcurrentHashMap<Integer, Integer> map =
+        new PrimitiveKeyConcurrentHashMap<>(KeyType.INT);
+    for (int i = 0; i < 1000; i++) {
+      map.put(i, i);
+    }
+
+    int count = 0;
+    Iterator<Map.Entry<Integer, Integer>> iterator =
+        map.entrySetWithReusableEntries().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Integer, Integer> entry = iterator.next();
+      assertThat(entry.getValue()).isEqualTo(entry.getKey());
+      iterator.remove();
+      count++;
+    }
+
+    assertThat(count).isEqualTo(1000);
+    assertThat(map).isEmpty();
+  }
+
+  @Test
+  public void loadFactorOfOneOrMoreIsLowered() {
+    for (float loadFactor : new float[] {1f, 4f}) {
+      PrimitiveKeyConcurrentHashMap<Integer, Integer> map =
+          new PrimitiveKeyConcurrentHashMap<>(KeyType.INT, 4, loadFactor, 4);
+      for (int i = 0; i < 10000; i++) {
+        map.put(i, i);
+      }
+
+      assertThat(map.size()).isEqualTo(10000);
+      for (int i = 0; i < 10000; i++) {
+        assertThat(map.get(i)).isEqualTo(i);
+      }
+      assertThat(map.get(10000)).isNull();
+    }
+  }
+
+  @Test
+  public void iteratorSeesUnchangedEntriesExactlyOnceDuringConcurrentPutsAndRemoves()
+      throws Exception {
+    PrimitiveKeyConcurrentHashMap<Integer, Integer> map =
+        new PrimitiveKeyConcurrentHashMap<>(KeyType.INT, 4, 0.75f, 4);
+    // keys below 1000 are never changed, the writers add and remove the others
+    for (int i = 0; i < 1000; i++) {
+      map.put(i, i);
+    }
+    AtomicBoolean done = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        final int seed = t;
+        writers.add(executor.submit(() -> {
+          Random random = new Random(seed);
+          while (!done.get()) {
+            int key = 1000 + random.nextInt(5000);
+            if (random.nextBoolean()) {
+              map.put(key, key);
+            } else {
+              map.remove(key);
+            }
+          }
+          return null;
+        }));
+      }
+
+      for (int pass = 0; pass < 200; pass++) {
+        Set<Integer> seen = new HashSet<>();
+        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+          assertThat(seen.add(entry.getKey())).as("duplicate " + entry.getKey()).isTrue();
+          assertThat(entry.getValue()).isEqualTo(entry.getKey());
+        }
+        for (int i = 0; i < 1000; i++) {
+          assertThat(seen.contains(i)).as("missing " + i).isTrue();
+        }
+      }
+
+      done.set(true);
+      for (Future<?> writer : writers) {
+        writer.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      done.set(true);
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void iteratorReturnsRestOfSegmentOnceAfterRemovesAndResizeBehindIt() {
+    PrimitiveKeyConcurrentHashMap<Integer, Integer> map =
+        new PrimitiveKeyConcurrentHashMap<>(KeyType.INT, 16, 0.75f, 1);
+    for (int i = 0; i < 1000; i++) {
+      map.put(i, i);
+    }
+
+    Set<Integer> seen = new HashSet<>();
+    Iterator<Map.Entry<Integer, Integer>> iterator = map.entrySet().iterator();
+    for (int i = 0; i < 500; i++) {
+      seen.add(iterator.next().getKey());
+    }
+    // removing returned entries shifts later ones back, and the puts resize the table
+    for (int key : seen) {
+      if (key % 2 == 0) {
+        map.remove(key);
+      }
+    }
+    for (int i = 1000; i < 5000; i++) {
+      map.put(i, i);
+    }
+    while (iterator.hasNext()) {
+      Integer key = iterator.next().getKey();
+      assertThat(seen.add(key)).as("duplicate " + key).isTrue();
+    }
+
+    for (int i = 0; i < 1000; i++) {
+      assertThat(seen.contains(i)).as("missing " + i).isTrue();
+    }
+  }
+
+  @Test
+  public void forKeyConstraintOnlyAcceptsIntegerAndLong() {
+    assertThat(KeyType.forKeyConstraint(Integer.class)).isEqualTo(KeyType.INT);
+    assertThat(KeyType.forKeyConstraint(Long.class)).isEqualTo(KeyType.LONG);
+    assertThat(KeyType.forKeyConstraint(String.class)).isNull();
+    assertThat(KeyType.forKeyConstraint(null)).isNull();
+  }
+}
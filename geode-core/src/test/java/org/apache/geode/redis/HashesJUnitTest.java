@@ -21,6 +21,7 @@ import org.apache.geode.test.junit.categories.FlakyTest;
 import org.apache.geode.test.junit.categories.IntegrationTest;
 
 import org.apache.geode.redis.GeodeRedisServer;
+import org.apache.geode.redis.internal.ZipList;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -30,6 +31,11 @@ import redis.clients.jedis.Jedis;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.geode.distributed.ConfigurationProperties.*;
 import static org.junit.Assert.*;
@@ -130,6 +136,55 @@ public class HashesJUnitTest {
     assertTrue(retSet.containsAll(keys));
   }
 
+  @Test
+  public void testConcurrentHSetWhileKeyOutgrowsCompactEncoding() throws Exception {
+    int writers = 4;
+    int fields = ZipList.MAX_ENTRIES + 10;
+    ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+    try {
+      for (int round = 0; round < 20; round++) {
+        String key = "concurrent" + round;
+        Map<String, String> hash = new HashMap<String, String>();
+        for (int i = 0; i < fields; i++) {
+          hash.put("field" + i, "value" + i);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        // one client creates the key already too large for the encoding while the others race to
+        // create it with a single field
+        futures.add(executor.submit(() -> {
+          try (Jedis client = new Jedis("localhost", port, 10000000)) {
+            start.await();
+            client.hmset(key, hash);
+          }
+          return null;
+        }));
+        for (int w = 0; w < writers; w++) {
+          String field = "writer" + w;
+          futures.add(executor.submit(() -> {
+            try (Jedis client = new Jedis("localhost", port, 10000000)) {
+              start.await();
+              client.hset(key, field, field);
+            }
+            return null;
+          }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+          future.get(60, TimeUnit.SECONDS);
+        }
+
+        assertEquals(new Long(fields + writers), jedis.hlen(key));
+        Map<String, String> all = jedis.hgetAll(key);
+        for (int w = 0; w < writers; w++) {
+          assertEquals("writer" + w, all.get("writer" + w));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Category(FlakyTest.class) // GEODE-1942
   @Test
   public void testHIncrBy() {
@@ -26,6 +26,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisDataException;
 
 import java.io.IOException;
 import java.util.*;
@@ -286,6 +288,66 @@ public class StringsJunitTest {
     assertNull(result);
   }
 
+  @Test
+  public void testPipelinedSetToHashKeyFailsLikeUnpipelined() {
+    String hashKey = randString();
+    jedis.hset(hashKey, "field", "value");
+    String expected = null;
+    try {
+      jedis.set(hashKey, "value");
+      fail("SET of a hash key should fail");
+    } catch (JedisDataException e) {
+      expected = e.getMessage();
+    }
+
+    String before = randString();
+    String after = randString();
+    Pipeline p = jedis.pipelined();
+    p.set(before, "1");
+    p.set(hashKey, "2");
+    p.set(after, "3");
+    List<Object> responses = p.syncAndReturnAll();
+
+    assertEquals("OK", responses.get(0));
+    assertTrue(responses.get(1) instanceof JedisDataException);
+    assertEquals(expected, ((JedisDataException) responses.get(1)).getMessage());
+    assertEquals("OK", responses.get(2));
+    assertEquals("1", jedis.get(before));
+    assertEquals("3", jedis.get(after));
+    assertEquals("value", jedis.hget(hashKey, "field"));
+  }
+
+  @Test
+  public void testMixedPipelineRespondsInOrder() {
+    String hashKey = randString();
+    jedis.hset(hashKey, "field", "value");
+    String counter = randString();
+    int n = 100;
+    String[] keys = new String[n];
+    Pipeline p = jedis.pipelined();
+    for (int i = 0; i < n; i++) {
+      keys[i] = randString();
+      p.set(keys[i], String.valueOf(i));
+      p.set(keys[i], String.valueOf(i + 1));
+      if (i % 10 == 0)
+        p.set(hashKey, "value");
+      p.incr(counter);
+      p.get(keys[i]);
+    }
+    List<Object> responses = p.syncAndReturnAll();
+
+    Iterator<Object> it = responses.iterator();
+    for (int i = 0; i < n; i++) {
+      assertEquals("OK", it.next());
+      assertEquals("OK", it.next());
+      if (i % 10 == 0)
+        assertTrue(it.next() instanceof JedisDataException);
+      assertEquals(Long.valueOf(i + 1), it.next());
+      assertEquals(String.valueOf(i + 1), it.next());
+    }
+    assertFalse(it.hasNext());
+  }
+
   private String randString() {
     return Long.toHexString(Double.doubleToLongBits(Math.random()));
   }
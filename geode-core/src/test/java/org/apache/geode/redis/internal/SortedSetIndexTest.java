@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.redis.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.AttributesMutator;
+import org.apache.geode.cache.Region;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class SortedSetIndexTest {
+
+  private Map<ByteArrayWrapper, DoubleWrapper> data;
+  private Region<ByteArrayWrapper, DoubleWrapper> region;
+  private SortedSetIndex index;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    data = new HashMap<>();
+    region = mock(Region.class);
+    when(region.getAttributesMutator()).thenReturn(mock(AttributesMutator.class));
+    when(region.keySet()).thenAnswer(invocation -> data.keySet());
+    when(region.entrySet()).thenAnswer(invocation -> data.entrySet());
+    when(region.getEntry(any())).thenAnswer(invocation -> {
+      DoubleWrapper value = data.get(invocation.getArguments()[0]);
+      if (value == null) {
+        return null;
+      }
+      Region.Entry<ByteArrayWrapper, DoubleWrapper> entry = mock(Region.Entry.class);
+      when(entry.getValue()).thenReturn(value);
+      return entry;
+    });
+    index = SortedSetIndex.create(region);
+  }
+
+  @Test
+  public void ranksByScoreThenMember() {
+    put("c", 1);
+    put("b", 2);
+    put("a", 2);
+
+    assertThat(index.rank(member("c"), false)).isEqualTo(0);
+    assertThat(index.rank(member("a"), false)).isEqualTo(1);
+    assertThat(index.rank(member("b"), false)).isEqualTo(2);
+    assertThat(index.rank(member("b"), true)).isEqualTo(0);
+    assertThat(index.rank(member("missing"), false)).isEqualTo(-1);
+  }
+
+  @Test
+  public void followsUpdatesAndRemovals() {
+    put("a", 1);
+    put("b", 2);
+    put("a", 3);
+    assertThat(members(index.rangeByRank(0, 1, false))).containsExactly("b", "a");
+
+    data.remove(member("b"));
+    index.refresh(member("b"));
+    assertThat(index.size()).isEqualTo(1);
+    assertThat(members(index.rangeByRank(0, 0, false))).containsExactly("a");
+  }
+
+  @Test
+  public void rangesByRankInBothDirections() {
+    for (int i = 0; i < 10; i++) {
+      put("m" + i, i);
+    }
+
+    assertThat(members(index.rangeByRank(2, 4, false))).containsExactly("m2", "m3", "m4");
+    assertThat(members(index.rangeByRank(2, 4, true))).containsExactly("m7", "m6", "m5");
+    assertThat(index.rangeByRank(10, 12, false)).isEmpty();
+  }
+
+  @Test
+  public void countsAndRangesByScore() {
+    for (int i = 0; i < 10; i++) {
+      put("m" + i, i);
+    }
+
+    assertThat(index.countByScore(2, true, 5, true)).isEqualTo(4);
+    assertThat(index.countByScore(2, false, 5, false)).isEqualTo(2);
+    assertThat(index.countByScore(Double.NEGATIVE_INFINITY, true, Double.POSITIVE_INFINITY, true))
+        .isEqualTo(10);
+    assertThat(members(index.rangeByScore(2, true, 8, true, 1, 3, false)))
+        .containsExactly("m3", "m4", "m5");
+    assertThat(members(index.rangeByScore(2, true, 8, false, 0, -1, true)))
+        .containsExactly("m7", "m6", "m5", "m4", "m3", "m2");
+  }
+
+  @Test
+  public void countsAndRangesByLex() {
+    for (String m : new String[] {"a", "b", "c", "d", "e"}) {
+      put(m, 0);
+    }
+
+    assertThat(index.countByLex(member("b"), true, member("d"), false)).isEqualTo(2);
+    assertThat(index.countByLex(null, false, null, false)).isEqualTo(5);
+    assertThat(index.rangeByLex(member("b"), false, null, false, 0, -1))
+        .extracting(ByteArrayWrapper::toString).containsExactly("c", "d", "e");
+    assertThat(index.rangeByLex(null, false, member("d"), true, 1, 2))
+        .extracting(ByteArrayWrapper::toString).containsExactly("b", "c");
+  }
+
+  @Test
+  public void snapshotHoldsCurrentEntriesOnly() {
+    put("a", 2);
+    put("b", 1);
+    SortedSetIndex snapshot = SortedSetIndex.snapshot(region);
+
+    data.put(member("c"), new DoubleWrapper(0d));
+    assertThat(members(snapshot.rangeByRank(0, 2, false))).containsExactly("b", "a");
+    assertThat(snapshot.rank(member("c"), false)).isEqualTo(-1);
+  }
+
+  private void put(String member, double score) {
+    data.put(member(member), new DoubleWrapper(score));
+    index.refresh(member(member));
+  }
+
+  private static ByteArrayWrapper member(String member) {
+    return Coder.stringToByteArrayWrapper(member);
+  }
+
+  private static List<String> members(List<Entry<ByteArrayWrapper, DoubleWrapper>> entries) {
+    List<String> result = new ArrayList<>();
+    for (Entry<ByteArrayWrapper, DoubleWrapper> entry : entries) {
+      result.add(entry.getKey().toString());
+    }
+    return result;
+  }
+}
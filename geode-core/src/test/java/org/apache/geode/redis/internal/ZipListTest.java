@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.redis.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class ZipListTest {
+
+  private static ByteArrayWrapper wrap(String value) {
+    return new ByteArrayWrapper(Coder.stringToBytes(value));
+  }
+
+  @Test
+  public void decodeReturnsEncodedElementsInOrder() {
+    List<ByteArrayWrapper> elements = Arrays.asList(wrap("a"), wrap(""), wrap("ccc"), wrap("a"));
+
+    ZipList zipList = ZipList.encode(elements);
+
+    assertThat(zipList.size()).isEqualTo(4);
+    assertThat(zipList.decode()).containsExactlyElementsOf(elements);
+  }
+
+  @Test
+  public void encodesEmptyList() {
+    ZipList zipList = ZipList.encode(Collections.emptyList());
+
+    assertThat(zipList.size()).isEqualTo(0);
+    assertThat(zipList.decode()).isEmpty();
+  }
+
+  @Test
+  public void encodesElementsLongerThanOneVarIntByte() {
+    byte[] large = new byte[300];
+    Arrays.fill(large, (byte) 7);
+    List<ByteArrayWrapper> elements = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      elements.add(i % 2 == 0 ? new ByteArrayWrapper(large) : wrap(String.valueOf(i)));
+    }
+
+    ZipList zipList = ZipList.encode(elements);
+
+    assertThat(zipList.size()).isEqualTo(200);
+    assertThat(zipList.decode()).containsExactlyElementsOf(elements);
+  }
+
+  @Test
+  public void decodeReturnsMutableCopy() {
+    ZipList zipList = ZipList.encode(Arrays.asList(wrap("a"), wrap("b")));
+
+    List<ByteArrayWrapper> decoded = zipList.decode();
+    decoded.add(wrap("c"));
+
+    assertThat(zipList.decode()).containsExactly(wrap("a"), wrap("b"));
+  }
+
+  @Test
+  public void equalEncodingsAreEqual() {
+    ZipList first = ZipList.encode(Arrays.asList(wrap("a"), wrap("b")));
+    ZipList second = ZipList.encode(Arrays.asList(wrap("a"), wrap("b")));
+    ZipList other = ZipList.encode(Arrays.asList(wrap("b"), wrap("a")));
+
+    assertThat(first).isEqualTo(second);
+    assertThat(first.hashCode()).isEqualTo(second.hashCode());
+    assertThat(first).isNotEqualTo(other);
+  }
+
+  @Test
+  public void upgradingPlaceholderKeepsElements() {
+    ZipList zipList = ZipList.encode(Arrays.asList(wrap("a"), wrap("b")));
+
+    ZipList upgrading = zipList.asUpgrading();
+
+    assertThat(zipList.isUpgrading()).isFalse();
+    assertThat(upgrading.isUpgrading()).isTrue();
+    assertThat(upgrading).isNotEqualTo(zipList);
+    assertThat(upgrading.decode()).isEqualTo(zipList.decode());
+  }
+
+  @Test
+  public void fitsChecksEntryCountAndElementLength() {
+    List<ByteArrayWrapper> elements = new ArrayList<>();
+    for (int i = 0; i < ZipList.MAX_ENTRIES; i++) {
+      elements.add(wrap("v"));
+    }
+    assertThat(ZipList.fits(elements, 1)).isTrue();
+
+    elements.add(wrap("v"));
+    assertThat(ZipList.fits(elements, 1)).isFalse();
+    assertThat(ZipList.fits(elements, 2)).isTrue();
+
+    byte[] large = new byte[ZipList.MAX_VALUE + 1];
+    assertThat(ZipList.fits(Collections.singletonList(new ByteArrayWrapper(large)), 1)).isFalse();
+  }
+
+  @Test
+  public void roundTripsThroughToDataAndFromData() throws Exception {
+    ZipList zipList = ZipList.encode(Arrays.asList(wrap("field"), wrap("value"))).asUpgrading();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    zipList.toData(new DataOutputStream(bytes));
+
+    ZipList copy = new ZipList();
+    copy.fromData(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(copy).isEqualTo(zipList);
+    assertThat(copy.isUpgrading()).isTrue();
+    assertThat(copy.decode()).isEqualTo(zipList.decode());
+  }
+}